@@ -63,7 +63,7 @@ public final class CommitClassesTask extends ClassFileProcessorTask
 {
 
     /**
-     * The directory holding the class files to commit model objects to.
+     * The directory or JAR archive holding the class files to commit model objects to.
      */
     private File classesDirectory;
 
@@ -81,9 +81,9 @@ public final class CommitClassesTask extends ClassFileProcessorTask
     }
 
     /**
-     * Gets the directory holding the class files to commit model objects to.
+     * Gets the directory or JAR archive holding the class files to commit model objects to.
      *
-     * @return The directory holding the class files to commit model objects to or {@code null}.
+     * @return The directory or JAR archive holding the class files to commit model objects to or {@code null}.
      *
      * @see #setClassesDirectory(java.io.File)
      */
@@ -93,9 +93,10 @@ public final class CommitClassesTask extends ClassFileProcessorTask
     }
 
     /**
-     * Sets the directory holding the class files to commit model objects to.
+     * Sets the directory or JAR archive holding the class files to commit model objects to.
      *
-     * @param value The new directory holding the class files to commit model objects to or {@code null}.
+     * @param value The new directory or JAR archive holding the class files to commit model objects to or
+     * {@code null}.
      *
      * @see #getClassesDirectory()
      */
@@ -85,6 +85,8 @@ import org.jomc.modlet.ModletProcessor;
 import org.jomc.modlet.ModletProvider;
 import org.jomc.modlet.ModletValidator;
 import org.jomc.modlet.ServiceFactory;
+import org.jomc.tools.JomcTool;
+import org.jomc.tools.MarshallerPool;
 import org.jomc.tools.ant.types.KeyValueType;
 import org.jomc.tools.ant.types.NameType;
 import org.jomc.tools.ant.types.PropertiesFormatType;
@@ -191,6 +193,13 @@ public class JomcTask extends Task
      */
     private ExecutorService executorService;
 
+    /**
+     * Identifier of the project reference holding the {@code MarshallerPool} shared by all tasks of a project.
+     *
+     * @since 2.0
+     */
+    private static final String MARSHALLER_POOL_REFERENCE = "org.jomc.tools.MarshallerPool";
+
     /**
      * Creates a new {@code JomcTask} instance.
      */
@@ -655,6 +664,12 @@ public class JomcTask extends Task
      * Gets a formula used to calculate the maximum number of threads to create for running tasks in parallel. If the
      * formular contains the character {@code C}, the number of threads will be calculated by multiplying the value by
      * the number of available processors. The default number of threads is the number of available processors (1.0C).
+     * <p>
+     * The value {@code virtual} runs every task in a virtual thread of its own. Processor bound sections of the tools
+     * are then limited to the number of available processors. The value {@code virtual:} followed by a formula
+     * limits processor bound sections to the number of threads calculated using that formula. Whenever virtual threads
+     * are not supported by the Java runtime, the number of available processors is used as the number of threads.
+     * </p>
      *
      * @return A formula used to calculate the number of threads.
      *
@@ -676,6 +691,8 @@ public class JomcTask extends Task
      * @param value The formula to use to calculate the maximum number of threads or {@code null}, to disable any
      * parallelism.
      *
+     * @see #getThreads()
+     *
      * @since 1.10
      */
     public final void setThreads( final String value )
@@ -693,13 +710,27 @@ public class JomcTask extends Task
      */
     protected final ExecutorService getExecutorService()
     {
+        final Integer concurrencyLimit = this.getConcurrencyLimit();
+
+        if ( this.executorService == null && concurrencyLimit != null )
+        {
+            this.executorService = JomcTool.newVirtualThreadPerTaskExecutor( "jomc-ant-tasks-" );
+
+            if ( this.executorService == null )
+            {
+                this.log( Messages.getMessage( "virtualThreadsNotSupported" ), Project.MSG_WARN );
+            }
+        }
+
         if ( this.executorService == null )
         {
             final Double parallelism =
-                this.getThreads().toLowerCase( Locale.ROOT ).contains( "c" )
-                    ? Double.valueOf( this.getThreads().toLowerCase( Locale.ROOT ).replace( "c", "" ) )
-                          * Runtime.getRuntime().availableProcessors()
-                    : Double.valueOf( this.getThreads() );
+                concurrencyLimit != null
+                    ? Double.valueOf( Runtime.getRuntime().availableProcessors() )
+                    : this.getThreads().toLowerCase( Locale.ROOT ).contains( "c" )
+                          ? Double.valueOf( this.getThreads().toLowerCase( Locale.ROOT ).replace( "c", "" ) )
+                                * Runtime.getRuntime().availableProcessors()
+                          : Double.valueOf( this.getThreads() );
 
             if ( parallelism.intValue() > 1 )
             {
@@ -745,6 +776,50 @@ public class JomcTask extends Task
         return this.executorService;
     }
 
+    /**
+     * Gets the {@code MarshallerPool} shared by all tasks of the project of the task.
+     * <p>
+     * The pool is kept as a reference of the project, so that marshallers and unmarshallers created by one task get
+     * reused by any subsequent task of the same build.
+     * </p>
+     *
+     * @return The {@code MarshallerPool} shared by all tasks of the project of the task.
+     *
+     * @since 2.0
+     */
+    protected final MarshallerPool getMarshallerPool()
+    {
+        synchronized ( this.getProject() )
+        {
+            final Object reference = this.getProject().getReference( MARSHALLER_POOL_REFERENCE );
+
+            if ( reference instanceof MarshallerPool )
+            {
+                return (MarshallerPool) reference;
+            }
+
+            final MarshallerPool marshallerPool = new MarshallerPool();
+            this.getProject().addReference( MARSHALLER_POOL_REFERENCE, marshallerPool );
+            return marshallerPool;
+        }
+    }
+
+    /**
+     * Gets the maximum number of threads concurrently running processor bound sections of the tools.
+     *
+     * @return The maximum number of threads concurrently running processor bound sections of the tools or
+     * {@code null}, if no limit has been specified.
+     *
+     * @see #getThreads()
+     * @see org.jomc.tools.JomcTool#setConcurrencyLimit(java.lang.Integer)
+     *
+     * @since 2.0
+     */
+    protected final Integer getConcurrencyLimit()
+    {
+        return JomcTool.getVirtualThreadsConcurrencyLimit( this.getThreads() );
+    }
+
     /**
      * Called by the project to let the task do its work.
      *
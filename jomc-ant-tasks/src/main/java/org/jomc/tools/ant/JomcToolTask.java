@@ -762,6 +762,8 @@ public class JomcToolTask extends JomcModelTask
         }
 
         tool.setExecutorService( this.getExecutorService() );
+        tool.setConcurrencyLimit( this.getConcurrencyLimit() );
+        tool.setMarshallerPool( this.getMarshallerPool() );
         tool.setLogLevel( Level.ALL );
         tool.setIndentation( StringEscapeUtils.unescapeJava( this.getIndentation() ) );
         tool.setInputEncoding( this.getInputEncoding() );
@@ -57,7 +57,7 @@ public final class ValidateClassesTask extends ClassFileProcessorTask
 {
 
     /**
-     * The directory holding the class files to validate model objects of.
+     * The directory or JAR archive holding the class files to validate model objects of.
      */
     private File classesDirectory;
 
@@ -70,9 +70,9 @@ public final class ValidateClassesTask extends ClassFileProcessorTask
     }
 
     /**
-     * Gets the directory holding the class files to validate model objects of.
+     * Gets the directory or JAR archive holding the class files to validate model objects of.
      *
-     * @return The directory holding the class files to validate model objects of or {@code null}.
+     * @return The directory or JAR archive holding the class files to validate model objects of or {@code null}.
      *
      * @see #setClassesDirectory(java.io.File)
      */
@@ -82,9 +82,10 @@ public final class ValidateClassesTask extends ClassFileProcessorTask
     }
 
     /**
-     * Sets the directory holding the class files to validate model objects of.
+     * Sets the directory or JAR archive holding the class files to validate model objects of.
      *
-     * @param value The new directory holding the class files to validate model objects of or {@code null}.
+     * @param value The new directory or JAR archive holding the class files to validate model objects of or
+     * {@code null}.
      *
      * @see #getClassesDirectory()
      */
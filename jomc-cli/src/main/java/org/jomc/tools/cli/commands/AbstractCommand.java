@@ -39,6 +39,7 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import org.apache.commons.cli.CommandLine;
+import org.jomc.tools.JomcTool;
 import org.jomc.tools.cli.Command;
 
 /**
@@ -243,17 +244,31 @@ public abstract class AbstractCommand implements Command
      */
     protected final ExecutorService getExecutorService( final CommandLine commandLine )
     {
-        if ( this.executorService == null )
+        final String formular =
+            commandLine.hasOption( Options.THREADS_OPTION.getOpt() )
+                ? commandLine.getOptionValue( Options.THREADS_OPTION.getOpt() ).toLowerCase( Locale.ROOT )
+                : "1.0c";
+
+        final Integer concurrencyLimit = this.getConcurrencyLimit( commandLine );
+
+        if ( this.executorService == null && concurrencyLimit != null )
         {
-            final String formular =
-                commandLine.hasOption( Options.THREADS_OPTION.getOpt() )
-                    ? commandLine.getOptionValue( Options.THREADS_OPTION.getOpt() ).toLowerCase( Locale.ROOT )
-                    : "1.0c";
+            this.executorService = JomcTool.newVirtualThreadPerTaskExecutor( "jomc-cli-" );
+
+            if ( this.executorService == null )
+            {
+                this.log( Level.WARNING, Messages.getMessage( "virtualThreadsNotSupported" ), null );
+            }
+        }
 
+        if ( this.executorService == null )
+        {
             final Double parallelism =
-                formular.contains( "c" )
-                    ? Double.valueOf( formular.replace( "c", "" ) ) * Runtime.getRuntime().availableProcessors()
-                    : Double.valueOf( formular );
+                concurrencyLimit != null
+                    ? Double.valueOf( Runtime.getRuntime().availableProcessors() )
+                    : formular.contains( "c" )
+                          ? Double.valueOf( formular.replace( "c", "" ) ) * Runtime.getRuntime().availableProcessors()
+                          : Double.valueOf( formular );
 
             if ( parallelism.intValue() > 1 )
             {
@@ -299,6 +314,32 @@ public abstract class AbstractCommand implements Command
         return this.executorService;
     }
 
+    /**
+     * Gets the maximum number of threads concurrently running processor bound sections of the tools.
+     *
+     * @param commandLine The {@code CommandLine} to get the maximum number of threads from.
+     *
+     * @return The maximum number of threads concurrently running processor bound sections of the tools or
+     * {@code null}, if no limit has been specified.
+     *
+     * @throws NullPointerException if {@code commandLine} is {@code null}.
+     *
+     * @see org.jomc.tools.JomcTool#setConcurrencyLimit(java.lang.Integer)
+     *
+     * @since 2.0
+     */
+    protected final Integer getConcurrencyLimit( final CommandLine commandLine )
+    {
+        if ( commandLine == null )
+        {
+            throw new NullPointerException( "commandLine" );
+        }
+
+        return JomcTool.getVirtualThreadsConcurrencyLimit(
+            commandLine.getOptionValue( Options.THREADS_OPTION.getOpt() ) );
+
+    }
+
     @Override
     public final int execute( final CommandLine commandLine )
     {
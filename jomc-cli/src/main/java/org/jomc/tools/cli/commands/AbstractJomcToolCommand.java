@@ -45,6 +45,7 @@ import org.jomc.model.Specification;
 import org.jomc.model.modlet.ModelHelper;
 import org.jomc.modlet.Model;
 import org.jomc.tools.JomcTool;
+import org.jomc.tools.MarshallerPool;
 
 /**
  * {@code JomcTool} based command implementation.
@@ -54,6 +55,13 @@ import org.jomc.tools.JomcTool;
 public abstract class AbstractJomcToolCommand extends AbstractModelCommand
 {
 
+    /**
+     * The {@code MarshallerPool} shared by all commands executed in a virtual machine.
+     *
+     * @since 2.0
+     */
+    private static final MarshallerPool MARSHALLER_POOL = new MarshallerPool();
+
     /**
      * Creates a new {@code AbstractJomcToolCommand} instance.
      */
@@ -150,6 +158,8 @@ public abstract class AbstractJomcToolCommand extends AbstractModelCommand
         final T tool = this.createObject( className, type );
         tool.setLogLevel( this.getLogLevel() );
         tool.setExecutorService( this.getExecutorService( commandLine ) );
+        tool.setConcurrencyLimit( this.getConcurrencyLimit( commandLine ) );
+        tool.setMarshallerPool( MARSHALLER_POOL );
         tool.setLocale( this.getLocale( commandLine ) );
         tool.getListeners().add( new JomcTool.Listener()
         {
@@ -124,6 +124,17 @@ public abstract class AbstractClassesCommitMojo extends AbstractJomcMojo
     @Parameter( name = "modelObjectStylesheetResources" )
     private List<ModelObjectStylesheetResource> modelObjectStylesheetResources;
 
+    /**
+     * JAR archive holding the class files to commit model objects to.
+     * <p>
+     * When set, the archive is updated in place instead of the class files of the project's output directory.
+     * </p>
+     *
+     * @since 2.0
+     */
+    @Parameter( name = "classesArchive" )
+    private File classesArchive;
+
     /**
      * Creates a new {@code AbstractClassesCommitMojo} instance.
      */
@@ -206,11 +217,11 @@ public abstract class AbstractClassesCommitMojo extends AbstractJomcMojo
 
                 if ( module != null )
                 {
-                    tool.commitModelObjects( module, context, this.getClassesDirectory() );
+                    tool.commitModelObjects( module, context, this.getClasses() );
 
                     if ( !transformers.isEmpty() )
                     {
-                        tool.transformModelObjects( module, context, this.getClassesDirectory(), transformers );
+                        tool.transformModelObjects( module, context, this.getClasses(), transformers );
                     }
 
                     this.logToolSuccess( TOOLNAME );
@@ -249,6 +260,21 @@ public abstract class AbstractClassesCommitMojo extends AbstractJomcMojo
      */
     protected abstract ClassLoader getClassesClassLoader() throws MojoExecutionException;
 
+    /**
+     * Gets the directory or JAR archive holding the class files to commit model objects to.
+     *
+     * @return The directory or JAR archive holding the class files to commit model objects to.
+     *
+     * @throws MojoExecutionException if getting the directory or archive fails.
+     *
+     * @see #getClassesDirectory()
+     * @since 2.0
+     */
+    protected File getClasses() throws MojoExecutionException
+    {
+        return this.classesArchive != null ? this.classesArchive : this.getClassesDirectory();
+    }
+
     /**
      * Gets the directory holding the class files to commit model objects to.
      *
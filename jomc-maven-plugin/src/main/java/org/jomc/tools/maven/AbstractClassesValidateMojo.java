@@ -36,6 +36,7 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.util.JAXBSource;
 import javax.xml.transform.Source;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
 import org.jomc.model.Module;
 import org.jomc.modlet.ModelContext;
 import org.jomc.modlet.ModelValidationReport;
@@ -56,6 +57,18 @@ public abstract class AbstractClassesValidateMojo extends AbstractJomcMojo
      */
     private static final String TOOLNAME = "ClassFileProcessor";
 
+    /**
+     * JAR archive holding the class files to validate model objects of.
+     * <p>
+     * When set, the class files of the archive are validated instead of the class files of the project's output
+     * directory.
+     * </p>
+     *
+     * @since 2.0
+     */
+    @Parameter( name = "classesArchive" )
+    private File classesArchive;
+
     /**
      * Creates a new {@code AbstractClassesValidateMojo} instance.
      */
@@ -87,7 +100,7 @@ public abstract class AbstractClassesValidateMojo extends AbstractJomcMojo
 
                 if ( module != null )
                 {
-                    validationReport = tool.validateModelObjects( module, context, this.getClassesDirectory() );
+                    validationReport = tool.validateModelObjects( module, context, this.getClasses() );
 
                     if ( validationReport != null )
                     {
@@ -136,6 +149,21 @@ public abstract class AbstractClassesValidateMojo extends AbstractJomcMojo
      */
     protected abstract ClassLoader getClassesClassLoader() throws MojoExecutionException;
 
+    /**
+     * Gets the directory or JAR archive holding the class files to validate model objects of.
+     *
+     * @return The directory or JAR archive holding the class files to validate model objects of.
+     *
+     * @throws MojoExecutionException if getting the directory or archive fails.
+     *
+     * @see #getClassesDirectory()
+     * @since 2.0
+     */
+    protected File getClasses() throws MojoExecutionException
+    {
+        return this.classesArchive != null ? this.classesArchive : this.getClassesDirectory();
+    }
+
     /**
      * Gets the directory holding the class files to validate model objects of.
      *
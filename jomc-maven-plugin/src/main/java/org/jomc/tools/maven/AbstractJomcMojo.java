@@ -101,6 +101,7 @@ import org.jomc.modlet.Modlet;
 import org.jomc.modlet.Modlets;
 import org.jomc.tools.ClassFileProcessor;
 import org.jomc.tools.JomcTool;
+import org.jomc.tools.MarshallerPool;
 import org.jomc.tools.ResourceFileProcessor;
 import org.jomc.tools.SourceFileProcessor;
 import org.jomc.tools.modlet.ToolsModelProcessor;
@@ -678,6 +679,12 @@ public abstract class AbstractJomcMojo extends AbstractMojo
      * A formula used to calculate the maximum number of threads to create for running tasks in parallel. If the
      * formular contains the character {@code C}, the number of threads will be calculated by multiplying the value by
      * the number of available processors. The default number of threads is the number of available processors (1.0C).
+     * <p>
+     * The value {@code virtual} runs every task in a virtual thread of its own. Processor bound sections of the tools
+     * are then limited to the number of available processors. The value {@code virtual:} followed by a formula
+     * limits processor bound sections to the number of threads calculated using that formula. Whenever virtual threads
+     * are not supported by the Java runtime, the number of available processors is used as the number of threads.
+     * </p>
      *
      * @since 1.10
      */
@@ -722,6 +729,13 @@ public abstract class AbstractJomcMojo extends AbstractMojo
      */
     private ExecutorService executorService;
 
+    /**
+     * The {@code MarshallerPool} shared by all executions of the plugin in a build.
+     *
+     * @since 2.0
+     */
+    private static final MarshallerPool MARSHALLER_POOL = new MarshallerPool();
+
     /**
      * Creates a new {@code AbstractJomcMojo} instance.
      */
@@ -916,15 +930,29 @@ public abstract class AbstractJomcMojo extends AbstractMojo
      */
     protected final ExecutorService getExecutorService()
     {
+        final Integer concurrencyLimit = this.getConcurrencyLimit();
+
+        if ( this.executorService == null && concurrencyLimit != null )
+        {
+            this.executorService = JomcTool.newVirtualThreadPerTaskExecutor( "jomc-maven-plugin-" );
+
+            if ( this.executorService == null )
+            {
+                this.getLog().warn( Messages.getMessage( "virtualThreadsNotSupported" ) );
+            }
+        }
+
         if ( this.executorService == null )
         {
             final Double parallelism =
-                this.threads != null
-                    ? this.threads.toLowerCase( Locale.ROOT ).contains( "c" )
-                          ? Double.valueOf( this.threads.toLowerCase( Locale.ROOT ).replace( "c", "" ) )
-                                * Runtime.getRuntime().availableProcessors()
-                          : Double.valueOf( this.threads )
-                    : 0.0D;
+                concurrencyLimit != null
+                    ? Double.valueOf( Runtime.getRuntime().availableProcessors() )
+                    : this.threads != null
+                          ? this.threads.toLowerCase( Locale.ROOT ).contains( "c" )
+                                ? Double.valueOf( this.threads.toLowerCase( Locale.ROOT ).replace( "c", "" ) )
+                                      * Runtime.getRuntime().availableProcessors()
+                                : Double.valueOf( this.threads )
+                          : 0.0D;
 
             if ( parallelism.intValue() > 1 )
             {
@@ -970,6 +998,21 @@ public abstract class AbstractJomcMojo extends AbstractMojo
         return this.executorService;
     }
 
+    /**
+     * Gets the maximum number of threads concurrently running processor bound sections of the tools.
+     *
+     * @return The maximum number of threads concurrently running processor bound sections of the tools or
+     * {@code null}, if no limit has been specified.
+     *
+     * @see org.jomc.tools.JomcTool#setConcurrencyLimit(java.lang.Integer)
+     *
+     * @since 2.0
+     */
+    protected final Integer getConcurrencyLimit()
+    {
+        return JomcTool.getVirtualThreadsConcurrencyLimit( this.threads );
+    }
+
     /**
      * Gets the Maven project of the instance.
      *
@@ -2707,6 +2750,8 @@ public abstract class AbstractJomcMojo extends AbstractMojo
             }
 
             tool.setExecutorService( this.getExecutorService() );
+            tool.setConcurrencyLimit( this.getConcurrencyLimit() );
+            tool.setMarshallerPool( MARSHALLER_POOL );
             tool.getListeners().add( new JomcTool.Listener()
             {
 
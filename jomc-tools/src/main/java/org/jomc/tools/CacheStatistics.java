@@ -0,0 +1,158 @@
+/*
+ *   Copyright (C) 2005 Christian Schulte <cs@schulte.it>
+ *   All rights reserved.
+ *
+ *   Redistribution and use in source and binary forms, with or without
+ *   modification, are permitted provided that the following conditions
+ *   are met:
+ *
+ *     o Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     o Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *
+ *   THIS SOFTWARE IS PROVIDED "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ *   INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+ *   AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ *   THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *   INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *   NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *   DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *   THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *   (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *   THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *   $JOMC$
+ *
+ */
+package org.jomc.tools;
+
+import java.io.Serializable;
+
+/**
+ * Statistics of a cache.
+ *
+ * @author <a href="mailto:cs@schulte.it">Christian Schulte</a>
+ * @version $JOMC$
+ * @since 2.0
+ */
+public final class CacheStatistics implements Serializable
+{
+
+    /**
+     * Serial version UID for backwards compatibility with 2.x object streams.
+     */
+    private static final long serialVersionUID = 4817322075486172905L;
+
+    /**
+     * The number of requests served from the cache.
+     */
+    private final long hitCount;
+
+    /**
+     * The number of requests requiring a value to be loaded.
+     */
+    private final long missCount;
+
+    /**
+     * The number of entries evicted from the cache.
+     */
+    private final long evictionCount;
+
+    /**
+     * The total number of nanoseconds spent loading values.
+     */
+    private final long totalLoadTime;
+
+    /**
+     * The number of entries of the cache.
+     */
+    private final int size;
+
+    /**
+     * Creates a new {@code CacheStatistics} instance.
+     *
+     * @param hitCount The number of requests served from the cache.
+     * @param missCount The number of requests requiring a value to be loaded.
+     * @param evictionCount The number of entries evicted from the cache.
+     * @param totalLoadTime The total number of nanoseconds spent loading values.
+     * @param size The number of entries of the cache.
+     */
+    public CacheStatistics( final long hitCount, final long missCount, final long evictionCount,
+                            final long totalLoadTime, final int size )
+    {
+        super();
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.totalLoadTime = totalLoadTime;
+        this.size = size;
+    }
+
+    /**
+     * Gets the number of requests served from the cache.
+     *
+     * @return The number of requests served from the cache.
+     */
+    public long getHitCount()
+    {
+        return this.hitCount;
+    }
+
+    /**
+     * Gets the number of requests requiring a value to be loaded.
+     *
+     * @return The number of requests requiring a value to be loaded.
+     */
+    public long getMissCount()
+    {
+        return this.missCount;
+    }
+
+    /**
+     * Gets the number of entries evicted from the cache.
+     *
+     * @return The number of entries evicted from the cache.
+     */
+    public long getEvictionCount()
+    {
+        return this.evictionCount;
+    }
+
+    /**
+     * Gets the total number of nanoseconds spent loading values.
+     *
+     * @return The total number of nanoseconds spent loading values.
+     */
+    public long getTotalLoadTime()
+    {
+        return this.totalLoadTime;
+    }
+
+    /**
+     * Gets the number of entries of the cache.
+     *
+     * @return The number of entries of the cache.
+     */
+    public int getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Creates a string representing the properties of the instance.
+     *
+     * @return A string representing the properties of the instance.
+     */
+    @Override
+    public String toString()
+    {
+        return super.toString() + "{hitCount=" + this.hitCount + ", missCount=" + this.missCount + ", evictionCount="
+                   + this.evictionCount + ", totalLoadTime=" + this.totalLoadTime + ", size=" + this.size + "}";
+
+    }
+
+}
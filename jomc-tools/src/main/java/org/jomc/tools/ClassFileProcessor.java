@@ -32,35 +32,77 @@ package org.jomc.tools;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.UndeclaredThrowableException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.channels.FileLock;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.logging.Level;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.UnmarshalException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.util.JAXBResult;
 import javax.xml.bind.util.JAXBSource;
+import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.validation.Schema;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.validation.Validator;
 import org.apache.bcel.classfile.Attribute;
 import org.apache.bcel.classfile.ClassParser;
 import org.apache.bcel.classfile.Constant;
@@ -90,6 +132,10 @@ import org.jomc.modlet.ModelValidationReport;
 import org.jomc.util.ParseException;
 import org.jomc.util.TokenMgrError;
 import org.jomc.util.VersionParser;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
 
 /**
  * Processes class files.
@@ -129,6 +175,88 @@ public class ClassFileProcessor extends JomcTool
     {
     };
 
+    /**
+     * Flag indicating class files can be patched without parsing them using BCEL.
+     *
+     * @since 2.0
+     */
+    private volatile Boolean classfilePatchingSupported;
+
+    /**
+     * The encoding of model objects committed to class files.
+     *
+     * @since 2.0
+     */
+    private volatile ModelObjectEncoding modelObjectEncoding;
+
+    /**
+     * Bytes starting model objects encoded using a versioned encoding.
+     *
+     * @since 2.0
+     */
+    private static final byte[] MODEL_OBJECT_ENCODING_HEADER =
+    {
+        'J', 'O', 'M', 'C'
+    };
+
+    /**
+     * Algorithm of digests committed alongside model objects.
+     * <p>
+     * SHA-256 is required to be supported by every implementation of the Java platform.
+     * </p>
+     *
+     * @since 2.0
+     */
+    private static final String MODEL_OBJECT_DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * Time of last modification of the copy of an archive not modified by an update.
+     *
+     * @since 2.0
+     */
+    private static final FileTime UNMODIFIED_ARCHIVE_TIME = FileTime.fromMillis( 0L );
+
+    /**
+     * Number of chunks of class files to create per thread when processing class files in parallel.
+     * <p>
+     * Creating more chunks than threads lets threads finishing early take over remaining chunks.
+     * </p>
+     *
+     * @since 2.0
+     */
+    private static final int CLASSFILE_CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Version of the {@code DEFLATE} model object encoding.
+     *
+     * @since 2.0
+     */
+    private static final int MODEL_OBJECT_ENCODING_VERSION = 1;
+
+    /**
+     * Preset dictionary of version {@code 1} of the {@code DEFLATE} model object encoding.
+     * <p>
+     * Changing the dictionary requires a new encoding version.
+     * </p>
+     *
+     * @since 2.0
+     */
+    private static final byte[] MODEL_OBJECT_DICTIONARY = (
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + " xmlns=\"http://jomc.org/model\" xmlns:ns2=\"http://jomc.org/tools/model\""
+            + " xmlns:ns3=\"http://jomc.org/modlet\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+            + "<specifications></specifications><specification></specification>"
+            + "<implementations></implementations><implementation></implementation>"
+            + "<arguments></arguments><argument></argument><authors></authors><author></author>"
+            + "<messages></messages><message></message><template></template>"
+            + "<dependencies></dependencies><dependency></dependency><properties></properties><property></property>"
+            + "<documentation></documentation><text></text><reference></reference>"
+            + " multiplicity=\"One\" multiplicity=\"Many\" scope=\"Singleton\" scope=\"Multiton\""
+            + " type=\"java.lang.String\" optional=\"true\" bound=\"true\" final=\"true\" abstract=\"true\""
+            + " stateless=\"true\" classDeclaration=\"true\" implementationName=\"\" createDate=\"\""
+            + " vendor=\"\" location=\"\" language=\"en\" defaultLanguage=\"en\" class=\"\" version=\"\""
+            + " identifier=\"\" name=\"\" value=\"\"" ).getBytes( Charset.forName( "US-ASCII" ) );
+
     /**
      * Creates a new {@code ClassFileProcessor} instance.
      */
@@ -149,13 +277,56 @@ public class ClassFileProcessor extends JomcTool
     public ClassFileProcessor( final ClassFileProcessor tool ) throws IOException
     {
         super( tool );
+        this.modelObjectEncoding = tool.modelObjectEncoding;
+    }
+
+    /**
+     * Gets the encoding of model objects committed to class files.
+     * <p>
+     * The default value is controlled by system property
+     * {@code org.jomc.tools.ClassFileProcessor.modelObjectEncoding} and defaults to
+     * {@link ModelObjectEncoding#GZIP}. Model objects are decoded regardless of the encoding they have been encoded
+     * with.
+     * </p>
+     *
+     * @return The encoding of model objects committed to class files.
+     *
+     * @see #setModelObjectEncoding(org.jomc.tools.ModelObjectEncoding)
+     * @see #encodeModelObject(javax.xml.bind.Marshaller, javax.xml.bind.JAXBElement)
+     *
+     * @since 2.0
+     */
+    public final ModelObjectEncoding getModelObjectEncoding()
+    {
+        if ( this.modelObjectEncoding == null )
+        {
+            this.modelObjectEncoding = ModelObjectEncoding.valueOf( System.getProperty(
+                "org.jomc.tools.ClassFileProcessor.modelObjectEncoding", ModelObjectEncoding.GZIP.name() ) );
+
+        }
+
+        return this.modelObjectEncoding;
+    }
+
+    /**
+     * Sets the encoding of model objects committed to class files.
+     *
+     * @param value The new encoding of model objects committed to class files or {@code null}.
+     *
+     * @see #getModelObjectEncoding()
+     *
+     * @since 2.0
+     */
+    public final void setModelObjectEncoding( final ModelObjectEncoding value )
+    {
+        this.modelObjectEncoding = value;
     }
 
     /**
      * Commits model objects of the modules of the instance to class files.
      *
      * @param context The model context to use for committing the model objects.
-     * @param classesDirectory The directory holding the class files.
+     * @param classesDirectory The directory or JAR archive holding the class files.
      *
      * @throws NullPointerException if {@code context} or {@code classesDirectory} is {@code null}.
      * @throws IOException if committing model objects fails.
@@ -173,18 +344,25 @@ public class ClassFileProcessor extends JomcTool
             throw new NullPointerException( "classesDirectory" );
         }
 
-        try
+        try ( final ArchiveUpdate archive = this.newArchiveUpdate( classesDirectory ) )
         {
+            final Path classes = archive != null ? archive.getRoot() : classesDirectory.toPath();
+
             if ( this.getModules() != null )
             {
                 this.commitModelObjects( this.getModules().getSpecifications(), this.getModules().getImplementations(),
-                                         classesDirectory, context );
+                                         classes, context );
 
             }
             else if ( this.isLoggable( Level.WARNING ) )
             {
                 this.log( Level.WARNING, getMessage( "modulesNotFound", this.getModel().getIdentifier() ), null );
             }
+
+            if ( archive != null )
+            {
+                archive.commit();
+            }
         }
         catch ( final ModelException e )
         {
@@ -197,7 +375,7 @@ public class ClassFileProcessor extends JomcTool
      *
      * @param module The module to process.
      * @param context The model context to use for committing the model objects.
-     * @param classesDirectory The directory holding the class files.
+     * @param classesDirectory The directory or JAR archive holding the class files.
      *
      * @throws NullPointerException if {@code module}, {@code context} or {@code classesDirectory} is {@code null}.
      * @throws IOException if committing model objects fails.
@@ -221,11 +399,13 @@ public class ClassFileProcessor extends JomcTool
             throw new NullPointerException( "classesDirectory" );
         }
 
-        try
+        try ( final ArchiveUpdate archive = this.newArchiveUpdate( classesDirectory ) )
         {
+            final Path classes = archive != null ? archive.getRoot() : classesDirectory.toPath();
+
             if ( this.getModules() != null && this.getModules().getModule( module.getName() ) != null )
             {
-                this.commitModelObjects( module.getSpecifications(), module.getImplementations(), classesDirectory,
+                this.commitModelObjects( module.getSpecifications(), module.getImplementations(), classes,
                                          context );
 
             }
@@ -233,6 +413,11 @@ public class ClassFileProcessor extends JomcTool
             {
                 this.log( Level.WARNING, getMessage( "moduleNotFound", module.getName() ), null );
             }
+
+            if ( archive != null )
+            {
+                archive.commit();
+            }
         }
         catch ( final ModelException e )
         {
@@ -245,7 +430,7 @@ public class ClassFileProcessor extends JomcTool
      *
      * @param specification The specification to process.
      * @param context The model context to use for committing the model objects.
-     * @param classesDirectory The directory holding the class files.
+     * @param classesDirectory The directory or JAR archive holding the class files.
      *
      * @throws NullPointerException if {@code specification}, {@code context} or {@code classesDirectory} is
      * {@code null}.
@@ -269,28 +454,40 @@ public class ClassFileProcessor extends JomcTool
             throw new NullPointerException( "classesDirectory" );
         }
 
-        try
+        try ( final ArchiveUpdate archive = this.newArchiveUpdate( classesDirectory ) )
         {
+            final Path classes = archive != null ? archive.getRoot() : classesDirectory.toPath();
+
             if ( this.getModules() != null
                      && this.getModules().getSpecification( specification.getIdentifier() ) != null )
             {
                 if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
                 {
-                    final File javaClassfile =
-                        this.getJavaClassfile( specification.getJavaTypeName(), classesDirectory );
+                    final Path javaClassfile =
+                        this.getJavaClassfile( specification.getJavaTypeName(), classes );
 
-                    final Marshaller m = context.createMarshaller( this.getModel().getIdentifier() );
-                    m.setSchema( context.createSchema( this.getModel().getIdentifier() ) );
+                    final Marshaller m =
+                        this.getMarshallerPool().acquireMarshaller( context, this.getModel().getIdentifier() );
 
-                    final JavaClass javaClass = this.readJavaClass( javaClassfile );
-                    this.commitModelObjects( specification, m, javaClass );
-                    this.writeJavaClass( javaClass, javaClassfile );
+                    try
+                    {
+                        this.commitModelObjects( specification, null, m, javaClassfile );
+                    }
+                    finally
+                    {
+                        this.getMarshallerPool().releaseMarshaller( context, this.getModel().getIdentifier(), m );
+                    }
                 }
             }
             else if ( this.isLoggable( Level.WARNING ) )
             {
                 this.log( Level.WARNING, getMessage( "specificationNotFound", specification.getIdentifier() ), null );
             }
+
+            if ( archive != null )
+            {
+                archive.commit();
+            }
         }
         catch ( final ModelException e )
         {
@@ -303,7 +500,7 @@ public class ClassFileProcessor extends JomcTool
      *
      * @param implementation The implementation to process.
      * @param context The model context to use for committing the model objects.
-     * @param classesDirectory The directory holding the class files.
+     * @param classesDirectory The directory or JAR archive holding the class files.
      *
      * @throws NullPointerException if {@code implementation}, {@code context} or {@code classesDirectory} is
      * {@code null}.
@@ -327,28 +524,40 @@ public class ClassFileProcessor extends JomcTool
             throw new NullPointerException( "classesDirectory" );
         }
 
-        try
+        try ( final ArchiveUpdate archive = this.newArchiveUpdate( classesDirectory ) )
         {
+            final Path classes = archive != null ? archive.getRoot() : classesDirectory.toPath();
+
             if ( this.getModules() != null
                      && this.getModules().getImplementation( implementation.getIdentifier() ) != null )
             {
                 if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
                 {
-                    final File javaClassfile =
-                        this.getJavaClassfile( implementation.getJavaTypeName(), classesDirectory );
+                    final Path javaClassfile =
+                        this.getJavaClassfile( implementation.getJavaTypeName(), classes );
 
-                    final Marshaller m = context.createMarshaller( this.getModel().getIdentifier() );
-                    m.setSchema( context.createSchema( this.getModel().getIdentifier() ) );
+                    final Marshaller m =
+                        this.getMarshallerPool().acquireMarshaller( context, this.getModel().getIdentifier() );
 
-                    final JavaClass javaClass = this.readJavaClass( javaClassfile );
-                    this.commitModelObjects( implementation, m, javaClass );
-                    this.writeJavaClass( javaClass, javaClassfile );
+                    try
+                    {
+                        this.commitModelObjects( null, implementation, m, javaClassfile );
+                    }
+                    finally
+                    {
+                        this.getMarshallerPool().releaseMarshaller( context, this.getModel().getIdentifier(), m );
+                    }
                 }
             }
             else if ( this.isLoggable( Level.WARNING ) )
             {
                 this.log( Level.WARNING, getMessage( "implementationNotFound", implementation.getIdentifier() ), null );
             }
+
+            if ( archive != null )
+            {
+                archive.commit();
+            }
         }
         catch ( final ModelException e )
         {
@@ -382,22 +591,7 @@ public class ClassFileProcessor extends JomcTool
             throw new NullPointerException( "javaClass" );
         }
 
-        if ( this.isLoggable( Level.INFO ) )
-        {
-            this.log( Level.INFO, getMessage( "committingSpecification", specification.getIdentifier() ), null );
-        }
-
-        if ( this.getModules() != null
-                 && this.getModules().getSpecification( specification.getIdentifier() ) != null )
-        {
-            this.setClassfileAttribute( javaClass, Specification.class.getName(), this.encodeModelObject(
-                                        marshaller, new ObjectFactory().createSpecification( specification ) ) );
-
-        }
-        else if ( this.isLoggable( Level.WARNING ) )
-        {
-            this.log( Level.WARNING, getMessage( "specificationNotFound", specification.getIdentifier() ), null );
-        }
+        this.commitModelObjects( specification, marshaller, new JavaClassAttributes( javaClass ) );
     }
 
     /**
@@ -426,89 +620,7 @@ public class ClassFileProcessor extends JomcTool
             throw new NullPointerException( "javaClass" );
         }
 
-        if ( this.isLoggable( Level.INFO ) )
-        {
-            this.log( Level.INFO, getMessage( "committingImplementation", implementation.getIdentifier() ), null );
-        }
-
-        if ( this.getModules() != null
-                 && this.getModules().getImplementation( implementation.getIdentifier() ) != null )
-        {
-            final ObjectFactory of = new ObjectFactory();
-
-            Dependencies dependencies = this.getModules().getDependencies( implementation.getIdentifier() );
-            if ( dependencies == null )
-            {
-                dependencies = new Dependencies();
-            }
-
-            Properties properties = this.getModules().getProperties( implementation.getIdentifier() );
-            if ( properties == null )
-            {
-                properties = new Properties();
-            }
-
-            Messages messages = this.getModules().getMessages( implementation.getIdentifier() );
-            if ( messages == null )
-            {
-                messages = new Messages();
-            }
-
-            Specifications specifications = this.getModules().getSpecifications( implementation.getIdentifier() );
-            if ( specifications == null )
-            {
-                specifications = new Specifications();
-            }
-
-            for ( int i = 0, s0 = specifications.getReference().size(); i < s0; i++ )
-            {
-                final SpecificationReference r = specifications.getReference().get( i );
-
-                if ( specifications.getSpecification( r.getIdentifier() ) == null && this.isLoggable( Level.WARNING ) )
-                {
-                    this.log( Level.WARNING, getMessage( "unresolvedSpecification", r.getIdentifier(),
-                                                         implementation.getIdentifier() ), null );
-
-                }
-            }
-
-            for ( int i = 0, s0 = dependencies.getDependency().size(); i < s0; i++ )
-            {
-                final Dependency d = dependencies.getDependency().get( i );
-                final Specification s = this.getModules().getSpecification( d.getIdentifier() );
-
-                if ( s != null )
-                {
-                    if ( specifications.getSpecification( s.getIdentifier() ) == null )
-                    {
-                        specifications.getSpecification().add( s );
-                    }
-                }
-                else if ( this.isLoggable( Level.WARNING ) )
-                {
-                    this.log( Level.WARNING, getMessage( "unresolvedDependencySpecification", d.getIdentifier(),
-                                                         d.getName(), implementation.getIdentifier() ), null );
-
-                }
-            }
-
-            this.setClassfileAttribute( javaClass, Dependencies.class.getName(), this.encodeModelObject(
-                                        marshaller, of.createDependencies( dependencies ) ) );
-
-            this.setClassfileAttribute( javaClass, Properties.class.getName(), this.encodeModelObject(
-                                        marshaller, of.createProperties( properties ) ) );
-
-            this.setClassfileAttribute( javaClass, Messages.class.getName(), this.encodeModelObject(
-                                        marshaller, of.createMessages( messages ) ) );
-
-            this.setClassfileAttribute( javaClass, Specifications.class.getName(), this.encodeModelObject(
-                                        marshaller, of.createSpecifications( specifications ) ) );
-
-        }
-        else if ( this.isLoggable( Level.WARNING ) )
-        {
-            this.log( Level.WARNING, getMessage( "implementationNotFound", implementation.getIdentifier() ), null );
-        }
+        this.commitModelObjects( implementation, marshaller, new JavaClassAttributes( javaClass ) );
     }
 
     /**
@@ -639,16 +751,23 @@ public class ClassFileProcessor extends JomcTool
                 if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
                 {
                     final URL javaClassfile = this.getJavaClassfile( specification.getJavaTypeName(), context );
-                    final Unmarshaller u = context.createUnmarshaller( this.getModel().getIdentifier() );
-                    u.setSchema( context.createSchema( this.getModel().getIdentifier() ) );
+                    final Unmarshaller u =
+                        this.getMarshallerPool().acquireUnmarshaller( context, this.getModel().getIdentifier() );
 
-                    final JavaClass javaClass;
-                    try ( final InputStream in = javaClassfile.openStream() )
+                    try
                     {
-                        javaClass = new ClassParser( in, javaClassfile.toExternalForm() ).parse();
-                    }
+                        final JavaClass javaClass;
+                        try ( final InputStream in = javaClassfile.openStream() )
+                        {
+                            javaClass = new ClassParser( in, javaClassfile.toExternalForm() ).parse();
+                        }
 
-                    report = this.validateModelObjects( specification, u, javaClass );
+                        report = this.validateModelObjects( specification, u, javaClass );
+                    }
+                    finally
+                    {
+                        this.getMarshallerPool().releaseUnmarshaller( context, this.getModel().getIdentifier(), u );
+                    }
                 }
             }
             else if ( this.isLoggable( Level.WARNING ) )
@@ -700,16 +819,23 @@ public class ClassFileProcessor extends JomcTool
                 if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
                 {
                     final URL javaClassfile = this.getJavaClassfile( implementation.getJavaTypeName(), context );
-                    final Unmarshaller u = context.createUnmarshaller( this.getModel().getIdentifier() );
-                    u.setSchema( context.createSchema( this.getModel().getIdentifier() ) );
+                    final Unmarshaller u =
+                        this.getMarshallerPool().acquireUnmarshaller( context, this.getModel().getIdentifier() );
 
-                    final JavaClass javaClass;
-                    try ( final InputStream in = javaClassfile.openStream() )
+                    try
                     {
-                        javaClass = new ClassParser( in, javaClassfile.toExternalForm() ).parse();
-                    }
+                        final JavaClass javaClass;
+                        try ( final InputStream in = javaClassfile.openStream() )
+                        {
+                            javaClass = new ClassParser( in, javaClassfile.toExternalForm() ).parse();
+                        }
 
-                    report = this.validateModelObjects( implementation, u, javaClass );
+                        report = this.validateModelObjects( implementation, u, javaClass );
+                    }
+                    finally
+                    {
+                        this.getMarshallerPool().releaseUnmarshaller( context, this.getModel().getIdentifier(), u );
+                    }
                 }
             }
             else if ( this.isLoggable( Level.WARNING ) )
@@ -729,7 +855,7 @@ public class ClassFileProcessor extends JomcTool
      * Validates model objects of class files of the modules of the instance.
      *
      * @param context The model context to use for validating model objects.
-     * @param classesDirectory The directory holding the class files.
+     * @param classesDirectory The directory or JAR archive holding the class files.
      *
      * @return The report of the validation or {@code null}, if no model objects are found.
      *
@@ -750,15 +876,17 @@ public class ClassFileProcessor extends JomcTool
             throw new NullPointerException( "classesDirectory" );
         }
 
-        try
+        try ( final FileSystem archive = newArchiveFileSystem( classesDirectory ) )
         {
+            final Path classes = archive != null ? archive.getPath( "/" ) : classesDirectory.toPath();
+
             ModelValidationReport report = null;
 
             if ( this.getModules() != null )
             {
                 report = this.validateModelObjects( this.getModules().getSpecifications(),
                                                     this.getModules().getImplementations(),
-                                                    classesDirectory, context );
+                                                    classes, context );
 
             }
             else if ( this.isLoggable( Level.WARNING ) )
@@ -779,7 +907,7 @@ public class ClassFileProcessor extends JomcTool
      *
      * @param module The module to process.
      * @param context The model context to use for validating model objects.
-     * @param classesDirectory The directory holding the class files.
+     * @param classesDirectory The directory or JAR archive holding the class files.
      *
      * @return The report of the validation or {@code null}, if no model objects are found.
      *
@@ -805,14 +933,16 @@ public class ClassFileProcessor extends JomcTool
             throw new NullPointerException( "classesDirectory" );
         }
 
-        try
+        try ( final FileSystem archive = newArchiveFileSystem( classesDirectory ) )
         {
+            final Path classes = archive != null ? archive.getPath( "/" ) : classesDirectory.toPath();
+
             ModelValidationReport report = null;
 
             if ( this.getModules() != null && this.getModules().getModule( module.getName() ) != null )
             {
                 report = this.validateModelObjects( module.getSpecifications(), module.getImplementations(),
-                                                    classesDirectory, context );
+                                                    classes, context );
 
             }
             else if ( this.isLoggable( Level.WARNING ) )
@@ -833,7 +963,7 @@ public class ClassFileProcessor extends JomcTool
      *
      * @param specification The specification to process.
      * @param context The model context to use for validating model objects.
-     * @param classesDirectory The directory holding the class files.
+     * @param classesDirectory The directory or JAR archive holding the class files.
      *
      * @return The report of the validation or {@code null}, if no model objects are found.
      *
@@ -861,8 +991,10 @@ public class ClassFileProcessor extends JomcTool
             throw new NullPointerException( "classesDirectory" );
         }
 
-        try
+        try ( final FileSystem archive = newArchiveFileSystem( classesDirectory ) )
         {
+            final Path classes = archive != null ? archive.getPath( "/" ) : classesDirectory.toPath();
+
             ModelValidationReport report = null;
 
             if ( this.getModules() != null
@@ -870,13 +1002,23 @@ public class ClassFileProcessor extends JomcTool
             {
                 if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
                 {
-                    final File javaClassfile =
-                        this.getJavaClassfile( specification.getJavaTypeName(), classesDirectory );
+                    final Path javaClassfile =
+                        this.getJavaClassfile( specification.getJavaTypeName(), classes );
 
-                    final Unmarshaller u = context.createUnmarshaller( this.getModel().getIdentifier() );
-                    u.setSchema( context.createSchema( this.getModel().getIdentifier() ) );
+                    final Unmarshaller u =
+                        this.getMarshallerPool().acquireUnmarshaller( context, this.getModel().getIdentifier() );
+
+                    try
+                    {
+                        report = this.validateModelObjects( specification, null, u,
+                                                            this.readClassfile( javaClassfile ),
+                                                            getLocation( javaClassfile ) );
 
-                    report = this.validateModelObjects( specification, u, this.readJavaClass( javaClassfile ) );
+                    }
+                    finally
+                    {
+                        this.getMarshallerPool().releaseUnmarshaller( context, this.getModel().getIdentifier(), u );
+                    }
                 }
             }
             else if ( this.isLoggable( Level.WARNING ) )
@@ -897,7 +1039,7 @@ public class ClassFileProcessor extends JomcTool
      *
      * @param implementation The implementation to process.
      * @param context The model context to use for validating model objects.
-     * @param classesDirectory The directory holding the class files.
+     * @param classesDirectory The directory or JAR archive holding the class files.
      *
      * @return The report of the validation or {@code null}, if no model objects are found.
      *
@@ -925,8 +1067,10 @@ public class ClassFileProcessor extends JomcTool
             throw new NullPointerException( "classesDirectory" );
         }
 
-        try
+        try ( final FileSystem archive = newArchiveFileSystem( classesDirectory ) )
         {
+            final Path classes = archive != null ? archive.getPath( "/" ) : classesDirectory.toPath();
+
             ModelValidationReport report = null;
 
             if ( this.getModules() != null
@@ -934,13 +1078,23 @@ public class ClassFileProcessor extends JomcTool
             {
                 if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
                 {
-                    final File javaClassfile =
-                        this.getJavaClassfile( implementation.getJavaTypeName(), classesDirectory );
+                    final Path javaClassfile =
+                        this.getJavaClassfile( implementation.getJavaTypeName(), classes );
+
+                    final Unmarshaller u =
+                        this.getMarshallerPool().acquireUnmarshaller( context, this.getModel().getIdentifier() );
 
-                    final Unmarshaller u = context.createUnmarshaller( this.getModel().getIdentifier() );
-                    u.setSchema( context.createSchema( this.getModel().getIdentifier() ) );
+                    try
+                    {
+                        report = this.validateModelObjects( null, implementation, u,
+                                                            this.readClassfile( javaClassfile ),
+                                                            getLocation( javaClassfile ) );
 
-                    report = this.validateModelObjects( implementation, u, this.readJavaClass( javaClassfile ) );
+                    }
+                    finally
+                    {
+                        this.getMarshallerPool().releaseUnmarshaller( context, this.getModel().getIdentifier(), u );
+                    }
                 }
             }
             else if ( this.isLoggable( Level.WARNING ) )
@@ -985,105 +1139,1534 @@ public class ClassFileProcessor extends JomcTool
             throw new NullPointerException( "javaClass" );
         }
 
-        ModelValidationReport report = null;
+        return this.validateModelObjects( specification, unmarshaller, new JavaClassAttributes( javaClass ) );
+    }
 
-        if ( this.isLoggable( Level.INFO ) )
+    /**
+     * Validates model objects of a given implementation of the modules of the instance.
+     *
+     * @param implementation The implementation to process.
+     * @param unmarshaller The unmarshaller to use for validating model objects.
+     * @param javaClass The java class to validate.
+     *
+     * @return The report of the validation or {@code null}, if no model objects are found.
+     *
+     * @throws NullPointerException if {@code implementation}, {@code unmarshaller} or {@code javaClass} is {@code null}.
+     * @throws IOException if validating model objects fails.
+     */
+    public ModelValidationReport validateModelObjects( final Implementation implementation,
+                                                       final Unmarshaller unmarshaller, final JavaClass javaClass )
+        throws IOException
+    {
+        if ( implementation == null )
         {
-            this.log( Level.INFO, getMessage( "validatingSpecification", specification.getIdentifier() ), null );
+            throw new NullPointerException( "implementation" );
         }
-
-        if ( this.getModules() != null && this.getModules().getSpecification( specification.getIdentifier() ) != null )
+        if ( unmarshaller == null )
         {
-            report = new ModelValidationReport();
-            Specification decoded = null;
-            final byte[] bytes = this.getClassfileAttribute( javaClass, Specification.class.getName() );
-            if ( bytes != null )
-            {
-                decoded = this.decodeModelObject( unmarshaller, bytes, Specification.class );
-            }
-
-            if ( decoded != null )
-            {
-                if ( decoded.getMultiplicity() != specification.getMultiplicity() )
-                {
-                    report.getDetails().add( new ModelValidationReport.Detail(
-                        "CLASS_ILLEGAL_SPECIFICATION_MULTIPLICITY", Level.SEVERE, getMessage(
-                            "illegalMultiplicity", specification.getIdentifier(),
-                            specification.getMultiplicity().value(),
-                            decoded.getMultiplicity().value() ),
-                        new ObjectFactory().createSpecification( specification ) ) );
+            throw new NullPointerException( "unmarshaller" );
+        }
+        if ( javaClass == null )
+        {
+            throw new NullPointerException( "javaClass" );
+        }
 
-                }
+        return this.validateModelObjects( implementation, unmarshaller, new JavaClassAttributes( javaClass ),
+                                          javaClass.getClassName() );
+    }
 
-                if ( decoded.getScope() == null
-                         ? specification.getScope() != null
-                         : !decoded.getScope().equals( specification.getScope() ) )
-                {
-                    report.getDetails().add( new ModelValidationReport.Detail(
-                        "CLASS_ILLEGAL_SPECIFICATION_SCOPE", Level.SEVERE, getMessage(
-                            "illegalScope", specification.getIdentifier(),
-                            specification.getScope() == null ? "Multiton" : specification.getScope(),
-                            decoded.getScope() == null ? "Multiton" : decoded.getScope() ),
-                        new ObjectFactory().createSpecification( specification ) ) );
+    /**
+     * Transforms model objects of class files of the modules of the instance.
+     *
+     * @param context The model context to use for transforming model objects.
+     * @param classesDirectory The directory or JAR archive holding the class files.
+     * @param transformers The transformers to use for transforming model objects.
+     *
+     * @throws NullPointerException if {@code context}, {@code classesDirectory} or {@code transformers} is
+     * {@code null}.
+     * @throws IOException if transforming model objects fails.
+     *
+     * @see #transformModelObjects(org.jomc.model.Module, org.jomc.modlet.ModelContext, java.io.File, java.util.List)
+     */
+    public final void transformModelObjects( final ModelContext context, final File classesDirectory,
+                                             final List<Transformer> transformers ) throws IOException
+    {
+        if ( context == null )
+        {
+            throw new NullPointerException( "context" );
+        }
+        if ( classesDirectory == null )
+        {
+            throw new NullPointerException( "classesDirectory" );
+        }
+        if ( transformers == null )
+        {
+            throw new NullPointerException( "transformers" );
+        }
+        if ( !( classesDirectory.isDirectory() || classesDirectory.isFile() ) )
+        {
+            throw new IOException( getMessage( "directoryNotFound", classesDirectory.getAbsolutePath() ) );
+        }
+
+        try ( final ArchiveUpdate archive = this.newArchiveUpdate( classesDirectory ) )
+        {
+            final Path classes = archive != null ? archive.getRoot() : classesDirectory.toPath();
+
+            if ( this.getModules() != null )
+            {
+                final Unmarshaller u =
+                    this.getMarshallerPool().acquireUnmarshaller( context, this.getModel().getIdentifier() );
+
+                final Marshaller m =
+                    this.getMarshallerPool().acquireMarshaller( context, this.getModel().getIdentifier() );
+
+                try
+                {
+                    this.transformModelObjects( this.getModules().getSpecifications(),
+                                                this.getModules().getImplementations(),
+                                                u, m, classes, transformers );
 
                 }
+                finally
+                {
+                    this.getMarshallerPool().releaseUnmarshaller( context, this.getModel().getIdentifier(), u );
+                    this.getMarshallerPool().releaseMarshaller( context, this.getModel().getIdentifier(), m );
+                }
+            }
+            else if ( this.isLoggable( Level.WARNING ) )
+            {
+                this.log( Level.WARNING, getMessage( "modulesNotFound", this.getModel().getIdentifier() ), null );
+            }
 
-                if ( decoded.getClazz() == null
-                         ? specification.getClazz() != null
-                         : !decoded.getClazz().equals( specification.getClazz() ) )
+            if ( archive != null )
+            {
+                archive.commit();
+            }
+        }
+        catch ( final ModelException e )
+        {
+            throw new IOException( getMessage( e ), e );
+        }
+    }
+
+    /**
+     * Transforms model objects of class files of a given module of the modules of the instance.
+     *
+     * @param module The module to process.
+     * @param context The model context to use for transforming model objects.
+     * @param classesDirectory The directory or JAR archive holding the class files.
+     * @param transformers The transformers to use for transforming the model objects.
+     *
+     * @throws NullPointerException if {@code module}, {@code context}, {@code classesDirectory} or {@code transformers}
+     * is {@code null}.
+     * @throws IOException if transforming model objects fails.
+     *
+     * @see #transformModelObjects(org.jomc.model.Specification, org.jomc.modlet.ModelContext, java.io.File, java.util.List)
+     * @see #transformModelObjects(org.jomc.model.Implementation, org.jomc.modlet.ModelContext, java.io.File, java.util.List)
+     */
+    public final void transformModelObjects( final Module module, final ModelContext context,
+                                             final File classesDirectory, final List<Transformer> transformers )
+        throws IOException
+    {
+        if ( module == null )
+        {
+            throw new NullPointerException( "module" );
+        }
+        if ( context == null )
+        {
+            throw new NullPointerException( "context" );
+        }
+        if ( classesDirectory == null )
+        {
+            throw new NullPointerException( "classesDirectory" );
+        }
+        if ( transformers == null )
+        {
+            throw new NullPointerException( "transformers" );
+        }
+        if ( !( classesDirectory.isDirectory() || classesDirectory.isFile() ) )
+        {
+            throw new IOException( getMessage( "directoryNotFound", classesDirectory.getAbsolutePath() ) );
+        }
+
+        try ( final ArchiveUpdate archive = this.newArchiveUpdate( classesDirectory ) )
+        {
+            final Path classes = archive != null ? archive.getRoot() : classesDirectory.toPath();
+
+            if ( this.getModules() != null && this.getModules().getModule( module.getName() ) != null )
+            {
+                final Unmarshaller u =
+                    this.getMarshallerPool().acquireUnmarshaller( context, this.getModel().getIdentifier() );
+
+                final Marshaller m =
+                    this.getMarshallerPool().acquireMarshaller( context, this.getModel().getIdentifier() );
+
+                try
                 {
-                    report.getDetails().add( new ModelValidationReport.Detail(
-                        "CLASS_ILLEGAL_SPECIFICATION_CLASS", Level.SEVERE, getMessage(
-                            "illegalSpecificationClass", decoded.getIdentifier(),
-                            specification.getClazz(), decoded.getClazz() ),
-                        new ObjectFactory().createSpecification( specification ) ) );
+                    this.transformModelObjects( module.getSpecifications(), module.getImplementations(), u, m,
+                                                classes, transformers );
 
                 }
+                finally
+                {
+                    this.getMarshallerPool().releaseUnmarshaller( context, this.getModel().getIdentifier(), u );
+                    this.getMarshallerPool().releaseMarshaller( context, this.getModel().getIdentifier(), m );
+                }
             }
             else if ( this.isLoggable( Level.WARNING ) )
             {
-                this.log( Level.WARNING, getMessage( "cannotValidateSpecification", specification.getIdentifier(),
-                                                     Specification.class.getName() ), null );
+                this.log( Level.WARNING, getMessage( "moduleNotFound", module.getName() ), null );
+            }
 
+            if ( archive != null )
+            {
+                archive.commit();
             }
         }
-        else if ( this.isLoggable( Level.WARNING ) )
+        catch ( final ModelException e )
         {
-            this.log( Level.WARNING, getMessage( "specificationNotFound", specification.getIdentifier() ), null );
+            throw new IOException( getMessage( e ), e );
         }
+    }
 
-        return report;
+    /**
+     * Transforms model objects of class files of a given specification of the modules of the instance.
+     *
+     * @param specification The specification to process.
+     * @param context The model context to use for transforming model objects.
+     * @param classesDirectory The directory or JAR archive holding the class files.
+     * @param transformers The transformers to use for transforming the model objects.
+     *
+     * @throws NullPointerException if {@code specification}, {@code context}, {@code classesDirectory} or
+     * {@code transformers} is {@code null}.
+     * @throws IOException if transforming model objects fails.
+     *
+     * @see #transformModelObjects(org.jomc.model.Specification, javax.xml.bind.Marshaller, javax.xml.bind.Unmarshaller, org.apache.bcel.classfile.JavaClass, java.util.List)
+     */
+    public final void transformModelObjects( final Specification specification, final ModelContext context,
+                                             final File classesDirectory, final List<Transformer> transformers )
+        throws IOException
+    {
+        if ( specification == null )
+        {
+            throw new NullPointerException( "specification" );
+        }
+        if ( context == null )
+        {
+            throw new NullPointerException( "context" );
+        }
+        if ( classesDirectory == null )
+        {
+            throw new NullPointerException( "classesDirectory" );
+        }
+        if ( transformers == null )
+        {
+            throw new NullPointerException( "transformers" );
+        }
+        if ( !( classesDirectory.isDirectory() || classesDirectory.isFile() ) )
+        {
+            throw new IOException( getMessage( "directoryNotFound", classesDirectory.getAbsolutePath() ) );
+        }
+
+        try ( final ArchiveUpdate archive = this.newArchiveUpdate( classesDirectory ) )
+        {
+            final Path classes = archive != null ? archive.getRoot() : classesDirectory.toPath();
+
+            if ( this.getModules() != null
+                     && this.getModules().getSpecification( specification.getIdentifier() ) != null )
+            {
+                final Unmarshaller u =
+                    this.getMarshallerPool().acquireUnmarshaller( context, this.getModel().getIdentifier() );
+
+                final Marshaller m =
+                    this.getMarshallerPool().acquireMarshaller( context, this.getModel().getIdentifier() );
+
+                try
+                {
+                    this.transformModelObjects( specification, m, u, classes, transformers );
+                }
+                finally
+                {
+                    this.getMarshallerPool().releaseUnmarshaller( context, this.getModel().getIdentifier(), u );
+                    this.getMarshallerPool().releaseMarshaller( context, this.getModel().getIdentifier(), m );
+                }
+            }
+            else if ( this.isLoggable( Level.WARNING ) )
+            {
+                this.log( Level.WARNING, getMessage( "specificationNotFound", specification.getIdentifier() ), null );
+            }
+
+            if ( archive != null )
+            {
+                archive.commit();
+            }
+        }
+        catch ( final ModelException e )
+        {
+            throw new IOException( getMessage( e ), e );
+        }
     }
 
     /**
-     * Validates model objects of a given implementation of the modules of the instance.
+     * Transforms model objects of class files of a given implementation of the modules of the instance.
      *
      * @param implementation The implementation to process.
-     * @param unmarshaller The unmarshaller to use for validating model objects.
-     * @param javaClass The java class to validate.
+     * @param context The model context to use for transforming model objects.
+     * @param classesDirectory The directory or JAR archive holding the class files.
+     * @param transformers The transformers to use for transforming the model objects.
      *
-     * @return The report of the validation or {@code null}, if no model objects are found.
+     * @throws NullPointerException if {@code implementation}, {@code context}, {@code classesDirectory} or
+     * {@code transformers} is {@code null}.
+     * @throws IOException if transforming model objects fails.
      *
-     * @throws NullPointerException if {@code implementation}, {@code unmarshaller} or {@code javaClass} is {@code null}.
-     * @throws IOException if validating model objects fails.
+     * @see #transformModelObjects(org.jomc.model.Implementation, javax.xml.bind.Marshaller, javax.xml.bind.Unmarshaller, org.apache.bcel.classfile.JavaClass, java.util.List)
      */
-    public ModelValidationReport validateModelObjects( final Implementation implementation,
-                                                       final Unmarshaller unmarshaller, final JavaClass javaClass )
+    public final void transformModelObjects( final Implementation implementation, final ModelContext context,
+                                             final File classesDirectory, final List<Transformer> transformers )
         throws IOException
     {
         if ( implementation == null )
         {
             throw new NullPointerException( "implementation" );
         }
-        if ( unmarshaller == null )
+        if ( context == null )
         {
-            throw new NullPointerException( "unmarshaller" );
+            throw new NullPointerException( "context" );
+        }
+        if ( classesDirectory == null )
+        {
+            throw new NullPointerException( "classesDirectory" );
+        }
+        if ( transformers == null )
+        {
+            throw new NullPointerException( "transformers" );
+        }
+        if ( !( classesDirectory.isDirectory() || classesDirectory.isFile() ) )
+        {
+            throw new IOException( getMessage( "directoryNotFound", classesDirectory.getAbsolutePath() ) );
+        }
+
+        try ( final ArchiveUpdate archive = this.newArchiveUpdate( classesDirectory ) )
+        {
+            final Path classes = archive != null ? archive.getRoot() : classesDirectory.toPath();
+
+            if ( this.getModules() != null
+                     && this.getModules().getImplementation( implementation.getIdentifier() ) != null )
+            {
+                final Unmarshaller u =
+                    this.getMarshallerPool().acquireUnmarshaller( context, this.getModel().getIdentifier() );
+
+                final Marshaller m =
+                    this.getMarshallerPool().acquireMarshaller( context, this.getModel().getIdentifier() );
+
+                try
+                {
+                    this.transformModelObjects( implementation, m, u, classes, transformers );
+                }
+                finally
+                {
+                    this.getMarshallerPool().releaseUnmarshaller( context, this.getModel().getIdentifier(), u );
+                    this.getMarshallerPool().releaseMarshaller( context, this.getModel().getIdentifier(), m );
+                }
+            }
+            else if ( this.isLoggable( Level.WARNING ) )
+            {
+                this.log( Level.WARNING, getMessage( "implementationNotFound", implementation.getIdentifier() ), null );
+            }
+
+            if ( archive != null )
+            {
+                archive.commit();
+            }
+        }
+        catch ( final ModelException e )
+        {
+            throw new IOException( getMessage( e ), e );
+        }
+    }
+
+    /**
+     * Transforms model objects of a given specification of the modules of the instance.
+     *
+     * @param specification The specification to process.
+     * @param marshaller The marshaller to use for transforming model objects.
+     * @param unmarshaller The unmarshaller to use for transforming model objects.
+     * @param javaClass The java class to transform model objects of.
+     * @param transformers The transformers to use for transforming the model objects.
+     *
+     * @throws NullPointerException if {@code specification}, {@code marshaller}, {@code unmarshaller},
+     * {@code javaClass} or {@code transformers} is {@code null}.
+     * @throws IOException if transforming model objects fails.
+     */
+    public void transformModelObjects( final Specification specification, final Marshaller marshaller,
+                                       final Unmarshaller unmarshaller, final JavaClass javaClass,
+                                       final List<Transformer> transformers ) throws IOException
+    {
+        if ( specification == null )
+        {
+            throw new NullPointerException( "specification" );
+        }
+        if ( marshaller == null )
+        {
+            throw new NullPointerException( "marshaller" );
+        }
+        if ( unmarshaller == null )
+        {
+            throw new NullPointerException( "unmarshaller" );
+        }
+        if ( javaClass == null )
+        {
+            throw new NullPointerException( "javaClass" );
+        }
+        if ( transformers == null )
+        {
+            throw new NullPointerException( "transformers" );
+        }
+
+        this.transformModelObjects( specification, marshaller, unmarshaller, new JavaClassAttributes( javaClass ),
+                                    transformers );
+
+    }
+
+    /**
+     * Transforms model objects of a given implementation of the modules of the instance.
+     *
+     * @param implementation The implementation to process.
+     * @param marshaller The marshaller to use for transforming model objects.
+     * @param unmarshaller The unmarshaller to use for transforming model objects.
+     * @param javaClass The java class to transform model object of.
+     * @param transformers The transformers to use for transforming the model objects.
+     *
+     * @throws NullPointerException if {@code implementation}, {@code marshaller}, {@code unmarshaller},
+     * {@code javaClass} or {@code transformers} is {@code null}.
+     * @throws IOException if transforming model objects fails.
+     */
+    public void transformModelObjects( final Implementation implementation, final Marshaller marshaller,
+                                       final Unmarshaller unmarshaller, final JavaClass javaClass,
+                                       final List<Transformer> transformers ) throws IOException
+    {
+        if ( implementation == null )
+        {
+            throw new NullPointerException( "implementation" );
+        }
+        if ( marshaller == null )
+        {
+            throw new NullPointerException( "marshaller" );
+        }
+        if ( unmarshaller == null )
+        {
+            throw new NullPointerException( "unmarshaller" );
+        }
+        if ( javaClass == null )
+        {
+            throw new NullPointerException( "javaClass" );
+        }
+        if ( transformers == null )
+        {
+            throw new NullPointerException( "transformers" );
+        }
+
+        this.transformModelObjects( implementation, marshaller, unmarshaller, new JavaClassAttributes( javaClass ),
+                                    transformers );
+
+    }
+
+    /**
+     * Gets an attribute from a java class.
+     *
+     * @param clazz The java class to get an attribute from.
+     * @param attributeName The name of the attribute to get.
+     *
+     * @return The value of attribute {@code attributeName} of {@code clazz} or {@code null}, if no such attribute
+     * exists.
+     *
+     * @throws NullPointerException if {@code clazz} or {@code attributeName} is {@code null}.
+     * @throws IOException if getting the attribute fails.
+     *
+     * @see JavaClass#getAttributes()
+     */
+    public byte[] getClassfileAttribute( final JavaClass clazz, final String attributeName ) throws IOException
+    {
+        if ( clazz == null )
+        {
+            throw new NullPointerException( "clazz" );
+        }
+        if ( attributeName == null )
+        {
+            throw new NullPointerException( "attributeName" );
+        }
+
+        final Attribute[] attributes = clazz.getAttributes();
+
+        for ( int i = attributes.length - 1; i >= 0; i-- )
+        {
+            final Constant constant = clazz.getConstantPool().getConstant( attributes[i].getNameIndex() );
+
+            if ( constant instanceof ConstantUtf8 && attributeName.equals( ( (ConstantUtf8) constant ).getBytes() ) )
+            {
+                final Unknown unknown = (Unknown) attributes[i];
+                return unknown.getBytes();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds or updates an attribute in a java class.
+     *
+     * @param clazz The class to update an attribute of.
+     * @param attributeName The name of the attribute to update.
+     * @param data The new data of the attribute to update the {@code clazz} with.
+     *
+     * @throws NullPointerException if {@code clazz} or {@code attributeName} is {@code null}.
+     * @throws IOException if updating the class file fails.
+     *
+     * @see JavaClass#getAttributes()
+     */
+    public void setClassfileAttribute( final JavaClass clazz, final String attributeName, final byte[] data )
+        throws IOException
+    {
+        if ( clazz == null )
+        {
+            throw new NullPointerException( "clazz" );
+        }
+        if ( attributeName == null )
+        {
+            throw new NullPointerException( "attributeName" );
+        }
+
+        final byte[] attributeData = data != null ? data : NO_BYTES;
+
+        /*
+         * The JavaTM Virtual Machine Specification - Second Edition - Chapter 4.1
+         *
+         * A Java virtual machine implementation is required to silently ignore any
+         * or all attributes in the attributes table of a ClassFile structure that
+         * it does not recognize. Attributes not defined in this specification are
+         * not allowed to affect the semantics of the class file, but only to
+         * provide additional descriptive information (§4.7.1).
+         */
+        Attribute[] attributes = clazz.getAttributes();
+
+        int attributeIndex = -1;
+        int nameIndex = -1;
+
+        for ( int i = attributes.length - 1; i >= 0; i-- )
+        {
+            final Constant constant = clazz.getConstantPool().getConstant( attributes[i].getNameIndex() );
+
+            if ( constant instanceof ConstantUtf8 && attributeName.equals( ( (ConstantUtf8) constant ).getBytes() ) )
+            {
+                attributeIndex = i;
+                nameIndex = attributes[i].getNameIndex();
+            }
+        }
+
+        if ( nameIndex == -1 )
+        {
+            final Constant[] pool = clazz.getConstantPool().getConstantPool();
+            final Constant[] tmp = new Constant[ pool.length + 1 ];
+            System.arraycopy( pool, 0, tmp, 0, pool.length );
+            tmp[pool.length] = new ConstantUtf8( attributeName );
+            nameIndex = pool.length;
+            clazz.setConstantPool( new ConstantPool( tmp ) );
+        }
+
+        final Unknown unknown = new Unknown( nameIndex, attributeData.length, attributeData, clazz.getConstantPool() );
+
+        if ( attributeIndex == -1 )
+        {
+            final Attribute[] tmp = new Attribute[ attributes.length + 1 ];
+            System.arraycopy( attributes, 0, tmp, 0, attributes.length );
+            tmp[attributes.length] = unknown;
+            attributes = tmp;
+        }
+        else
+        {
+            attributes[attributeIndex] = unknown;
+        }
+
+        clazz.setAttributes( attributes );
+    }
+
+    /**
+     * Encodes a model object to a byte array.
+     *
+     * @param marshaller The marshaller to use for encoding the object.
+     * @param modelObject The model object to encode.
+     *
+     * @return Compressed XML document of {@code modelObject} using the encoding of the instance.
+     *
+     * @throws NullPointerException if {@code marshaller} or {@code modelObject} is {@code null}.
+     * @throws IOException if encoding {@code modelObject} fails.
+     *
+     * @see #getModelObjectEncoding()
+     * @see #decodeModelObject(javax.xml.bind.Unmarshaller, byte[], java.lang.Class)
+     */
+    public byte[] encodeModelObject( final Marshaller marshaller, final JAXBElement<? extends ModelObject> modelObject )
+        throws IOException
+    {
+        if ( marshaller == null )
+        {
+            throw new NullPointerException( "marshaller" );
+        }
+        if ( modelObject == null )
+        {
+            throw new NullPointerException( "modelObject" );
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try
+        {
+            if ( this.getModelObjectEncoding() == ModelObjectEncoding.DEFLATE )
+            {
+                baos.write( MODEL_OBJECT_ENCODING_HEADER );
+                baos.write( MODEL_OBJECT_ENCODING_VERSION );
+
+                final Deflater deflater = new Deflater( Deflater.BEST_COMPRESSION );
+
+                try
+                {
+                    deflater.setDictionary( MODEL_OBJECT_DICTIONARY );
+
+                    try ( final DeflaterOutputStream out = new DeflaterOutputStream( baos, deflater ) )
+                    {
+                        marshaller.marshal( modelObject, out );
+                    }
+                }
+                finally
+                {
+                    deflater.end();
+                }
+            }
+            else
+            {
+                try ( final GZIPOutputStream out = new GZIPOutputStream( baos ) )
+                {
+                    marshaller.marshal( modelObject, out );
+                }
+            }
+        }
+        catch ( final JAXBException e )
+        {
+            String message = getMessage( e );
+            if ( message == null && e.getLinkedException() != null )
+            {
+                message = getMessage( e.getLinkedException() );
+            }
+
+            throw new IOException( message, e );
+        }
+
+        return baos.toByteArray();
+    }
+
+    /**
+     * Decodes a model object from a byte array.
+     *
+     * @param unmarshaller The unmarshaller to use for decoding the object.
+     * @param bytes The encoded model object to decode using any of the supported encodings.
+     * @param type The class of the type of the encoded model object.
+     * @param <T> The type of the encoded model object.
+     *
+     * @return Model object decoded from {@code bytes}.
+     *
+     * @throws NullPointerException if {@code unmarshaller}, {@code bytes} or {@code type} is {@code null}.
+     * @throws IOException if decoding {@code bytes} fails.
+     *
+     * @see #encodeModelObject(javax.xml.bind.Marshaller, javax.xml.bind.JAXBElement)
+     */
+    public <T extends ModelObject> T decodeModelObject( final Unmarshaller unmarshaller, final byte[] bytes,
+                                                        final Class<T> type ) throws IOException
+    {
+        if ( unmarshaller == null )
+        {
+            throw new NullPointerException( "unmarshaller" );
+        }
+        if ( bytes == null )
+        {
+            throw new NullPointerException( "bytes" );
+        }
+        if ( type == null )
+        {
+            throw new NullPointerException( "type" );
+        }
+
+        final JAXBElement<T> element;
+        try ( final InputStream in = isVersionedModelObjectEncoding( bytes )
+                                         ? new ByteArrayInputStream( inflateModelObject( bytes ) )
+                                         : new GZIPInputStream( new ByteArrayInputStream( bytes ) ) )
+        {
+            element = (JAXBElement<T>) unmarshaller.unmarshal( in );
+        }
+        catch ( final JAXBException e )
+        {
+            String message = getMessage( e );
+            if ( message == null && e.getLinkedException() != null )
+            {
+                message = getMessage( e.getLinkedException() );
+            }
+
+            throw new IOException( message, e );
+        }
+
+        return element.getValue();
+    }
+
+    private void commitModelObjects( final Specifications specifications, final Implementations implementations,
+                                     final Path classesDirectory, final ModelContext context )
+        throws IOException, ModelException
+    {
+        final ThreadLocal<Marshaller> threadLocalMarshaller = new ThreadLocal<>();
+        final List<Marshaller> marshallers = Collections.synchronizedList( new ArrayList<Marshaller>() );
+
+        try
+        {
+
+            class CommitModelObjectsTask extends ClassfileTask<Void>
+            {
+
+                boolean written;
+
+                CommitModelObjectsTask( final Path javaClassfile, final long size )
+                {
+                    super( javaClassfile, size );
+                }
+
+                @Override
+                public Void call() throws IOException, ModelException
+                {
+                    final long start = System.nanoTime();
+                    Marshaller marshaller = threadLocalMarshaller.get();
+                    if ( marshaller == null )
+                    {
+                        marshaller = getMarshallerPool().acquireMarshaller( context, getModel().getIdentifier() );
+                        marshallers.add( marshaller );
+                        threadLocalMarshaller.set( marshaller );
+                    }
+
+                    this.written = commitModelObjects( this.specification, this.implementation, marshaller,
+                                                       this.javaClassfile );
+
+                    getMetrics().onFileProcessed( "commitModelObjects", getLocation( this.javaClassfile ),
+                                                  System.nanoTime() - start );
+
+                    return null;
+                }
+
+            }
+
+            long start = System.nanoTime();
+            final Map<String, Long> classfiles = scanClassfiles( classesDirectory, specifications, implementations );
+            this.logClassfilePhase( "commitModelObjects", "scan", classfiles.size(), start );
+
+            start = System.nanoTime();
+            final Map<String, CommitModelObjectsTask> tasks = new HashMap<>( 512 );
+
+            if ( specifications != null )
+            {
+                for ( int i = specifications.getSpecification().size() - 1; i >= 0; i-- )
+                {
+                    final Specification specification = specifications.getSpecification().get( i );
+
+                    if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
+                    {
+                        final String classLocation = getClassLocation( specification.getJavaTypeName() );
+                        CommitModelObjectsTask task = tasks.get( classLocation );
+
+                        if ( task == null )
+                        {
+                            task = new CommitModelObjectsTask(
+                                this.getJavaClassfile( classLocation, classesDirectory, classfiles ),
+                                classfiles.get( classLocation ) );
+
+                            tasks.put( classLocation, task );
+                        }
+
+                        task.specification = specification;
+                    }
+                }
+            }
+
+            if ( implementations != null )
+            {
+                for ( int i = implementations.getImplementation().size() - 1; i >= 0; i-- )
+                {
+                    final Implementation implementation = implementations.getImplementation().get( i );
+
+                    if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
+                    {
+                        final String classLocation = getClassLocation( implementation.getJavaTypeName() );
+                        CommitModelObjectsTask task = tasks.get( classLocation );
+
+                        if ( task == null )
+                        {
+                            task = new CommitModelObjectsTask(
+                                this.getJavaClassfile( classLocation, classesDirectory, classfiles ),
+                                classfiles.get( classLocation ) );
+
+                            tasks.put( classLocation, task );
+                        }
+
+                        task.implementation = implementation;
+                    }
+                }
+            }
+
+            final List<ClassfileTaskChunk<Void>> chunks =
+                this.getExecutorService() != null && tasks.size() > 1
+                    ? newClassfileTaskChunks( tasks.values(), getParallelism( this.getExecutorService() ) )
+                    : null;
+
+            this.logClassfilePhase( "commitModelObjects", "schedule", tasks.size(), start );
+            start = System.nanoTime();
+
+            if ( chunks != null )
+            {
+                for ( final Future<List<Void>> chunk : this.getExecutorService().invokeAll( chunks ) )
+                {
+                    chunk.get();
+                }
+            }
+            else
+            {
+                for ( final CommitModelObjectsTask task : tasks.values() )
+                {
+                    task.call();
+                }
+            }
+
+            this.logClassfilePhase( "commitModelObjects", "process", tasks.size(), start );
+
+            if ( this.isLoggable( Level.INFO ) )
+            {
+                int written = 0;
+
+                for ( final CommitModelObjectsTask task : tasks.values() )
+                {
+                    if ( task.written )
+                    {
+                        written++;
+                    }
+                }
+
+                this.log( Level.INFO, getMessage( "classfilesCommitted", written, tasks.size() - written ), null );
+            }
+        }
+        catch ( final CancellationException | InterruptedException e )
+        {
+            throw new IOException( getMessage( e.getCause() ), e.getCause() );
+        }
+        catch ( final ExecutionException e )
+        {
+            if ( e.getCause() instanceof ModelException )
+            {
+                throw (ModelException) e.getCause();
+            }
+            else if ( e.getCause() instanceof IOException )
+            {
+                throw (IOException) e.getCause();
+            }
+            else if ( e.getCause() instanceof RuntimeException )
+            {
+                // The fork-join framework breaks the exception handling contract of Callable by re-throwing any
+                // exception caught using a runtime exception.
+                if ( e.getCause().getCause() instanceof ModelException )
+                {
+                    throw (ModelException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof IOException )
+                {
+                    throw (IOException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof RuntimeException )
+                {
+                    throw (RuntimeException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof Error )
+                {
+                    throw (Error) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof Exception )
+                {
+                    // Checked exception not declared to be thrown by the Callable's 'call' method.
+                    throw new UndeclaredThrowableException( e.getCause().getCause() );
+                }
+                else
+                {
+                    throw (RuntimeException) e.getCause();
+                }
+            }
+            else if ( e.getCause() instanceof Error )
+            {
+                throw (Error) e.getCause();
+            }
+            else
+            {
+                // Checked exception not declared to be thrown by the Callable's 'call' method.
+                throw new UndeclaredThrowableException( e.getCause() );
+            }
+        }
+        finally
+        {
+            for ( int i = 0, s0 = marshallers.size(); i < s0; i++ )
+            {
+                this.getMarshallerPool().releaseMarshaller( context, this.getModel().getIdentifier(),
+                                                            marshallers.get( i ) );
+
+            }
+
+            this.flushLog();
+        }
+    }
+
+    private ModelValidationReport validateModelObjects( final Specifications specifications,
+                                                        final Implementations implementations,
+                                                        final Path classesDirectory,
+                                                        final ModelContext context )
+        throws IOException, ModelException
+    {
+        final ThreadLocal<Unmarshaller> threadLocalUnmarshaller = new ThreadLocal<>();
+        final List<Unmarshaller> unmarshallers = Collections.synchronizedList( new ArrayList<Unmarshaller>() );
+
+        try
+        {
+
+            class ValidateModelObjectsTask extends ClassfileTask<ModelValidationReport>
+            {
+
+                ValidateModelObjectsTask( final Path javaClassfile, final long size )
+                {
+                    super( javaClassfile, size );
+                }
+
+                @Override
+                public ModelValidationReport call() throws IOException, ModelException
+                {
+                    final long start = System.nanoTime();
+                    Unmarshaller unmarshaller = threadLocalUnmarshaller.get();
+                    if ( unmarshaller == null )
+                    {
+                        unmarshaller = getMarshallerPool().acquireUnmarshaller( context, getModel().getIdentifier() );
+                        unmarshallers.add( unmarshaller );
+                        threadLocalUnmarshaller.set( unmarshaller );
+                    }
+
+                    final ModelValidationReport report = validateModelObjects(
+                        this.specification, this.implementation, unmarshaller, readClassfile( this.javaClassfile ),
+                        getLocation( this.javaClassfile ) );
+
+                    getMetrics().onFileProcessed( "validateModelObjects", getLocation( this.javaClassfile ),
+                                                  System.nanoTime() - start );
+
+                    return report;
+                }
+
+            }
+
+            long start = System.nanoTime();
+            final Map<String, Long> classfiles = scanClassfiles( classesDirectory, specifications, implementations );
+            this.logClassfilePhase( "validateModelObjects", "scan", classfiles.size(), start );
+
+            start = System.nanoTime();
+            final Map<String, ValidateModelObjectsTask> tasks = new HashMap<>();
+
+            if ( specifications != null )
+            {
+                for ( int i = 0, s0 = specifications.getSpecification().size(); i < s0; i++ )
+                {
+                    final Specification specification = specifications.getSpecification().get( i );
+
+                    if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
+                    {
+                        final String classLocation = getClassLocation( specification.getJavaTypeName() );
+                        ValidateModelObjectsTask task = tasks.get( classLocation );
+
+                        if ( task == null )
+                        {
+                            task = new ValidateModelObjectsTask(
+                                this.getJavaClassfile( classLocation, classesDirectory, classfiles ),
+                                classfiles.get( classLocation ) );
+
+                            tasks.put( classLocation, task );
+                        }
+
+                        task.specification = specification;
+                    }
+                }
+            }
+
+            if ( implementations != null )
+            {
+                for ( int i = 0, s0 = implementations.getImplementation().size(); i < s0; i++ )
+                {
+                    final Implementation implementation = implementations.getImplementation().get( i );
+
+                    if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
+                    {
+                        final String classLocation = getClassLocation( implementation.getJavaTypeName() );
+                        ValidateModelObjectsTask task = tasks.get( classLocation );
+
+                        if ( task == null )
+                        {
+                            task = new ValidateModelObjectsTask(
+                                this.getJavaClassfile( classLocation, classesDirectory, classfiles ),
+                                classfiles.get( classLocation ) );
+
+                            tasks.put( classLocation, task );
+                        }
+
+                        task.implementation = implementation;
+                    }
+                }
+            }
+
+            final List<ClassfileTaskChunk<ModelValidationReport>> chunks =
+                this.getExecutorService() != null && tasks.size() > 1
+                    ? newClassfileTaskChunks( tasks.values(), getParallelism( this.getExecutorService() ) )
+                    : null;
+
+            this.logClassfilePhase( "validateModelObjects", "schedule", tasks.size(), start );
+            start = System.nanoTime();
+
+            final ModelValidationReport report = new ModelValidationReport();
+
+            if ( chunks != null )
+            {
+                for ( final Future<List<ModelValidationReport>> chunk : this.getExecutorService().invokeAll( chunks ) )
+                {
+                    for ( final ModelValidationReport taskReport : chunk.get() )
+                    {
+                        report.getDetails().addAll( taskReport.getDetails() );
+                    }
+                }
+            }
+            else
+            {
+                for ( final ValidateModelObjectsTask task : tasks.values() )
+                {
+                    report.getDetails().addAll( task.call().getDetails() );
+                }
+            }
+
+            this.logClassfilePhase( "validateModelObjects", "process", tasks.size(), start );
+            return report;
+        }
+        catch ( final CancellationException | InterruptedException e )
+        {
+            throw new IOException( getMessage( e.getCause() ), e.getCause() );
+        }
+        catch ( final ExecutionException e )
+        {
+            if ( e.getCause() instanceof ModelException )
+            {
+                throw (ModelException) e.getCause();
+            }
+            else if ( e.getCause() instanceof IOException )
+            {
+                throw (IOException) e.getCause();
+            }
+            else if ( e.getCause() instanceof RuntimeException )
+            {
+                // The fork-join framework breaks the exception handling contract of Callable by re-throwing any
+                // exception caught using a runtime exception.
+                if ( e.getCause().getCause() instanceof ModelException )
+                {
+                    throw (ModelException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof IOException )
+                {
+                    throw (IOException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof RuntimeException )
+                {
+                    throw (RuntimeException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof Error )
+                {
+                    throw (Error) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof Exception )
+                {
+                    // Checked exception not declared to be thrown by the Callable's 'call' method.
+                    throw new UndeclaredThrowableException( e.getCause().getCause() );
+                }
+                else
+                {
+                    throw (RuntimeException) e.getCause();
+                }
+            }
+            else if ( e.getCause() instanceof Error )
+            {
+                throw (Error) e.getCause();
+            }
+            else
+            {
+                // Checked exception not declared to be thrown by the Callable's 'call' method.
+                throw new UndeclaredThrowableException( e.getCause() );
+            }
+        }
+        finally
+        {
+            for ( int i = 0, s0 = unmarshallers.size(); i < s0; i++ )
+            {
+                this.getMarshallerPool().releaseUnmarshaller( context, this.getModel().getIdentifier(),
+                                                              unmarshallers.get( i ) );
+
+            }
+
+            this.flushLog();
+        }
+    }
+
+    private ModelValidationReport validateModelObjects( final Specifications specifications,
+                                                        final Implementations implementations,
+                                                        final ModelContext context )
+        throws IOException, ModelException
+    {
+        final ThreadLocal<Unmarshaller> threadLocalUnmarshaller = new ThreadLocal<>();
+        final List<Unmarshaller> unmarshallers = Collections.synchronizedList( new ArrayList<Unmarshaller>() );
+
+        class ValidateModelObjectsTask implements Callable<ModelValidationReport>
+        {
+
+            final URL javaClassfile;
+
+            Specification specification;
+
+            Implementation implementation;
+
+            ValidateModelObjectsTask( final URL javaClassfile )
+            {
+                super();
+                this.javaClassfile = javaClassfile;
+            }
+
+            @Override
+            public ModelValidationReport call() throws IOException, ModelException
+            {
+                try ( final InputStream in = this.javaClassfile.openStream() )
+                {
+                    return this.validate( in );
+                }
+            }
+
+            ModelValidationReport validate( final InputStream in ) throws IOException, ModelException
+            {
+                final long start = System.nanoTime();
+                Unmarshaller unmarshaller = threadLocalUnmarshaller.get();
+                if ( unmarshaller == null )
+                {
+                    unmarshaller = getMarshallerPool().acquireUnmarshaller( context, getModel().getIdentifier() );
+                    unmarshallers.add( unmarshaller );
+                    threadLocalUnmarshaller.set( unmarshaller );
+                }
+
+                final ModelValidationReport report = validateModelObjects(
+                    this.specification, this.implementation, unmarshaller, readClassfile( in ),
+                    this.javaClassfile.toExternalForm() );
+
+                getMetrics().onFileProcessed( "validateModelObjects", this.javaClassfile.toExternalForm(),
+                                              System.nanoTime() - start );
+
+                return report;
+            }
+
+        }
+
+        class ValidateArchiveTask implements Callable<ModelValidationReport>
+        {
+
+            final File archive;
+
+            final Map<String, ValidateModelObjectsTask> entries = new HashMap<>();
+
+            ValidateArchiveTask( final File archive )
+            {
+                super();
+                this.archive = archive;
+            }
+
+            @Override
+            public ModelValidationReport call() throws IOException, ModelException
+            {
+                final ModelValidationReport report = new ModelValidationReport();
+                final Map<String, ValidateModelObjectsTask> remaining = new HashMap<>( this.entries );
+
+                // Entries are enumerated in central directory order.
+                try ( final JarFile jarFile = new JarFile( this.archive ) )
+                {
+                    for ( final Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements()
+                                                                                 && !remaining.isEmpty(); )
+                    {
+                        final JarEntry entry = e.nextElement();
+                        final ValidateModelObjectsTask task = remaining.remove( entry.getName() );
+
+                        if ( task != null )
+                        {
+                            try ( final InputStream in = jarFile.getInputStream( entry ) )
+                            {
+                                report.getDetails().addAll( task.validate( in ).getDetails() );
+                            }
+                        }
+                    }
+                }
+
+                for ( final ValidateModelObjectsTask task : remaining.values() )
+                {
+                    report.getDetails().addAll( task.call().getDetails() );
+                }
+
+                return report;
+            }
+
+        }
+
+        final Map<String, ValidateModelObjectsTask> tasks = new HashMap<>();
+
+        if ( specifications != null )
+        {
+            for ( int i = 0, s0 = specifications.getSpecification().size(); i < s0; i++ )
+            {
+                final Specification specification = specifications.getSpecification().get( i );
+
+                if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
+                {
+                    final URL javaClassfile =
+                        this.getJavaClassfile( specification.getJavaTypeName(), context );
+
+                    ValidateModelObjectsTask task = tasks.get( javaClassfile.toExternalForm() );
+
+                    if ( task == null )
+                    {
+                        task = new ValidateModelObjectsTask( javaClassfile );
+                        tasks.put( javaClassfile.toExternalForm(), task );
+                    }
+
+                    task.specification = specification;
+                }
+            }
+        }
+
+        if ( implementations != null )
+        {
+            for ( int i = 0, s0 = implementations.getImplementation().size(); i < s0; i++ )
+            {
+                final Implementation implementation = implementations.getImplementation().get( i );
+
+                if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
+                {
+                    final URL javaClassfile =
+                        this.getJavaClassfile( implementation.getJavaTypeName(), context );
+
+                    ValidateModelObjectsTask task = tasks.get( javaClassfile.toExternalForm() );
+
+                    if ( task == null )
+                    {
+                        task = new ValidateModelObjectsTask( javaClassfile );
+                        tasks.put( javaClassfile.toExternalForm(), task );
+                    }
+
+                    task.implementation = implementation;
+                }
+            }
+        }
+
+        // Class files found in local archives are read using one task per archive opening the archive once.
+        final List<Callable<ModelValidationReport>> validationTasks = new ArrayList<>( tasks.size() );
+        final Map<File, ValidateArchiveTask> archiveTasks = new HashMap<>();
+
+        for ( final ValidateModelObjectsTask task : tasks.values() )
+        {
+            final URLConnection connection =
+                "jar".equals( task.javaClassfile.getProtocol() ) ? task.javaClassfile.openConnection() : null;
+
+            final File archive = connection instanceof JarURLConnection
+                                     ? getFile( ( (JarURLConnection) connection ).getJarFileURL() )
+                                     : null;
+
+            if ( archive != null && ( (JarURLConnection) connection ).getEntryName() != null )
+            {
+                ValidateArchiveTask archiveTask = archiveTasks.get( archive );
+
+                if ( archiveTask == null )
+                {
+                    archiveTask = new ValidateArchiveTask( archive );
+                    archiveTasks.put( archive, archiveTask );
+                    validationTasks.add( archiveTask );
+                }
+
+                archiveTask.entries.put( ( (JarURLConnection) connection ).getEntryName(), task );
+            }
+            else
+            {
+                validationTasks.add( task );
+            }
+        }
+
+        try
+        {
+            final ModelValidationReport report = new ModelValidationReport();
+
+            if ( this.getExecutorService() != null && validationTasks.size() > 1 )
+            {
+                for ( final Future<ModelValidationReport> task
+                          : this.getExecutorService().invokeAll( validationTasks ) )
+                {
+                    report.getDetails().addAll( task.get().getDetails() );
+                }
+            }
+            else
+            {
+                for ( final Callable<ModelValidationReport> task : validationTasks )
+                {
+                    report.getDetails().addAll( task.call().getDetails() );
+                }
+            }
+
+            return report;
+        }
+        catch ( final CancellationException | InterruptedException e )
+        {
+            throw new IOException( getMessage( e.getCause() ), e.getCause() );
+        }
+        catch ( final ExecutionException e )
+        {
+            if ( e.getCause() instanceof ModelException )
+            {
+                throw (ModelException) e.getCause();
+            }
+            else if ( e.getCause() instanceof IOException )
+            {
+                throw (IOException) e.getCause();
+            }
+            else if ( e.getCause() instanceof RuntimeException )
+            {
+                // The fork-join framework breaks the exception handling contract of Callable by re-throwing any
+                // exception caught using a runtime exception.
+                if ( e.getCause().getCause() instanceof ModelException )
+                {
+                    throw (ModelException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof IOException )
+                {
+                    throw (IOException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof RuntimeException )
+                {
+                    throw (RuntimeException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof Error )
+                {
+                    throw (Error) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof Exception )
+                {
+                    // Checked exception not declared to be thrown by the Callable's 'call' method.
+                    throw new UndeclaredThrowableException( e.getCause().getCause() );
+                }
+                else
+                {
+                    throw (RuntimeException) e.getCause();
+                }
+            }
+            else if ( e.getCause() instanceof Error )
+            {
+                throw (Error) e.getCause();
+            }
+            else
+            {
+                // Checked exception not declared to be thrown by the Callable's 'call' method.
+                throw new UndeclaredThrowableException( e.getCause() );
+            }
+        }
+        finally
+        {
+            for ( int i = 0, s0 = unmarshallers.size(); i < s0; i++ )
+            {
+                this.getMarshallerPool().releaseUnmarshaller( context, this.getModel().getIdentifier(),
+                                                              unmarshallers.get( i ) );
+
+            }
+
+            this.flushLog();
+        }
+    }
+
+    private void transformModelObjects( final Specifications specifications, final Implementations implementations,
+                                        final Unmarshaller unmarshaller, final Marshaller marshaller,
+                                        final Path classesDirectory, final List<Transformer> transformers )
+        throws IOException, ModelObjectException
+    {
+        long start = System.nanoTime();
+        final Map<String, Long> classfiles = scanClassfiles( classesDirectory, specifications, implementations );
+        this.logClassfilePhase( "transformModelObjects", "scan", classfiles.size(), start );
+
+        start = System.nanoTime();
+        int count = 0;
+
+        if ( specifications != null )
+        {
+            for ( int i = 0, s0 = specifications.getSpecification().size(); i < s0; i++ )
+            {
+                final Specification specification = specifications.getSpecification().get( i );
+
+                if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
+                {
+                    final Path classFile = this.getJavaClassfile(
+                        getClassLocation( specification.getJavaTypeName() ), classesDirectory, classfiles );
+
+                    if ( this.isLoggable( Level.INFO ) )
+                    {
+                        this.log( Level.INFO, getMessage( "transforming", getLocation( classFile ) ), null );
+                    }
+
+                    this.transformModelObjects( specification, null, marshaller, unmarshaller, classFile,
+                                                transformers );
+
+                    count++;
+                }
+            }
+        }
+
+        if ( implementations != null )
+        {
+            for ( int i = 0, s0 = implementations.getImplementation().size(); i < s0; i++ )
+            {
+                final Implementation implementation = implementations.getImplementation().get( i );
+
+                if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
+                {
+                    final Path classFile = this.getJavaClassfile(
+                        getClassLocation( implementation.getJavaTypeName() ), classesDirectory, classfiles );
+
+                    if ( this.isLoggable( Level.INFO ) )
+                    {
+                        this.log( Level.INFO, getMessage( "transforming", getLocation( classFile ) ), null );
+                    }
+
+                    this.transformModelObjects( null, implementation, marshaller, unmarshaller, classFile,
+                                                transformers );
+
+                    count++;
+                }
+            }
+        }
+
+        this.logClassfilePhase( "transformModelObjects", "process", count, start );
+    }
+
+    private void transformModelObjects( final Specification specification, final Marshaller marshaller,
+                                        final Unmarshaller unmarshaller, final Path classesDirectory,
+                                        final List<Transformer> transformers ) throws IOException, ModelObjectException
+    {
+        if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
+        {
+            final Path classFile = this.getJavaClassfile( specification.getJavaTypeName(), classesDirectory );
+
+            if ( this.isLoggable( Level.INFO ) )
+            {
+                this.log( Level.INFO, getMessage( "transforming", getLocation( classFile ) ), null );
+            }
+
+            this.transformModelObjects( specification, null, marshaller, unmarshaller, classFile, transformers );
+        }
+    }
+
+    private void transformModelObjects( final Implementation implementation, final Marshaller marshaller,
+                                        final Unmarshaller unmarshaller, final Path classesDirectory,
+                                        final List<Transformer> transformers ) throws IOException, ModelObjectException
+    {
+        if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
+        {
+            final Path classFile = this.getJavaClassfile( implementation.getJavaTypeName(), classesDirectory );
+
+            if ( this.isLoggable( Level.INFO ) )
+            {
+                this.log( Level.INFO, getMessage( "transforming", getLocation( classFile ) ), null );
+            }
+
+            this.transformModelObjects( null, implementation, marshaller, unmarshaller, classFile, transformers );
+        }
+    }
+
+    private ModelValidationReport validateModelObjects( final Specification specification,
+                                                        final Unmarshaller unmarshaller,
+                                                        final ClassfileAttributes attributes ) throws IOException
+    {
+        ModelValidationReport report = null;
+
+        if ( this.isLoggable( Level.INFO ) )
+        {
+            this.log( Level.INFO, getMessage( "validatingSpecification", specification.getIdentifier() ), null );
+        }
+
+        if ( this.getModules() != null && this.getModules().getSpecification( specification.getIdentifier() ) != null )
+        {
+            report = new ModelValidationReport();
+            final Specification decoded =
+                this.getModelObject( attributes, unmarshaller, Specification.class, specification );
+
+            if ( decoded != null )
+            {
+                if ( decoded.getMultiplicity() != specification.getMultiplicity() )
+                {
+                    report.getDetails().add( new ModelValidationReport.Detail(
+                        "CLASS_ILLEGAL_SPECIFICATION_MULTIPLICITY", Level.SEVERE, getMessage(
+                            "illegalMultiplicity", specification.getIdentifier(),
+                            specification.getMultiplicity().value(),
+                            decoded.getMultiplicity().value() ),
+                        new ObjectFactory().createSpecification( specification ) ) );
+
+                }
+
+                if ( decoded.getScope() == null
+                         ? specification.getScope() != null
+                         : !decoded.getScope().equals( specification.getScope() ) )
+                {
+                    report.getDetails().add( new ModelValidationReport.Detail(
+                        "CLASS_ILLEGAL_SPECIFICATION_SCOPE", Level.SEVERE, getMessage(
+                            "illegalScope", specification.getIdentifier(),
+                            specification.getScope() == null ? "Multiton" : specification.getScope(),
+                            decoded.getScope() == null ? "Multiton" : decoded.getScope() ),
+                        new ObjectFactory().createSpecification( specification ) ) );
+
+                }
+
+                if ( decoded.getClazz() == null
+                         ? specification.getClazz() != null
+                         : !decoded.getClazz().equals( specification.getClazz() ) )
+                {
+                    report.getDetails().add( new ModelValidationReport.Detail(
+                        "CLASS_ILLEGAL_SPECIFICATION_CLASS", Level.SEVERE, getMessage(
+                            "illegalSpecificationClass", decoded.getIdentifier(),
+                            specification.getClazz(), decoded.getClazz() ),
+                        new ObjectFactory().createSpecification( specification ) ) );
+
+                }
+            }
+            else if ( this.isLoggable( Level.WARNING ) )
+            {
+                this.log( Level.WARNING, getMessage( "cannotValidateSpecification", specification.getIdentifier(),
+                                                     Specification.class.getName() ), null );
+
+            }
         }
-        if ( javaClass == null )
+        else if ( this.isLoggable( Level.WARNING ) )
         {
-            throw new NullPointerException( "javaClass" );
+            this.log( Level.WARNING, getMessage( "specificationNotFound", specification.getIdentifier() ), null );
         }
 
+        return report;
+    }
+
+    private ModelValidationReport validateModelObjects( final Implementation implementation,
+                                                        final Unmarshaller unmarshaller,
+                                                        final ClassfileAttributes attributes, final String className )
+        throws IOException
+    {
         if ( this.isLoggable( Level.INFO ) )
         {
             this.log( Level.INFO, getMessage( "validatingImplementation", implementation.getIdentifier() ), null );
@@ -1120,33 +2703,33 @@ public class ClassFileProcessor extends JomcTool
                     specifications = new Specifications();
                 }
 
-                Dependencies decodedDependencies = null;
-                byte[] bytes = this.getClassfileAttribute( javaClass, Dependencies.class.getName() );
-                if ( bytes != null )
-                {
-                    decodedDependencies = this.decodeModelObject( unmarshaller, bytes, Dependencies.class );
-                }
+                // Specifications as committed, including the specifications of any dependencies.
+                final Specifications committedSpecifications = new Specifications();
+                committedSpecifications.getSpecification().addAll( specifications.getSpecification() );
+                committedSpecifications.getReference().addAll( specifications.getReference() );
 
-                Properties decodedProperties = null;
-                bytes = this.getClassfileAttribute( javaClass, Properties.class.getName() );
-                if ( bytes != null )
+                for ( int i = 0, s0 = dependencies.getDependency().size(); i < s0; i++ )
                 {
-                    decodedProperties = this.decodeModelObject( unmarshaller, bytes, Properties.class );
-                }
+                    final Specification s =
+                        this.getModules().getSpecification( dependencies.getDependency().get( i ).getIdentifier() );
 
-                Messages decodedMessages = null;
-                bytes = this.getClassfileAttribute( javaClass, Messages.class.getName() );
-                if ( bytes != null )
-                {
-                    decodedMessages = this.decodeModelObject( unmarshaller, bytes, Messages.class );
+                    if ( s != null && committedSpecifications.getSpecification( s.getIdentifier() ) == null )
+                    {
+                        committedSpecifications.getSpecification().add( s );
+                    }
                 }
 
-                Specifications decodedSpecifications = null;
-                bytes = this.getClassfileAttribute( javaClass, Specifications.class.getName() );
-                if ( bytes != null )
-                {
-                    decodedSpecifications = this.decodeModelObject( unmarshaller, bytes, Specifications.class );
-                }
+                final Dependencies decodedDependencies =
+                    this.getModelObject( attributes, unmarshaller, Dependencies.class, dependencies );
+
+                final Properties decodedProperties =
+                    this.getModelObject( attributes, unmarshaller, Properties.class, properties );
+
+                final Messages decodedMessages =
+                    this.getModelObject( attributes, unmarshaller, Messages.class, messages );
+
+                final Specifications decodedSpecifications =
+                    this.getModelObject( attributes, unmarshaller, Specifications.class, committedSpecifications );
 
                 if ( decodedDependencies != null )
                 {
@@ -1186,7 +2769,7 @@ public class ClassFileProcessor extends JomcTool
 
                             report.getDetails().add( new ModelValidationReport.Detail(
                                 "CLASS_INCOMPATIBLE_IMPLEMENTATION_DEPENDENCY", Level.SEVERE, getMessage(
-                                    "incompatibleDependency", javaClass.getClassName(),
+                                    "incompatibleDependency", className,
                                     moduleOfImplementation == null ? "<>" : moduleOfImplementation.getName(),
                                     s.getIdentifier(),
                                     moduleOfSpecification == null ? "<>" : moduleOfSpecification.getName(),
@@ -1349,7 +2932,7 @@ public class ClassFileProcessor extends JomcTool
 
                             report.getDetails().add( new ModelValidationReport.Detail(
                                 "CLASS_INCOMPATIBLE_IMPLEMENTATION", Level.SEVERE, getMessage(
-                                    "incompatibleImplementation", javaClass.getClassName(),
+                                    "incompatibleImplementation", className,
                                     moduleOfImplementation == null ? "<>" : moduleOfImplementation.getName(),
                                     specification.getIdentifier(),
                                     moduleOfSpecification == null ? "<>" : moduleOfSpecification.getName(),
@@ -1379,294 +2962,296 @@ public class ClassFileProcessor extends JomcTool
         }
     }
 
-    /**
-     * Transforms model objects of class files of the modules of the instance.
-     *
-     * @param context The model context to use for transforming model objects.
-     * @param classesDirectory The directory holding the class files.
-     * @param transformers The transformers to use for transforming model objects.
-     *
-     * @throws NullPointerException if {@code context}, {@code classesDirectory} or {@code transformers} is
-     * {@code null}.
-     * @throws IOException if transforming model objects fails.
-     *
-     * @see #transformModelObjects(org.jomc.model.Module, org.jomc.modlet.ModelContext, java.io.File, java.util.List)
-     */
-    public final void transformModelObjects( final ModelContext context, final File classesDirectory,
-                                             final List<Transformer> transformers ) throws IOException
+    private ModelValidationReport validateModelObjects( final Specification specification,
+                                                        final Implementation implementation,
+                                                        final Unmarshaller unmarshaller, final byte[] classfile,
+                                                        final String location )
+        throws IOException, ModelException
     {
-        if ( context == null )
-        {
-            throw new NullPointerException( "context" );
-        }
-        if ( classesDirectory == null )
-        {
-            throw new NullPointerException( "classesDirectory" );
-        }
-        if ( transformers == null )
-        {
-            throw new NullPointerException( "transformers" );
-        }
-        if ( !classesDirectory.isDirectory() )
-        {
-            throw new IOException( getMessage( "directoryNotFound", classesDirectory.getAbsolutePath() ) );
-        }
+        final ModelValidationReport report = new ModelValidationReport();
+
+        final Semaphore permits = this.acquireConcurrencyPermit();
 
         try
         {
-            if ( this.getModules() != null )
+            if ( this.isClassfilePatchingSupported() )
             {
-                final Unmarshaller u = context.createUnmarshaller( this.getModel().getIdentifier() );
-                final Marshaller m = context.createMarshaller( this.getModel().getIdentifier() );
-                final Schema s = context.createSchema( this.getModel().getIdentifier() );
-                u.setSchema( s );
-                m.setSchema( s );
+                final ClassfilePatcher patcher = new ClassfilePatcher( classfile, location );
+
+                if ( specification != null )
+                {
+                    report.getDetails().
+                        addAll( this.validateModelObjects( specification, unmarshaller, patcher ).getDetails() );
 
-                this.transformModelObjects( this.getModules().getSpecifications(),
-                                            this.getModules().getImplementations(),
-                                            u, m, classesDirectory, transformers );
+                }
+                if ( implementation != null )
+                {
+                    report.getDetails().addAll( this.validateModelObjects(
+                        implementation, unmarshaller, patcher, implementation.getJavaTypeName().getClassName() ).
+                        getDetails() );
 
+                }
             }
-            else if ( this.isLoggable( Level.WARNING ) )
+            else
             {
-                this.log( Level.WARNING, getMessage( "modulesNotFound", this.getModel().getIdentifier() ), null );
+                final JavaClass javaClass = new ClassParser( new ByteArrayInputStream( classfile ), location ).parse();
+
+                if ( specification != null )
+                {
+                    report.getDetails().
+                        addAll( this.validateModelObjects( specification, unmarshaller, javaClass ).getDetails() );
+
+                }
+                if ( implementation != null )
+                {
+                    report.getDetails().
+                        addAll( this.validateModelObjects( implementation, unmarshaller, javaClass ).getDetails() );
+
+                }
             }
         }
-        catch ( final ModelException e )
+        finally
         {
-            throw new IOException( getMessage( e ), e );
+            releaseConcurrencyPermit( permits );
         }
+
+        return report;
     }
 
     /**
-     * Transforms model objects of class files of a given module of the modules of the instance.
+     * Gets a model object committed to a class file.
+     * <p>
+     * If the digest committed alongside the model object matches the digest of the given model object, the committed
+     * model object is not decoded and the given model object is returned instead. Digests cover the encoded bytes
+     * and all properties compared during validation so that a matching digest guarantees validation to report the
+     * same as if the committed model object had been decoded.
+     * </p>
      *
-     * @param module The module to process.
-     * @param context The model context to use for transforming model objects.
-     * @param classesDirectory The directory holding the class files.
-     * @param transformers The transformers to use for transforming the model objects.
+     * @param attributes The attributes of the class file.
+     * @param unmarshaller The unmarshaller to use for decoding the committed model object.
+     * @param type The class of the model object.
+     * @param modelObject The model object from the modules of the instance.
      *
-     * @throws NullPointerException if {@code module}, {@code context}, {@code classesDirectory} or {@code transformers}
-     * is {@code null}.
-     * @throws IOException if transforming model objects fails.
+     * @return The committed model object or {@code null}, if no model object has been committed.
      *
-     * @see #transformModelObjects(org.jomc.model.Specification, org.jomc.modlet.ModelContext, java.io.File, java.util.List)
-     * @see #transformModelObjects(org.jomc.model.Implementation, org.jomc.modlet.ModelContext, java.io.File, java.util.List)
+     * @throws IOException if decoding the committed model object fails.
      */
-    public final void transformModelObjects( final Module module, final ModelContext context,
-                                             final File classesDirectory, final List<Transformer> transformers )
-        throws IOException
+    private <T extends ModelObject> T getModelObject( final ClassfileAttributes attributes,
+                                                      final Unmarshaller unmarshaller, final Class<T> type,
+                                                      final T modelObject ) throws IOException
     {
-        if ( module == null )
-        {
-            throw new NullPointerException( "module" );
-        }
-        if ( context == null )
-        {
-            throw new NullPointerException( "context" );
-        }
-        if ( classesDirectory == null )
-        {
-            throw new NullPointerException( "classesDirectory" );
-        }
-        if ( transformers == null )
-        {
-            throw new NullPointerException( "transformers" );
-        }
-        if ( !classesDirectory.isDirectory() )
-        {
-            throw new IOException( getMessage( "directoryNotFound", classesDirectory.getAbsolutePath() ) );
-        }
+        final byte[] bytes = attributes.get( type.getName() );
 
-        try
+        if ( bytes != null )
         {
-            if ( this.getModules() != null && this.getModules().getModule( module.getName() ) != null )
-            {
-                final Unmarshaller u = context.createUnmarshaller( this.getModel().getIdentifier() );
-                final Marshaller m = context.createMarshaller( this.getModel().getIdentifier() );
-                final Schema s = context.createSchema( this.getModel().getIdentifier() );
-                u.setSchema( s );
-                m.setSchema( s );
+            final byte[] digest = attributes.get( getDigestAttributeName( type ) );
 
-                this.transformModelObjects( module.getSpecifications(), module.getImplementations(), u, m,
-                                            classesDirectory, transformers );
+            return digest != null && Arrays.equals( digest, getModelObjectDigest( bytes, modelObject ) )
+                       ? modelObject
+                       : this.decodeModelObject( unmarshaller, bytes, type );
 
-            }
-            else if ( this.isLoggable( Level.WARNING ) )
-            {
-                this.log( Level.WARNING, getMessage( "moduleNotFound", module.getName() ), null );
-            }
-        }
-        catch ( final ModelException e )
-        {
-            throw new IOException( getMessage( e ), e );
         }
+
+        return null;
+    }
+
+    private void setModelObject( final ClassfileAttributes attributes, final Marshaller marshaller,
+                                 final JAXBElement<? extends ModelObject> modelObject ) throws IOException
+    {
+        final byte[] bytes = this.encodeModelObject( marshaller, modelObject );
+        attributes.set( modelObject.getDeclaredType().getName(), bytes );
+        attributes.set( getDigestAttributeName( modelObject.getDeclaredType() ),
+                        getModelObjectDigest( bytes, modelObject.getValue() ) );
+
     }
 
     /**
-     * Transforms model objects of class files of a given specification of the modules of the instance.
+     * Transforms a model object using a list of transformers.
+     * <p>
+     * The model object is marshalled once and unmarshalled once. Intermediate results of the transformers are passed
+     * on as DOM trees instead of unmarshalling and marshalling the model object for each transformer. Each
+     * intermediate result is checked to be an element of the model object and validated against the schema of
+     * {@code unmarshaller} the same way unmarshalling would. The final result is unmarshalled using
+     * {@code unmarshaller} and checked to be a model object of {@code type}.
+     * </p>
      *
-     * @param specification The specification to process.
-     * @param context The model context to use for transforming model objects.
-     * @param classesDirectory The directory holding the class files.
-     * @param transformers The transformers to use for transforming the model objects.
+     * @param marshaller The marshaller to use for marshalling the model object.
+     * @param unmarshaller The unmarshaller to use for unmarshalling the transformation result.
+     * @param modelObject The model object to transform.
+     * @param type The class of the model object.
+     * @param transformers The non-empty list of transformers to apply.
      *
-     * @throws NullPointerException if {@code specification}, {@code context}, {@code classesDirectory} or
-     * {@code transformers} is {@code null}.
-     * @throws IOException if transforming model objects fails.
+     * @return The transformed model object or {@code null}, if any transformation result is not a model object of
+     * {@code type}.
      *
-     * @see #transformModelObjects(org.jomc.model.Specification, javax.xml.bind.Marshaller, javax.xml.bind.Unmarshaller, org.apache.bcel.classfile.JavaClass, java.util.List)
+     * @throws JAXBException if marshalling or unmarshalling the model object fails or if an intermediate
+     * transformation result is invalid.
+     * @throws TransformerException if transforming the model object fails.
      */
-    public final void transformModelObjects( final Specification specification, final ModelContext context,
-                                             final File classesDirectory, final List<Transformer> transformers )
-        throws IOException
+    private <T extends ModelObject> T transformModelObject( final Marshaller marshaller,
+                                                            final Unmarshaller unmarshaller,
+                                                            final JAXBElement<? extends ModelObject> modelObject,
+                                                            final Class<T> type, final List<Transformer> transformers )
+        throws JAXBException, TransformerException
     {
-        if ( specification == null )
-        {
-            throw new NullPointerException( "specification" );
-        }
-        if ( context == null )
-        {
-            throw new NullPointerException( "context" );
-        }
-        if ( classesDirectory == null )
-        {
-            throw new NullPointerException( "classesDirectory" );
-        }
-        if ( transformers == null )
-        {
-            throw new NullPointerException( "transformers" );
-        }
-        if ( !classesDirectory.isDirectory() )
-        {
-            throw new IOException( getMessage( "directoryNotFound", classesDirectory.getAbsolutePath() ) );
-        }
+        Source source = new JAXBSource( marshaller, modelObject );
+        final Validator validator = transformers.size() > 1 && unmarshaller.getSchema() != null
+                                        ? unmarshaller.getSchema().newValidator()
+                                        : null;
 
-        try
+        for ( int i = 0, l = transformers.size() - 1; i < l; i++ )
         {
-            if ( this.getModules() != null
-                     && this.getModules().getSpecification( specification.getIdentifier() ) != null )
-            {
-                final Unmarshaller u = context.createUnmarshaller( this.getModel().getIdentifier() );
-                final Marshaller m = context.createMarshaller( this.getModel().getIdentifier() );
-                final Schema s = context.createSchema( this.getModel().getIdentifier() );
-                u.setSchema( s );
-                m.setSchema( s );
+            final DOMResult result = new DOMResult();
+            transformers.get( i ).transform( source, result );
+            source = new DOMSource( result.getNode(), result.getSystemId() );
 
-                this.transformModelObjects( specification, m, u, classesDirectory, transformers );
+            if ( !isElement( result.getNode(), modelObject.getName().getNamespaceURI(),
+                             modelObject.getName().getLocalPart() ) )
+            {
+                return null;
             }
-            else if ( this.isLoggable( Level.WARNING ) )
+
+            if ( validator != null )
             {
-                this.log( Level.WARNING, getMessage( "specificationNotFound", specification.getIdentifier() ), null );
+                try
+                {
+                    validator.validate( source );
+                }
+                catch ( final SAXException | IOException e )
+                {
+                    throw new UnmarshalException( e );
+                }
             }
         }
-        catch ( final ModelException e )
-        {
-            throw new IOException( getMessage( e ), e );
-        }
+
+        final JAXBResult result = new JAXBResult( unmarshaller );
+        transformers.get( transformers.size() - 1 ).transform( source, result );
+
+        return result.getResult() instanceof JAXBElement<?>
+                   && type.isInstance( ( (JAXBElement<?>) result.getResult() ).getValue() )
+                   ? type.cast( ( (JAXBElement<?>) result.getResult() ).getValue() )
+                   : null;
+
     }
 
-    /**
-     * Transforms model objects of class files of a given implementation of the modules of the instance.
-     *
-     * @param implementation The implementation to process.
-     * @param context The model context to use for transforming model objects.
-     * @param classesDirectory The directory holding the class files.
-     * @param transformers The transformers to use for transforming the model objects.
-     *
-     * @throws NullPointerException if {@code implementation}, {@code context}, {@code classesDirectory} or
-     * {@code transformers} is {@code null}.
-     * @throws IOException if transforming model objects fails.
-     *
-     * @see #transformModelObjects(org.jomc.model.Implementation, javax.xml.bind.Marshaller, javax.xml.bind.Unmarshaller, org.apache.bcel.classfile.JavaClass, java.util.List)
-     */
-    public final void transformModelObjects( final Implementation implementation, final ModelContext context,
-                                             final File classesDirectory, final List<Transformer> transformers )
-        throws IOException
+    private static boolean isElement( final Node node, final String namespaceURI, final String localName )
     {
-        if ( implementation == null )
+        final Node element = node instanceof Document ? ( (Document) node ).getDocumentElement() : node;
+
+        return element instanceof Element
+                   && localName.equals( element.getLocalName() )
+                   && ( namespaceURI == null || namespaceURI.length() == 0
+                        ? element.getNamespaceURI() == null || element.getNamespaceURI().length() == 0
+                        : namespaceURI.equals( element.getNamespaceURI() ) );
+
+    }
+
+    private void commitModelObjects( final Specification specification, final Marshaller marshaller,
+                                     final ClassfileAttributes attributes ) throws IOException
+    {
+        if ( this.isLoggable( Level.INFO ) )
         {
-            throw new NullPointerException( "implementation" );
+            this.log( Level.INFO, getMessage( "committingSpecification", specification.getIdentifier() ), null );
         }
-        if ( context == null )
+
+        if ( this.getModules() != null
+                 && this.getModules().getSpecification( specification.getIdentifier() ) != null )
         {
-            throw new NullPointerException( "context" );
+            this.setModelObject( attributes, marshaller, new ObjectFactory().createSpecification( specification ) );
         }
-        if ( classesDirectory == null )
+        else if ( this.isLoggable( Level.WARNING ) )
         {
-            throw new NullPointerException( "classesDirectory" );
+            this.log( Level.WARNING, getMessage( "specificationNotFound", specification.getIdentifier() ), null );
         }
-        if ( transformers == null )
+    }
+
+    private void commitModelObjects( final Implementation implementation, final Marshaller marshaller,
+                                     final ClassfileAttributes attributes ) throws IOException
+    {
+        if ( this.isLoggable( Level.INFO ) )
         {
-            throw new NullPointerException( "transformers" );
+            this.log( Level.INFO, getMessage( "committingImplementation", implementation.getIdentifier() ), null );
         }
-        if ( !classesDirectory.isDirectory() )
+
+        if ( this.getModules() != null
+                 && this.getModules().getImplementation( implementation.getIdentifier() ) != null )
         {
-            throw new IOException( getMessage( "directoryNotFound", classesDirectory.getAbsolutePath() ) );
-        }
+            final ObjectFactory of = new ObjectFactory();
+
+            Dependencies dependencies = this.getModules().getDependencies( implementation.getIdentifier() );
+            if ( dependencies == null )
+            {
+                dependencies = new Dependencies();
+            }
+
+            Properties properties = this.getModules().getProperties( implementation.getIdentifier() );
+            if ( properties == null )
+            {
+                properties = new Properties();
+            }
+
+            Messages messages = this.getModules().getMessages( implementation.getIdentifier() );
+            if ( messages == null )
+            {
+                messages = new Messages();
+            }
+
+            Specifications specifications = this.getModules().getSpecifications( implementation.getIdentifier() );
+            if ( specifications == null )
+            {
+                specifications = new Specifications();
+            }
 
-        try
-        {
-            if ( this.getModules() != null
-                     && this.getModules().getImplementation( implementation.getIdentifier() ) != null )
+            for ( int i = 0, s0 = specifications.getReference().size(); i < s0; i++ )
             {
-                final Unmarshaller u = context.createUnmarshaller( this.getModel().getIdentifier() );
-                final Marshaller m = context.createMarshaller( this.getModel().getIdentifier() );
-                final Schema s = context.createSchema( this.getModel().getIdentifier() );
-                u.setSchema( s );
-                m.setSchema( s );
+                final SpecificationReference r = specifications.getReference().get( i );
+
+                if ( specifications.getSpecification( r.getIdentifier() ) == null && this.isLoggable( Level.WARNING ) )
+                {
+                    this.log( Level.WARNING, getMessage( "unresolvedSpecification", r.getIdentifier(),
+                                                         implementation.getIdentifier() ), null );
 
-                this.transformModelObjects( implementation, m, u, classesDirectory, transformers );
+                }
             }
-            else if ( this.isLoggable( Level.WARNING ) )
+
+            for ( int i = 0, s0 = dependencies.getDependency().size(); i < s0; i++ )
             {
-                this.log( Level.WARNING, getMessage( "implementationNotFound", implementation.getIdentifier() ), null );
+                final Dependency d = dependencies.getDependency().get( i );
+                final Specification s = this.getModules().getSpecification( d.getIdentifier() );
+
+                if ( s != null )
+                {
+                    if ( specifications.getSpecification( s.getIdentifier() ) == null )
+                    {
+                        specifications.getSpecification().add( s );
+                    }
+                }
+                else if ( this.isLoggable( Level.WARNING ) )
+                {
+                    this.log( Level.WARNING, getMessage( "unresolvedDependencySpecification", d.getIdentifier(),
+                                                         d.getName(), implementation.getIdentifier() ), null );
+
+                }
             }
+
+            this.setModelObject( attributes, marshaller, of.createDependencies( dependencies ) );
+
+            this.setModelObject( attributes, marshaller, of.createProperties( properties ) );
+
+            this.setModelObject( attributes, marshaller, of.createMessages( messages ) );
+
+            this.setModelObject( attributes, marshaller, of.createSpecifications( specifications ) );
         }
-        catch ( final ModelException e )
+        else if ( this.isLoggable( Level.WARNING ) )
         {
-            throw new IOException( getMessage( e ), e );
+            this.log( Level.WARNING, getMessage( "implementationNotFound", implementation.getIdentifier() ), null );
         }
     }
 
-    /**
-     * Transforms model objects of a given specification of the modules of the instance.
-     *
-     * @param specification The specification to process.
-     * @param marshaller The marshaller to use for transforming model objects.
-     * @param unmarshaller The unmarshaller to use for transforming model objects.
-     * @param javaClass The java class to transform model objects of.
-     * @param transformers The transformers to use for transforming the model objects.
-     *
-     * @throws NullPointerException if {@code specification}, {@code marshaller}, {@code unmarshaller},
-     * {@code javaClass} or {@code transformers} is {@code null}.
-     * @throws IOException if transforming model objects fails.
-     */
-    public void transformModelObjects( final Specification specification, final Marshaller marshaller,
-                                       final Unmarshaller unmarshaller, final JavaClass javaClass,
-                                       final List<Transformer> transformers ) throws IOException
+    private void transformModelObjects( final Specification specification, final Marshaller marshaller,
+                                        final Unmarshaller unmarshaller, final ClassfileAttributes attributes,
+                                        final List<Transformer> transformers ) throws IOException
     {
-        if ( specification == null )
-        {
-            throw new NullPointerException( "specification" );
-        }
-        if ( marshaller == null )
-        {
-            throw new NullPointerException( "marshaller" );
-        }
-        if ( unmarshaller == null )
-        {
-            throw new NullPointerException( "unmarshaller" );
-        }
-        if ( javaClass == null )
-        {
-            throw new NullPointerException( "javaClass" );
-        }
-        if ( transformers == null )
-        {
-            throw new NullPointerException( "transformers" );
-        }
-
         try
         {
             if ( this.getModules() != null
@@ -1674,7 +3259,7 @@ public class ClassFileProcessor extends JomcTool
             {
                 Specification decodedSpecification = null;
                 final ObjectFactory objectFactory = new ObjectFactory();
-                final byte[] bytes = this.getClassfileAttribute( javaClass, Specification.class.getName() );
+                final byte[] bytes = attributes.get( Specification.class.getName() );
                 if ( bytes != null )
                 {
                     decodedSpecification = this.decodeModelObject( unmarshaller, bytes, Specification.class );
@@ -1682,20 +3267,13 @@ public class ClassFileProcessor extends JomcTool
 
                 if ( decodedSpecification != null )
                 {
-                    for ( int i = 0, l = transformers.size(); i < l; i++ )
+                    if ( !transformers.isEmpty() )
                     {
-                        final JAXBSource source =
-                            new JAXBSource( marshaller, objectFactory.createSpecification( decodedSpecification ) );
-
-                        final JAXBResult result = new JAXBResult( unmarshaller );
-                        transformers.get( i ).transform( source, result );
+                        decodedSpecification = this.transformModelObject(
+                            marshaller, unmarshaller, objectFactory.createSpecification( decodedSpecification ),
+                            Specification.class, transformers );
 
-                        if ( result.getResult() instanceof JAXBElement<?>
-                                 && ( (JAXBElement<?>) result.getResult() ).getValue() instanceof Specification )
-                        {
-                            decodedSpecification = (Specification) ( (JAXBElement<?>) result.getResult() ).getValue();
-                        }
-                        else
+                        if ( decodedSpecification == null )
                         {
                             throw new IOException( getMessage(
                                 "illegalSpecificationTransformationResult", specification.getIdentifier() ) );
@@ -1703,9 +3281,8 @@ public class ClassFileProcessor extends JomcTool
                         }
                     }
 
-                    this.setClassfileAttribute( javaClass, Specification.class.getName(), this.encodeModelObject(
-                                                marshaller,
-                                                objectFactory.createSpecification( decodedSpecification ) ) );
+                    this.setModelObject( attributes, marshaller,
+                                         objectFactory.createSpecification( decodedSpecification ) );
 
                 }
             }
@@ -1736,96 +3313,53 @@ public class ClassFileProcessor extends JomcTool
         }
     }
 
-    /**
-     * Transforms model objects of a given implementation of the modules of the instance.
-     *
-     * @param implementation The implementation to process.
-     * @param marshaller The marshaller to use for transforming model objects.
-     * @param unmarshaller The unmarshaller to use for transforming model objects.
-     * @param javaClass The java class to transform model object of.
-     * @param transformers The transformers to use for transforming the model objects.
-     *
-     * @throws NullPointerException if {@code implementation}, {@code marshaller}, {@code unmarshaller},
-     * {@code javaClass} or {@code transformers} is {@code null}.
-     * @throws IOException if transforming model objects fails.
-     */
-    public void transformModelObjects( final Implementation implementation, final Marshaller marshaller,
-                                       final Unmarshaller unmarshaller, final JavaClass javaClass,
-                                       final List<Transformer> transformers ) throws IOException
+    private void transformModelObjects( final Implementation implementation, final Marshaller marshaller,
+                                        final Unmarshaller unmarshaller, final ClassfileAttributes attributes,
+                                        final List<Transformer> transformers ) throws IOException
     {
-        if ( implementation == null )
-        {
-            throw new NullPointerException( "implementation" );
-        }
-        if ( marshaller == null )
-        {
-            throw new NullPointerException( "marshaller" );
-        }
-        if ( unmarshaller == null )
-        {
-            throw new NullPointerException( "unmarshaller" );
-        }
-        if ( javaClass == null )
-        {
-            throw new NullPointerException( "javaClass" );
-        }
-        if ( transformers == null )
-        {
-            throw new NullPointerException( "transformers" );
-        }
-
         try
         {
             if ( this.getModules() != null
                      && this.getModules().getImplementation( implementation.getIdentifier() ) != null )
             {
                 Dependencies decodedDependencies = null;
-                byte[] bytes = this.getClassfileAttribute( javaClass, Dependencies.class.getName() );
+                byte[] bytes = attributes.get( Dependencies.class.getName() );
                 if ( bytes != null )
                 {
                     decodedDependencies = this.decodeModelObject( unmarshaller, bytes, Dependencies.class );
                 }
 
                 Messages decodedMessages = null;
-                bytes = this.getClassfileAttribute( javaClass, Messages.class.getName() );
+                bytes = attributes.get( Messages.class.getName() );
                 if ( bytes != null )
                 {
                     decodedMessages = this.decodeModelObject( unmarshaller, bytes, Messages.class );
                 }
 
                 Properties decodedProperties = null;
-                bytes = this.getClassfileAttribute( javaClass, Properties.class.getName() );
+                bytes = attributes.get( Properties.class.getName() );
                 if ( bytes != null )
                 {
                     decodedProperties = this.decodeModelObject( unmarshaller, bytes, Properties.class );
                 }
 
                 Specifications decodedSpecifications = null;
-                bytes = this.getClassfileAttribute( javaClass, Specifications.class.getName() );
+                bytes = attributes.get( Specifications.class.getName() );
                 if ( bytes != null )
                 {
                     decodedSpecifications = this.decodeModelObject( unmarshaller, bytes, Specifications.class );
                 }
 
                 final ObjectFactory of = new ObjectFactory();
-                for ( int i = 0, l = transformers.size(); i < l; i++ )
+                if ( !transformers.isEmpty() )
                 {
-                    final Transformer transformer = transformers.get( i );
-
                     if ( decodedDependencies != null )
                     {
-                        final JAXBSource source =
-                            new JAXBSource( marshaller, of.createDependencies( decodedDependencies ) );
+                        decodedDependencies = this.transformModelObject(
+                            marshaller, unmarshaller, of.createDependencies( decodedDependencies ),
+                            Dependencies.class, transformers );
 
-                        final JAXBResult result = new JAXBResult( unmarshaller );
-                        transformer.transform( source, result );
-
-                        if ( result.getResult() instanceof JAXBElement<?>
-                                 && ( (JAXBElement<?>) result.getResult() ).getValue() instanceof Dependencies )
-                        {
-                            decodedDependencies = (Dependencies) ( (JAXBElement<?>) result.getResult() ).getValue();
-                        }
-                        else
+                        if ( decodedDependencies == null )
                         {
                             throw new IOException( getMessage(
                                 "illegalImplementationTransformationResult", implementation.getIdentifier() ) );
@@ -1835,16 +3369,11 @@ public class ClassFileProcessor extends JomcTool
 
                     if ( decodedMessages != null )
                     {
-                        final JAXBSource source = new JAXBSource( marshaller, of.createMessages( decodedMessages ) );
-                        final JAXBResult result = new JAXBResult( unmarshaller );
-                        transformer.transform( source, result );
+                        decodedMessages = this.transformModelObject(
+                            marshaller, unmarshaller, of.createMessages( decodedMessages ),
+                            Messages.class, transformers );
 
-                        if ( result.getResult() instanceof JAXBElement<?>
-                                 && ( (JAXBElement<?>) result.getResult() ).getValue() instanceof Messages )
-                        {
-                            decodedMessages = (Messages) ( (JAXBElement<?>) result.getResult() ).getValue();
-                        }
-                        else
+                        if ( decodedMessages == null )
                         {
                             throw new IOException( getMessage(
                                 "illegalImplementationTransformationResult", implementation.getIdentifier() ) );
@@ -1854,18 +3383,11 @@ public class ClassFileProcessor extends JomcTool
 
                     if ( decodedProperties != null )
                     {
-                        final JAXBSource source =
-                            new JAXBSource( marshaller, of.createProperties( decodedProperties ) );
-
-                        final JAXBResult result = new JAXBResult( unmarshaller );
-                        transformer.transform( source, result );
+                        decodedProperties = this.transformModelObject(
+                            marshaller, unmarshaller, of.createProperties( decodedProperties ),
+                            Properties.class, transformers );
 
-                        if ( result.getResult() instanceof JAXBElement<?>
-                                 && ( (JAXBElement<?>) result.getResult() ).getValue() instanceof Properties )
-                        {
-                            decodedProperties = (Properties) ( (JAXBElement<?>) result.getResult() ).getValue();
-                        }
-                        else
+                        if ( decodedProperties == null )
                         {
                             throw new IOException( getMessage(
                                 "illegalImplementationTransformationResult", implementation.getIdentifier() ) );
@@ -1875,18 +3397,11 @@ public class ClassFileProcessor extends JomcTool
 
                     if ( decodedSpecifications != null )
                     {
-                        final JAXBSource source =
-                            new JAXBSource( marshaller, of.createSpecifications( decodedSpecifications ) );
-
-                        final JAXBResult result = new JAXBResult( unmarshaller );
-                        transformer.transform( source, result );
+                        decodedSpecifications = this.transformModelObject(
+                            marshaller, unmarshaller, of.createSpecifications( decodedSpecifications ),
+                            Specifications.class, transformers );
 
-                        if ( result.getResult() instanceof JAXBElement<?>
-                                 && ( (JAXBElement<?>) result.getResult() ).getValue() instanceof Specifications )
-                        {
-                            decodedSpecifications = (Specifications) ( (JAXBElement<?>) result.getResult() ).getValue();
-                        }
-                        else
+                        if ( decodedSpecifications == null )
                         {
                             throw new IOException( getMessage(
                                 "illegalImplementationTransformationResult", implementation.getIdentifier() ) );
@@ -1897,30 +3412,22 @@ public class ClassFileProcessor extends JomcTool
 
                 if ( decodedDependencies != null )
                 {
-                    this.setClassfileAttribute( javaClass, Dependencies.class.getName(), this.encodeModelObject(
-                                                marshaller, of.createDependencies( decodedDependencies ) ) );
-
+                    this.setModelObject( attributes, marshaller, of.createDependencies( decodedDependencies ) );
                 }
 
                 if ( decodedMessages != null )
                 {
-                    this.setClassfileAttribute( javaClass, Messages.class.getName(), this.encodeModelObject(
-                                                marshaller, of.createMessages( decodedMessages ) ) );
-
+                    this.setModelObject( attributes, marshaller, of.createMessages( decodedMessages ) );
                 }
 
                 if ( decodedProperties != null )
                 {
-                    this.setClassfileAttribute( javaClass, Properties.class.getName(), this.encodeModelObject(
-                                                marshaller, of.createProperties( decodedProperties ) ) );
-
+                    this.setModelObject( attributes, marshaller, of.createProperties( decodedProperties ) );
                 }
 
                 if ( decodedSpecifications != null )
                 {
-                    this.setClassfileAttribute( javaClass, Specifications.class.getName(), this.encodeModelObject(
-                                                marshaller, of.createSpecifications( decodedSpecifications ) ) );
-
+                    this.setModelObject( attributes, marshaller, of.createSpecifications( decodedSpecifications ) );
                 }
             }
             else if ( this.isLoggable( Level.WARNING ) )
@@ -1950,929 +3457,1217 @@ public class ClassFileProcessor extends JomcTool
         }
     }
 
-    /**
-     * Gets an attribute from a java class.
-     *
-     * @param clazz The java class to get an attribute from.
-     * @param attributeName The name of the attribute to get.
-     *
-     * @return The value of attribute {@code attributeName} of {@code clazz} or {@code null}, if no such attribute
-     * exists.
-     *
-     * @throws NullPointerException if {@code clazz} or {@code attributeName} is {@code null}.
-     * @throws IOException if getting the attribute fails.
-     *
-     * @see JavaClass#getAttributes()
-     */
-    public byte[] getClassfileAttribute( final JavaClass clazz, final String attributeName ) throws IOException
+    private boolean commitModelObjects( final Specification specification, final Implementation implementation,
+                                        final Marshaller marshaller, final Path javaClassfile ) throws IOException
     {
-        if ( clazz == null )
+        final byte[] classfile = this.readClassfile( javaClassfile );
+        final byte[] committed;
+        final Semaphore permits = this.acquireConcurrencyPermit();
+
+        try
         {
-            throw new NullPointerException( "clazz" );
+            if ( this.isClassfilePatchingSupported() )
+            {
+                final ClassfilePatcher patcher = new ClassfilePatcher( classfile, getLocation( javaClassfile ) );
+
+                if ( specification != null )
+                {
+                    this.commitModelObjects( specification, marshaller, patcher );
+                }
+                if ( implementation != null )
+                {
+                    this.commitModelObjects( implementation, marshaller, patcher );
+                }
+
+                committed = patcher.isModified() ? patcher.toByteArray() : classfile;
+            }
+            else
+            {
+                final JavaClass javaClass =
+                    new ClassParser( new ByteArrayInputStream( classfile ), getLocation( javaClassfile ) ).parse();
+
+                if ( specification != null )
+                {
+                    this.commitModelObjects( specification, marshaller, javaClass );
+                }
+                if ( implementation != null )
+                {
+                    this.commitModelObjects( implementation, marshaller, javaClass );
+                }
+
+                committed = javaClass.getBytes();
+            }
         }
-        if ( attributeName == null )
+        finally
         {
-            throw new NullPointerException( "attributeName" );
+            releaseConcurrencyPermit( permits );
         }
 
-        final Attribute[] attributes = clazz.getAttributes();
+        return this.writeClassfile( classfile, committed, javaClassfile );
+    }
 
-        for ( int i = attributes.length - 1; i >= 0; i-- )
+    private void transformModelObjects( final Specification specification, final Implementation implementation,
+                                        final Marshaller marshaller, final Unmarshaller unmarshaller,
+                                        final Path classFile, final List<Transformer> transformers )
+        throws IOException
+    {
+        final byte[] classfile = this.readClassfile( classFile );
+        final byte[] transformed;
+        final Semaphore permits = this.acquireConcurrencyPermit();
+
+        try
         {
-            final Constant constant = clazz.getConstantPool().getConstant( attributes[i].getNameIndex() );
+            if ( this.isClassfilePatchingSupported() )
+            {
+                final ClassfilePatcher patcher = new ClassfilePatcher( classfile, getLocation( classFile ) );
 
-            if ( constant instanceof ConstantUtf8 && attributeName.equals( ( (ConstantUtf8) constant ).getBytes() ) )
+                if ( specification != null )
+                {
+                    this.transformModelObjects( specification, marshaller, unmarshaller, patcher, transformers );
+                }
+                if ( implementation != null )
+                {
+                    this.transformModelObjects( implementation, marshaller, unmarshaller, patcher, transformers );
+                }
+
+                transformed = patcher.isModified() ? patcher.toByteArray() : classfile;
+            }
+            else
             {
-                final Unknown unknown = (Unknown) attributes[i];
-                return unknown.getBytes();
+                final JavaClass javaClass =
+                    new ClassParser( new ByteArrayInputStream( classfile ), getLocation( classFile ) ).parse();
+
+                if ( specification != null )
+                {
+                    this.transformModelObjects( specification, marshaller, unmarshaller, javaClass, transformers );
+                }
+                if ( implementation != null )
+                {
+                    this.transformModelObjects( implementation, marshaller, unmarshaller, javaClass, transformers );
+                }
+
+                transformed = javaClass.getBytes();
             }
         }
+        finally
+        {
+            releaseConcurrencyPermit( permits );
+        }
 
-        return null;
+        this.writeClassfile( classfile, transformed, classFile );
     }
 
     /**
-     * Adds or updates an attribute in a java class.
-     *
-     * @param clazz The class to update an attribute of.
-     * @param attributeName The name of the attribute to update.
-     * @param data The new data of the attribute to update the {@code clazz} with.
-     *
-     * @throws NullPointerException if {@code clazz} or {@code attributeName} is {@code null}.
-     * @throws IOException if updating the class file fails.
+     * Gets a flag indicating class files can be patched without parsing them using BCEL.
+     * <p>
+     * Class files are patched only if none of the public methods operating on {@code JavaClass} instances used when
+     * committing, transforming or validating model objects has been overridden. Otherwise the overridden methods
+     * would not be called.
+     * </p>
      *
-     * @see JavaClass#getAttributes()
+     * @return {@code true}, if class files can be patched; {@code false}, if class files need to be parsed.
      */
-    public void setClassfileAttribute( final JavaClass clazz, final String attributeName, final byte[] data )
-        throws IOException
+    private boolean isClassfilePatchingSupported()
     {
-        if ( clazz == null )
-        {
-            throw new NullPointerException( "clazz" );
-        }
-        if ( attributeName == null )
-        {
-            throw new NullPointerException( "attributeName" );
-        }
-
-        final byte[] attributeData = data != null ? data : NO_BYTES;
-
-        /*
-         * The JavaTM Virtual Machine Specification - Second Edition - Chapter 4.1
-         *
-         * A Java virtual machine implementation is required to silently ignore any
-         * or all attributes in the attributes table of a ClassFile structure that
-         * it does not recognize. Attributes not defined in this specification are
-         * not allowed to affect the semantics of the class file, but only to
-         * provide additional descriptive information (§4.7.1).
-         */
-        Attribute[] attributes = clazz.getAttributes();
-
-        int attributeIndex = -1;
-        int nameIndex = -1;
-
-        for ( int i = attributes.length - 1; i >= 0; i-- )
+        if ( this.classfilePatchingSupported == null )
         {
-            final Constant constant = clazz.getConstantPool().getConstant( attributes[i].getNameIndex() );
+            try
+            {
+                final Class<?> c = this.getClass();
+                this.classfilePatchingSupported =
+                    c.getMethod( "commitModelObjects", Specification.class, Marshaller.class,
+                                 JavaClass.class ).getDeclaringClass() == ClassFileProcessor.class
+                        && c.getMethod( "commitModelObjects", Implementation.class, Marshaller.class,
+                                        JavaClass.class ).getDeclaringClass() == ClassFileProcessor.class
+                        && c.getMethod( "transformModelObjects", Specification.class, Marshaller.class,
+                                        Unmarshaller.class, JavaClass.class,
+                                        List.class ).getDeclaringClass() == ClassFileProcessor.class
+                        && c.getMethod( "transformModelObjects", Implementation.class, Marshaller.class,
+                                        Unmarshaller.class, JavaClass.class,
+                                        List.class ).getDeclaringClass() == ClassFileProcessor.class
+                        && c.getMethod( "validateModelObjects", Specification.class, Unmarshaller.class,
+                                        JavaClass.class ).getDeclaringClass() == ClassFileProcessor.class
+                        && c.getMethod( "validateModelObjects", Implementation.class, Unmarshaller.class,
+                                        JavaClass.class ).getDeclaringClass() == ClassFileProcessor.class
+                        && c.getMethod( "getClassfileAttribute", JavaClass.class,
+                                        String.class ).getDeclaringClass() == ClassFileProcessor.class
+                        && c.getMethod( "setClassfileAttribute", JavaClass.class, String.class,
+                                        byte[].class ).getDeclaringClass() == ClassFileProcessor.class;
 
-            if ( constant instanceof ConstantUtf8 && attributeName.equals( ( (ConstantUtf8) constant ).getBytes() ) )
+            }
+            catch ( final NoSuchMethodException e )
             {
-                attributeIndex = i;
-                nameIndex = attributes[i].getNameIndex();
+                throw new AssertionError( e );
             }
         }
 
-        if ( nameIndex == -1 )
+        return this.classfilePatchingSupported;
+    }
+
+    private Path getJavaClassfile( final JavaTypeName javaTypeName, final Path classesDirectory ) throws IOException
+    {
+        final Path classFile = classesDirectory.resolve( getClassLocation( javaTypeName ) );
+
+        if ( !Files.isDirectory( classesDirectory ) )
         {
-            final Constant[] pool = clazz.getConstantPool().getConstantPool();
-            final Constant[] tmp = new Constant[ pool.length + 1 ];
-            System.arraycopy( pool, 0, tmp, 0, pool.length );
-            tmp[pool.length] = new ConstantUtf8( attributeName );
-            nameIndex = pool.length;
-            clazz.setConstantPool( new ConstantPool( tmp ) );
+            throw new IOException( getMessage( "directoryNotFound", getLocation( classesDirectory ) ) );
+        }
+        if ( !Files.isRegularFile( classFile ) )
+        {
+            throw new IOException( getMessage( "fileNotFound", getLocation( classFile ) ) );
+        }
+        if ( !( Files.isReadable( classFile ) && Files.isWritable( classFile ) ) )
+        {
+            throw new IOException( getMessage( "fileAccessDenied", getLocation( classFile ) ) );
         }
 
-        final Unknown unknown = new Unknown( nameIndex, attributeData.length, attributeData, clazz.getConstantPool() );
+        return classFile;
+    }
 
-        if ( attributeIndex == -1 )
+    private Path getJavaClassfile( final String classLocation, final Path classesDirectory,
+                                   final Map<String, Long> classfiles ) throws IOException
+    {
+        final Path classFile = classesDirectory.resolve( classLocation );
+
+        if ( !classfiles.containsKey( classLocation ) )
         {
-            final Attribute[] tmp = new Attribute[ attributes.length + 1 ];
-            System.arraycopy( attributes, 0, tmp, 0, attributes.length );
-            tmp[attributes.length] = unknown;
-            attributes = tmp;
+            throw new IOException( getMessage( "fileNotFound", getLocation( classFile ) ) );
         }
-        else
+        if ( !( Files.isReadable( classFile ) && Files.isWritable( classFile ) ) )
         {
-            attributes[attributeIndex] = unknown;
+            throw new IOException( getMessage( "fileAccessDenied", getLocation( classFile ) ) );
         }
 
-        clazz.setAttributes( attributes );
+        return classFile;
+    }
+
+    private static String getClassLocation( final JavaTypeName javaTypeName )
+    {
+        return javaTypeName.getClassName().replace( '.', '/' ) + ".class";
     }
 
     /**
-     * Encodes a model object to a byte array.
-     *
-     * @param marshaller The marshaller to use for encoding the object.
-     * @param modelObject The model object to encode.
+     * Scans the package directories of the classes of a model for class files.
+     * <p>
+     * Each package directory is listed once so that processing the class files of a model does not need to query the
+     * file system for every single class file. Directories of packages not declaring any class of the model are not
+     * scanned.
+     * </p>
      *
-     * @return GZIP compressed XML document of {@code modelObject}.
+     * @param classesDirectory The directory to scan.
+     * @param specifications The specifications to scan the package directories of or {@code null}.
+     * @param implementations The implementations to scan the package directories of or {@code null}.
      *
-     * @throws NullPointerException if {@code marshaller} or {@code modelObject} is {@code null}.
-     * @throws IOException if encoding {@code modelObject} fails.
+     * @return A map of the locations of the class files found relative to {@code classesDirectory} using {@code /} as
+     * the separator to the sizes of the class files.
      *
-     * @see #decodeModelObject(javax.xml.bind.Unmarshaller, byte[], java.lang.Class)
+     * @throws IOException if {@code classesDirectory} is not a directory or scanning fails.
      */
-    public byte[] encodeModelObject( final Marshaller marshaller, final JAXBElement<? extends ModelObject> modelObject )
-        throws IOException
+    private static Map<String, Long> scanClassfiles( final Path classesDirectory, final Specifications specifications,
+                                                     final Implementations implementations ) throws IOException
     {
-        if ( marshaller == null )
-        {
-            throw new NullPointerException( "marshaller" );
-        }
-        if ( modelObject == null )
+        if ( !Files.isDirectory( classesDirectory ) )
         {
-            throw new NullPointerException( "modelObject" );
+            throw new IOException( getMessage( "directoryNotFound", getLocation( classesDirectory ) ) );
         }
 
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Set<String> packageLocations = new HashSet<>( 64 );
 
-        try ( final GZIPOutputStream out = new GZIPOutputStream( baos ) )
+        if ( specifications != null )
         {
-            marshaller.marshal( modelObject, out );
+            for ( int i = 0, s0 = specifications.getSpecification().size(); i < s0; i++ )
+            {
+                final Specification specification = specifications.getSpecification().get( i );
+
+                if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
+                {
+                    packageLocations.add( getPackageLocation( getClassLocation( specification.getJavaTypeName() ) ) );
+                }
+            }
         }
-        catch ( final JAXBException e )
+
+        if ( implementations != null )
         {
-            String message = getMessage( e );
-            if ( message == null && e.getLinkedException() != null )
+            for ( int i = 0, s0 = implementations.getImplementation().size(); i < s0; i++ )
             {
-                message = getMessage( e.getLinkedException() );
+                final Implementation implementation = implementations.getImplementation().get( i );
+
+                if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
+                {
+                    packageLocations.add( getPackageLocation( getClassLocation( implementation.getJavaTypeName() ) ) );
+                }
             }
+        }
 
-            throw new IOException( message, e );
+        final Map<String, Long> classfiles = new HashMap<>( 1024 );
+
+        for ( final String packageLocation : packageLocations )
+        {
+            final Path packageDirectory = packageLocation.length() > 0
+                                              ? classesDirectory.resolve( packageLocation )
+                                              : classesDirectory;
+
+            final String prefix = packageLocation.length() > 0 ? packageLocation + '/' : "";
+
+            try ( final DirectoryStream<Path> stream = Files.newDirectoryStream( packageDirectory, "*.class" ) )
+            {
+                for ( final Path file : stream )
+                {
+                    try
+                    {
+                        final BasicFileAttributes attributes = Files.readAttributes( file, BasicFileAttributes.class );
+
+                        if ( attributes.isRegularFile() )
+                        {
+                            classfiles.put( prefix + file.getFileName().toString(), attributes.size() );
+                        }
+                    }
+                    catch ( final IOException e )
+                    {
+                        // Class files not accessible are reported as not found when processed.
+                    }
+                }
+            }
+            catch ( final NoSuchFileException | NotDirectoryException e )
+            {
+                // Class files of missing packages are reported as not found when processed.
+            }
         }
 
-        return baos.toByteArray();
+        return classfiles;
+    }
+
+    private static String getPackageLocation( final String classLocation )
+    {
+        final int idx = classLocation.lastIndexOf( '/' );
+        return idx >= 0 ? classLocation.substring( 0, idx ) : "";
     }
 
     /**
-     * Decodes a model object from a byte array.
-     *
-     * @param unmarshaller The unmarshaller to use for decoding the object.
-     * @param bytes The encoded model object to decode.
-     * @param type The class of the type of the encoded model object.
-     * @param <T> The type of the encoded model object.
-     *
-     * @return Model object decoded from {@code bytes}.
+     * Splits class file tasks into chunks of about the same total class file size.
+     * <p>
+     * Tasks are assigned largest first to the chunk with the smallest total size. The chunks are returned largest
+     * first, so that the smaller chunks can fill up threads finishing early.
+     * </p>
      *
-     * @throws NullPointerException if {@code unmarshaller}, {@code bytes} or {@code type} is {@code null}.
-     * @throws IOException if decoding {@code bytes} fails.
+     * @param <T> The type of the result of the tasks.
+     * @param tasks The tasks to split.
+     * @param parallelism The number of threads running the chunks.
      *
-     * @see #encodeModelObject(javax.xml.bind.Marshaller, javax.xml.bind.JAXBElement)
+     * @return A list of chunks of {@code tasks}.
      */
-    public <T extends ModelObject> T decodeModelObject( final Unmarshaller unmarshaller, final byte[] bytes,
-                                                        final Class<T> type ) throws IOException
+    private static <T> List<ClassfileTaskChunk<T>> newClassfileTaskChunks(
+        final Collection<? extends ClassfileTask<T>> tasks, final int parallelism )
     {
-        if ( unmarshaller == null )
+        final List<ClassfileTask<T>> sortedTasks = new ArrayList<>( tasks );
+        Collections.sort( sortedTasks, new Comparator<ClassfileTask<T>>()
         {
-            throw new NullPointerException( "unmarshaller" );
-        }
-        if ( bytes == null )
+
+            @Override
+            public int compare( final ClassfileTask<T> o1, final ClassfileTask<T> o2 )
+            {
+                return Long.compare( o2.size, o1.size );
+            }
+
+        } );
+
+        final Comparator<ClassfileTaskChunk<T>> chunkComparator = new Comparator<ClassfileTaskChunk<T>>()
         {
-            throw new NullPointerException( "bytes" );
+
+            @Override
+            public int compare( final ClassfileTaskChunk<T> o1, final ClassfileTaskChunk<T> o2 )
+            {
+                return Long.compare( o1.size, o2.size );
+            }
+
+        };
+
+        final int chunkCount =
+            Math.max( 1, Math.min( sortedTasks.size(), parallelism * CLASSFILE_CHUNKS_PER_THREAD ) );
+
+        final PriorityQueue<ClassfileTaskChunk<T>> chunks = new PriorityQueue<>( chunkCount, chunkComparator );
+
+        for ( int i = chunkCount; i > 0; i-- )
+        {
+            chunks.add( new ClassfileTaskChunk<T>() );
         }
-        if ( type == null )
+
+        for ( int i = 0, s0 = sortedTasks.size(); i < s0; i++ )
         {
-            throw new NullPointerException( "type" );
+            final ClassfileTaskChunk<T> chunk = chunks.poll();
+            chunk.tasks.add( sortedTasks.get( i ) );
+            chunk.size += sortedTasks.get( i ).size;
+            chunks.add( chunk );
         }
 
-        final ByteArrayInputStream bais = new ByteArrayInputStream( bytes );
+        final List<ClassfileTaskChunk<T>> sortedChunks = new ArrayList<>( chunks );
+        Collections.sort( sortedChunks, Collections.reverseOrder( chunkComparator ) );
+        return sortedChunks;
+    }
+
+    private static int getParallelism( final ExecutorService executorService )
+    {
+        int parallelism = Runtime.getRuntime().availableProcessors();
 
-        final JAXBElement<T> element;
-        try ( final GZIPInputStream in = new GZIPInputStream( bais ) )
+        if ( executorService instanceof ForkJoinPool )
         {
-            element = (JAXBElement<T>) unmarshaller.unmarshal( in );
+            parallelism = ( (ForkJoinPool) executorService ).getParallelism();
         }
-        catch ( final JAXBException e )
+        else if ( executorService instanceof ThreadPoolExecutor )
         {
-            String message = getMessage( e );
-            if ( message == null && e.getLinkedException() != null )
-            {
-                message = getMessage( e.getLinkedException() );
-            }
-
-            throw new IOException( message, e );
+            parallelism = ( (ThreadPoolExecutor) executorService ).getMaximumPoolSize();
         }
 
-        return element.getValue();
+        return parallelism;
     }
 
-    private void commitModelObjects( final Specifications specifications, final Implementations implementations,
-                                     final File classesDirectory, final ModelContext context )
+    private void logClassfilePhase( final String operation, final String phase, final int count, final long start )
+    {
+        if ( this.isLoggable( Level.FINE ) )
+        {
+            this.log( Level.FINE, getMessage( "classfilePhaseCompleted", operation, phase, count,
+                                              ( System.nanoTime() - start ) / 1000000L ), null );
+
+        }
+    }
+
+    private URL getJavaClassfile( final JavaTypeName javaTypeName, final ModelContext context )
         throws IOException, ModelException
     {
-        try
+        final String javaClassfileLocation = javaTypeName.getClassName().replace( '.', '/' ) + ".class";
+        final URL javaClassfileUrl = context.findResource( javaClassfileLocation );
+
+        if ( javaClassfileUrl == null )
         {
-            final ThreadLocal<Marshaller> threadLocalMarshaller = new ThreadLocal<>();
-            final Schema schema = context.createSchema( this.getModel().getIdentifier() );
+            throw new IOException( getMessage( "resourceNotFound", javaClassfileLocation ) );
+        }
 
-            class CommitModelObjectsTask implements Callable<Void>
-            {
+        return javaClassfileUrl;
+    }
 
-                final File javaClassfile;
+    private byte[] readClassfile( final Path classFile ) throws IOException
+    {
+        if ( classFile.getFileSystem() != FileSystems.getDefault() )
+        {
+            return Files.readAllBytes( classFile );
+        }
 
-                Specification specification;
+        try ( final FileChannel channel = FileChannel.open( classFile, StandardOpenOption.READ );
+              final Closeable fileLock = this.lockFile( classFile, true ) )
+        {
+            final ByteBuffer bytes = ByteBuffer.allocate( (int) channel.size() );
 
-                Implementation implementation;
+            while ( bytes.hasRemaining() && channel.read( bytes ) >= 0 )
+            {
+                // Reads until the buffer is full or the end of the file is reached.
+            }
 
-                CommitModelObjectsTask( final File javaClassfile )
-                {
-                    super();
-                    this.javaClassfile = javaClassfile;
-                }
+            return bytes.hasRemaining() ? Arrays.copyOf( bytes.array(), bytes.position() ) : bytes.array();
+        }
+    }
 
-                @Override
-                public Void call() throws IOException, ModelException
-                {
-                    Marshaller marshaller = threadLocalMarshaller.get();
-                    if ( marshaller == null )
-                    {
-                        marshaller = context.createMarshaller( getModel().getIdentifier() );
-                        marshaller.setSchema( schema );
-                        threadLocalMarshaller.set( marshaller );
-                    }
+    private byte[] readClassfile( final InputStream in ) throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream( 8192 );
+        final byte[] buffer = new byte[ 8192 ];
 
-                    final JavaClass javaClass = readJavaClass( this.javaClassfile );
+        for ( int read = in.read( buffer ); read >= 0; read = in.read( buffer ) )
+        {
+            out.write( buffer, 0, read );
+        }
 
-                    if ( this.specification != null )
-                    {
-                        commitModelObjects( this.specification, marshaller, javaClass );
-                    }
-                    if ( this.implementation != null )
-                    {
-                        commitModelObjects( this.implementation, marshaller, javaClass );
-                    }
+        return out.toByteArray();
+    }
 
-                    writeJavaClass( javaClass, this.javaClassfile );
-                    return null;
-                }
+    private static File getFile( final URL url )
+    {
+        try
+        {
+            return "file".equals( url.getProtocol() ) ? new File( url.toURI() ) : null;
+        }
+        catch ( final URISyntaxException | IllegalArgumentException e )
+        {
+            // Not a hierarchical file URI. Class files will be read using the URL.
+            return null;
+        }
+    }
 
+    private boolean writeClassfile( final byte[] classfile, final byte[] bytes, final Path classFile )
+        throws IOException
+    {
+        // Keeps the last modification time of unchanged class files to not trigger any incremental builds.
+        if ( bytes == classfile || Arrays.equals( classfile, bytes ) )
+        {
+            if ( this.isLoggable( Level.FINE ) )
+            {
+                this.log( Level.FINE, getMessage( "classfileUnchanged", getLocation( classFile ) ), null );
             }
 
-            final Map<String, CommitModelObjectsTask> tasks = new HashMap<>( 512 );
+            return false;
+        }
 
-            if ( specifications != null )
-            {
-                for ( int i = specifications.getSpecification().size() - 1; i >= 0; i-- )
-                {
-                    final Specification specification = specifications.getSpecification().get( i );
+        if ( classFile.getFileSystem() != FileSystems.getDefault() )
+        {
+            Files.write( classFile, bytes );
+            return true;
+        }
 
-                    if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
-                    {
-                        final File javaClassfile =
-                            this.getJavaClassfile( specification.getJavaTypeName(), classesDirectory );
+        final Path tmp = getTemporaryFile( classFile );
 
-                        CommitModelObjectsTask task = tasks.get( javaClassfile.getAbsolutePath() );
+        try
+        {
+            Files.write( tmp, bytes );
+            this.replaceFile( tmp, classFile );
+        }
+        finally
+        {
+            Files.deleteIfExists( tmp );
+        }
 
-                        if ( task == null )
-                        {
-                            task = new CommitModelObjectsTask( javaClassfile );
-                            tasks.put( javaClassfile.getAbsolutePath(), task );
-                        }
+        return true;
+    }
 
-                        task.specification = specification;
-                    }
-                }
-            }
+    /**
+     * Opens a JAR archive as a file system for reading the archive.
+     *
+     * @param file The file to open.
+     *
+     * @return A new file system of the archive or {@code null}, if {@code file} does not denote a regular file.
+     *
+     * @throws IOException if opening the archive fails.
+     */
+    private static FileSystem newArchiveFileSystem( final File file ) throws IOException
+    {
+        try
+        {
+            return file.isFile() ? FileSystems.newFileSystem( file.toPath(), (ClassLoader) null ) : null;
+        }
+        catch ( final ProviderNotFoundException e )
+        {
+            throw new IOException( getMessage( e ), e );
+        }
+    }
 
-            if ( implementations != null )
-            {
-                for ( int i = implementations.getImplementation().size() - 1; i >= 0; i-- )
-                {
-                    final Implementation implementation = implementations.getImplementation().get( i );
+    /**
+     * Opens a copy of a JAR archive as a file system for updating the archive.
+     * <p>
+     * Changes to the file system are written to the copy of the archive, which replaces the archive only when the
+     * update is committed. Entries not modified are copied without being inflated and deflated again. Closing an
+     * update not committed discards any changes, so that a failure never leaves a partially updated archive behind.
+     * </p>
+     *
+     * @param file The file to open.
+     *
+     * @return A new update of the archive or {@code null}, if {@code file} does not denote a regular file.
+     *
+     * @throws IOException if opening the archive fails.
+     */
+    private ArchiveUpdate newArchiveUpdate( final File file ) throws IOException
+    {
+        return file.isFile() ? new ArchiveUpdate( file.toPath() ) : null;
+    }
 
-                    if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
-                    {
-                        final File javaClassfile =
-                            this.getJavaClassfile( implementation.getJavaTypeName(), classesDirectory );
+    private static String getLocation( final Path path )
+    {
+        return path.getFileSystem() == FileSystems.getDefault()
+                   ? path.toAbsolutePath().toString()
+                   : path.toUri().toString();
 
-                        CommitModelObjectsTask task = tasks.get( javaClassfile.getAbsolutePath() );
+    }
 
-                        if ( task == null )
-                        {
-                            task = new CommitModelObjectsTask( javaClassfile );
-                            tasks.put( javaClassfile.getAbsolutePath(), task );
-                        }
+    private static String getDigestAttributeName( final Class<?> type )
+    {
+        return type.getName() + "#" + MODEL_OBJECT_DIGEST_ALGORITHM;
+    }
 
-                        task.implementation = implementation;
-                    }
-                }
-            }
+    /**
+     * Computes the digest of a model object committed to a class file.
+     *
+     * @param bytes The encoded model object.
+     * @param modelObject The model object {@code bytes} has been encoded from.
+     *
+     * @return The digest of the encoded bytes and of any properties of {@code modelObject} compared during
+     * validation.
+     *
+     * @throws IOException if computing the digest fails.
+     */
+    private static byte[] getModelObjectDigest( final byte[] bytes, final Object modelObject ) throws IOException
+    {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream( 1024 );
+        final DataOutputStream out = new DataOutputStream( buffer );
+        out.writeInt( bytes.length );
+        out.write( bytes );
 
-            if ( this.getExecutorService() != null && tasks.size() > 1 )
-            {
-                for ( final Future<Void> task : this.getExecutorService().invokeAll( tasks.values() ) )
-                {
-                    task.get();
-                }
-            }
-            else
+        if ( modelObject instanceof Specification )
+        {
+            writeDigestData( out, (Specification) modelObject );
+        }
+        else if ( modelObject instanceof Dependencies )
+        {
+            for ( final Dependency d : ( (Dependencies) modelObject ).getDependency() )
             {
-                for ( final CommitModelObjectsTask task : tasks.values() )
-                {
-                    task.call();
-                }
+                writeDigestData( out, d.getName(), d.getImplementationName(), d.getIdentifier(), d.getVersion() );
             }
         }
-        catch ( final CancellationException | InterruptedException e )
+        else if ( modelObject instanceof Properties )
         {
-            throw new IOException( getMessage( e.getCause() ), e.getCause() );
+            for ( final Property p : ( (Properties) modelObject ).getProperty() )
+            {
+                writeDigestData( out, p.getName(), p.getType() );
+            }
         }
-        catch ( final ExecutionException e )
+        else if ( modelObject instanceof Messages )
         {
-            if ( e.getCause() instanceof ModelException )
+            for ( final Message m : ( (Messages) modelObject ).getMessage() )
             {
-                throw (ModelException) e.getCause();
+                writeDigestData( out, m.getName() );
             }
-            else if ( e.getCause() instanceof IOException )
+        }
+        else if ( modelObject instanceof Specifications )
+        {
+            for ( final Specification s : ( (Specifications) modelObject ).getSpecification() )
             {
-                throw (IOException) e.getCause();
+                writeDigestData( out, s );
             }
-            else if ( e.getCause() instanceof RuntimeException )
+            for ( final SpecificationReference r : ( (Specifications) modelObject ).getReference() )
             {
-                // The fork-join framework breaks the exception handling contract of Callable by re-throwing any
-                // exception caught using a runtime exception.
-                if ( e.getCause().getCause() instanceof ModelException )
-                {
-                    throw (ModelException) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof IOException )
-                {
-                    throw (IOException) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof RuntimeException )
-                {
-                    throw (RuntimeException) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof Error )
-                {
-                    throw (Error) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof Exception )
-                {
-                    // Checked exception not declared to be thrown by the Callable's 'call' method.
-                    throw new UndeclaredThrowableException( e.getCause().getCause() );
-                }
-                else
-                {
-                    throw (RuntimeException) e.getCause();
-                }
+                writeDigestData( out, r.getIdentifier(), r.getVersion() );
             }
-            else if ( e.getCause() instanceof Error )
+        }
+
+        out.flush();
+
+        try
+        {
+            return MessageDigest.getInstance( MODEL_OBJECT_DIGEST_ALGORITHM ).digest( buffer.toByteArray() );
+        }
+        catch ( final NoSuchAlgorithmException e )
+        {
+            throw new AssertionError( e );
+        }
+    }
+
+    private static void writeDigestData( final DataOutputStream out, final Specification specification )
+        throws IOException
+    {
+        writeDigestData( out, specification.getIdentifier(),
+                         specification.getMultiplicity() != null ? specification.getMultiplicity().value() : null,
+                         specification.getScope(), specification.getClazz() );
+
+    }
+
+    private static void writeDigestData( final DataOutputStream out, final String... values ) throws IOException
+    {
+        out.writeInt( values.length );
+
+        for ( final String value : values )
+        {
+            if ( value != null )
             {
-                throw (Error) e.getCause();
+                out.writeInt( value.length() );
+                out.writeChars( value );
             }
             else
             {
-                // Checked exception not declared to be thrown by the Callable's 'call' method.
-                throw new UndeclaredThrowableException( e.getCause() );
+                out.writeInt( -1 );
             }
         }
     }
 
-    private ModelValidationReport validateModelObjects( final Specifications specifications,
-                                                        final Implementations implementations,
-                                                        final File classesDirectory,
-                                                        final ModelContext context )
-        throws IOException, ModelException
+    private static boolean isVersionedModelObjectEncoding( final byte[] bytes )
     {
-        try
+        if ( bytes.length <= MODEL_OBJECT_ENCODING_HEADER.length )
         {
-            final ThreadLocal<Unmarshaller> threadLocalUnmarshaller = new ThreadLocal<>();
-            final Schema schema = context.createSchema( this.getModel().getIdentifier() );
+            return false;
+        }
 
-            class ValidateModelObjectsTask implements Callable<ModelValidationReport>
+        for ( int i = MODEL_OBJECT_ENCODING_HEADER.length - 1; i >= 0; i-- )
+        {
+            if ( bytes[i] != MODEL_OBJECT_ENCODING_HEADER[i] )
             {
+                return false;
+            }
+        }
 
-                final File javaClassfile;
-
-                Specification specification;
-
-                Implementation implementation;
-
-                ValidateModelObjectsTask( final File javaClassfile )
-                {
-                    super();
-                    this.javaClassfile = javaClassfile;
-                }
+        return true;
+    }
 
-                @Override
-                public ModelValidationReport call() throws IOException, ModelException
-                {
-                    Unmarshaller unmarshaller = threadLocalUnmarshaller.get();
-                    if ( unmarshaller == null )
-                    {
-                        unmarshaller = context.createUnmarshaller( getModel().getIdentifier() );
-                        unmarshaller.setSchema( schema );
-                        threadLocalUnmarshaller.set( unmarshaller );
-                    }
+    private static byte[] inflateModelObject( final byte[] bytes ) throws IOException
+    {
+        final int version = bytes[MODEL_OBJECT_ENCODING_HEADER.length] & 0xFF;
 
-                    final ModelValidationReport report = new ModelValidationReport();
-                    final JavaClass javaClass = readJavaClass( this.javaClassfile );
+        if ( version != MODEL_OBJECT_ENCODING_VERSION )
+        {
+            throw new IOException( getMessage( "unsupportedModelObjectEncoding", version ) );
+        }
 
-                    if ( this.specification != null )
-                    {
-                        report.getDetails().
-                            addAll( validateModelObjects( this.specification, unmarshaller, javaClass ).getDetails() );
+        final Inflater inflater = new Inflater();
 
-                    }
-                    if ( this.implementation != null )
-                    {
-                        report.getDetails().
-                            addAll( validateModelObjects( this.implementation, unmarshaller, javaClass ).getDetails() );
+        try
+        {
+            final int off = MODEL_OBJECT_ENCODING_HEADER.length + 1;
+            final ByteArrayOutputStream out = new ByteArrayOutputStream( ( bytes.length - off ) * 8 );
+            final byte[] buffer = new byte[ 8192 ];
+            inflater.setInput( bytes, off, bytes.length - off );
 
-                    }
+            while ( !inflater.finished() )
+            {
+                final int len = inflater.inflate( buffer );
 
-                    return report;
+                if ( len > 0 )
+                {
+                    out.write( buffer, 0, len );
+                }
+                else if ( inflater.needsDictionary() )
+                {
+                    inflater.setDictionary( MODEL_OBJECT_DICTIONARY );
+                }
+                else if ( inflater.needsInput() )
+                {
+                    throw new IOException( getMessage( "illegalModelObjectEncoding" ) );
                 }
-
             }
 
-            final Map<String, ValidateModelObjectsTask> tasks = new HashMap<>();
-
-            if ( specifications != null )
-            {
-                for ( int i = 0, s0 = specifications.getSpecification().size(); i < s0; i++ )
-                {
-                    final Specification specification = specifications.getSpecification().get( i );
+            return out.toByteArray();
+        }
+        catch ( final DataFormatException e )
+        {
+            throw new IOException( getMessage( "illegalModelObjectEncoding" ), e );
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
 
-                    if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
-                    {
-                        final File javaClassfile =
-                            this.getJavaClassfile( specification.getJavaTypeName(), classesDirectory );
+    private static String getMessage( final String key, final Object... arguments )
+    {
+        return MessageFormat.format( ResourceBundle.getBundle(
+            ClassFileProcessor.class.getName().replace( '.', '/' ) ).getString( key ), arguments );
 
-                        ValidateModelObjectsTask task = tasks.get( javaClassfile.getAbsolutePath() );
+    }
 
-                        if ( task == null )
-                        {
-                            task = new ValidateModelObjectsTask( javaClassfile );
-                            tasks.put( javaClassfile.getAbsolutePath(), task );
-                        }
+    private static String getMessage( final Throwable t )
+    {
+        return t != null
+                   ? t.getMessage() != null && t.getMessage().trim().length() > 0
+                         ? t.getMessage()
+                         : getMessage( t.getCause() )
+                   : null;
 
-                        task.specification = specification;
-                    }
-                }
-            }
+    }
 
-            if ( implementations != null )
-            {
-                for ( int i = 0, s0 = implementations.getImplementation().size(); i < s0; i++ )
-                {
-                    final Implementation implementation = implementations.getImplementation().get( i );
+    /**
+     * Update of a JAR archive written to a copy of the archive.
+     *
+     * @since 2.0
+     */
+    private final class ArchiveUpdate implements Closeable
+    {
 
-                    if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
-                    {
-                        final File javaClassfile =
-                            this.getJavaClassfile( implementation.getJavaTypeName(), classesDirectory );
+        private final Path archive;
 
-                        ValidateModelObjectsTask task = tasks.get( javaClassfile.getAbsolutePath() );
+        private final Path copy;
 
-                        if ( task == null )
-                        {
-                            task = new ValidateModelObjectsTask( javaClassfile );
-                            tasks.put( javaClassfile.getAbsolutePath(), task );
-                        }
+        private final FileSystem fileSystem;
 
-                        task.implementation = implementation;
-                    }
-                }
-            }
+        ArchiveUpdate( final Path archive ) throws IOException
+        {
+            super();
+            this.archive = archive;
+            this.copy = getTemporaryFile( archive );
 
-            final ModelValidationReport report = new ModelValidationReport();
+            boolean opened = false;
 
-            if ( this.getExecutorService() != null && tasks.size() > 1 )
+            try
             {
-                for ( final Future<ModelValidationReport> task : this.getExecutorService().invokeAll( tasks.values() ) )
-                {
-                    report.getDetails().addAll( task.get().getDetails() );
-                }
+                Files.copy( archive, this.copy, StandardCopyOption.REPLACE_EXISTING );
+                // Writing back any changes updates the time of last modification of the copy.
+                Files.setLastModifiedTime( this.copy, UNMODIFIED_ARCHIVE_TIME );
+                this.fileSystem = FileSystems.newFileSystem( this.copy, (ClassLoader) null );
+                opened = true;
             }
-            else
+            catch ( final ProviderNotFoundException e )
             {
-                for ( final ValidateModelObjectsTask task : tasks.values() )
+                throw new IOException( getMessage( e ), e );
+            }
+            finally
+            {
+                if ( !opened )
                 {
-                    report.getDetails().addAll( task.call().getDetails() );
+                    Files.deleteIfExists( this.copy );
                 }
             }
-
-            return report;
         }
-        catch ( final CancellationException | InterruptedException e )
+
+        Path getRoot()
         {
-            throw new IOException( getMessage( e.getCause() ), e.getCause() );
+            return this.fileSystem.getPath( "/" );
         }
-        catch ( final ExecutionException e )
+
+        void commit() throws IOException
         {
-            if ( e.getCause() instanceof ModelException )
-            {
-                throw (ModelException) e.getCause();
-            }
-            else if ( e.getCause() instanceof IOException )
-            {
-                throw (IOException) e.getCause();
-            }
-            else if ( e.getCause() instanceof RuntimeException )
+            this.fileSystem.close();
+
+            // Keeps the last modification time of unchanged archives to not trigger any incremental builds.
+            if ( !UNMODIFIED_ARCHIVE_TIME.equals( Files.getLastModifiedTime( this.copy ) ) )
             {
-                // The fork-join framework breaks the exception handling contract of Callable by re-throwing any
-                // exception caught using a runtime exception.
-                if ( e.getCause().getCause() instanceof ModelException )
-                {
-                    throw (ModelException) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof IOException )
-                {
-                    throw (IOException) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof RuntimeException )
-                {
-                    throw (RuntimeException) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof Error )
-                {
-                    throw (Error) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof Exception )
-                {
-                    // Checked exception not declared to be thrown by the Callable's 'call' method.
-                    throw new UndeclaredThrowableException( e.getCause().getCause() );
-                }
-                else
-                {
-                    throw (RuntimeException) e.getCause();
-                }
+                replaceFile( this.copy, this.archive );
             }
-            else if ( e.getCause() instanceof Error )
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
             {
-                throw (Error) e.getCause();
+                this.fileSystem.close();
             }
-            else
+            finally
             {
-                // Checked exception not declared to be thrown by the Callable's 'call' method.
-                throw new UndeclaredThrowableException( e.getCause() );
+                Files.deleteIfExists( this.copy );
             }
         }
+
     }
 
-    private ModelValidationReport validateModelObjects( final Specifications specifications,
-                                                        final Implementations implementations,
-                                                        final ModelContext context )
-        throws IOException, ModelException
+    /**
+     * Attributes of a class file.
+     *
+     * @since 2.0
+     */
+    private abstract static class ClassfileAttributes
     {
-        final ThreadLocal<Unmarshaller> threadLocalUnmarshaller = new ThreadLocal<>();
-        final Schema schema = context.createSchema( this.getModel().getIdentifier() );
 
-        class ValidateModelObjectsTask implements Callable<ModelValidationReport>
+        ClassfileAttributes()
         {
+            super();
+        }
 
-            final URL javaClassfile;
+        abstract byte[] get( String attributeName ) throws IOException;
+
+        abstract void set( String attributeName, byte[] data ) throws IOException;
+
+    }
+
+    /**
+     * Attributes of a BCEL {@code JavaClass}.
+     *
+     * @since 2.0
+     */
+    private final class JavaClassAttributes extends ClassfileAttributes
+    {
+
+        private final JavaClass javaClass;
+
+        JavaClassAttributes( final JavaClass javaClass )
+        {
+            super();
+            this.javaClass = javaClass;
+        }
 
-            Specification specification;
+        @Override
+        byte[] get( final String attributeName ) throws IOException
+        {
+            return getClassfileAttribute( this.javaClass, attributeName );
+        }
 
-            Implementation implementation;
+        @Override
+        void set( final String attributeName, final byte[] data ) throws IOException
+        {
+            setClassfileAttribute( this.javaClass, attributeName, data );
+        }
 
-            ValidateModelObjectsTask( final URL javaClassfile )
-            {
-                super();
-                this.javaClassfile = javaClassfile;
-            }
+    }
 
-            @Override
-            public ModelValidationReport call() throws IOException, ModelException
-            {
-                Unmarshaller unmarshaller = threadLocalUnmarshaller.get();
-                if ( unmarshaller == null )
-                {
-                    unmarshaller = context.createUnmarshaller( getModel().getIdentifier() );
-                    unmarshaller.setSchema( schema );
-                    threadLocalUnmarshaller.set( unmarshaller );
-                }
+    /**
+     * Patches the attributes table of a class file.
+     * <p>
+     * The constant pool and the field and method tables are copied byte for byte. Only the offsets of the constant
+     * pool entries and of the class level attributes are recorded. Names of added attributes are appended to the
+     * constant pool.
+     * </p>
+     *
+     * @since 2.0
+     */
+    private static final class ClassfilePatcher extends ClassfileAttributes
+    {
 
-                final JavaClass javaClass;
-                try ( final InputStream in = this.javaClassfile.openStream() )
-                {
-                    javaClass = new ClassParser( in, this.javaClassfile.toExternalForm() ).parse();
-                }
+        private final byte[] classfile;
 
-                final ModelValidationReport report = new ModelValidationReport();
+        private final String location;
 
-                if ( this.specification != null )
-                {
-                    report.getDetails().
-                        addAll( validateModelObjects( this.specification, unmarshaller, javaClass ).getDetails() );
+        private final int[] constantOffsets;
 
-                }
-                if ( this.implementation != null )
-                {
-                    report.getDetails().
-                        addAll( validateModelObjects( this.implementation, unmarshaller, javaClass ).getDetails() );
+        private final int constantPoolEnd;
 
-                }
+        private final int membersEnd;
 
-                return report;
-            }
+        private final List<byte[]> addedConstants = new ArrayList<>( 4 );
 
-        }
+        private final List<ClassfileAttribute> attributes = new ArrayList<>( 8 );
 
-        final Map<String, ValidateModelObjectsTask> tasks = new HashMap<>();
+        private boolean modified;
 
-        if ( specifications != null )
+        ClassfilePatcher( final byte[] classfile, final String location ) throws IOException
         {
-            for ( int i = 0, s0 = specifications.getSpecification().size(); i < s0; i++ )
-            {
-                final Specification specification = specifications.getSpecification().get( i );
+            super();
+            this.classfile = classfile;
+            this.location = location;
 
-                if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
+            try
+            {
+                if ( this.u4( 0 ) != 0xCAFEBABE )
                 {
-                    final URL javaClassfile =
-                        this.getJavaClassfile( specification.getJavaTypeName(), context );
+                    throw new IOException( getMessage( "illegalClassfile", location ) );
+                }
 
-                    ValidateModelObjectsTask task = tasks.get( javaClassfile.toExternalForm() );
+                this.constantOffsets = new int[ this.u2( 8 ) ];
+                int offset = 10;
 
-                    if ( task == null )
+                for ( int i = 1; i < this.constantOffsets.length; i++ )
+                {
+                    this.constantOffsets[i] = offset;
+
+                    switch ( classfile[offset] )
                     {
-                        task = new ValidateModelObjectsTask( javaClassfile );
-                        tasks.put( javaClassfile.toExternalForm(), task );
+                        case 1: // CONSTANT_Utf8
+                            offset += 3 + this.u2( offset + 1 );
+                            break;
+                        case 7: // CONSTANT_Class
+                        case 8: // CONSTANT_String
+                        case 16: // CONSTANT_MethodType
+                        case 19: // CONSTANT_Module
+                        case 20: // CONSTANT_Package
+                            offset += 3;
+                            break;
+                        case 15: // CONSTANT_MethodHandle
+                            offset += 4;
+                            break;
+                        case 3: // CONSTANT_Integer
+                        case 4: // CONSTANT_Float
+                        case 9: // CONSTANT_Fieldref
+                        case 10: // CONSTANT_Methodref
+                        case 11: // CONSTANT_InterfaceMethodref
+                        case 12: // CONSTANT_NameAndType
+                        case 17: // CONSTANT_Dynamic
+                        case 18: // CONSTANT_InvokeDynamic
+                            offset += 5;
+                            break;
+                        case 5: // CONSTANT_Long
+                        case 6: // CONSTANT_Double
+                            // Takes up two entries in the constant pool.
+                            offset += 9;
+                            i++;
+                            break;
+                        default:
+                            throw new IOException( getMessage( "illegalClassfile", location ) );
                     }
-
-                    task.specification = specification;
                 }
-            }
-        }
 
-        if ( implementations != null )
-        {
-            for ( int i = 0, s0 = implementations.getImplementation().size(); i < s0; i++ )
-            {
-                final Implementation implementation = implementations.getImplementation().get( i );
+                this.constantPoolEnd = offset;
 
-                if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
-                {
-                    final URL javaClassfile =
-                        this.getJavaClassfile( implementation.getJavaTypeName(), context );
+                // access_flags, this_class, super_class, interfaces
+                offset += 6;
+                offset += 2 + 2 * this.u2( offset );
 
-                    ValidateModelObjectsTask task = tasks.get( javaClassfile.toExternalForm() );
+                // fields, methods
+                for ( int table = 0; table < 2; table++ )
+                {
+                    final int members = this.u2( offset );
+                    offset += 2;
 
-                    if ( task == null )
+                    for ( int i = 0; i < members; i++ )
                     {
-                        task = new ValidateModelObjectsTask( javaClassfile );
-                        tasks.put( javaClassfile.toExternalForm(), task );
+                        final int memberAttributes = this.u2( offset + 6 );
+                        offset += 8;
+
+                        for ( int j = 0; j < memberAttributes; j++ )
+                        {
+                            offset += 6 + this.u4( offset + 2 );
+                        }
                     }
+                }
 
-                    task.implementation = implementation;
+                this.membersEnd = offset;
+
+                final int classAttributes = this.u2( offset );
+                offset += 2;
+
+                for ( int i = 0; i < classAttributes; i++ )
+                {
+                    final ClassfileAttribute attribute = new ClassfileAttribute();
+                    attribute.nameIndex = this.u2( offset );
+                    attribute.offset = offset + 6;
+                    attribute.length = this.u4( offset + 2 );
+                    this.attributes.add( attribute );
+                    offset += 6 + attribute.length;
+                }
+
+                if ( offset != classfile.length )
+                {
+                    throw new IOException( getMessage( "illegalClassfile", location ) );
                 }
             }
+            catch ( final ArrayIndexOutOfBoundsException e )
+            {
+                throw new IOException( getMessage( "illegalClassfile", location ), e );
+            }
         }
 
-        try
+        @Override
+        byte[] get( final String attributeName ) throws IOException
         {
-            final ModelValidationReport report = new ModelValidationReport();
+            final ClassfileAttribute attribute = this.getAttribute( encode( attributeName ) );
+            return attribute != null ? this.getData( attribute ) : null;
+        }
+
+        @Override
+        void set( final String attributeName, final byte[] data ) throws IOException
+        {
+            final byte[] name = encode( attributeName );
+            final byte[] attributeData = data != null ? data : NO_BYTES;
+            ClassfileAttribute attribute = this.getAttribute( name );
 
-            if ( this.getExecutorService() != null && tasks.size() > 1 )
+            if ( attribute == null )
             {
-                for ( final Future<ModelValidationReport> task
-                          : this.getExecutorService().invokeAll( tasks.values() ) )
-                {
-                    report.getDetails().addAll( task.get().getDetails() );
-                }
+                attribute = new ClassfileAttribute();
+                attribute.nameIndex = this.getUtf8Index( name );
+                this.attributes.add( attribute );
             }
-            else
+            else if ( Arrays.equals( attributeData, this.getData( attribute ) ) )
             {
-                for ( final ValidateModelObjectsTask task : tasks.values() )
-                {
-                    report.getDetails().addAll( task.call().getDetails() );
-                }
+                return;
             }
 
-            return report;
+            attribute.data = attributeData;
+            attribute.length = attributeData.length;
+            this.modified = true;
         }
-        catch ( final CancellationException | InterruptedException e )
+
+        boolean isModified()
         {
-            throw new IOException( getMessage( e.getCause() ), e.getCause() );
+            return this.modified;
         }
-        catch ( final ExecutionException e )
+
+        byte[] toByteArray() throws IOException
         {
-            if ( e.getCause() instanceof ModelException )
+            final int constantPoolCount = this.constantOffsets.length + this.addedConstants.size();
+
+            if ( constantPoolCount > 0xFFFF )
             {
-                throw (ModelException) e.getCause();
+                throw new IOException( getMessage( "illegalClassfile", this.location ) );
             }
-            else if ( e.getCause() instanceof IOException )
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream( this.classfile.length + 1024 );
+            final DataOutputStream out = new DataOutputStream( bytes );
+            out.write( this.classfile, 0, 8 );
+            out.writeShort( constantPoolCount );
+            out.write( this.classfile, 10, this.constantPoolEnd - 10 );
+
+            for ( int i = 0, s0 = this.addedConstants.size(); i < s0; i++ )
             {
-                throw (IOException) e.getCause();
+                out.writeByte( 1 );
+                out.write( this.addedConstants.get( i ) );
             }
-            else if ( e.getCause() instanceof RuntimeException )
+
+            out.write( this.classfile, this.constantPoolEnd, this.membersEnd - this.constantPoolEnd );
+            out.writeShort( this.attributes.size() );
+
+            for ( int i = 0, s0 = this.attributes.size(); i < s0; i++ )
             {
-                // The fork-join framework breaks the exception handling contract of Callable by re-throwing any
-                // exception caught using a runtime exception.
-                if ( e.getCause().getCause() instanceof ModelException )
-                {
-                    throw (ModelException) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof IOException )
-                {
-                    throw (IOException) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof RuntimeException )
-                {
-                    throw (RuntimeException) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof Error )
-                {
-                    throw (Error) e.getCause().getCause();
-                }
-                else if ( e.getCause().getCause() instanceof Exception )
+                final ClassfileAttribute attribute = this.attributes.get( i );
+                out.writeShort( attribute.nameIndex );
+                out.writeInt( attribute.length );
+
+                if ( attribute.data != null )
                 {
-                    // Checked exception not declared to be thrown by the Callable's 'call' method.
-                    throw new UndeclaredThrowableException( e.getCause().getCause() );
+                    out.write( attribute.data );
                 }
                 else
                 {
-                    throw (RuntimeException) e.getCause();
+                    out.write( this.classfile, attribute.offset, attribute.length );
                 }
             }
-            else if ( e.getCause() instanceof Error )
-            {
-                throw (Error) e.getCause();
-            }
-            else
-            {
-                // Checked exception not declared to be thrown by the Callable's 'call' method.
-                throw new UndeclaredThrowableException( e.getCause() );
-            }
+
+            out.close();
+            return bytes.toByteArray();
         }
-    }
 
-    private void transformModelObjects( final Specifications specifications, final Implementations implementations,
-                                        final Unmarshaller unmarshaller, final Marshaller marshaller,
-                                        final File classesDirectory, final List<Transformer> transformers )
-        throws IOException, ModelObjectException
-    {
-        if ( specifications != null )
+        private byte[] getData( final ClassfileAttribute attribute )
         {
-            for ( int i = 0, s0 = specifications.getSpecification().size(); i < s0; i++ )
-            {
-                this.transformModelObjects( specifications.getSpecification().get( i ), marshaller, unmarshaller,
-                                            classesDirectory, transformers );
+            return attribute.data != null
+                       ? attribute.data
+                       : Arrays.copyOfRange( this.classfile, attribute.offset, attribute.offset + attribute.length );
 
-            }
         }
 
-        if ( implementations != null )
+        private ClassfileAttribute getAttribute( final byte[] name )
         {
-            for ( int i = 0, s0 = implementations.getImplementation().size(); i < s0; i++ )
+            for ( int i = this.attributes.size() - 1; i >= 0; i-- )
             {
-                this.transformModelObjects( implementations.getImplementation().get( i ), marshaller, unmarshaller,
-                                            classesDirectory, transformers );
-
+                if ( this.isUtf8( this.attributes.get( i ).nameIndex, name ) )
+                {
+                    return this.attributes.get( i );
+                }
             }
+
+            return null;
         }
-    }
 
-    private void transformModelObjects( final Specification specification, final Marshaller marshaller,
-                                        final Unmarshaller unmarshaller, final File classesDirectory,
-                                        final List<Transformer> transformers ) throws IOException, ModelObjectException
-    {
-        if ( specification.isClassDeclaration() && specification.getJavaTypeName() != null )
+        private int getUtf8Index( final byte[] name )
         {
-            final String classLocation =
-                specification.getJavaTypeName().getClassName().replace( '.', File.separatorChar ) + ".class";
-
-            final File classFile = new File( classesDirectory, classLocation );
-
-            if ( !classesDirectory.isDirectory() )
-            {
-                throw new IOException( getMessage( "directoryNotFound", classesDirectory.getAbsolutePath() ) );
-            }
-            if ( !classFile.isFile() )
-            {
-                throw new IOException( getMessage( "fileNotFound", classFile.getAbsolutePath() ) );
-            }
-            if ( !( classFile.canRead() && classFile.canWrite() ) )
-            {
-                throw new IOException( getMessage( "fileAccessDenied", classFile.getAbsolutePath() ) );
-            }
-
-            if ( this.isLoggable( Level.INFO ) )
+            for ( int i = this.constantOffsets.length + this.addedConstants.size() - 1; i > 0; i-- )
             {
-                this.log( Level.INFO, getMessage( "transforming", classFile.getAbsolutePath() ), null );
+                if ( this.isUtf8( i, name ) )
+                {
+                    return i;
+                }
             }
 
-            final JavaClass javaClass = this.readJavaClass( classFile );
-            this.transformModelObjects( specification, marshaller, unmarshaller, javaClass, transformers );
-            this.writeJavaClass( javaClass, classFile );
+            this.addedConstants.add( name );
+            return this.constantOffsets.length + this.addedConstants.size() - 1;
         }
-    }
 
-    private void transformModelObjects( final Implementation implementation, final Marshaller marshaller,
-                                        final Unmarshaller unmarshaller, final File classesDirectory,
-                                        final List<Transformer> transformers ) throws IOException, ModelObjectException
-    {
-        if ( implementation.isClassDeclaration() && implementation.getJavaTypeName() != null )
+        private boolean isUtf8( final int index, final byte[] name )
         {
-            final String classLocation =
-                implementation.getJavaTypeName().getClassName().replace( '.', File.separatorChar ) + ".class";
-
-            final File classFile = new File( classesDirectory, classLocation );
-
-            if ( !classesDirectory.isDirectory() )
+            if ( index >= this.constantOffsets.length )
             {
-                throw new IOException( getMessage( "directoryNotFound", classesDirectory.getAbsolutePath() ) );
-            }
-            if ( !classFile.isFile() )
-            {
-                throw new IOException( getMessage( "fileNotFound", classFile.getAbsolutePath() ) );
+                return index - this.constantOffsets.length < this.addedConstants.size()
+                           && Arrays.equals( name, this.addedConstants.get( index - this.constantOffsets.length ) );
+
             }
-            if ( !( classFile.canRead() && classFile.canWrite() ) )
+
+            final int offset = this.constantOffsets[index];
+
+            if ( offset == 0 || this.classfile[offset] != 1 || this.u2( offset + 1 ) != name.length - 2 )
             {
-                throw new IOException( getMessage( "fileAccessDenied", classFile.getAbsolutePath() ) );
+                return false;
             }
 
-            if ( this.isLoggable( Level.INFO ) )
+            for ( int i = name.length - 1; i >= 2; i-- )
             {
-                this.log( Level.INFO, getMessage( "transforming", classFile.getAbsolutePath() ), null );
+                if ( this.classfile[offset + 1 + i] != name[i] )
+                {
+                    return false;
+                }
             }
 
-            final JavaClass javaClass = this.readJavaClass( classFile );
-            this.transformModelObjects( implementation, marshaller, unmarshaller, javaClass, transformers );
-            this.writeJavaClass( javaClass, classFile );
+            return true;
         }
-    }
-
-    private File getJavaClassfile( final JavaTypeName javaTypeName, final File classesDirectory ) throws IOException
-    {
-        final String classLocation = javaTypeName.getClassName().replace( '.', File.separatorChar ) + ".class";
-        final File classFile = new File( classesDirectory, classLocation );
 
-        if ( !classesDirectory.isDirectory() )
+        private int u2( final int offset )
         {
-            throw new IOException( getMessage( "directoryNotFound", classesDirectory.getAbsolutePath() ) );
+            return ( ( this.classfile[offset] & 0xFF ) << 8 ) | ( this.classfile[offset + 1] & 0xFF );
         }
-        if ( !classFile.isFile() )
+
+        private int u4( final int offset )
         {
-            throw new IOException( getMessage( "fileNotFound", classFile.getAbsolutePath() ) );
+            return ( this.u2( offset ) << 16 ) | this.u2( offset + 2 );
         }
-        if ( !( classFile.canRead() && classFile.canWrite() ) )
+
+        private static byte[] encode( final String name ) throws IOException
         {
-            throw new IOException( getMessage( "fileAccessDenied", classFile.getAbsolutePath() ) );
+            // Length prefixed modified UTF-8 as used in CONSTANT_Utf8 entries.
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream( name.length() + 2 );
+
+            try ( final DataOutputStream out = new DataOutputStream( bytes ) )
+            {
+                out.writeUTF( name );
+            }
+
+            return bytes.toByteArray();
         }
 
-        return classFile;
     }
 
-    private URL getJavaClassfile( final JavaTypeName javaTypeName, final ModelContext context )
-        throws IOException, ModelException
+    /**
+     * Attribute of a class file.
+     *
+     * @since 2.0
+     */
+    private static final class ClassfileAttribute
     {
-        final String javaClassfileLocation = javaTypeName.getClassName().replace( '.', '/' ) + ".class";
-        final URL javaClassfileUrl = context.findResource( javaClassfileLocation );
 
-        if ( javaClassfileUrl == null )
+        private int nameIndex;
+
+        private int offset;
+
+        private int length;
+
+        private byte[] data;
+
+        ClassfileAttribute()
         {
-            throw new IOException( getMessage( "resourceNotFound", javaClassfileLocation ) );
+            super();
         }
 
-        return javaClassfileUrl;
     }
 
-    private JavaClass readJavaClass( final File classFile ) throws IOException
+    /**
+     * Task processing a class file.
+     *
+     * @param <T> The type of the result of the task.
+     *
+     * @since 2.0
+     */
+    private abstract static class ClassfileTask<T> implements Callable<T>
     {
-        try ( final FileInputStream in = new FileInputStream( classFile );
-              final FileLock fileLock = in.getChannel().lock( 0, classFile.length(), true ) )
+
+        final Path javaClassfile;
+
+        final long size;
+
+        Specification specification;
+
+        Implementation implementation;
+
+        ClassfileTask( final Path javaClassfile, final long size )
         {
-            return new ClassParser( in, classFile.getAbsolutePath() ).parse();
+            super();
+            this.javaClassfile = javaClassfile;
+            this.size = size;
         }
+
+        @Override
+        public abstract T call() throws IOException, ModelException;
+
     }
 
-    private void writeJavaClass( final JavaClass javaClass, final File classFile ) throws IOException
+    /**
+     * Chunk of class file tasks run by a single thread.
+     * <p>
+     * Running the tasks of a chunk on the same thread lets the tasks share the thread's marshaller or unmarshaller.
+     * </p>
+     *
+     * @param <T> The type of the result of the tasks.
+     *
+     * @since 2.0
+     */
+    private static final class ClassfileTaskChunk<T> implements Callable<List<T>>
     {
-        try ( final FileOutputStream out = new FileOutputStream( classFile );
-              final FileLock fileLock = out.getChannel().lock() )
+
+        private final List<ClassfileTask<T>> tasks = new ArrayList<>();
+
+        private long size;
+
+        ClassfileTaskChunk()
         {
-            javaClass.dump( out );
+            super();
         }
-    }
 
-    private static String getMessage( final String key, final Object... arguments )
-    {
-        return MessageFormat.format( ResourceBundle.getBundle(
-            ClassFileProcessor.class.getName().replace( '.', '/' ) ).getString( key ), arguments );
+        @Override
+        public List<T> call() throws IOException, ModelException
+        {
+            final List<T> results = new ArrayList<>( this.tasks.size() );
 
-    }
+            for ( int i = 0, s0 = this.tasks.size(); i < s0; i++ )
+            {
+                results.add( this.tasks.get( i ).call() );
+            }
 
-    private static String getMessage( final Throwable t )
-    {
-        return t != null
-                   ? t.getMessage() != null && t.getMessage().trim().length() > 0
-                         ? t.getMessage()
-                         : getMessage( t.getCause() )
-                   : null;
+            return results;
+        }
 
     }
 
@@ -0,0 +1,333 @@
+/*
+ *   Copyright (C) 2005 Christian Schulte <cs@schulte.it>
+ *   All rights reserved.
+ *
+ *   Redistribution and use in source and binary forms, with or without
+ *   modification, are permitted provided that the following conditions
+ *   are met:
+ *
+ *     o Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     o Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *
+ *   THIS SOFTWARE IS PROVIDED "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ *   INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+ *   AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ *   THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *   INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *   NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *   DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *   THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *   (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *   THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *   $JOMC$
+ *
+ */
+package org.jomc.tools;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Default {@code ToolMetrics} implementation recording metrics in memory.
+ * <p>
+ * Percentiles are computed from the last {@code 1024} merge times recorded per template.
+ * </p>
+ *
+ * @author <a href="mailto:cs@schulte.it">Christian Schulte</a>
+ * @version $JOMC$
+ * @since 2.0
+ *
+ * @see JomcTool#setMetrics(org.jomc.tools.ToolMetrics)
+ */
+public class DefaultToolMetrics extends ToolMetrics implements DefaultToolMetricsMXBean
+{
+
+    /**
+     * Object name of the instance registered with the platform MBean server.
+     *
+     * @see #getPlatformInstance()
+     */
+    public static final String OBJECT_NAME = "org.jomc.tools:type=DefaultToolMetrics";
+
+    /**
+     * Number of merge times sampled per template.
+     */
+    private static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * The instance registered with the platform MBean server.
+     */
+    private static DefaultToolMetrics platformInstance;
+
+    /**
+     * Counters of templates by template profile and template name.
+     */
+    private final ConcurrentMap<String, TemplateCounters> templateCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Counters of files by operation.
+     */
+    private final ConcurrentMap<String, FileCounters> fileCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@code DefaultToolMetrics} instance.
+     */
+    public DefaultToolMetrics()
+    {
+        super();
+    }
+
+    /**
+     * Gets the instance registered with the platform MBean server.
+     * <p>
+     * The instance is registered with the platform MBean server using object name {@link #OBJECT_NAME} on first use.
+     * If an instance of a different class loader has already been registered, the instance of this class loader is
+     * not registered.
+     * </p>
+     *
+     * @return The instance registered with the platform MBean server.
+     *
+     * @see ManagementFactory#getPlatformMBeanServer()
+     */
+    public static synchronized DefaultToolMetrics getPlatformInstance()
+    {
+        if ( platformInstance == null )
+        {
+            final DefaultToolMetrics metrics = new DefaultToolMetrics();
+
+            try
+            {
+                ManagementFactory.getPlatformMBeanServer().registerMBean( metrics, new ObjectName( OBJECT_NAME ) );
+            }
+            catch ( final InstanceAlreadyExistsException e )
+            {
+                // Registered by a different class loader. Metrics are still recorded in memory.
+            }
+            catch ( final JMException e )
+            {
+                throw new AssertionError( e );
+            }
+
+            platformInstance = metrics;
+        }
+
+        return platformInstance;
+    }
+
+    @Override
+    public void onTemplateRequest( final String templateProfile, final String templateName, final boolean cached )
+    {
+        final TemplateCounters counters = this.getTemplateCounters( templateProfile, templateName );
+        counters.requestCount.incrementAndGet();
+
+        if ( cached )
+        {
+            counters.hitCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onTemplateMerge( final String templateProfile, final String templateName, final long time,
+                                 final long length )
+    {
+        final TemplateCounters counters = this.getTemplateCounters( templateProfile, templateName );
+        final long index = counters.mergeCount.getAndIncrement();
+        counters.samples.set( (int) ( index % SAMPLE_SIZE ), time );
+        counters.totalMergeTime.addAndGet( time );
+        counters.totalOutputLength.addAndGet( length );
+
+        for ( long max = counters.maxMergeTime.get(); time > max; max = counters.maxMergeTime.get() )
+        {
+            if ( counters.maxMergeTime.compareAndSet( max, time ) )
+            {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void onFileProcessed( final String operation, final String fileName, final long time )
+    {
+        FileCounters counters = this.fileCounters.get( operation );
+
+        if ( counters == null )
+        {
+            final FileCounters c = new FileCounters();
+            counters = this.fileCounters.putIfAbsent( operation, c );
+
+            if ( counters == null )
+            {
+                counters = c;
+            }
+        }
+
+        counters.fileCount.incrementAndGet();
+        counters.totalTime.addAndGet( time );
+
+        if ( time > counters.maxTime )
+        {
+            synchronized ( counters )
+            {
+                if ( time > counters.maxTime )
+                {
+                    counters.maxTime = time;
+                    counters.slowestFileName = fileName;
+                }
+            }
+        }
+    }
+
+    @Override
+    public TemplateStatistics[] getTemplateStatistics()
+    {
+        final List<TemplateStatistics> statistics = new ArrayList<>( this.templateCounters.size() );
+
+        for ( final Map.Entry<String, TemplateCounters> e : this.templateCounters.entrySet() )
+        {
+            final TemplateCounters counters = e.getValue();
+            final long mergeCount = counters.mergeCount.get();
+            final long[] samples = new long[ (int) Math.min( mergeCount, SAMPLE_SIZE ) ];
+
+            for ( int i = samples.length - 1; i >= 0; i-- )
+            {
+                samples[i] = counters.samples.get( i );
+            }
+
+            Arrays.sort( samples );
+
+            statistics.add( new TemplateStatistics(
+                counters.templateProfile, counters.templateName, counters.requestCount.get(),
+                counters.hitCount.get(), mergeCount, counters.totalMergeTime.get(), counters.maxMergeTime.get(),
+                percentile( samples, 50 ), percentile( samples, 90 ), percentile( samples, 99 ),
+                counters.totalOutputLength.get() ) );
+
+        }
+
+        return statistics.toArray( new TemplateStatistics[ statistics.size() ] );
+    }
+
+    @Override
+    public FileStatistics[] getFileStatistics()
+    {
+        final List<FileStatistics> statistics = new ArrayList<>( this.fileCounters.size() );
+
+        for ( final Map.Entry<String, FileCounters> e : this.fileCounters.entrySet() )
+        {
+            final FileCounters counters = e.getValue();
+
+            synchronized ( counters )
+            {
+                statistics.add( new FileStatistics( e.getKey(), counters.fileCount.get(), counters.totalTime.get(),
+                                                    counters.maxTime, counters.slowestFileName ) );
+
+            }
+        }
+
+        return statistics.toArray( new FileStatistics[ statistics.size() ] );
+    }
+
+    @Override
+    public void reset()
+    {
+        this.templateCounters.clear();
+        this.fileCounters.clear();
+    }
+
+    private TemplateCounters getTemplateCounters( final String templateProfile, final String templateName )
+    {
+        final String key = templateProfile + "|" + templateName;
+        TemplateCounters counters = this.templateCounters.get( key );
+
+        if ( counters == null )
+        {
+            final TemplateCounters c = new TemplateCounters( templateProfile, templateName );
+            counters = this.templateCounters.putIfAbsent( key, c );
+
+            if ( counters == null )
+            {
+                counters = c;
+            }
+        }
+
+        return counters;
+    }
+
+    private static long percentile( final long[] sortedSamples, final int percentile )
+    {
+        return sortedSamples.length > 0
+                   ? sortedSamples[( sortedSamples.length - 1 ) * percentile / 100]
+                   : 0L;
+
+    }
+
+    /**
+     * Counters of a template.
+     */
+    private static final class TemplateCounters
+    {
+
+        private final String templateProfile;
+
+        private final String templateName;
+
+        private final AtomicLong requestCount = new AtomicLong();
+
+        private final AtomicLong hitCount = new AtomicLong();
+
+        private final AtomicLong mergeCount = new AtomicLong();
+
+        private final AtomicLong totalMergeTime = new AtomicLong();
+
+        private final AtomicLong maxMergeTime = new AtomicLong();
+
+        private final AtomicLong totalOutputLength = new AtomicLong();
+
+        private final AtomicLongArray samples = new AtomicLongArray( SAMPLE_SIZE );
+
+        TemplateCounters( final String templateProfile, final String templateName )
+        {
+            super();
+            this.templateProfile = templateProfile;
+            this.templateName = templateName;
+        }
+
+    }
+
+    /**
+     * Counters of an operation.
+     */
+    private static final class FileCounters
+    {
+
+        private final AtomicLong fileCount = new AtomicLong();
+
+        private final AtomicLong totalTime = new AtomicLong();
+
+        private volatile long maxTime;
+
+        private String slowestFileName;
+
+        FileCounters()
+        {
+            super();
+        }
+
+    }
+
+}
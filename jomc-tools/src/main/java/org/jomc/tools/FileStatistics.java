@@ -0,0 +1,160 @@
+/*
+ *   Copyright (C) 2005 Christian Schulte <cs@schulte.it>
+ *   All rights reserved.
+ *
+ *   Redistribution and use in source and binary forms, with or without
+ *   modification, are permitted provided that the following conditions
+ *   are met:
+ *
+ *     o Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     o Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *
+ *   THIS SOFTWARE IS PROVIDED "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ *   INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+ *   AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ *   THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *   INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *   NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *   DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *   THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *   (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *   THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *   $JOMC$
+ *
+ */
+package org.jomc.tools;
+
+import java.io.Serializable;
+
+/**
+ * Statistics of the files processed by an operation.
+ *
+ * @author <a href="mailto:cs@schulte.it">Christian Schulte</a>
+ * @version $JOMC$
+ * @since 2.0
+ *
+ * @see DefaultToolMetrics#getFileStatistics()
+ */
+public final class FileStatistics implements Serializable
+{
+
+    /**
+     * Serial version UID for backwards compatibility with 2.x object streams.
+     */
+    private static final long serialVersionUID = 5937353926611160415L;
+
+    /**
+     * The name of the operation.
+     */
+    private final String operation;
+
+    /**
+     * The number of files processed by the operation.
+     */
+    private final long fileCount;
+
+    /**
+     * The total number of nanoseconds spent processing files.
+     */
+    private final long totalTime;
+
+    /**
+     * The maximum number of nanoseconds spent processing a single file.
+     */
+    private final long maxTime;
+
+    /**
+     * The name of the file taking the maximum number of nanoseconds to process.
+     */
+    private final String slowestFileName;
+
+    /**
+     * Creates a new {@code FileStatistics} instance.
+     *
+     * @param operation The name of the operation.
+     * @param fileCount The number of files processed by the operation.
+     * @param totalTime The total number of nanoseconds spent processing files.
+     * @param maxTime The maximum number of nanoseconds spent processing a single file.
+     * @param slowestFileName The name of the file taking the maximum number of nanoseconds to process.
+     */
+    public FileStatistics( final String operation, final long fileCount, final long totalTime, final long maxTime,
+                           final String slowestFileName )
+    {
+        super();
+        this.operation = operation;
+        this.fileCount = fileCount;
+        this.totalTime = totalTime;
+        this.maxTime = maxTime;
+        this.slowestFileName = slowestFileName;
+    }
+
+    /**
+     * Gets the name of the operation.
+     *
+     * @return The name of the operation.
+     */
+    public String getOperation()
+    {
+        return this.operation;
+    }
+
+    /**
+     * Gets the number of files processed by the operation.
+     *
+     * @return The number of files processed by the operation.
+     */
+    public long getFileCount()
+    {
+        return this.fileCount;
+    }
+
+    /**
+     * Gets the total number of nanoseconds spent processing files.
+     *
+     * @return The total number of nanoseconds spent processing files.
+     */
+    public long getTotalTime()
+    {
+        return this.totalTime;
+    }
+
+    /**
+     * Gets the maximum number of nanoseconds spent processing a single file.
+     *
+     * @return The maximum number of nanoseconds spent processing a single file.
+     */
+    public long getMaxTime()
+    {
+        return this.maxTime;
+    }
+
+    /**
+     * Gets the name of the file taking the maximum number of nanoseconds to process.
+     *
+     * @return The name of the file taking the maximum number of nanoseconds to process or {@code null}.
+     */
+    public String getSlowestFileName()
+    {
+        return this.slowestFileName;
+    }
+
+    /**
+     * Creates a string representing the properties of the instance.
+     *
+     * @return A string representing the properties of the instance.
+     */
+    @Override
+    public String toString()
+    {
+        return super.toString() + "{operation=" + this.operation + ", fileCount=" + this.fileCount + ", totalTime="
+                   + this.totalTime + ", maxTime=" + this.maxTime + ", slowestFileName=" + this.slowestFileName + "}";
+
+    }
+
+}
@@ -30,41 +30,103 @@
  */
 package org.jomc.tools;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StringWriter;
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.text.DateFormat;
 import java.text.Format;
 import java.text.MessageFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.context.Context;
 import org.apache.velocity.exception.ParseErrorException;
 import org.apache.velocity.exception.ResourceNotFoundException;
 import org.apache.velocity.exception.VelocityException;
 import org.apache.velocity.runtime.RuntimeConstants;
 import org.apache.velocity.runtime.RuntimeServices;
 import org.apache.velocity.runtime.log.LogChute;
+import org.apache.velocity.runtime.parser.node.ASTDirective;
+import org.apache.velocity.runtime.parser.node.ASTStringLiteral;
+import org.apache.velocity.runtime.parser.node.Node;
 import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
 import org.apache.velocity.runtime.resource.loader.URLResourceLoader;
 import org.jomc.jls.JavaIdentifier;
@@ -136,6 +198,79 @@ public class JomcTool
      */
     private static final String TEMPLATE_ENCODING_PROFILE_PROPERTY_NAME = "template-encoding";
 
+    /**
+     * Date formats of the current thread by pattern, style, locale and time zone.
+     *
+     * @since 2.0
+     */
+    private static final ThreadLocal<Map<String, DateFormat>> DATE_FORMATS = new ThreadLocal<>();
+
+    /**
+     * The maximum number of entries of each template cache map.
+     *
+     * @since 2.0
+     */
+    private static final int TEMPLATE_CACHE_SIZE =
+        Integer.getInteger( "org.jomc.tools.JomcTool.templateCacheSize", 256 );
+
+    /**
+     * The maximum number of template caches shared among tools.
+     *
+     * @since 2.0
+     */
+    private static final int SHARED_TEMPLATE_CACHES_SIZE = 16;
+
+    /**
+     * The maximum number of entries of each Java identifier cache map.
+     *
+     * @since 2.0
+     */
+    private static final int JAVA_IDENTIFIER_CACHE_SIZE =
+        Integer.getInteger( "org.jomc.tools.JomcTool.javaIdentifierCacheSize", 1024 );
+
+    /**
+     * Locks of files held in memory by the real path of the file.
+     *
+     * @since 2.0
+     */
+    private static final Map<Path, FileLockEntry> FILE_LOCKS = new HashMap<>();
+
+    /**
+     * Source of the names of temporary files.
+     *
+     * @since 2.0
+     */
+    private static final Random RANDOM = new SecureRandom();
+
+    /**
+     * Template caches shared among tools by scope.
+     *
+     * @since 2.0
+     */
+    private static final Map<String, TemplateCache> SHARED_TEMPLATE_CACHES =
+        new LinkedHashMap<String, TemplateCache>( SHARED_TEMPLATE_CACHES_SIZE, 0.75f, true )
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( final Map.Entry<String, TemplateCache> eldest )
+        {
+            return this.size() > SHARED_TEMPLATE_CACHES_SIZE;
+        }
+
+    };
+
+    /**
+     * The tool receiving messages logged by default {@code VelocityEngine}s on the current thread.
+     * <p>
+     * Default engines are shared among tools and therefore must not refer to any tool.
+     * </p>
+     *
+     * @since 2.0
+     */
+    private static final ThreadLocal<JomcTool> VELOCITY_LOG_TOOL = new ThreadLocal<>();
+
     /**
      * The default encoding to use for reading templates.
      *
@@ -155,6 +290,31 @@ public class JomcTool
      */
     private static final Level DEFAULT_LOG_LEVEL = Level.WARNING;
 
+    /**
+     * Lock of a file not releasing anything.
+     *
+     * @since 2.0
+     */
+    private static final Closeable NO_FILE_LOCK = new Closeable()
+    {
+
+        @Override
+        public void close()
+        {
+            // Nothing to release.
+        }
+
+    };
+
+    /**
+     * Metrics not recording anything.
+     *
+     * @since 2.0
+     */
+    private static final ToolMetrics NO_METRICS = new ToolMetrics()
+    {
+    };
+
     /**
      * The default log level.
      */
@@ -248,25 +408,172 @@ public class JomcTool
     private volatile Reference<Map<String, String>> indentationCache;
 
     /**
-     * Cached templates.
+     * Cached templates, template profile properties and template profile context properties.
      *
-     * @since 1.3
+     * @since 2.0
      */
-    private volatile Reference<Map<String, TemplateData>> templateCache;
+    private volatile TemplateCache templateCache;
 
     /**
-     * Cached template profile context properties.
+     * Cached Java constant names.
      *
-     * @since 1.3
+     * @since 2.0
      */
-    private volatile Reference<Map<String, java.util.Properties>> templateProfileContextPropertiesCache;
+    private final ConcurrentMap<String, JavaIdentifier> javaConstantNames = new ConcurrentHashMap<>( 64 );
 
     /**
-     * Cached template profile properties.
+     * Cached Java method names.
      *
-     * @since 1.3
+     * @since 2.0
+     */
+    private final ConcurrentMap<String, JavaIdentifier> javaMethodNames = new ConcurrentHashMap<>( 64 );
+
+    /**
+     * Cached Java variable names.
+     *
+     * @since 2.0
+     */
+    private final ConcurrentMap<String, JavaIdentifier> javaVariableNames = new ConcurrentHashMap<>( 64 );
+
+    /**
+     * Cached strings of the boolean values {@code false} and {@code true} for the locale of the instance.
+     *
+     * @since 2.0
+     */
+    private volatile String[] booleanStrings;
+
+    /**
+     * Flag indicating log events are delivered to listeners asynchronously.
+     *
+     * @since 2.0
+     */
+    private volatile Boolean asynchronousLoggingEnabled;
+
+    /**
+     * The maximum number of log events waiting for delivery to listeners.
+     *
+     * @since 2.0
+     */
+    private volatile Integer logQueueCapacity;
+
+    /**
+     * The policy applied to log events whenever the log queue is full.
+     *
+     * @since 2.0
+     */
+    private volatile LogOverflowPolicy logOverflowPolicy;
+
+    /**
+     * The dispatcher delivering log events to listeners asynchronously.
+     *
+     * @since 2.0
+     */
+    private volatile LogDispatcher logDispatcher;
+
+    /**
+     * The metrics of the instance.
+     *
+     * @since 2.0
+     */
+    private volatile ToolMetrics metrics;
+
+    /**
+     * The pool of marshallers and unmarshallers of the instance.
+     *
+     * @since 2.0
+     */
+    private volatile MarshallerPool marshallerPool;
+
+    /**
+     * The maximum number of threads concurrently running processor bound sections of the instance.
+     *
+     * @since 2.0
+     */
+    private volatile Integer concurrencyLimit;
+
+    /**
+     * Permits of processor bound sections.
+     *
+     * @since 2.0
+     */
+    private volatile Semaphore concurrencyPermits;
+
+    /**
+     * Lock guarding the creation of the log dispatcher.
+     *
+     * @since 2.0
+     */
+    private final Object logDispatcherLock = new Object();
+
+    /**
+     * Lock guarding the creation of the permits of processor bound sections.
+     *
+     * @since 2.0
+     */
+    private final Object concurrencyPermitsLock = new Object();
+
+    /**
+     * The strategy for coordinating concurrent reads and writes of files of the instance.
+     *
+     * @since 2.0
+     */
+    private volatile FileLocking fileLocking;
+
+    /**
+     * The generation of the template cache the default {@code VelocityEngine} of the instance has been created for.
+     *
+     * @since 2.0
+     */
+    private volatile long velocityEngineGeneration;
+
+    /**
+     * Flag indicating the shared velocity context is guarded against modifications.
+     *
+     * @since 2.0
+     */
+    private volatile Boolean velocityContextGuardEnabled;
+
+    /**
+     * Flag indicating templates of the built-in template profiles are shared among tools.
+     *
+     * @since 2.0
+     */
+    private volatile Boolean sharedBuiltInTemplatesEnabled;
+
+    /**
+     * The generation of the state derived from the model of the instance.
+     *
+     * @since 2.0
+     */
+    private final AtomicLong modelGeneration = new AtomicLong();
+
+    /**
+     * Number of runs of the instance in progress.
+     *
+     * @since 2.0
+     */
+    private volatile int activeRuns;
+
+    /**
+     * Lock guarding the beginning and ending of runs of the instance.
+     *
+     * @since 2.0
+     */
+    private final Object runLock = new Object();
+
+    /**
+     * The velocity context shared by all velocity contexts of the instance.
+     *
+     * @since 2.0
+     */
+    private volatile SharedVelocityContext sharedVelocityContext;
+
+    /**
+     * Lock guarding the creation of the shared velocity context.
+     *
+     * @since 2.0
      */
-    private volatile Reference<Map<String, java.util.Properties>> templateProfilePropertiesCache;
+    private final Lock sharedVelocityContextLock = new ReentrantLock();
 
     /**
      * Creates a new {@code JomcTool} instance.
@@ -311,6 +618,16 @@ public class JomcTool
             tool.templateLocation != null ? new URL( tool.templateLocation.toExternalForm() ) : null;
 
         this.executorService = tool.executorService;
+        this.velocityContextGuardEnabled = tool.velocityContextGuardEnabled;
+        this.sharedBuiltInTemplatesEnabled = tool.sharedBuiltInTemplatesEnabled;
+        this.asynchronousLoggingEnabled = tool.asynchronousLoggingEnabled;
+        this.logQueueCapacity = tool.logQueueCapacity;
+        this.logOverflowPolicy = tool.logOverflowPolicy;
+        this.metrics = tool.metrics;
+        this.marshallerPool = tool.getMarshallerPool();
+        this.concurrencyLimit = tool.concurrencyLimit;
+        this.concurrencyPermits = tool.getConcurrencyPermits();
+        this.fileLocking = tool.fileLocking;
     }
 
     /**
@@ -429,155 +746,381 @@ public class JomcTool
     }
 
     /**
-     * Formats a string to a Java string with unicode escapes.
+     * Gets a flag indicating log events are delivered to the listeners of the instance asynchronously.
+     * <p>
+     * The default value is controlled by system property
+     * {@code org.jomc.tools.JomcTool.asynchronousLoggingEnabled}. When enabled, the {@code log} method does not
+     * notify any listeners itself but adds the event to a bounded blocking queue. A single dispatcher thread
+     * delivers queued events to the listeners in the order they have been queued. The dispatcher thread terminates
+     * when it has been idle for a second and gets re-started on demand. Events still queued are delivered before
+     * any operation of the tool returns.
+     * </p>
      *
-     * @param str The string to format to a Java string or {@code null}.
+     * @return {@code true}, if log events are delivered to the listeners of the instance asynchronously;
+     * {@code false}, if log events are delivered to the listeners by the logging thread.
      *
-     * @return {@code str} formatted to a Java string or {@code null}.
+     * @see #setAsynchronousLoggingEnabled(java.lang.Boolean)
+     * @see #getLogQueueCapacity()
+     * @see #getLogOverflowPolicy()
+     * @see #flushLog()
      *
-     * @see StringEscapeUtils#escapeJava(java.lang.String)
+     * @since 2.0
      */
-    public String getJavaString( final String str )
+    public final boolean isAsynchronousLoggingEnabled()
     {
-        return StringEscapeUtils.escapeJava( str );
+        if ( this.asynchronousLoggingEnabled == null )
+        {
+            this.asynchronousLoggingEnabled =
+                Boolean.valueOf( System.getProperty( "org.jomc.tools.JomcTool.asynchronousLoggingEnabled" ) );
+
+        }
+
+        return this.asynchronousLoggingEnabled;
     }
 
     /**
-     * Compiles a string to a Java constant name.
+     * Sets the flag indicating log events are delivered to the listeners of the instance asynchronously.
      *
-     * @param str The string to compile or {@code null}.
+     * @param value The new value of the flag or {@code null}.
      *
-     * @return {@code str} compiled to a {@code JavaIdentifier} or {@code null}, if {@code str} is {@code null}.
+     * @see #isAsynchronousLoggingEnabled()
      *
-     * @throws ParseException if compiling {@code str} to a {@code JavaIdentifier} fails.
+     * @since 2.0
+     */
+    public final void setAsynchronousLoggingEnabled( final Boolean value )
+    {
+        this.flushLog();
+        this.asynchronousLoggingEnabled = value;
+    }
+
+    /**
+     * Gets the maximum number of log events waiting for delivery to the listeners of the instance.
+     * <p>
+     * The default value is controlled by system property {@code org.jomc.tools.JomcTool.logQueueCapacity} and
+     * defaults to {@code 8192}.
+     * </p>
      *
-     * @since 1.3
+     * @return The maximum number of log events waiting for delivery to the listeners of the instance.
      *
-     * @see JavaIdentifier#normalize(java.lang.String, org.jomc.util.JavaIdentifier.NormalizationMode)
-     * @see org.jomc.util.JavaIdentifier.NormalizationMode#CONSTANT_NAME_CONVENTION
+     * @see #setLogQueueCapacity(java.lang.Integer)
+     * @see #isAsynchronousLoggingEnabled()
+     *
+     * @since 2.0
      */
-    public JavaIdentifier toJavaConstantName( final String str ) throws ParseException
+    public final int getLogQueueCapacity()
     {
-        JavaIdentifier constantName = null;
-
-        if ( str != null )
+        if ( this.logQueueCapacity == null )
         {
-            constantName = JavaIdentifier.normalize( str, JavaIdentifier.NormalizationMode.CONSTANT_NAME_CONVENTION );
+            this.logQueueCapacity =
+                Math.max( 1, Integer.getInteger( "org.jomc.tools.JomcTool.logQueueCapacity", 8192 ) );
+
         }
 
-        return constantName;
+        return this.logQueueCapacity;
     }
 
     /**
-     * Compiles a string to a Java method name.
+     * Sets the maximum number of log events waiting for delivery to the listeners of the instance.
      *
-     * @param str The string to compile or {@code null}.
-     *
-     * @return {@code str} compiled to a {@code JavaIdentifier} or {@code null}, if {@code str} is {@code null}.
+     * @param value The new maximum number of log events waiting for delivery or {@code null}.
      *
-     * @throws ParseException if compiling {@code str} to a {@code JavaIdentifier} fails.
+     * @throws IllegalArgumentException if {@code value} is less than {@code 1}.
      *
-     * @since 1.4
+     * @see #getLogQueueCapacity()
      *
-     * @see JavaIdentifier#normalize(java.lang.String, org.jomc.util.JavaIdentifier.NormalizationMode)
-     * @see org.jomc.util.JavaIdentifier.NormalizationMode#METHOD_NAME_CONVENTION
+     * @since 2.0
      */
-    public JavaIdentifier toJavaMethodName( final String str ) throws ParseException
+    public final void setLogQueueCapacity( final Integer value )
     {
-        JavaIdentifier variableName = null;
-
-        if ( str != null )
+        if ( value != null && value < 1 )
         {
-            variableName =
-                JavaIdentifier.normalize( str, JavaIdentifier.NormalizationMode.METHOD_NAME_CONVENTION );
-
+            throw new IllegalArgumentException( value.toString() );
         }
 
-        return variableName;
+        this.flushLog();
+        this.logQueueCapacity = value;
+        this.logDispatcher = null;
     }
 
     /**
-     * Compiles a string to a Java variable name.
-     *
-     * @param str The string to compile or {@code null}.
-     *
-     * @return {@code str} compiled to a {@code JavaIdentifier} or {@code null}, if {@code str} is {@code null}.
+     * Gets the policy applied to log events whenever the log queue of the instance is full.
+     * <p>
+     * The default value is controlled by system property {@code org.jomc.tools.JomcTool.logOverflowPolicy} and
+     * defaults to {@link LogOverflowPolicy#BLOCK}.
+     * </p>
      *
-     * @throws ParseException if compiling {@code str} to a {@code JavaIdentifier} fails.
+     * @return The policy applied to log events whenever the log queue of the instance is full.
      *
-     * @since 1.4
+     * @see #setLogOverflowPolicy(org.jomc.tools.LogOverflowPolicy)
+     * @see #isAsynchronousLoggingEnabled()
      *
-     * @see JavaIdentifier#normalize(java.lang.String, org.jomc.util.JavaIdentifier.NormalizationMode)
-     * @see org.jomc.util.JavaIdentifier.NormalizationMode#VARIABLE_NAME_CONVENTION
+     * @since 2.0
      */
-    public JavaIdentifier toJavaVariableName( final String str ) throws ParseException
+    public final LogOverflowPolicy getLogOverflowPolicy()
     {
-        JavaIdentifier variableName = null;
-
-        if ( str != null )
+        if ( this.logOverflowPolicy == null )
         {
-            variableName =
-                JavaIdentifier.normalize( str, JavaIdentifier.NormalizationMode.VARIABLE_NAME_CONVENTION );
+            this.logOverflowPolicy = LogOverflowPolicy.valueOf(
+                System.getProperty( "org.jomc.tools.JomcTool.logOverflowPolicy", LogOverflowPolicy.BLOCK.name() ) );
 
         }
 
-        return variableName;
+        return this.logOverflowPolicy;
     }
 
     /**
-     * Formats a string to a HTML string with HTML entities.
+     * Sets the policy applied to log events whenever the log queue of the instance is full.
      *
-     * @param str The string to format to a HTML string with HTML entities or {@code null}.
+     * @param value The new policy applied to log events whenever the log queue is full or {@code null}.
      *
-     * @return {@code str} formatted to a HTML string with HTML entities or {@code null}.
+     * @see #getLogOverflowPolicy()
      *
-     * @since 1.2
+     * @since 2.0
      */
-    public String getHtmlString( final String str )
+    public final void setLogOverflowPolicy( final LogOverflowPolicy value )
     {
-        return str != null ? str.replace( "&", "&amp;" ).replace( "<", "&lt;" ).replace( ">", "&gt;" ).
-            replace( "\"", "&quot;" ).replace( "*", "&lowast;" ) : null;
-
+        this.flushLog();
+        this.logOverflowPolicy = value;
+        this.logDispatcher = null;
     }
 
     /**
-     * Formats a string to a XML string with XML entities.
-     *
-     * @param str The string to format to a XML string with XML entities or {@code null}.
-     *
-     * @return {@code str} formatted to a XML string with XML entities or {@code null}.
+     * Waits until all log events queued so far have been delivered to the listeners of the instance.
+     * <p>
+     * This method returns immediately, if log events are not delivered asynchronously. Otherwise, any log events
+     * discarded due to a full log queue since the last call to this method are reported to the listeners. A listener
+     * failing to handle an event delivered asynchronously does not stop delivery of any other events. The exception
+     * thrown by that listener is rethrown by this method instead, with exceptions of any other failing listeners
+     * added as suppressed exceptions.
+     * </p>
      *
-     * @see StringEscapeUtils#escapeXml(java.lang.String)
+     * @see #isAsynchronousLoggingEnabled()
      *
-     * @since 1.2
+     * @since 2.0
      */
-    public String getXmlString( final String str )
+    public void flushLog()
     {
-        return StringEscapeUtils.escapeXml( str );
+        final LogDispatcher dispatcher = this.logDispatcher;
+
+        if ( dispatcher != null )
+        {
+            dispatcher.flush();
+
+            final long discarded = dispatcher.discardedCount.getAndSet( 0L );
+
+            if ( discarded > 0L && this.isLoggable( Level.WARNING ) )
+            {
+                for ( final Listener listener : this.getListeners() )
+                {
+                    listener.onLog( Level.WARNING, getMessage( "logEventsDiscarded", discarded ), null );
+                }
+            }
+
+            final Throwable failure = dispatcher.failure.getAndSet( null );
+
+            if ( failure instanceof RuntimeException )
+            {
+                throw (RuntimeException) failure;
+            }
+            if ( failure instanceof Error )
+            {
+                throw (Error) failure;
+            }
+        }
     }
 
     /**
-     * Formats a string to a JavaScript string applying JavaScript string rules.
-     *
-     * @param str The string to format to a JavaScript string by applying JavaScript string rules or {@code null}.
+     * Formats a string to a Java string with unicode escapes.
      *
-     * @return {@code str} formatted to a JavaScript string with JavaScript string rules applied or {@code null}.
+     * @param str The string to format to a Java string or {@code null}.
      *
-     * @see StringEscapeUtils#escapeJavaScript(java.lang.String)
+     * @return {@code str} formatted to a Java string or {@code null}.
      *
-     * @since 1.2
+     * @see StringEscapeUtils#escapeJava(java.lang.String)
      */
-    public String getJavaScriptString( final String str )
+    public String getJavaString( final String str )
     {
-        return StringEscapeUtils.escapeJavaScript( str );
+        if ( str != null )
+        {
+            for ( int i = 0, s0 = str.length(); i < s0; i++ )
+            {
+                final char c = str.charAt( i );
+
+                if ( c < 32 || c > 0x7f || c == '"' || c == '\\' )
+                {
+                    return StringEscapeUtils.escapeJava( str );
+                }
+            }
+        }
+
+        return str;
     }
 
     /**
-     * Formats a string to a SQL string.
+     * Compiles a string to a Java constant name.
      *
-     * @param str The string to format to a SQL string or {@code null}.
+     * @param str The string to compile or {@code null}.
      *
-     * @return {@code str} formatted to a SQL string or {@code null}.
+     * @return {@code str} compiled to a {@code JavaIdentifier} or {@code null}, if {@code str} is {@code null}.
+     *
+     * @throws ParseException if compiling {@code str} to a {@code JavaIdentifier} fails.
+     *
+     * @since 1.3
+     *
+     * @see JavaIdentifier#normalize(java.lang.String, org.jomc.util.JavaIdentifier.NormalizationMode)
+     * @see org.jomc.util.JavaIdentifier.NormalizationMode#CONSTANT_NAME_CONVENTION
+     */
+    public JavaIdentifier toJavaConstantName( final String str ) throws ParseException
+    {
+        return normalize( this.javaConstantNames, str, JavaIdentifier.NormalizationMode.CONSTANT_NAME_CONVENTION );
+    }
+
+    /**
+     * Compiles a string to a Java method name.
+     *
+     * @param str The string to compile or {@code null}.
+     *
+     * @return {@code str} compiled to a {@code JavaIdentifier} or {@code null}, if {@code str} is {@code null}.
+     *
+     * @throws ParseException if compiling {@code str} to a {@code JavaIdentifier} fails.
+     *
+     * @since 1.4
+     *
+     * @see JavaIdentifier#normalize(java.lang.String, org.jomc.util.JavaIdentifier.NormalizationMode)
+     * @see org.jomc.util.JavaIdentifier.NormalizationMode#METHOD_NAME_CONVENTION
+     */
+    public JavaIdentifier toJavaMethodName( final String str ) throws ParseException
+    {
+        return normalize( this.javaMethodNames, str, JavaIdentifier.NormalizationMode.METHOD_NAME_CONVENTION );
+    }
+
+    /**
+     * Compiles a string to a Java variable name.
+     *
+     * @param str The string to compile or {@code null}.
+     *
+     * @return {@code str} compiled to a {@code JavaIdentifier} or {@code null}, if {@code str} is {@code null}.
+     *
+     * @throws ParseException if compiling {@code str} to a {@code JavaIdentifier} fails.
+     *
+     * @since 1.4
+     *
+     * @see JavaIdentifier#normalize(java.lang.String, org.jomc.util.JavaIdentifier.NormalizationMode)
+     * @see org.jomc.util.JavaIdentifier.NormalizationMode#VARIABLE_NAME_CONVENTION
+     */
+    public JavaIdentifier toJavaVariableName( final String str ) throws ParseException
+    {
+        return normalize( this.javaVariableNames, str, JavaIdentifier.NormalizationMode.VARIABLE_NAME_CONVENTION );
+    }
+
+    /**
+     * Formats a string to a HTML string with HTML entities.
+     *
+     * @param str The string to format to a HTML string with HTML entities or {@code null}.
+     *
+     * @return {@code str} formatted to a HTML string with HTML entities or {@code null}.
+     *
+     * @since 1.2
+     */
+    public String getHtmlString( final String str )
+    {
+        StringBuilder html = null;
+
+        for ( int i = 0, s0 = str != null ? str.length() : 0; i < s0; i++ )
+        {
+            final char c = str.charAt( i );
+            final String entity;
+
+            switch ( c )
+            {
+                case '&':
+                    entity = "&amp;";
+                    break;
+                case '<':
+                    entity = "&lt;";
+                    break;
+                case '>':
+                    entity = "&gt;";
+                    break;
+                case '"':
+                    entity = "&quot;";
+                    break;
+                case '*':
+                    entity = "&lowast;";
+                    break;
+                default:
+                    entity = null;
+            }
+
+            if ( entity != null )
+            {
+                if ( html == null )
+                {
+                    html = new StringBuilder( s0 + 16 ).append( str, 0, i );
+                }
+
+                html.append( entity );
+            }
+            else if ( html != null )
+            {
+                html.append( c );
+            }
+        }
+
+        return html != null ? html.toString() : str;
+    }
+
+    /**
+     * Formats a string to a XML string with XML entities.
+     *
+     * @param str The string to format to a XML string with XML entities or {@code null}.
+     *
+     * @return {@code str} formatted to a XML string with XML entities or {@code null}.
+     *
+     * @see StringEscapeUtils#escapeXml(java.lang.String)
+     *
+     * @since 1.2
+     */
+    public String getXmlString( final String str )
+    {
+        if ( str != null )
+        {
+            for ( int i = 0, s0 = str.length(); i < s0; i++ )
+            {
+                final char c = str.charAt( i );
+
+                if ( c > 0x7f || c == '&' || c == '<' || c == '>' || c == '"' || c == '\'' )
+                {
+                    return StringEscapeUtils.escapeXml( str );
+                }
+            }
+        }
+
+        return str;
+    }
+
+    /**
+     * Formats a string to a JavaScript string applying JavaScript string rules.
+     *
+     * @param str The string to format to a JavaScript string by applying JavaScript string rules or {@code null}.
+     *
+     * @return {@code str} formatted to a JavaScript string with JavaScript string rules applied or {@code null}.
+     *
+     * @see StringEscapeUtils#escapeJavaScript(java.lang.String)
+     *
+     * @since 1.2
+     */
+    public String getJavaScriptString( final String str )
+    {
+        return StringEscapeUtils.escapeJavaScript( str );
+    }
+
+    /**
+     * Formats a string to a SQL string.
+     *
+     * @param str The string to format to a SQL string or {@code null}.
+     *
+     * @return {@code str} formatted to a SQL string or {@code null}.
      *
      * @see StringEscapeUtils#escapeSql(java.lang.String)
      *
@@ -617,9 +1160,20 @@ public class JomcTool
      */
     public String getBooleanString( final Boolean b )
     {
-        return ResourceBundle.getBundle( JomcTool.class.getName(), this.getLocale() ).
-            getString( b ? "booleanStringTrue" : "booleanStringFalse" );
+        String[] strings = this.booleanStrings;
+
+        if ( strings == null )
+        {
+            final ResourceBundle bundle = ResourceBundle.getBundle( JomcTool.class.getName(), this.getLocale() );
+            strings = new String[]
+            {
+                bundle.getString( "booleanStringFalse" ), bundle.getString( "booleanStringTrue" )
+            };
+
+            this.booleanStrings = strings;
+        }
 
+        return b ? strings[1] : strings[0];
     }
 
     /**
@@ -660,7 +1214,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return DateFormat.getDateInstance( DateFormat.SHORT, this.getLocale() ).format( calendar.getTime() );
+        return this.getDateFormat( DateFormat.SHORT, -1 ).format( calendar.getTime() );
     }
 
     /**
@@ -683,7 +1237,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return DateFormat.getDateInstance( DateFormat.MEDIUM, this.getLocale() ).format( calendar.getTime() );
+        return this.getDateFormat( DateFormat.MEDIUM, -1 ).format( calendar.getTime() );
     }
 
     /**
@@ -704,7 +1258,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return DateFormat.getDateInstance( DateFormat.LONG, this.getLocale() ).format( calendar.getTime() );
+        return this.getDateFormat( DateFormat.LONG, -1 ).format( calendar.getTime() );
     }
 
     /**
@@ -727,7 +1281,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return new SimpleDateFormat( "yyyy-DDD", this.getLocale() ).format( calendar.getTime() );
+        return this.getDateFormat( "yyyy-DDD" ).format( calendar.getTime() );
     }
 
     /**
@@ -748,7 +1302,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return DateFormat.getTimeInstance( DateFormat.SHORT, this.getLocale() ).format( calendar.getTime() );
+        return this.getDateFormat( -1, DateFormat.SHORT ).format( calendar.getTime() );
     }
 
     /**
@@ -771,7 +1325,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return DateFormat.getTimeInstance( DateFormat.MEDIUM, this.getLocale() ).format( calendar.getTime() );
+        return this.getDateFormat( -1, DateFormat.MEDIUM ).format( calendar.getTime() );
     }
 
     /**
@@ -792,7 +1346,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return DateFormat.getTimeInstance( DateFormat.LONG, this.getLocale() ).format( calendar.getTime() );
+        return this.getDateFormat( -1, DateFormat.LONG ).format( calendar.getTime() );
     }
 
     /**
@@ -815,7 +1369,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return new SimpleDateFormat( "HH:mm", this.getLocale() ).format( calendar.getTime() );
+        return this.getDateFormat( "HH:mm" ).format( calendar.getTime() );
     }
 
     /**
@@ -836,9 +1390,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return DateFormat.getDateTimeInstance( DateFormat.SHORT, DateFormat.SHORT, this.getLocale() ).
-            format( calendar.getTime() );
-
+        return this.getDateFormat( DateFormat.SHORT, DateFormat.SHORT ).format( calendar.getTime() );
     }
 
     /**
@@ -861,9 +1413,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return DateFormat.getDateTimeInstance( DateFormat.MEDIUM, DateFormat.MEDIUM, this.getLocale() ).
-            format( calendar.getTime() );
-
+        return this.getDateFormat( DateFormat.MEDIUM, DateFormat.MEDIUM ).format( calendar.getTime() );
     }
 
     /**
@@ -884,9 +1434,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return DateFormat.getDateTimeInstance( DateFormat.LONG, DateFormat.LONG, this.getLocale() ).
-            format( calendar.getTime() );
-
+        return this.getDateFormat( DateFormat.LONG, DateFormat.LONG ).format( calendar.getTime() );
     }
 
     /**
@@ -909,7 +1457,7 @@ public class JomcTool
             throw new NullPointerException( "calendar" );
         }
 
-        return new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ssXXX", this.getLocale() ).format( calendar.getTime() );
+        return this.getDateFormat( "yyyy-MM-dd'T'HH:mm:ssXXX" ).format( calendar.getTime() );
     }
 
     /**
@@ -933,7 +1481,7 @@ public class JomcTool
             throw new NullPointerException( "end" );
         }
 
-        final Format yearFormat = new SimpleDateFormat( "yyyy", this.getLocale() );
+        final Format yearFormat = this.getDateFormat( "yyyy" );
         final int s = start.get( Calendar.YEAR );
         final int e = end.get( Calendar.YEAR );
         final StringBuilder years = new StringBuilder( 12 );
@@ -990,6 +1538,57 @@ public class JomcTool
     public final void setModel( final Model value )
     {
         this.model = value;
+        this.modelGeneration.incrementAndGet();
+        this.sharedVelocityContext = null;
+    }
+
+    /**
+     * Begins a run of the instance.
+     * <p>
+     * State derived from the model of the instance, like the base context of the velocity contexts it creates, is
+     * kept for the duration of a run only. Runs are begun and ended by the methods processing the model as a whole,
+     * during which the model is not modified. Beginning a run with no other run in progress starts a new generation
+     * of that state, so that modifications of the model made in place between runs are taken into account.
+     * </p>
+     *
+     * @see #endRun()
+     * @see #getModelGeneration()
+     */
+    final void beginRun()
+    {
+        synchronized ( this.runLock )
+        {
+            if ( this.activeRuns++ == 0 )
+            {
+                this.modelGeneration.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Ends a run of the instance.
+     *
+     * @see #beginRun()
+     */
+    final void endRun()
+    {
+        synchronized ( this.runLock )
+        {
+            this.activeRuns--;
+        }
+    }
+
+    /**
+     * Gets the generation of the state derived from the model of the instance.
+     *
+     * @return The generation of the state derived from the model of the instance or {@code -1L}, if no run is in
+     * progress and state derived from the model must not be kept.
+     *
+     * @see #beginRun()
+     */
+    final long getModelGeneration()
+    {
+        return this.activeRuns > 0 ? this.modelGeneration.get() : -1L;
     }
 
     /**
@@ -1007,6 +1606,10 @@ public class JomcTool
 
     /**
      * Gets the {@code VelocityEngine} of the instance.
+     * <p>
+     * The default {@code VelocityEngine} is shared by all tools sharing a template cache. Messages of that engine are
+     * logged to the listeners of the tool loading or merging the template the engine logs a message for.
+     * </p>
      *
      * @return The {@code VelocityEngine} of the instance.
      *
@@ -1016,63 +1619,8 @@ public class JomcTool
     {
         if ( this.velocityEngine == null )
         {
-            /**
-             * {@code LogChute} logging to the listeners of the tool.
-             */
-            class JomcLogChute implements LogChute
-            {
-
-                JomcLogChute()
-                {
-                    super();
-                }
-
-                @Override
-                public void init( final RuntimeServices runtimeServices ) throws Exception
-                {
-                }
-
-                @Override
-                public void log( final int level, final String message )
-                {
-                    this.log( level, message, null );
-                }
-
-                @Override
-                public void log( final int level, final String message, final Throwable throwable )
-                {
-                    JomcTool.this.log( Level.FINEST, message, throwable );
-                }
-
-                @Override
-                public boolean isLevelEnabled( final int level )
-                {
-                    return isLoggable( Level.FINEST );
-                }
-
-            }
-
-            final VelocityEngine engine = new VelocityEngine();
-            engine.setProperty( RuntimeConstants.RUNTIME_REFERENCES_STRICT, Boolean.TRUE.toString() );
-            engine.setProperty( RuntimeConstants.VM_ARGUMENTS_STRICT, Boolean.TRUE.toString() );
-            engine.setProperty( RuntimeConstants.STRICT_MATH, Boolean.TRUE.toString() );
-            engine.setProperty( RuntimeConstants.RUNTIME_LOG_LOGSYSTEM, new JomcLogChute() );
-
-            engine.setProperty( RuntimeConstants.RESOURCE_LOADER, "class" );
-            engine.setProperty( "class.resource.loader.class", ClasspathResourceLoader.class.getName() );
-            engine.setProperty( "class.resource.loader.cache", Boolean.TRUE.toString() );
-
-            if ( this.getTemplateLocation() != null )
-            {
-                engine.setProperty( RuntimeConstants.RESOURCE_LOADER, "class,url" );
-                engine.setProperty( "url.resource.loader.class", URLResourceLoader.class.getName() );
-                engine.setProperty( "url.resource.loader.cache", Boolean.TRUE.toString() );
-                engine.setProperty( "url.resource.loader.root", this.getTemplateLocation().toExternalForm() );
-                engine.setProperty( "url.resource.loader.timeout", Integer.toString( 60000 ) );
-            }
-
-            this.velocityEngine = engine;
             this.defaultVelocityEngine = true;
+            this.velocityEngine = this.getTemplateCache().getVelocityEngine( this.getTemplateLocation() );
         }
 
         return this.velocityEngine;
@@ -1089,116 +1637,550 @@ public class JomcTool
     {
         this.velocityEngine = value;
         this.defaultVelocityEngine = false;
+        this.templateCache = null;
     }
 
     /**
      * Gets a new velocity context used for merging templates.
+     * <p>
+     * The returned context is a cheap overlay holding the template parameters of the instance and the context
+     * properties of the template profile. Any other entries are looked up in a read-only base context holding a copy
+     * of the model of the instance, its modules, the inheritance model and the date and time values. While the
+     * instance is processing its model, that base context is created once and shared by all contexts returned by
+     * this method, so that all files written by a run share the same date and time values, computed once per run.
+     * Otherwise a new base context is created for every context, so that any modification of the model is taken
+     * into account.
+     * </p>
      *
      * @return A new velocity context used for merging templates.
      *
-     * @throws IOException if creating a new context instance fails.
+     * @throws IOException if creating a new context instance fails or if the velocity context guard detects a
+     * modification of the shared model.
      *
      * @see #getTemplateParameters()
+     * @see #isVelocityContextGuardEnabled()
      */
     public VelocityContext getVelocityContext() throws IOException
     {
-        final Calendar now = Calendar.getInstance();
-        final VelocityContext ctx = new VelocityContext( new HashMap<>( this.getTemplateParameters() ) );
+        final SharedVelocityContext shared = this.getSharedVelocityContext();
+        shared.assertUnmodified();
+
+        final Map<String, Object> overlay = new HashMap<>( this.getTemplateParameters() );
+        final VelocityContext ctx = new VelocityContext( overlay );
         this.mergeTemplateProfileContextProperties( this.getTemplateProfile(), this.getLocale().getLanguage(), ctx );
         this.mergeTemplateProfileContextProperties( this.getTemplateProfile(), null, ctx );
 
-        final Model clonedModel = this.getModel().clone();
-        final Modules clonedModules = ModelHelper.getModules( clonedModel );
-        assert clonedModules != null : "Unexpected missing modules for model '" + clonedModel.getIdentifier() + "'.";
-
-        ctx.put( "model", clonedModel );
-        ctx.put( "modules", clonedModules );
-        ctx.put( "imodel", new InheritanceModel( clonedModules ) );
-        ctx.put( "tool", this );
-        ctx.put( "toolName", this.getClass().getName() );
-        ctx.put( "toolVersion", getMessage( "projectVersion" ) );
-        ctx.put( "toolUrl", getMessage( "projectUrl" ) );
-        ctx.put( "calendar", now.getTime() );
-        ctx.put( "now",
-                 new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ss.SSSXXX", this.getLocale() ).format( now.getTime() ) );
-
-        ctx.put( "year", new SimpleDateFormat( "yyyy", this.getLocale() ).format( now.getTime() ) );
-        ctx.put( "month", new SimpleDateFormat( "MM", this.getLocale() ).format( now.getTime() ) );
-        ctx.put( "day", new SimpleDateFormat( "dd", this.getLocale() ).format( now.getTime() ) );
-        ctx.put( "hour", new SimpleDateFormat( "HH", this.getLocale() ).format( now.getTime() ) );
-        ctx.put( "minute", new SimpleDateFormat( "mm", this.getLocale() ).format( now.getTime() ) );
-        ctx.put( "second", new SimpleDateFormat( "ss", this.getLocale() ).format( now.getTime() ) );
-        ctx.put( "timezone", new SimpleDateFormat( "XXX", this.getLocale() ).format( now.getTime() ) );
-        ctx.put( "shortDate", this.getShortDate( now ) );
-        ctx.put( "mediumDate", this.getMediumDate( now ) );
-        ctx.put( "longDate", this.getLongDate( now ) );
-        ctx.put( "isoDate", this.getIsoDate( now ) );
-        ctx.put( "shortTime", this.getShortTime( now ) );
-        ctx.put( "mediumTime", this.getMediumTime( now ) );
-        ctx.put( "longTime", this.getLongTime( now ) );
-        ctx.put( "isoTime", this.getIsoTime( now ) );
-        ctx.put( "shortDateTime", this.getShortDateTime( now ) );
-        ctx.put( "mediumDateTime", this.getMediumDateTime( now ) );
-        ctx.put( "longDateTime", this.getLongDateTime( now ) );
-        ctx.put( "isoDateTime", this.getIsoDateTime( now ) );
+        // Entries of the shared context take precedence over template parameters and context properties.
+        for ( final Object key : shared.getKeys() )
+        {
+            overlay.remove( key.toString() );
+        }
 
-        return ctx;
+        return new VelocityContext( overlay, shared );
     }
 
     /**
-     * Gets the template parameters of the instance.
+     * Gets a flag indicating the shared velocity context is guarded against modifications by templates.
      * <p>
-     * This accessor method returns a reference to the live map, not a snapshot. Therefore any modification you make
-     * to the returned map will be present inside the object. This is why there is no {@code set} method for the
-     * template parameters property.
+     * The default value is controlled by system property {@code org.jomc.tools.JomcTool.velocityContextGuardEnabled}.
+     * When enabled, a digest of the shared model is computed when the shared context gets created and is verified
+     * whenever a new context is requested, so that a template modifying the shared model is detected.
      * </p>
      *
-     * @return The template parameters of the instance.
+     * @return {@code true}, if the shared velocity context is guarded against modifications; {@code false}, else.
      *
-     * @see #getVelocityContext()
+     * @see #setVelocityContextGuardEnabled(java.lang.Boolean)
      *
-     * @since 1.2
+     * @since 2.0
      */
-    public final Map<String, Object> getTemplateParameters()
+    public final boolean isVelocityContextGuardEnabled()
     {
-        return this.templateParameters;
+        if ( this.velocityContextGuardEnabled == null )
+        {
+            this.velocityContextGuardEnabled =
+                Boolean.valueOf( System.getProperty( "org.jomc.tools.JomcTool.velocityContextGuardEnabled" ) );
+
+        }
+
+        return this.velocityContextGuardEnabled;
     }
 
     /**
-     * Gets the location to search for templates in addition to searching the class path.
+     * Sets the flag indicating the shared velocity context is guarded against modifications by templates.
      *
-     * @return The location to search for templates in addition to searching the class path or {@code null}.
+     * @param value The new value of the flag or {@code null}.
      *
-     * @see #setTemplateLocation(java.net.URL)
+     * @see #isVelocityContextGuardEnabled()
      *
-     * @since 1.2
+     * @since 2.0
      */
-    public final URL getTemplateLocation()
+    public final void setVelocityContextGuardEnabled( final Boolean value )
     {
-        return this.templateLocation;
+        this.velocityContextGuardEnabled = value;
+        this.sharedVelocityContext = null;
     }
 
     /**
-     * Sets the location to search for templates in addition to searching the class path.
+     * Gets a flag indicating templates of the built-in template profiles are shared among tools.
+     * <p>
+     * The default value is controlled by system property
+     * {@code org.jomc.tools.JomcTool.sharedBuiltInTemplatesEnabled} (defaults to {@code true}). When enabled and the
+     * instance uses its default {@code VelocityEngine}, all templates of the built-in {@code jomc-java} and
+     * {@code jomc-java-bundles} template profiles are parsed together on first use of any of them, once per virtual
+     * machine, and are shared among all tools regardless of their template location, locale or template cache.
+     * Templates of any other template profile and templates not found on the classpath are loaded using the
+     * {@code VelocityEngine} of the instance.
+     * </p>
      *
-     * @param value The new location to search for templates in addition to searching the class path or {@code null}.
+     * @return {@code true}, if templates of the built-in template profiles are shared among tools; {@code false},
+     * else.
      *
-     * @see #getTemplateLocation()
+     * @see #setSharedBuiltInTemplatesEnabled(java.lang.Boolean)
      *
-     * @since 1.2
+     * @since 2.0
      */
-    public final void setTemplateLocation( final URL value )
+    public final boolean isSharedBuiltInTemplatesEnabled()
     {
-        this.templateLocation = value;
-        this.templateProfileContextPropertiesCache = null;
-        this.templateProfilePropertiesCache = null;
+        if ( this.sharedBuiltInTemplatesEnabled == null )
+        {
+            this.sharedBuiltInTemplatesEnabled = Boolean.valueOf(
+                System.getProperty( "org.jomc.tools.JomcTool.sharedBuiltInTemplatesEnabled", "true" ) );
 
-        if ( this.defaultVelocityEngine )
+        }
+
+        return this.sharedBuiltInTemplatesEnabled;
+    }
+
+    /**
+     * Sets the flag indicating templates of the built-in template profiles are shared among tools.
+     *
+     * @param value The new value of the flag or {@code null}.
+     *
+     * @see #isSharedBuiltInTemplatesEnabled()
+     *
+     * @since 2.0
+     */
+    public final void setSharedBuiltInTemplatesEnabled( final Boolean value )
+    {
+        this.sharedBuiltInTemplatesEnabled = value;
+        this.templateCache = null;
+    }
+
+    /**
+     * Gets statistics of the template cache of the instance.
+     * <p>
+     * Templates, template profile properties and template profile context properties are cached in bounded maps
+     * holding at most the number of entries given by system property
+     * {@code org.jomc.tools.JomcTool.templateCacheSize} (defaults to {@code 256}) each, evicting the least recently
+     * used entries first. Concurrent requests for an entry not found in the cache are blocked until the first request
+     * has loaded the entry. Tools using their default {@code VelocityEngine} share a single template cache whenever
+     * they use the same template location, default template profile, locale and default template encoding.
+     * </p>
+     *
+     * @return Statistics of the template cache of the instance.
+     *
+     * @since 2.0
+     */
+    public final CacheStatistics getTemplateCacheStatistics()
+    {
+        return this.getTemplateCache().getStatistics();
+    }
+
+    /**
+     * Gets the metrics of the instance.
+     * <p>
+     * The metrics get notified about any template requested and merged and about any file processed by the
+     * instance. If no metrics have been set, the shared {@link DefaultToolMetrics#getPlatformInstance() platform
+     * instance} is used whenever system property {@code org.jomc.tools.JomcTool.metricsEnabled} is set to
+     * {@code true}. Otherwise metrics not recording anything are used.
+     * </p>
+     *
+     * @return The metrics of the instance.
+     *
+     * @see #setMetrics(org.jomc.tools.ToolMetrics)
+     *
+     * @since 2.0
+     */
+    public final ToolMetrics getMetrics()
+    {
+        if ( this.metrics == null )
+        {
+            this.metrics = Boolean.getBoolean( "org.jomc.tools.JomcTool.metricsEnabled" )
+                               ? DefaultToolMetrics.getPlatformInstance()
+                               : NO_METRICS;
+
+        }
+
+        return this.metrics;
+    }
+
+    /**
+     * Sets the metrics of the instance.
+     *
+     * @param value The new metrics of the instance or {@code null}.
+     *
+     * @see #getMetrics()
+     *
+     * @since 2.0
+     */
+    public final void setMetrics( final ToolMetrics value )
+    {
+        this.metrics = value;
+    }
+
+    /**
+     * Gets the pool of marshallers and unmarshallers of the instance.
+     * <p>
+     * Tools created using the copy constructor share the pool of the tool they got copied from. If no pool has been
+     * set, a new pool is created.
+     * </p>
+     *
+     * @return The pool of marshallers and unmarshallers of the instance.
+     *
+     * @see #setMarshallerPool(org.jomc.tools.MarshallerPool)
+     *
+     * @since 2.0
+     */
+    public final MarshallerPool getMarshallerPool()
+    {
+        if ( this.marshallerPool == null )
+        {
+            this.marshallerPool = new MarshallerPool();
+        }
+
+        return this.marshallerPool;
+    }
+
+    /**
+     * Sets the pool of marshallers and unmarshallers of the instance.
+     * <p>
+     * Applications running multiple tools may share a single pool by setting it on each tool.
+     * </p>
+     *
+     * @param value The new pool of marshallers and unmarshallers of the instance or {@code null}.
+     *
+     * @see #getMarshallerPool()
+     *
+     * @since 2.0
+     */
+    public final void setMarshallerPool( final MarshallerPool value )
+    {
+        this.marshallerPool = value;
+    }
+
+    /**
+     * Gets the maximum number of threads concurrently running processor bound sections of the instance.
+     * <p>
+     * Processor bound sections are merging templates as well as marshalling, unmarshalling and transforming model
+     * objects. Limiting the number of threads running these sections is useful whenever the executor service of the
+     * instance runs many more threads than there are processors, for example when using a thread per task. A value of
+     * {@code 0} disables the limit. The default value is controlled by system property
+     * {@code org.jomc.tools.JomcTool.concurrencyLimit} and defaults to {@code 0}. Tools created using the copy
+     * constructor share the limit of the tool they got copied from.
+     * </p>
+     *
+     * @return The maximum number of threads concurrently running processor bound sections of the instance or
+     * {@code 0}, if no such limit applies.
+     *
+     * @see #setConcurrencyLimit(java.lang.Integer)
+     * @see #getExecutorService()
+     *
+     * @since 2.0
+     */
+    public final int getConcurrencyLimit()
+    {
+        if ( this.concurrencyLimit == null )
+        {
+            this.concurrencyLimit =
+                Math.max( 0, Integer.getInteger( "org.jomc.tools.JomcTool.concurrencyLimit", 0 ) );
+
+        }
+
+        return this.concurrencyLimit;
+    }
+
+    /**
+     * Sets the maximum number of threads concurrently running processor bound sections of the instance.
+     *
+     * @param value The new maximum number of threads concurrently running processor bound sections or {@code null}.
+     *
+     * @throws IllegalArgumentException if {@code value} is less than {@code 0}.
+     *
+     * @see #getConcurrencyLimit()
+     *
+     * @since 2.0
+     */
+    public final void setConcurrencyLimit( final Integer value )
+    {
+        if ( value != null && value < 0 )
+        {
+            throw new IllegalArgumentException( value.toString() );
+        }
+
+        this.concurrencyLimit = value;
+        this.concurrencyPermits = null;
+    }
+
+    /**
+     * Gets the strategy for coordinating concurrent reads and writes of files of the instance.
+     * <p>
+     * The default value is controlled by system property {@code org.jomc.tools.JomcTool.fileLocking} and defaults to
+     * {@link FileLocking#OPERATING_SYSTEM}.
+     * </p>
+     *
+     * @return The strategy for coordinating concurrent reads and writes of files of the instance.
+     *
+     * @see #setFileLocking(org.jomc.tools.FileLocking)
+     *
+     * @since 2.0
+     */
+    public final FileLocking getFileLocking()
+    {
+        if ( this.fileLocking == null )
+        {
+            this.fileLocking = FileLocking.valueOf(
+                System.getProperty( "org.jomc.tools.JomcTool.fileLocking", FileLocking.OPERATING_SYSTEM.name() ) );
+
+        }
+
+        return this.fileLocking;
+    }
+
+    /**
+     * Sets the strategy for coordinating concurrent reads and writes of files of the instance.
+     *
+     * @param value The new strategy for coordinating concurrent reads and writes of files or {@code null}.
+     *
+     * @see #getFileLocking()
+     *
+     * @since 2.0
+     */
+    public final void setFileLocking( final FileLocking value )
+    {
+        this.fileLocking = value;
+    }
+
+    /**
+     * Invalidates cached entries depending on modified resources of the template location.
+     * <p>
+     * When the template location of the instance denotes a directory of the file system, the template cache tracks
+     * the resources of that directory any cached entry depends on. These are the templates themselves, any templates
+     * referenced by {@code #parse} or {@code #include} directives using a string literal, template locations searched
+     * without success, and the profile and context properties of the template profiles searched. This method compares
+     * the last modification times of these resources to the times recorded when the entries got cached and removes
+     * only those entries depending on a resource which has been created, modified or deleted since then. Long running
+     * applications may call this method whenever they need to pick up changes to templates. Resources found on the
+     * classpath and template locations not denoting a directory of the file system are not tracked.
+     * </p>
+     *
+     * @return The number of invalidated entries.
+     *
+     * @see #getTemplateLocation()
+     * @see #getTemplateCacheStatistics()
+     *
+     * @since 2.0
+     */
+    public final int invalidateModifiedTemplates()
+    {
+        final TemplateCache cache = this.getTemplateCache();
+        int invalidated = 0;
+        boolean modified = false;
+
+        for ( final Map.Entry<String, Long> e : cache.lastModified.entrySet() )
+        {
+            final File file = this.getTemplateLocationFile( e.getKey() );
+
+            if ( file == null || file.lastModified() != e.getValue() )
+            {
+                cache.lastModified.remove( e.getKey() );
+                final int count = cache.invalidate( e.getKey() );
+                invalidated += count;
+                modified = true;
+
+                if ( this.isLoggable( Level.FINE ) )
+                {
+                    this.log( Level.FINE, getMessage( "templateResourceModified", e.getKey(), count ), null );
+                }
+            }
+        }
+
+        if ( modified )
+        {
+            cache.resolvedTemplates.clear();
+            cache.generation.incrementAndGet();
+        }
+
+        return invalidated;
+    }
+
+    /**
+     * Resolves and parses templates ahead of their first use.
+     * <p>
+     * This method resolves the chain of template profiles starting at the template profile of the instance, loads
+     * the profile and context properties of each profile of that chain and then locates and parses the given
+     * templates using the {@code ExecutorService} of the instance, if any. Templates resolved by this method are
+     * kept in a table read without locking by any subsequent request for a template of the same name, until the
+     * template cache of the instance is invalidated. Templates not found are remembered so that any subsequent
+     * request for such a template fails without searching again.
+     * </p>
+     *
+     * @param templateNames The names of the templates to resolve.
+     *
+     * @throws NullPointerException if {@code templateNames} is {@code null}.
+     * @throws IOException if resolving or parsing a template fails.
+     *
+     * @see #getVelocityTemplate(java.lang.String)
+     * @see #getExecutorService()
+     * @see #invalidateModifiedTemplates()
+     *
+     * @since 2.0
+     */
+    public void preloadTemplates( final Collection<String> templateNames ) throws IOException
+    {
+        if ( templateNames == null )
+        {
+            throw new NullPointerException( "templateNames" );
+        }
+
+        try
+        {
+            final TemplateCache cache = this.getTemplateCache();
+            final String tp = this.getTemplateProfile();
+            final String language = this.getLocale().getLanguage();
+
+            for ( String profile = tp; profile != null; profile = this.getParentTemplateProfile( profile ) )
+            {
+                this.getTemplateEncoding( profile );
+                this.getTemplateProfileContextProperties( profile, language );
+                this.getTemplateProfileContextProperties( profile, null );
+            }
+
+            final List<PreloadTemplateTask> tasks = new ArrayList<>( templateNames.size() );
+
+            for ( final String templateName : new LinkedHashSet<>( templateNames ) )
+            {
+                if ( templateName != null )
+                {
+                    tasks.add( new PreloadTemplateTask( cache, tp, templateName ) );
+                }
+            }
+
+            if ( this.getExecutorService() != null && tasks.size() > 1 )
+            {
+                for ( final Future<Void> task : this.getExecutorService().invokeAll( tasks ) )
+                {
+                    task.get();
+                }
+            }
+            else
+            {
+                for ( final PreloadTemplateTask task : tasks )
+                {
+                    task.call();
+                }
+            }
+        }
+        catch ( final CancellationException e )
+        {
+            throw new IOException( getMessage( e ), e );
+        }
+        catch ( final InterruptedException e )
         {
-            this.setVelocityEngine( null );
+            Thread.currentThread().interrupt();
+            throw new IOException( getMessage( e ), e );
+        }
+        catch ( final ExecutionException e )
+        {
+            if ( e.getCause() instanceof IOException )
+            {
+                throw (IOException) e.getCause();
+            }
+            else if ( e.getCause() instanceof RuntimeException )
+            {
+                // The fork-join framework breaks the exception handling contract of Callable by re-throwing any
+                // exception caught using a runtime exception.
+                if ( e.getCause().getCause() instanceof IOException )
+                {
+                    throw (IOException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof RuntimeException )
+                {
+                    throw (RuntimeException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof Error )
+                {
+                    throw (Error) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof Exception )
+                {
+                    // Checked exception not declared to be thrown by the Callable's 'call' method.
+                    throw new UndeclaredThrowableException( e.getCause().getCause() );
+                }
+                else
+                {
+                    throw (RuntimeException) e.getCause();
+                }
+            }
+            else if ( e.getCause() instanceof Error )
+            {
+                throw (Error) e.getCause();
+            }
+            else
+            {
+                // Checked exception not declared to be thrown by the Callable's 'call' method.
+                throw new UndeclaredThrowableException( e.getCause() );
+            }
         }
     }
 
+    /**
+     * Gets the template parameters of the instance.
+     * <p>
+     * This accessor method returns a reference to the live map, not a snapshot. Therefore any modification you make
+     * to the returned map will be present inside the object. This is why there is no {@code set} method for the
+     * template parameters property.
+     * </p>
+     *
+     * @return The template parameters of the instance.
+     *
+     * @see #getVelocityContext()
+     *
+     * @since 1.2
+     */
+    public final Map<String, Object> getTemplateParameters()
+    {
+        return this.templateParameters;
+    }
+
+    /**
+     * Gets the location to search for templates in addition to searching the class path.
+     *
+     * @return The location to search for templates in addition to searching the class path or {@code null}.
+     *
+     * @see #setTemplateLocation(java.net.URL)
+     *
+     * @since 1.2
+     */
+    public final URL getTemplateLocation()
+    {
+        return this.templateLocation;
+    }
+
+    /**
+     * Sets the location to search for templates in addition to searching the class path.
+     *
+     * @param value The new location to search for templates in addition to searching the class path or {@code null}.
+     *
+     * @see #getTemplateLocation()
+     *
+     * @since 1.2
+     */
+    public final void setTemplateLocation( final URL value )
+    {
+        this.templateLocation = value;
+        this.resetTemplateCache();
+    }
+
     /**
      * Gets the default encoding used for reading templates.
      *
@@ -1235,7 +2217,7 @@ public class JomcTool
     public final void setDefaultTemplateEncoding( final String value )
     {
         this.defaultTemplateEncoding = value;
-        this.templateCache = null;
+        this.resetTemplateCache();
     }
 
     /**
@@ -1376,6 +2358,7 @@ public class JomcTool
     public final void setDefaultTemplateProfile( final String value )
     {
         this.defaultTemplateProfile = value;
+        this.resetTemplateCache();
     }
 
     /**
@@ -1610,6 +2593,9 @@ public class JomcTool
     public final void setLocale( final Locale value )
     {
         this.locale = value;
+        this.sharedVelocityContext = null;
+        this.resetTemplateCache();
+        this.booleanStrings = null;
     }
 
     /**
@@ -1652,13 +2638,159 @@ public class JomcTool
     }
 
     /**
-     * Gets a velocity template for a given name.
+     * Calculates a number of threads using a formula.
      * <p>
-     * This method searches templates at the following locations recursively in the shown order stopping whenever
-     * a matching template is found.
-     * <ol>
-     * <li><code>org/jomc/tools/templates/{@link #getTemplateProfile() profile}/{@link #getLocale() language}/<i>templateName</i></code></li>
-     * <li><code>org/jomc/tools/templates/{@link #getParentTemplateProfile(java.lang.String) parent profile}/{@link #getLocale() language}/<i>templateName</i></code></li>
+     * If the formula ends with the character {@code C}, the number of threads is calculated by multiplying the value
+     * by the number of available processors. For example, {@code 1.5C} denotes one and a half threads per processor.
+     * </p>
+     *
+     * @param formula The formula to calculate the number of threads with.
+     *
+     * @return The number of threads calculated using {@code formula}.
+     *
+     * @throws NullPointerException if {@code formula} is {@code null}.
+     * @throws IllegalArgumentException if {@code formula} is empty, does not denote a number or denotes a negative
+     * number.
+     *
+     * @see #getVirtualThreadsConcurrencyLimit(java.lang.String)
+     *
+     * @since 2.0
+     */
+    public static int getThreadCount( final String formula )
+    {
+        if ( formula == null )
+        {
+            throw new NullPointerException( "formula" );
+        }
+
+        final String value = formula.trim().toLowerCase( Locale.ROOT );
+        final boolean perProcessor = value.endsWith( "c" );
+
+        try
+        {
+            final double count = Double.parseDouble( perProcessor ? value.substring( 0, value.length() - 1 ) : value );
+
+            if ( !( count >= 0.0D ) || Double.isInfinite( count ) )
+            {
+                throw new IllegalArgumentException( getMessage( "illegalThreadsFormula", formula ) );
+            }
+
+            return (int) ( perProcessor ? count * Runtime.getRuntime().availableProcessors() : count );
+        }
+        catch ( final NumberFormatException e )
+        {
+            throw (IllegalArgumentException) new IllegalArgumentException(
+                getMessage( "illegalThreadsFormula", formula ) ).initCause( e );
+
+        }
+    }
+
+    /**
+     * Gets the maximum number of threads concurrently running processor bound sections denoted by a formula
+     * requesting virtual threads.
+     * <p>
+     * The formula {@code virtual} requests a virtual thread per task limiting processor bound sections to the number
+     * of available processors. The formula {@code virtual:} followed by a formula as accepted by the
+     * {@link #getThreadCount(java.lang.String)} method requests a virtual thread per task limiting processor bound
+     * sections to the number of threads calculated using that formula. Any other formula does not request virtual
+     * threads.
+     * </p>
+     *
+     * @param formula The formula to get the maximum number of threads concurrently running processor bound sections
+     * from or {@code null}.
+     *
+     * @return The maximum number of threads concurrently running processor bound sections denoted by {@code formula}
+     * or {@code null}, if {@code formula} does not request virtual threads.
+     *
+     * @throws IllegalArgumentException if {@code formula} requests virtual threads using an empty or illegal formula.
+     *
+     * @see #setConcurrencyLimit(java.lang.Integer)
+     * @see #newVirtualThreadPerTaskExecutor(java.lang.String)
+     *
+     * @since 2.0
+     */
+    public static Integer getVirtualThreadsConcurrencyLimit( final String formula )
+    {
+        Integer concurrencyLimit = null;
+
+        if ( formula != null )
+        {
+            final String value = formula.trim().toLowerCase( Locale.ROOT );
+
+            if ( "virtual".equals( value ) )
+            {
+                concurrencyLimit = Runtime.getRuntime().availableProcessors();
+            }
+            else if ( value.startsWith( "virtual:" ) )
+            {
+                try
+                {
+                    concurrencyLimit = Math.max( 1, getThreadCount( value.substring( "virtual:".length() ) ) );
+                }
+                catch ( final IllegalArgumentException e )
+                {
+                    throw (IllegalArgumentException) new IllegalArgumentException(
+                        getMessage( "illegalThreadsFormula", formula ) ).initCause( e );
+
+                }
+            }
+        }
+
+        return concurrencyLimit;
+    }
+
+    /**
+     * Creates a new {@code ExecutorService} running every task in a virtual thread of its own.
+     * <p>
+     * Virtual threads are supported by Java 21 and later. This method looks up the corresponding API reflectively,
+     * so that it can be called using any Java runtime.
+     * </p>
+     *
+     * @param threadNamePrefix The prefix of the names of the threads to create.
+     *
+     * @return A new {@code ExecutorService} running every task in a virtual thread of its own or {@code null}, if the
+     * Java runtime does not support virtual threads.
+     *
+     * @throws NullPointerException if {@code threadNamePrefix} is {@code null}.
+     *
+     * @see #getVirtualThreadsConcurrencyLimit(java.lang.String)
+     *
+     * @since 2.0
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor( final String threadNamePrefix )
+    {
+        if ( threadNamePrefix == null )
+        {
+            throw new NullPointerException( "threadNamePrefix" );
+        }
+
+        try
+        {
+            Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+            final Class<?> builderClass = Class.forName( "java.lang.Thread$Builder" );
+            builder = builderClass.getMethod( "name", String.class, long.class ).
+                invoke( builder, threadNamePrefix, 1L );
+
+            final ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod( "factory" ).invoke( builder );
+            return (ExecutorService) Executors.class.getMethod( "newThreadPerTaskExecutor", ThreadFactory.class ).
+                invoke( null, threadFactory );
+
+        }
+        catch ( final ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+                          | InvocationTargetException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Gets a velocity template for a given name.
+     * <p>
+     * This method searches templates at the following locations recursively in the shown order stopping whenever
+     * a matching template is found.
+     * <ol>
+     * <li><code>org/jomc/tools/templates/{@link #getTemplateProfile() profile}/{@link #getLocale() language}/<i>templateName</i></code></li>
+     * <li><code>org/jomc/tools/templates/{@link #getParentTemplateProfile(java.lang.String) parent profile}/{@link #getLocale() language}/<i>templateName</i></code></li>
      * <li><code>org/jomc/tools/templates/{@link #getTemplateProfile() profile}/<i>templateName</i></code></li>
      * <li><code>org/jomc/tools/templates/{@link #getParentTemplateProfile(java.lang.String) parent profile}/{@link #getLocale() language}/<i>templateName</i></code></li>
      * </ol></p>
@@ -1708,341 +2840,2046 @@ public class JomcTool
 
         if ( this.isLoggable( level ) )
         {
-            for ( final Listener listener : this.getListeners() )
+            if ( this.isAsynchronousLoggingEnabled() )
+            {
+                this.getLogDispatcher().dispatch( new LogEvent( level, message, throwable ) );
+            }
+            else
             {
-                listener.onLog( level, message, throwable );
+                for ( final Listener listener : this.getListeners() )
+                {
+                    listener.onLog( level, message, throwable );
+                }
             }
         }
     }
 
-    void initDefaults()
+    /**
+     * Merges a template recording metrics.
+     *
+     * @param templateName The name of the template to merge.
+     * @param template The template to merge.
+     * @param context The context to merge the template with.
+     * @param writer The writer to merge the template to.
+     *
+     * @see #getMetrics()
+     */
+    void mergeTemplate( final String templateName, final Template template, final Context context,
+                        final StringWriter writer ) throws IOException
     {
-        this.getLogLevel();
-        this.getModel();
-        this.getVelocityEngine();
-        this.getDefaultTemplateEncoding();
-        this.getInputEncoding();
-        this.getOutputEncoding();
-        this.getTemplateProfile();
-        this.getIndentation();
-        this.getLineSeparator();
-        this.getLocale();
-    }
+        final Semaphore permits = this.acquireConcurrencyPermit();
+        final JomcTool previous = this.bindVelocityLog();
 
-    private Template findVelocityTemplate( final String location, final String encoding ) throws IOException
-    {
         try
         {
-            return this.getVelocityEngine().getTemplate( location, encoding );
-        }
-        catch ( final ResourceNotFoundException e )
-        {
-            if ( this.isLoggable( Level.FINER ) )
-            {
-                this.log( Level.FINER, getMessage( "templateNotFound", location ), null );
-            }
-
-            return null;
-        }
-        catch ( final ParseErrorException e )
-        {
-            String m = getMessage( e );
-            m = m == null ? "" : " " + m;
+            final long start = System.nanoTime();
+            final int length = writer.getBuffer().length();
+            template.merge( context, writer );
+            this.getMetrics().onTemplateMerge( this.getTemplateProfile(), templateName, System.nanoTime() - start,
+                                               writer.getBuffer().length() - length );
 
-            throw new IOException( getMessage( "velocityException", location, m ), e );
         }
-        catch ( final VelocityException e )
+        finally
         {
-            String m = getMessage( e );
-            m = m == null ? "" : " " + m;
-
-            throw new IOException( getMessage( "velocityException", location, m ), e );
+            unbindVelocityLog( previous );
+            releaseConcurrencyPermit( permits );
         }
     }
 
-    private java.util.Properties getTemplateProfileContextProperties( final String profileName, final String language )
-        throws IOException
+    /**
+     * Acquires a permit to run a processor bound section.
+     *
+     * @return The permits the permit got acquired from or {@code null}, if no limit applies.
+     *
+     * @throws IOException if the current thread gets interrupted while waiting for a permit.
+     *
+     * @see #getConcurrencyLimit()
+     * @see #releaseConcurrencyPermit(java.util.concurrent.Semaphore)
+     */
+    Semaphore acquireConcurrencyPermit() throws IOException
     {
-        Map<String, java.util.Properties> map =
-            this.templateProfileContextPropertiesCache == null
-                ? null
-                : this.templateProfileContextPropertiesCache.get();
-
-        if ( map == null )
-        {
-            map = new ConcurrentHashMap<>( 32 );
-            this.templateProfileContextPropertiesCache = new SoftReference<>( map );
-        }
-
-        final String key = profileName + "|" + language;
-        java.util.Properties profileProperties = map.get( key );
+        final Semaphore permits = this.getConcurrencyPermits();
 
-        if ( profileProperties == null )
+        if ( permits != null )
         {
-            profileProperties = new java.util.Properties();
-
-            final String resourceName = TEMPLATE_PREFIX + profileName + ( language == null ? "" : "/" + language )
-                                            + "/context.properties";
-
             try
             {
-                URL url = this.getClass().getResource( "/" + resourceName );
-
-                if ( url == null && this.getTemplateLocation() != null )
-                {
-                    url = new URL( this.getTemplateLocation(), resourceName );
-                }
-
-                if ( url != null )
-                {
-                    try ( final InputStream in = url.openStream() )
-                    {
-                        profileProperties.load( in );
-
-                        if ( this.isLoggable( Level.CONFIG ) )
-                        {
-                            this.log( Level.CONFIG, getMessage( "contextPropertiesFound", url.toExternalForm() ),
-                                      null );
-
-                        }
-                    }
-                    catch ( final FileNotFoundException e )
-                    {
-                        if ( this.isLoggable( Level.CONFIG ) )
-                        {
-                            this.log( Level.CONFIG, getMessage( "contextPropertiesNotFound", url.toExternalForm() ),
-                                      null );
-
-                        }
-                    }
-                }
-                else if ( this.isLoggable( Level.CONFIG ) )
-                {
-                    this.log( Level.CONFIG, getMessage( "contextPropertiesNotFound", resourceName ), null );
-                }
+                permits.acquire();
             }
-            finally
+            catch ( final InterruptedException e )
             {
-                map.put( key, profileProperties );
+                Thread.currentThread().interrupt();
+                throw (IOException) new InterruptedIOException( getMessage( e ) ).initCause( e );
             }
         }
 
-        return profileProperties;
+        return permits;
     }
 
-    private void mergeTemplateProfileContextProperties( final String profileName, final String language,
-                                                        final VelocityContext velocityContext ) throws IOException
+    /**
+     * Releases a permit to run a processor bound section.
+     *
+     * @param permits The permits returned by {@link #acquireConcurrencyPermit()} or {@code null}.
+     */
+    static void releaseConcurrencyPermit( final Semaphore permits )
     {
-        if ( profileName != null )
+        if ( permits != null )
         {
-            final java.util.Properties templateProfileProperties =
-                this.getTemplateProfileContextProperties( profileName, language );
+            permits.release();
+        }
+    }
 
-            for ( final Enumeration<?> e = templateProfileProperties.propertyNames(); e.hasMoreElements(); )
+    private Semaphore getConcurrencyPermits()
+    {
+        Semaphore permits = this.concurrencyPermits;
+
+        if ( permits == null && this.getConcurrencyLimit() > 0 )
+        {
+            synchronized ( this.concurrencyPermitsLock )
             {
-                final String name = e.nextElement().toString();
-                final String value = templateProfileProperties.getProperty( name );
-                final String[] values = value.split( "\\|" );
+                permits = this.concurrencyPermits;
 
-                if ( !velocityContext.containsKey( name ) )
+                if ( permits == null )
                 {
-                    final String className = values[0];
-
-                    try
-                    {
-                        if ( values.length > 1 )
-                        {
-                            final Class<?> valueClass = Class.forName( className );
-                            velocityContext.put( name,
-                                                 valueClass.getConstructor( String.class ).newInstance( values[1] ) );
-                        }
-                        else if ( value.contains( "|" ) )
-                        {
-                            velocityContext.put( name, Class.forName( values[0] ).newInstance() );
-                        }
-                        else
-                        {
-                            velocityContext.put( name, value );
-                        }
-                    }
-                    catch ( final ReflectiveOperationException ex )
-                    {
-                        throw new IOException( getMessage( "contextPropertiesException", profileName
-                                                                                             + ( language != null
-                                                                                                 ? ", " + language
-                                                                                                 : "" ) ),
-                                               ex );
-
-                    }
+                    permits = new Semaphore( this.getConcurrencyLimit() );
+                    this.concurrencyPermits = permits;
                 }
             }
-
-            this.mergeTemplateProfileContextProperties( this.getParentTemplateProfile( profileName ), language,
-                                                        velocityContext );
-
         }
+
+        return permits;
     }
 
-    private java.util.Properties getTemplateProfileProperties( final String profileName ) throws IOException
+    /**
+     * Locks a file using the file locking strategy of the instance.
+     * <p>
+     * Whenever the operating system is used to lock files, the file itself is locked. Since files are replaced by
+     * moving a new file over them, a lock got after waiting for another process may denote a file already replaced.
+     * The lock is therefore released and requested again until the file locked still is the file found at the path.
+     * Files not existing or not writable when getting an exclusive lock are not locked using the operating system.
+     * Files are never created for locking. File locks of the operating system are held on behalf of the whole Java
+     * virtual machine. Threads sharing a lock therefore also share the lock of the operating system.
+     * </p>
+     *
+     * @param file The file to lock.
+     * @param shared {@code true}, to get a shared lock for reading; {@code false}, to get an exclusive lock for
+     * writing.
+     *
+     * @return A {@code Closeable} releasing the lock when closed.
+     *
+     * @throws NullPointerException if {@code file} is {@code null}.
+     * @throws IOException if locking the file fails.
+     *
+     * @see #getFileLocking()
+     */
+    Closeable lockFile( final Path file, final boolean shared ) throws IOException
     {
-        Map<String, java.util.Properties> map = this.templateProfilePropertiesCache == null
-                                                    ? null : this.templateProfilePropertiesCache.get();
-
-        if ( map == null )
+        if ( file == null )
         {
-            map = new ConcurrentHashMap<>( 32 );
-            this.templateProfilePropertiesCache = new SoftReference<>( map );
+            throw new NullPointerException( "file" );
         }
 
-        java.util.Properties profileProperties = map.get( profileName );
+        final FileLocking locking = this.getFileLocking();
 
-        if ( profileProperties == null )
+        if ( locking == FileLocking.NONE )
         {
-            profileProperties = new java.util.Properties();
+            return NO_FILE_LOCK;
+        }
 
-            final String resourceName = TEMPLATE_PREFIX + profileName + "/profile.properties";
+        final Path path = getRealPath( file );
+        final FileLockEntry entry = FileLockEntry.acquire( path );
+        final Lock lock = shared ? entry.lock.readLock() : entry.lock.writeLock();
+        boolean locked = false;
 
+        try
+        {
             try
             {
-                URL url = this.getClass().getResource( "/" + resourceName );
+                lock.lockInterruptibly();
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw (IOException) new InterruptedIOException( getMessage( e ) ).initCause( e );
+            }
 
-                if ( url == null && this.getTemplateLocation() != null )
+            try
+            {
+                if ( locking == FileLocking.OPERATING_SYSTEM )
                 {
-                    url = new URL( this.getTemplateLocation(), resourceName );
+                    entry.lockOperatingSystem( path, shared );
                 }
 
-                if ( url != null )
+                locked = true;
+                return new Closeable()
                 {
-                    try ( final InputStream in = url.openStream() )
-                    {
-                        profileProperties.load( in );
 
-                        if ( this.isLoggable( Level.CONFIG ) )
+                    @Override
+                    public void close() throws IOException
+                    {
+                        try
                         {
-                            this.log( Level.CONFIG, getMessage( "templateProfilePropertiesFound",
-                                                                url.toExternalForm() ),
-                                      null );
-
+                            if ( locking == FileLocking.OPERATING_SYSTEM )
+                            {
+                                entry.unlockOperatingSystem( shared );
+                            }
                         }
-                    }
-                    catch ( final FileNotFoundException e )
-                    {
-                        if ( this.isLoggable( Level.CONFIG ) )
+                        finally
                         {
-                            this.log( Level.CONFIG, getMessage( "templateProfilePropertiesNotFound",
-                                                                url.toExternalForm() ),
-                                      null );
-
+                            lock.unlock();
+                            FileLockEntry.release( path, entry );
                         }
                     }
-                }
-                else if ( this.isLoggable( Level.CONFIG ) )
+
+                };
+            }
+            finally
+            {
+                if ( !locked )
                 {
-                    this.log( Level.CONFIG, getMessage( "templateProfilePropertiesNotFound", resourceName ), null );
+                    lock.unlock();
                 }
             }
-            finally
+        }
+        finally
+        {
+            if ( !locked )
             {
-                map.put( profileName, profileProperties );
+                FileLockEntry.release( path, entry );
             }
         }
-
-        return profileProperties;
     }
 
-    private Template getVelocityTemplate( final String tp, final String tn ) throws IOException
+    /**
+     * Creates a temporary file to write before replacing a file.
+     * <p>
+     * The temporary file is created with the default permissions of the file system, so that the umask of the
+     * process applies to files not replacing an existing file.
+     * </p>
+     *
+     * @param file The file to create a temporary file of.
+     *
+     * @return The path of a new empty temporary file in the directory of the real path of {@code file}.
+     *
+     * @throws NullPointerException if {@code file} is {@code null}.
+     * @throws IOException if creating the temporary file fails.
+     *
+     * @see #replaceFile(java.nio.file.Path, java.nio.file.Path)
+     */
+    static Path getTemporaryFile( final Path file ) throws IOException
     {
-        Template template = null;
-
-        if ( tp != null )
+        if ( file == null )
         {
-            final String key = this.getLocale() + "|" + this.getTemplateProfile() + "|"
-                                   + this.getDefaultTemplateProfile() + "|" + tn;
+            throw new NullPointerException( "file" );
+        }
 
-            Map<String, TemplateData> map = this.templateCache == null
-                                                ? null : this.templateCache.get();
+        final Path path = getRealPath( file );
 
-            if ( map == null )
+        for ( ;; )
+        {
+            try
+            {
+                return Files.createFile( path.resolveSibling( path.getFileName().toString() + '.'
+                                                                  + Long.toHexString( RANDOM.nextLong() ) + ".tmp" ) );
+
+            }
+            catch ( final FileAlreadyExistsException e )
+            {
+                // Tries another name.
+            }
+        }
+    }
+
+    /**
+     * Atomically replaces a file with a temporary file using the file locking strategy of the instance.
+     * <p>
+     * Symbolic links are resolved, so that the file a link points to is replaced instead of the link. The POSIX file
+     * permissions of the file are copied to the temporary file. Whenever the file does not exist, the temporary file
+     * keeps the permissions it has been created with. Owners, access control lists and extended attributes of the
+     * file are not copied. Whenever the file system does not support atomic moves, the file is replaced
+     * non-atomically.
+     * </p>
+     *
+     * @param temporaryFile The temporary file to replace {@code file} with.
+     * @param file The file to replace.
+     *
+     * @throws NullPointerException if {@code temporaryFile} or {@code file} is {@code null}.
+     * @throws IOException if replacing the file fails.
+     *
+     * @see #getTemporaryFile(java.nio.file.Path)
+     * @see #getFileLocking()
+     */
+    void replaceFile( final Path temporaryFile, final Path file ) throws IOException
+    {
+        if ( temporaryFile == null )
+        {
+            throw new NullPointerException( "temporaryFile" );
+        }
+        if ( file == null )
+        {
+            throw new NullPointerException( "file" );
+        }
+
+        final Path target = getRealPath( file );
+
+        try ( final Closeable fileLock = this.lockFile( target, false ) )
+        {
+            final PosixFileAttributeView attributes =
+                Files.getFileAttributeView( temporaryFile, PosixFileAttributeView.class );
+
+            if ( attributes != null && Files.exists( target ) )
+            {
+                attributes.setPermissions( Files.getPosixFilePermissions( target ) );
+            }
+
+            try
+            {
+                Files.move( temporaryFile, target, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE );
+
+            }
+            catch ( final AtomicMoveNotSupportedException e )
+            {
+                Files.move( temporaryFile, target, StandardCopyOption.REPLACE_EXISTING );
+            }
+        }
+    }
+
+    /**
+     * Gets the real path of a file resolving any symbolic links.
+     *
+     * @param file The file to get the real path of.
+     *
+     * @return The real path of {@code file}, the real path of the directory of {@code file} resolved against the name
+     * of {@code file}, if {@code file} does not exist, or the normalized absolute path of {@code file}, if its
+     * directory does not exist either.
+     *
+     * @throws IOException if getting the real path fails.
+     */
+    private static Path getRealPath( final Path file ) throws IOException
+    {
+        final Path path = file.toAbsolutePath().normalize();
+
+        if ( Files.exists( path ) )
+        {
+            return path.toRealPath();
+        }
+
+        final Path parent = path.getParent();
+        return parent != null && Files.exists( parent ) ? parent.toRealPath().resolve( path.getFileName() ) : path;
+    }
+
+    void initDefaults()
+    {
+        this.getLogLevel();
+        this.getModel();
+        this.getVelocityEngine();
+        this.getDefaultTemplateEncoding();
+        this.getInputEncoding();
+        this.getOutputEncoding();
+        this.getTemplateProfile();
+        this.getIndentation();
+        this.getLineSeparator();
+        this.getLocale();
+    }
+
+    private LogDispatcher getLogDispatcher()
+    {
+        LogDispatcher dispatcher = this.logDispatcher;
+
+        if ( dispatcher == null )
+        {
+            synchronized ( this.logDispatcherLock )
+            {
+                dispatcher = this.logDispatcher;
+
+                if ( dispatcher == null )
+                {
+                    dispatcher = new LogDispatcher( this.getLogQueueCapacity(), this.getLogOverflowPolicy() );
+                    this.logDispatcher = dispatcher;
+                }
+            }
+        }
+
+        return dispatcher;
+    }
+
+    private static JavaIdentifier normalize( final ConcurrentMap<String, JavaIdentifier> cache, final String str,
+                                             final JavaIdentifier.NormalizationMode mode )
+        throws ParseException
+    {
+        JavaIdentifier javaIdentifier = null;
+
+        if ( str != null )
+        {
+            javaIdentifier = cache.get( str );
+
+            if ( javaIdentifier == null )
+            {
+                javaIdentifier = JavaIdentifier.normalize( str, mode );
+
+                if ( cache.size() >= JAVA_IDENTIFIER_CACHE_SIZE )
+                {
+                    cache.clear();
+                }
+
+                cache.put( str, javaIdentifier );
+            }
+        }
+
+        return javaIdentifier;
+    }
+
+    private DateFormat getDateFormat( final String pattern )
+    {
+        return this.getDateFormat( pattern, -1, -1 );
+    }
+
+    private DateFormat getDateFormat( final int dateStyle, final int timeStyle )
+    {
+        return this.getDateFormat( null, dateStyle, timeStyle );
+    }
+
+    private DateFormat getDateFormat( final String pattern, final int dateStyle, final int timeStyle )
+    {
+        Map<String, DateFormat> formats = DATE_FORMATS.get();
+
+        if ( formats == null )
+        {
+            formats = new HashMap<>( 32 );
+            DATE_FORMATS.set( formats );
+        }
+
+        final Locale l = this.getLocale();
+        final String key = pattern + "|" + dateStyle + "|" + timeStyle + "|" + l + "|"
+                               + TimeZone.getDefault().getID();
+
+        DateFormat format = formats.get( key );
+
+        if ( format == null )
+        {
+            if ( pattern != null )
+            {
+                format = new SimpleDateFormat( pattern, l );
+            }
+            else if ( timeStyle < 0 )
+            {
+                format = DateFormat.getDateInstance( dateStyle, l );
+            }
+            else if ( dateStyle < 0 )
+            {
+                format = DateFormat.getTimeInstance( timeStyle, l );
+            }
+            else
+            {
+                format = DateFormat.getDateTimeInstance( dateStyle, timeStyle, l );
+            }
+
+            formats.put( key, format );
+        }
+
+        return format;
+    }
+
+    private SharedVelocityContext getSharedVelocityContext() throws IOException
+    {
+        final Model source = this.getModel();
+        final Locale l = this.getLocale();
+        final long generation = this.getModelGeneration();
+
+        if ( generation < 0L )
+        {
+            // No run in progress. The model may have been modified in place since the last call.
+            return this.createSharedVelocityContext( source, l, generation );
+        }
+
+        SharedVelocityContext shared = this.sharedVelocityContext;
+
+        if ( shared == null || !shared.isCreatedFor( source, l, generation ) )
+        {
+            // Waiting threads do not pin the carrier thread of a virtual thread while the context is created.
+            this.sharedVelocityContextLock.lock();
+
+            try
+            {
+                shared = this.sharedVelocityContext;
+
+                if ( shared == null || !shared.isCreatedFor( source, l, generation ) )
+                {
+                    shared = this.createSharedVelocityContext( source, l, generation );
+                    this.sharedVelocityContext = shared;
+                }
+            }
+            finally
+            {
+                this.sharedVelocityContextLock.unlock();
+            }
+        }
+
+        return shared;
+    }
+
+    private SharedVelocityContext createSharedVelocityContext( final Model source, final Locale l,
+                                                               final long generation )
+        throws IOException
+    {
+        final Calendar now = Calendar.getInstance();
+        final Model clonedModel = source.clone();
+        final Modules clonedModules = ModelHelper.getModules( clonedModel );
+        assert clonedModules != null : "Unexpected missing modules for model '" + clonedModel.getIdentifier() + "'.";
+
+        final SharedVelocityContext ctx = new SharedVelocityContext( source, l, generation, clonedModel );
+        ctx.put( "model", clonedModel );
+        ctx.put( "modules", clonedModules );
+        ctx.put( "imodel", new InheritanceModel( clonedModules ) );
+        ctx.put( "tool", this );
+        ctx.put( "toolName", this.getClass().getName() );
+        ctx.put( "toolVersion", getMessage( "projectVersion" ) );
+        ctx.put( "toolUrl", getMessage( "projectUrl" ) );
+        ctx.put( "calendar", now.getTime() );
+        ctx.put( "now", this.getDateFormat( "yyyy-MM-dd'T'HH:mm:ss.SSSXXX" ).format( now.getTime() ) );
+        ctx.put( "year", this.getDateFormat( "yyyy" ).format( now.getTime() ) );
+        ctx.put( "month", this.getDateFormat( "MM" ).format( now.getTime() ) );
+        ctx.put( "day", this.getDateFormat( "dd" ).format( now.getTime() ) );
+        ctx.put( "hour", this.getDateFormat( "HH" ).format( now.getTime() ) );
+        ctx.put( "minute", this.getDateFormat( "mm" ).format( now.getTime() ) );
+        ctx.put( "second", this.getDateFormat( "ss" ).format( now.getTime() ) );
+        ctx.put( "timezone", this.getDateFormat( "XXX" ).format( now.getTime() ) );
+        ctx.put( "shortDate", this.getShortDate( now ) );
+        ctx.put( "mediumDate", this.getMediumDate( now ) );
+        ctx.put( "longDate", this.getLongDate( now ) );
+        ctx.put( "isoDate", this.getIsoDate( now ) );
+        ctx.put( "shortTime", this.getShortTime( now ) );
+        ctx.put( "mediumTime", this.getMediumTime( now ) );
+        ctx.put( "longTime", this.getLongTime( now ) );
+        ctx.put( "isoTime", this.getIsoTime( now ) );
+        ctx.put( "shortDateTime", this.getShortDateTime( now ) );
+        ctx.put( "mediumDateTime", this.getMediumDateTime( now ) );
+        ctx.put( "longDateTime", this.getLongDateTime( now ) );
+        ctx.put( "isoDateTime", this.getIsoDateTime( now ) );
+        ctx.seal();
+
+        if ( this.isVelocityContextGuardEnabled() )
+        {
+            try
+            {
+                ctx.modelDigest = digest( clonedModel );
+            }
+            catch ( final NotSerializableException e )
+            {
+                if ( this.isLoggable( Level.WARNING ) )
+                {
+                    this.log( Level.WARNING, getMessage( "velocityContextGuardUnavailable", getMessage( e ) ), null );
+                }
+            }
+        }
+
+        return ctx;
+    }
+
+    private static byte[] digest( final Object object ) throws IOException
+    {
+        if ( !( object instanceof Serializable ) )
+        {
+            throw new NotSerializableException( object.getClass().getName() );
+        }
+
+        try
+        {
+            final MessageDigest messageDigest = MessageDigest.getInstance( "SHA-1" );
+            final OutputStream nullStream = new OutputStream()
+            {
+
+                @Override
+                public void write( final int b )
+                {
+                }
+
+                @Override
+                public void write( final byte[] b, final int off, final int len )
+                {
+                }
+
+            };
+
+            try ( final ObjectOutputStream out =
+                new ObjectOutputStream( new DigestOutputStream( nullStream, messageDigest ) ) )
+            {
+                out.writeObject( object );
+            }
+
+            return messageDigest.digest();
+        }
+        catch ( final NoSuchAlgorithmException e )
+        {
+            throw new AssertionError( e );
+        }
+    }
+
+
+    private Template findVelocityTemplate( final String location, final String encoding ) throws IOException
+    {
+        final JomcTool previous = this.bindVelocityLog();
+
+        try
+        {
+            final long generation = this.getTemplateCache().generation.get();
+
+            if ( this.defaultVelocityEngine && this.velocityEngineGeneration != generation )
+            {
+                // Templates have been invalidated. Drops any resources cached by the default engine.
+                this.velocityEngine = null;
+                this.velocityEngineGeneration = generation;
+            }
+
+            final VelocityEngine engine = this.getVelocityEngine();
+
+            this.addTemplateDependency( location );
+            Template template = null;
+
+            if ( this.defaultVelocityEngine && this.isSharedBuiltInTemplatesEnabled() )
+            {
+                template = BuiltInTemplates.getTemplate( location, encoding );
+            }
+
+            if ( template == null )
+            {
+                template = engine.getTemplate( location, encoding );
+            }
+
+            this.addTemplateDependencies( (Node) template.getData() );
+            return template;
+        }
+        catch ( final ResourceNotFoundException e )
+        {
+            if ( this.isLoggable( Level.FINER ) )
+            {
+                this.log( Level.FINER, getMessage( "templateNotFound", location ), null );
+            }
+
+            return null;
+        }
+        catch ( final ParseErrorException e )
+        {
+            String m = getMessage( e );
+            m = m == null ? "" : " " + m;
+
+            throw new IOException( getMessage( "velocityException", location, m ), e );
+        }
+        catch ( final VelocityException e )
+        {
+            String m = getMessage( e );
+            m = m == null ? "" : " " + m;
+
+            throw new IOException( getMessage( "velocityException", location, m ), e );
+        }
+        finally
+        {
+            unbindVelocityLog( previous );
+        }
+    }
+
+    private java.util.Properties getTemplateProfileContextProperties( final String profileName, final String language )
+        throws IOException
+    {
+        return this.getTemplateCache().contextProperties.get( profileName + "|" + language,
+                                                              new Callable<java.util.Properties>()
+        {
+
+            @Override
+            public java.util.Properties call() throws IOException
+            {
+                return loadTemplateProfileContextProperties( profileName, language );
+            }
+
+        } );
+    }
+
+    private java.util.Properties loadTemplateProfileContextProperties( final String profileName,
+                                                                       final String language )
+        throws IOException
+    {
+        final java.util.Properties profileProperties = new java.util.Properties();
+        final String resourceName = TEMPLATE_PREFIX + profileName + ( language == null ? "" : "/" + language )
+                                        + "/context.properties";
+
+        URL url = this.getClass().getResource( "/" + resourceName );
+
+        if ( url == null && this.getTemplateLocation() != null )
+        {
+            url = new URL( this.getTemplateLocation(), resourceName );
+            this.addTemplateDependency( resourceName );
+        }
+
+        if ( url != null )
+        {
+            try ( final InputStream in = url.openStream() )
+            {
+                profileProperties.load( in );
+
+                if ( this.isLoggable( Level.CONFIG ) )
+                {
+                    this.log( Level.CONFIG, getMessage( "contextPropertiesFound", url.toExternalForm() ), null );
+                }
+            }
+            catch ( final FileNotFoundException e )
+            {
+                if ( this.isLoggable( Level.CONFIG ) )
+                {
+                    this.log( Level.CONFIG, getMessage( "contextPropertiesNotFound", url.toExternalForm() ), null );
+                }
+            }
+        }
+        else if ( this.isLoggable( Level.CONFIG ) )
+        {
+            this.log( Level.CONFIG, getMessage( "contextPropertiesNotFound", resourceName ), null );
+        }
+
+        return profileProperties;
+    }
+
+    private void mergeTemplateProfileContextProperties( final String profileName, final String language,
+                                                        final VelocityContext velocityContext ) throws IOException
+    {
+        if ( profileName != null )
+        {
+            final java.util.Properties templateProfileProperties =
+                this.getTemplateProfileContextProperties( profileName, language );
+
+            for ( final Enumeration<?> e = templateProfileProperties.propertyNames(); e.hasMoreElements(); )
+            {
+                final String name = e.nextElement().toString();
+                final String value = templateProfileProperties.getProperty( name );
+                final String[] values = value.split( "\\|" );
+
+                if ( !velocityContext.containsKey( name ) )
+                {
+                    final String className = values[0];
+
+                    try
+                    {
+                        if ( values.length > 1 )
+                        {
+                            final Class<?> valueClass = Class.forName( className );
+                            velocityContext.put( name,
+                                                 valueClass.getConstructor( String.class ).newInstance( values[1] ) );
+                        }
+                        else if ( value.contains( "|" ) )
+                        {
+                            velocityContext.put( name, Class.forName( values[0] ).newInstance() );
+                        }
+                        else
+                        {
+                            velocityContext.put( name, value );
+                        }
+                    }
+                    catch ( final ReflectiveOperationException ex )
+                    {
+                        throw new IOException( getMessage( "contextPropertiesException", profileName
+                                                                                             + ( language != null
+                                                                                                 ? ", " + language
+                                                                                                 : "" ) ),
+                                               ex );
+
+                    }
+                }
+            }
+
+            this.mergeTemplateProfileContextProperties( this.getParentTemplateProfile( profileName ), language,
+                                                        velocityContext );
+
+        }
+    }
+
+    private java.util.Properties getTemplateProfileProperties( final String profileName ) throws IOException
+    {
+        return this.getTemplateCache().profileProperties.get( profileName, new Callable<java.util.Properties>()
+        {
+
+            @Override
+            public java.util.Properties call() throws IOException
+            {
+                return loadTemplateProfileProperties( profileName );
+            }
+
+        } );
+    }
+
+    private java.util.Properties loadTemplateProfileProperties( final String profileName ) throws IOException
+    {
+        final java.util.Properties profileProperties = new java.util.Properties();
+        final String resourceName = TEMPLATE_PREFIX + profileName + "/profile.properties";
+
+        URL url = this.getClass().getResource( "/" + resourceName );
+
+        if ( url == null && this.getTemplateLocation() != null )
+        {
+            url = new URL( this.getTemplateLocation(), resourceName );
+            this.addTemplateDependency( resourceName );
+        }
+
+        if ( url != null )
+        {
+            try ( final InputStream in = url.openStream() )
+            {
+                profileProperties.load( in );
+
+                if ( this.isLoggable( Level.CONFIG ) )
+                {
+                    this.log( Level.CONFIG, getMessage( "templateProfilePropertiesFound", url.toExternalForm() ),
+                              null );
+
+                }
+            }
+            catch ( final FileNotFoundException e )
+            {
+                if ( this.isLoggable( Level.CONFIG ) )
+                {
+                    this.log( Level.CONFIG, getMessage( "templateProfilePropertiesNotFound", url.toExternalForm() ),
+                              null );
+
+                }
+            }
+        }
+        else if ( this.isLoggable( Level.CONFIG ) )
+        {
+            this.log( Level.CONFIG, getMessage( "templateProfilePropertiesNotFound", resourceName ), null );
+        }
+
+        return profileProperties;
+    }
+
+    private Template getVelocityTemplate( final String tp, final String tn ) throws IOException
+    {
+        TemplateData templateData = this.getTemplateCache().resolvedTemplates.get( tp + "|" + tn );
+        boolean cached = true;
+
+        if ( templateData == null )
+        {
+            final boolean[] loaded = new boolean[ 1 ];
+            templateData = this.getTemplateData( tp, tn, loaded );
+            cached = !loaded[0];
+        }
+
+        this.getMetrics().onTemplateRequest( tp, tn, cached );
+
+        if ( templateData.template == null )
+        {
+            throw new FileNotFoundException( getMessage( "noSuchTemplate", tn ) );
+        }
+
+        if ( this.isLoggable( Level.FINER ) )
+        {
+            this.log( Level.FINER, getMessage( "templateInfo", tn, templateData.location ), null );
+        }
+
+        return templateData.template;
+    }
+
+    private TemplateData getTemplateData( final String tp, final String tn, final boolean[] loaded )
+        throws IOException
+    {
+        return this.getTemplateCache().templates.get( tp + "|" + tn, new Callable<TemplateData>()
+        {
+
+            @Override
+            public TemplateData call() throws IOException
+            {
+                if ( loaded != null )
+                {
+                    loaded[0] = true;
+                }
+
+                return findTemplateData( tp, tn );
+            }
+
+        } );
+    }
+
+    private TemplateData findTemplateData( final String tp, final String tn ) throws IOException
+    {
+        final TemplateData templateData = new TemplateData();
+
+        for ( String profile = tp; profile != null; profile = this.getParentTemplateProfile( profile ) )
+        {
+            if ( !StringUtils.EMPTY.equals( this.getLocale().getLanguage() ) )
+            {
+                templateData.location = TEMPLATE_PREFIX + profile + "/" + this.getLocale().getLanguage() + "/" + tn;
+                templateData.template =
+                    this.findVelocityTemplate( templateData.location, this.getTemplateEncoding( profile ) );
+
+            }
+
+            if ( templateData.template == null )
+            {
+                templateData.location = TEMPLATE_PREFIX + profile + "/" + tn;
+                templateData.template =
+                    this.findVelocityTemplate( templateData.location, this.getTemplateEncoding( profile ) );
+
+            }
+
+            if ( templateData.template != null )
+            {
+                break;
+            }
+        }
+
+        return templateData;
+    }
+
+    private void addTemplateDependency( final String resourceName )
+    {
+        if ( this.getClass().getResource( "/" + resourceName ) == null )
+        {
+            final File file = this.getTemplateLocationFile( resourceName );
+
+            if ( file != null )
+            {
+                this.getTemplateCache().lastModified.putIfAbsent( resourceName, file.lastModified() );
+                BoundedCache.addDependency( resourceName );
+            }
+        }
+    }
+
+    private void addTemplateDependencies( final Node node )
+    {
+        final Map<String, Boolean> resourceNames = new LinkedHashMap<>();
+        collectTemplateDependencies( node, resourceNames );
+
+        for ( final String resourceName : resourceNames.keySet() )
+        {
+            this.addTemplateDependency( resourceName );
+        }
+    }
+
+    /**
+     * Gets the names of the resources parsed or included by a template.
+     * <p>
+     * The resources parsed or included by any resource parsed by the template are part of the result as well.
+     * Resources whose names are computed when the template is merged are not.
+     * </p>
+     *
+     * @param template The template to get the names of the resources it depends on of.
+     *
+     * @return The names of the resources {@code template} depends on.
+     *
+     * @throws NullPointerException if {@code template} is {@code null}.
+     * @throws IOException if parsing a resource parsed by {@code template} fails.
+     *
+     * @see #getTemplateResource(java.lang.String)
+     *
+     * @since 2.0
+     */
+    final Set<String> getTemplateDependencies( final Template template ) throws IOException
+    {
+        if ( template == null )
+        {
+            throw new NullPointerException( "template" );
+        }
+
+        final Set<String> dependencies = new LinkedHashSet<>();
+        final Deque<Template> templates = new ArrayDeque<>();
+        templates.push( template );
+
+        while ( !templates.isEmpty() )
+        {
+            final Map<String, Boolean> resourceNames = new LinkedHashMap<>();
+            collectTemplateDependencies( (Node) templates.pop().getData(), resourceNames );
+
+            for ( final Map.Entry<String, Boolean> e : resourceNames.entrySet() )
+            {
+                if ( dependencies.add( e.getKey() ) && e.getValue() )
+                {
+                    final Template parsed = this.findVelocityTemplate( e.getKey(), template.getEncoding() );
+
+                    if ( parsed != null )
+                    {
+                        templates.push( parsed );
+                    }
+                }
+            }
+        }
+
+        return dependencies;
+    }
+
+    /**
+     * Gets the location of a resource a template depends on.
+     *
+     * @param resourceName The name of the resource to get the location of.
+     *
+     * @return The location of the resource named {@code resourceName} or {@code null}, if no such resource is found.
+     *
+     * @throws NullPointerException if {@code resourceName} is {@code null}.
+     *
+     * @see #getTemplateDependencies(org.apache.velocity.Template)
+     *
+     * @since 2.0
+     */
+    final URL getTemplateResource( final String resourceName )
+    {
+        if ( resourceName == null )
+        {
+            throw new NullPointerException( "resourceName" );
+        }
+
+        // Resources are looked up in the same order the resource loaders of the default engine are configured.
+        URL resource = this.getClass().getResource( "/" + resourceName );
+
+        if ( resource == null && this.getTemplateLocation() != null )
+        {
+            try
+            {
+                resource = new URL( this.getTemplateLocation(), resourceName );
+            }
+            catch ( final MalformedURLException e )
+            {
+                resource = null;
+            }
+        }
+
+        return resource;
+    }
+
+    private static void collectTemplateDependencies( final Node node, final Map<String, Boolean> resourceNames )
+    {
+        if ( node instanceof ASTDirective
+                 && ( "parse".equals( ( (ASTDirective) node ).getDirectiveName() )
+                      || "include".equals( ( (ASTDirective) node ).getDirectiveName() ) ) )
+        {
+            for ( int i = 0, s0 = node.jjtGetNumChildren(); i < s0; i++ )
+            {
+                if ( node.jjtGetChild( i ) instanceof ASTStringLiteral )
+                {
+                    String resourceName = node.jjtGetChild( i ).literal();
+
+                    if ( resourceName.length() > 1 && ( resourceName.charAt( 0 ) == '"'
+                                                        || resourceName.charAt( 0 ) == '\'' ) )
+                    {
+                        resourceName = resourceName.substring( 1, resourceName.length() - 1 );
+                    }
+
+                    if ( resourceName.indexOf( '$' ) < 0 && !Boolean.TRUE.equals( resourceNames.get( resourceName ) ) )
+                    {
+                        resourceNames.put( resourceName, "parse".equals( ( (ASTDirective) node ).getDirectiveName() ) );
+                    }
+                }
+            }
+        }
+
+        for ( int i = 0, s0 = node != null ? node.jjtGetNumChildren() : 0; i < s0; i++ )
+        {
+            collectTemplateDependencies( node.jjtGetChild( i ), resourceNames );
+        }
+    }
+
+    private File getTemplateLocationFile( final String resourceName )
+    {
+        try
+        {
+            return this.getTemplateLocation() != null
+                       && "file".equalsIgnoreCase( this.getTemplateLocation().getProtocol() )
+                       ? new File( new URL( this.getTemplateLocation(), resourceName ).toURI() )
+                       : null;
+
+        }
+        catch ( final IOException | URISyntaxException | IllegalArgumentException e )
+        {
+            return null;
+        }
+    }
+
+    private TemplateCache getTemplateCache()
+    {
+        TemplateCache cache = this.templateCache;
+
+        if ( cache == null )
+        {
+            if ( this.velocityEngine == null || this.defaultVelocityEngine )
+            {
+                final String scope = ( this.getTemplateLocation() != null
+                                       ? this.getTemplateLocation().toExternalForm() : "" )
+                                         + "|" + this.getDefaultTemplateProfile() + "|" + this.getLocale()
+                                         + "|" + this.getDefaultTemplateEncoding()
+                                         + "|" + this.isSharedBuiltInTemplatesEnabled();
+
+                synchronized ( SHARED_TEMPLATE_CACHES )
+                {
+                    cache = SHARED_TEMPLATE_CACHES.get( scope );
+
+                    if ( cache == null )
+                    {
+                        cache = new TemplateCache();
+                        SHARED_TEMPLATE_CACHES.put( scope, cache );
+                    }
+                }
+            }
+            else
+            {
+                cache = new TemplateCache();
+            }
+
+            this.templateCache = cache;
+        }
+
+        return cache;
+    }
+
+    private void resetTemplateCache()
+    {
+        this.templateCache = null;
+
+        if ( this.defaultVelocityEngine )
+        {
+            // The default engine belongs to the template cache of the scope of the instance.
+            this.velocityEngine = null;
+        }
+    }
+
+    private JomcTool bindVelocityLog()
+    {
+        final JomcTool previous = VELOCITY_LOG_TOOL.get();
+        VELOCITY_LOG_TOOL.set( this );
+        return previous;
+    }
+
+    private static void unbindVelocityLog( final JomcTool previous )
+    {
+        if ( previous != null )
+        {
+            VELOCITY_LOG_TOOL.set( previous );
+        }
+        else
+        {
+            VELOCITY_LOG_TOOL.remove();
+        }
+    }
+
+    private static String getMessage( final String key, final Object... arguments )
+    {
+        return MessageFormat.format( ResourceBundle.getBundle(
+            JomcTool.class.getName().replace( '.', '/' ) ).getString( key ), arguments );
+
+    }
+
+    private static String getMessage( final Throwable t )
+    {
+        return t != null
+                   ? t.getMessage() != null && t.getMessage().trim().length() > 0
+                         ? t.getMessage()
+                         : getMessage( t.getCause() )
+                   : null;
+
+    }
+
+    /**
+     * Lock of a file held in memory.
+     *
+     * @since 2.0
+     */
+    private static final class FileLockEntry
+    {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private final Lock operatingSystemLock = new ReentrantLock();
+
+        private int users;
+
+        private int sharedCount;
+
+        private FileChannel channel;
+
+        private FileLockEntry()
+        {
+            super();
+        }
+
+        private static FileLockEntry acquire( final Path path )
+        {
+            synchronized ( FILE_LOCKS )
+            {
+                FileLockEntry entry = FILE_LOCKS.get( path );
+
+                if ( entry == null )
+                {
+                    entry = new FileLockEntry();
+                    FILE_LOCKS.put( path, entry );
+                }
+
+                entry.users++;
+                return entry;
+            }
+        }
+
+        private static void release( final Path path, final FileLockEntry entry )
+        {
+            synchronized ( FILE_LOCKS )
+            {
+                if ( --entry.users == 0 )
+                {
+                    FILE_LOCKS.remove( path );
+                }
+            }
+        }
+
+        private void lockOperatingSystem( final Path path, final boolean shared ) throws IOException
+        {
+            this.operatingSystemLock.lock();
+
+            try
+            {
+                if ( !shared || this.sharedCount++ == 0 )
+                {
+                    try
+                    {
+                        for ( boolean locked = false; !locked; )
+                        {
+                            final Object fileKey = Files.readAttributes( path, BasicFileAttributes.class ).fileKey();
+
+                            this.channel = shared
+                                               ? FileChannel.open( path, StandardOpenOption.READ )
+                                               : FileChannel.open( path, StandardOpenOption.READ,
+                                                                   StandardOpenOption.WRITE );
+
+                            this.channel.lock( 0L, Long.MAX_VALUE, shared );
+
+                            // The file may have been replaced while waiting for the lock.
+                            locked = fileKey == null
+                                         || fileKey.equals( Files.readAttributes(
+                                                path, BasicFileAttributes.class ).fileKey() );
+
+                            if ( !locked )
+                            {
+                                this.closeChannel();
+                            }
+                        }
+                    }
+                    catch ( final NoSuchFileException | AccessDeniedException e )
+                    {
+                        // No file to coordinate with or no permission to lock it exclusively.
+                        this.closeChannel();
+                    }
+                    catch ( final IOException | RuntimeException | Error e )
+                    {
+                        if ( shared )
+                        {
+                            this.sharedCount--;
+                        }
+
+                        this.closeChannel();
+                        throw e;
+                    }
+                }
+            }
+            finally
+            {
+                this.operatingSystemLock.unlock();
+            }
+        }
+
+        private void unlockOperatingSystem( final boolean shared ) throws IOException
+        {
+            this.operatingSystemLock.lock();
+
+            try
+            {
+                if ( !shared || --this.sharedCount == 0 )
+                {
+                    this.closeChannel();
+                }
+            }
+            finally
+            {
+                this.operatingSystemLock.unlock();
+            }
+        }
+
+        private void closeChannel() throws IOException
+        {
+            final FileChannel c = this.channel;
+            this.channel = null;
+
+            if ( c != null )
+            {
+                // Closing the channel releases the lock of the operating system.
+                c.close();
+            }
+        }
+
+    }
+
+    /**
+     * Read-only {@code VelocityContext} shared by the velocity contexts of a tool.
+     *
+     * @since 2.0
+     */
+    private static final class SharedVelocityContext extends VelocityContext
+    {
+
+        private final Model source;
+
+        private final Locale locale;
+
+        private final long generation;
+
+        private final Model model;
+
+        private volatile boolean sealed;
+
+        private volatile byte[] modelDigest;
+
+        SharedVelocityContext( final Model source, final Locale locale, final long generation, final Model model )
+        {
+            super();
+            this.source = source;
+            this.locale = locale;
+            this.generation = generation;
+            this.model = model;
+        }
+
+        boolean isCreatedFor( final Model m, final Locale l, final long g )
+        {
+            return this.source == m && this.locale.equals( l ) && this.generation == g;
+        }
+
+        void seal()
+        {
+            this.sealed = true;
+        }
+
+        void assertUnmodified() throws IOException
+        {
+            if ( this.modelDigest != null && !Arrays.equals( this.modelDigest, digest( this.model ) ) )
+            {
+                throw new IOException( getMessage( "velocityContextModified", this.model.getIdentifier() ) );
+            }
+        }
+
+        @Override
+        public Object internalPut( final String key, final Object value )
+        {
+            if ( this.sealed )
+            {
+                throw new UnsupportedOperationException( key );
+            }
+
+            return super.internalPut( key, value );
+        }
+
+        @Override
+        public Object internalRemove( final Object key )
+        {
+            if ( this.sealed )
+            {
+                throw new UnsupportedOperationException( String.valueOf( key ) );
+            }
+
+            return super.internalRemove( key );
+        }
+
+    }
+
+    /**
+     * Log event queued for asynchronous delivery.
+     *
+     * @since 2.0
+     */
+    private static final class LogEvent
+    {
+
+        private final Level level;
+
+        private final String message;
+
+        private final Throwable throwable;
+
+        private final CountDownLatch flushed;
+
+        LogEvent( final Level level, final String message, final Throwable throwable )
+        {
+            super();
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+            this.flushed = null;
+        }
+
+        LogEvent( final CountDownLatch flushed )
+        {
+            super();
+            this.level = null;
+            this.message = null;
+            this.throwable = null;
+            this.flushed = flushed;
+        }
+
+    }
+
+    /**
+     * Delivers queued log events to the listeners of the tool using a single thread.
+     *
+     * @since 2.0
+     */
+    private final class LogDispatcher implements Runnable
+    {
+
+        private static final long IDLE_TIMEOUT_NANOS = 1000000000L;
+
+        private final BlockingQueue<LogEvent> events;
+
+        private final LogOverflowPolicy overflowPolicy;
+
+        private final AtomicLong discardedCount = new AtomicLong();
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private volatile Thread thread;
+
+        LogDispatcher( final int capacity, final LogOverflowPolicy overflowPolicy )
+        {
+            super();
+            this.events = new ArrayBlockingQueue<>( capacity );
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        void dispatch( final LogEvent event )
+        {
+            if ( Thread.currentThread() == this.thread )
+            {
+                // Events logged by listeners are delivered directly to preserve ordering and to not block.
+                this.deliver( event );
+                return;
+            }
+
+            if ( this.overflowPolicy == LogOverflowPolicy.DISCARD && event.level.intValue() < Level.WARNING.intValue() )
+            {
+                if ( !this.events.offer( event ) )
+                {
+                    this.discardedCount.incrementAndGet();
+                    return;
+                }
+            }
+            else if ( !this.put( event ) )
+            {
+                this.discardedCount.incrementAndGet();
+                return;
+            }
+
+            this.start();
+        }
+
+        void flush()
+        {
+            if ( Thread.currentThread() != this.thread && ( this.running.get() || !this.events.isEmpty() ) )
+            {
+                final CountDownLatch flushed = new CountDownLatch( 1 );
+
+                if ( this.put( new LogEvent( flushed ) ) )
+                {
+                    this.start();
+
+                    try
+                    {
+                        flushed.await();
+                    }
+                    catch ( final InterruptedException e )
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            while ( true )
+            {
+                LogEvent event = null;
+
+                try
+                {
+                    event = this.events.poll( IDLE_TIMEOUT_NANOS, TimeUnit.NANOSECONDS );
+                }
+                catch ( final InterruptedException e )
+                {
+                    // Not interrupted by the tool. Terminates like an idle thread, re-started on demand.
+                }
+
+                if ( event != null )
+                {
+                    if ( event.flushed != null )
+                    {
+                        event.flushed.countDown();
+                    }
+                    else
+                    {
+                        try
+                        {
+                            this.deliver( event );
+                        }
+                        catch ( final RuntimeException | Error e )
+                        {
+                            // A failing listener must not stop delivery of any other events. The failure is
+                            // rethrown when the log gets flushed.
+                            if ( !this.failure.compareAndSet( null, e ) )
+                            {
+                                this.failure.get().addSuppressed( e );
+                            }
+                        }
+                    }
+                }
+                else
+                {
+                    this.running.set( false );
+
+                    if ( this.events.isEmpty() || !this.running.compareAndSet( false, true ) )
+                    {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void deliver( final LogEvent event )
+        {
+            for ( final Listener listener : getListeners() )
+            {
+                listener.onLog( event.level, event.message, event.throwable );
+            }
+        }
+
+        private boolean put( final LogEvent event )
+        {
+            try
+            {
+                this.events.put( event );
+                return true;
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private void start()
+        {
+            if ( this.running.compareAndSet( false, true ) )
+            {
+                final Thread t = new Thread( this, JomcTool.class.getName() + ".LogDispatcher" );
+                t.setDaemon( true );
+                this.thread = t;
+                t.start();
+            }
+        }
+
+    }
+
+    /**
+     * Task resolving a template of a template cache.
+     *
+     * @since 2.0
+     */
+    private final class PreloadTemplateTask implements Callable<Void>
+    {
+
+        private final TemplateCache cache;
+
+        private final String templateProfile;
+
+        private final String templateName;
+
+        PreloadTemplateTask( final TemplateCache cache, final String templateProfile, final String templateName )
+        {
+            super();
+            this.cache = cache;
+            this.templateProfile = templateProfile;
+            this.templateName = templateName;
+        }
+
+        @Override
+        public Void call() throws IOException
+        {
+            this.cache.resolvedTemplates.put( this.templateProfile + "|" + this.templateName,
+                                              getTemplateData( this.templateProfile, this.templateName, null ) );
+
+            return null;
+        }
+
+    }
+
+    /**
+     * Bounded map of lazily loaded values evicting the least recently used entries first.
+     * <p>
+     * Values are loaded at most once per key. Concurrent requests for a key being loaded wait for the first request to
+     * finish loading the value. Values failing to load are not cached.
+     * </p>
+     *
+     * @param <K> The type of the keys of the cache.
+     * @param <V> The type of the values of the cache.
+     *
+     * @since 2.0
+     */
+    private static final class BoundedCache<K, V>
+    {
+
+        private static final ThreadLocal<Deque<Set<String>>> DEPENDENCIES = new ThreadLocal<Deque<Set<String>>>()
+        {
+
+            @Override
+            protected Deque<Set<String>> initialValue()
             {
-                map = new ConcurrentHashMap<>( 32 );
-                this.templateCache = new SoftReference<>( map );
+                return new ArrayDeque<>();
             }
 
-            TemplateData templateData = map.get( key );
+        };
+
+        private final Map<K, FutureTask<V>> entries;
+
+        private final Map<K, Set<String>> dependencies = new ConcurrentHashMap<>( 32 );
+
+        private final AtomicLong hitCount = new AtomicLong();
+
+        private final AtomicLong missCount = new AtomicLong();
+
+        private final AtomicLong evictionCount = new AtomicLong();
 
-            if ( templateData == null )
+        private final AtomicLong totalLoadTime = new AtomicLong();
+
+        BoundedCache( final int maximumSize )
+        {
+            super();
+            this.entries = new LinkedHashMap<K, FutureTask<V>>( 32, 0.75f, true )
             {
-                templateData = new TemplateData();
 
-                if ( !StringUtils.EMPTY.equals( this.getLocale().getLanguage() ) )
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry( final Map.Entry<K, FutureTask<V>> eldest )
                 {
-                    templateData.location = TEMPLATE_PREFIX + tp + "/" + this.getLocale().getLanguage() + "/" + tn;
-                    templateData.template =
-                        this.findVelocityTemplate( templateData.location, this.getTemplateEncoding( tp ) );
+                    final boolean evict = this.size() > maximumSize;
+
+                    if ( evict )
+                    {
+                        evictionCount.incrementAndGet();
+                        dependencies.remove( eldest.getKey() );
+                    }
 
+                    return evict;
                 }
 
-                if ( templateData.template == null )
+            };
+        }
+
+        static void addDependency( final String resourceName )
+        {
+            final Set<String> current = DEPENDENCIES.get().peek();
+
+            if ( current != null )
+            {
+                current.add( resourceName );
+            }
+        }
+
+        V get( final K key, final Callable<V> loader ) throws IOException
+        {
+            FutureTask<V> task;
+            boolean load = false;
+
+            synchronized ( this.entries )
+            {
+                task = this.entries.get( key );
+
+                if ( task == null )
                 {
-                    templateData.location = TEMPLATE_PREFIX + tp + "/" + tn;
-                    templateData.template =
-                        this.findVelocityTemplate( templateData.location, this.getTemplateEncoding( tp ) );
+                    task = new FutureTask<>( new Callable<V>()
+                    {
+
+                        @Override
+                        public V call() throws Exception
+                        {
+                            final Set<String> current = new HashSet<>();
+                            DEPENDENCIES.get().push( current );
+
+                            try
+                            {
+                                return loader.call();
+                            }
+                            finally
+                            {
+                                DEPENDENCIES.get().pop();
+                                dependencies.put( key, current );
+                            }
+                        }
 
+                    } );
+
+                    this.entries.put( key, task );
+                    load = true;
                 }
+            }
+
+            if ( load )
+            {
+                this.missCount.incrementAndGet();
+                final long start = System.nanoTime();
+                task.run();
+                this.totalLoadTime.addAndGet( System.nanoTime() - start );
+            }
+            else
+            {
+                this.hitCount.incrementAndGet();
+            }
 
-                if ( templateData.template == null )
+            try
+            {
+                final V value = task.get();
+                final Set<String> current = DEPENDENCIES.get().peek();
+                final Set<String> resourceNames = this.dependencies.get( key );
+
+                if ( current != null && resourceNames != null )
                 {
-                    template = this.getVelocityTemplate( this.getParentTemplateProfile( tp ), tn );
+                    current.addAll( resourceNames );
+                }
 
-                    if ( template == null )
+                return value;
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw (IOException) new InterruptedIOException( String.valueOf( key ) ).initCause( e );
+            }
+            catch ( final ExecutionException e )
+            {
+                synchronized ( this.entries )
+                {
+                    if ( this.entries.get( key ) == task )
                     {
-                        map.put( key, new TemplateData() );
-                        throw new FileNotFoundException( getMessage( "noSuchTemplate", tn ) );
+                        this.entries.remove( key );
+                        this.dependencies.remove( key );
                     }
                 }
+
+                if ( e.getCause() instanceof IOException )
+                {
+                    throw (IOException) e.getCause();
+                }
+                else if ( e.getCause() instanceof RuntimeException )
+                {
+                    throw (RuntimeException) e.getCause();
+                }
+                else if ( e.getCause() instanceof Error )
+                {
+                    throw (Error) e.getCause();
+                }
                 else
                 {
-                    if ( this.isLoggable( Level.FINER ) )
-                    {
-                        this.log( Level.FINER, getMessage( "templateInfo", tn, templateData.location ), null );
-                    }
-
-                    template = templateData.template;
-                    map.put( key, templateData );
+                    throw new IOException( getMessage( e.getCause() ), e.getCause() );
                 }
             }
-            else if ( templateData.template == null )
+        }
+
+        int size()
+        {
+            synchronized ( this.entries )
             {
-                throw new FileNotFoundException( getMessage( "noSuchTemplate", tn ) );
+                return this.entries.size();
             }
-            else
+        }
+
+        int invalidate( final String resourceName )
+        {
+            int count = 0;
+
+            synchronized ( this.entries )
             {
-                if ( this.isLoggable( Level.FINER ) )
+                for ( final Map.Entry<K, Set<String>> e : this.dependencies.entrySet() )
                 {
-                    this.log( Level.FINER, getMessage( "templateInfo", tn, templateData.location ), null );
+                    if ( e.getValue().contains( resourceName ) )
+                    {
+                        this.entries.remove( e.getKey() );
+                        this.dependencies.remove( e.getKey() );
+                        count++;
+                    }
                 }
+            }
+
+            return count;
+        }
+
+    }
+
+    /**
+     * Templates, template profile properties and template profile context properties of a scope.
+     *
+     * @since 2.0
+     */
+    private static final class TemplateCache
+    {
+
+        private final BoundedCache<String, TemplateData> templates = new BoundedCache<>( TEMPLATE_CACHE_SIZE );
 
-                template = templateData.template;
+        private final BoundedCache<String, java.util.Properties> profileProperties =
+            new BoundedCache<>( TEMPLATE_CACHE_SIZE );
+
+        private final BoundedCache<String, java.util.Properties> contextProperties =
+            new BoundedCache<>( TEMPLATE_CACHE_SIZE );
+
+        private final ConcurrentMap<String, Long> lastModified = new ConcurrentHashMap<>( 32 );
+
+        private final ConcurrentMap<String, TemplateData> resolvedTemplates = new ConcurrentHashMap<>( 32 );
+
+        private final AtomicLong generation = new AtomicLong();
+
+        private VelocityEngine velocityEngine;
+
+        private long velocityEngineGeneration;
+
+        TemplateCache()
+        {
+            super();
+        }
+
+        synchronized VelocityEngine getVelocityEngine( final URL templateLocation )
+        {
+            final long current = this.generation.get();
+
+            if ( this.velocityEngine == null || this.velocityEngineGeneration != current )
+            {
+                // Templates have been invalidated. Drops any resources cached by the previous engine.
+                this.velocityEngine = newVelocityEngine( templateLocation );
+                this.velocityEngineGeneration = current;
+            }
+
+            return this.velocityEngine;
+        }
+
+        private static VelocityEngine newVelocityEngine( final URL templateLocation )
+        {
+            final VelocityEngine engine = new VelocityEngine();
+            engine.setProperty( RuntimeConstants.RUNTIME_REFERENCES_STRICT, Boolean.TRUE.toString() );
+            engine.setProperty( RuntimeConstants.VM_ARGUMENTS_STRICT, Boolean.TRUE.toString() );
+            engine.setProperty( RuntimeConstants.STRICT_MATH, Boolean.TRUE.toString() );
+            engine.setProperty( RuntimeConstants.RUNTIME_LOG_LOGSYSTEM, new JomcLogChute() );
+
+            engine.setProperty( RuntimeConstants.RESOURCE_LOADER, "class" );
+            engine.setProperty( "class.resource.loader.class", ClasspathResourceLoader.class.getName() );
+            engine.setProperty( "class.resource.loader.cache", Boolean.TRUE.toString() );
+
+            if ( templateLocation != null )
+            {
+                engine.setProperty( RuntimeConstants.RESOURCE_LOADER, "class,url" );
+                engine.setProperty( "url.resource.loader.class", URLResourceLoader.class.getName() );
+                engine.setProperty( "url.resource.loader.cache", Boolean.TRUE.toString() );
+                engine.setProperty( "url.resource.loader.root", templateLocation.toExternalForm() );
+                engine.setProperty( "url.resource.loader.timeout", Integer.toString( 60000 ) );
+            }
+
+            return engine;
+        }
+
+        int invalidate( final String resourceName )
+        {
+            return this.templates.invalidate( resourceName ) + this.profileProperties.invalidate( resourceName )
+                       + this.contextProperties.invalidate( resourceName );
+
+        }
+
+        CacheStatistics getStatistics()
+        {
+            long hitCount = 0L;
+            long missCount = 0L;
+            long evictionCount = 0L;
+            long totalLoadTime = 0L;
+            int size = 0;
+
+            for ( final BoundedCache<?, ?> cache : Arrays.<BoundedCache<?, ?>>asList( this.templates,
+                                                                                     this.profileProperties,
+                                                                                     this.contextProperties ) )
+            {
+                hitCount += cache.hitCount.get();
+                missCount += cache.missCount.get();
+                evictionCount += cache.evictionCount.get();
+                totalLoadTime += cache.totalLoadTime.get();
+                size += cache.size();
             }
+
+            return new CacheStatistics( hitCount, missCount, evictionCount, totalLoadTime, size );
         }
 
-        return template;
     }
 
-    private static String getMessage( final String key, final Object... arguments )
+    /**
+     * Templates of the built-in template profiles parsed once per virtual machine and shared by all tools.
+     * <p>
+     * All templates of a built-in template profile are parsed together on first use of any of them. Built-in
+     * templates are immutable resources of the classpath, which the default {@code VelocityEngine} of a tool finds
+     * before any resource of its template location. Merging a template does not modify its tree of nodes, so that a
+     * single instance is merged concurrently by any number of tools.
+     * </p>
+     *
+     * @since 2.0
+     */
+    private static final class BuiltInTemplates
     {
-        return MessageFormat.format( ResourceBundle.getBundle(
-            JomcTool.class.getName().replace( '.', '/' ) ).getString( key ), arguments );
+
+        private static final Map<String, Set<String>> PROFILES = new HashMap<>( 4 );
+
+        private static final ConcurrentMap<String, FutureTask<Map<String, Template>>> TEMPLATES =
+            new ConcurrentHashMap<>( 8 );
+
+        private static final VelocityEngine ENGINE = TemplateCache.newVelocityEngine( null );
+
+        static
+        {
+            PROFILES.put( TEMPLATE_PREFIX + "jomc-java/", new HashSet<>( Arrays.asList(
+                          "Implementation.java.vm", "Specification.java.vm", "implementation-annotations.vm",
+                          "implementation-constructors-head.vm", "implementation-constructors-tail.vm",
+                          "implementation-default-constructor.vm", "implementation-dependencies.vm",
+                          "implementation-documentation.vm", "implementation-license.vm", "implementation-messages.vm",
+                          "implementation-properties.vm", "specification-annotations.vm",
+                          "specification-documentation.vm", "specification-license.vm" ) ) );
+
+            PROFILES.put( TEMPLATE_PREFIX + "jomc-java-bundles/", new HashSet<>( Arrays.asList(
+                          "implementation-messages.vm" ) ) );
+
+        }
+
+        private BuiltInTemplates()
+        {
+            super();
+        }
+
+        static Template getTemplate( final String location, final String encoding ) throws IOException
+        {
+            final int index = location.lastIndexOf( '/' ) + 1;
+            final String profile = location.substring( 0, index );
+            final Set<String> templateNames = PROFILES.get( profile );
+
+            if ( templateNames == null || !templateNames.contains( location.substring( index ) ) )
+            {
+                return null;
+            }
+
+            final String key = encoding + "|" + profile;
+            FutureTask<Map<String, Template>> task = TEMPLATES.get( key );
+
+            if ( task == null )
+            {
+                final FutureTask<Map<String, Template>> newTask =
+                    new FutureTask<>( new Callable<Map<String, Template>>()
+                    {
+
+                        @Override
+                        public Map<String, Template> call()
+                        {
+                            final Map<String, Template> templates = new HashMap<>( templateNames.size() * 2 );
+
+                            for ( final String templateName : templateNames )
+                            {
+                                try
+                                {
+                                    templates.put( profile + templateName,
+                                                   ENGINE.getTemplate( profile + templateName, encoding ) );
+
+                                }
+                                catch ( final ResourceNotFoundException e )
+                                {
+                                    // Templates not found on the classpath are loaded by the engine of the tool.
+                                }
+                            }
+
+                            return templates;
+                        }
+
+                    } );
+
+                task = TEMPLATES.putIfAbsent( key, newTask );
+
+                if ( task == null )
+                {
+                    task = newTask;
+                    task.run();
+                }
+            }
+
+            try
+            {
+                return task.get().get( location );
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException( getMessage( e ), e );
+            }
+            catch ( final ExecutionException e )
+            {
+                // Parses the profile again on next use.
+                TEMPLATES.remove( key, task );
+
+                if ( e.getCause() instanceof RuntimeException )
+                {
+                    throw (RuntimeException) e.getCause();
+                }
+                else if ( e.getCause() instanceof Error )
+                {
+                    throw (Error) e.getCause();
+                }
+                else
+                {
+                    // Checked exception not declared to be thrown by the Callable's 'call' method.
+                    throw new UndeclaredThrowableException( e.getCause() );
+                }
+            }
+        }
 
     }
 
-    private static String getMessage( final Throwable t )
+    /**
+     * {@code LogChute} logging to the listeners of the tool bound to the current thread.
+     *
+     * @since 2.0
+     */
+    private static final class JomcLogChute implements LogChute
     {
-        return t != null
-                   ? t.getMessage() != null && t.getMessage().trim().length() > 0
-                         ? t.getMessage()
-                         : getMessage( t.getCause() )
-                   : null;
+
+        JomcLogChute()
+        {
+            super();
+        }
+
+        @Override
+        public void init( final RuntimeServices runtimeServices ) throws Exception
+        {
+        }
+
+        @Override
+        public void log( final int level, final String message )
+        {
+            this.log( level, message, null );
+        }
+
+        @Override
+        public void log( final int level, final String message, final Throwable throwable )
+        {
+            final JomcTool tool = VELOCITY_LOG_TOOL.get();
+
+            if ( tool != null )
+            {
+                tool.log( Level.FINEST, message, throwable );
+            }
+        }
+
+        @Override
+        public boolean isLevelEnabled( final int level )
+        {
+            final JomcTool tool = VELOCITY_LOG_TOOL.get();
+            return tool != null && tool.isLoggable( Level.FINEST );
+        }
 
     }
 
@@ -0,0 +1,744 @@
+/*
+ *   Copyright (C) 2005 Christian Schulte <cs@schulte.it>
+ *   All rights reserved.
+ *
+ *   Redistribution and use in source and binary forms, with or without
+ *   modification, are permitted provided that the following conditions
+ *   are met:
+ *
+ *     o Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     o Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *
+ *   THIS SOFTWARE IS PROVIDED "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ *   INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+ *   AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ *   THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *   INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *   NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *   DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *   THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *   (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *   THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *   $JOMC$
+ *
+ */
+package org.jomc.tools;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.PropertyException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.validation.Schema;
+import org.jomc.modlet.ModelContext;
+import org.jomc.modlet.ModelException;
+import org.jomc.modlet.Modlets;
+import org.jomc.modlet.Schemas;
+
+/**
+ * Bounded pool of schema bound marshallers and unmarshallers.
+ * <p>
+ * Marshallers and unmarshallers are pooled per model identifier, schemas of the model and class loaders defining the
+ * classes bound to these schemas. They are created using the model context passed to the acquire methods and get the
+ * schema of the model set when created. Model contexts providing the same schemas and classes for a model share the
+ * pooled instances, so that a pool shared among tools and tasks, each using its own model context, keeps serving
+ * instances created once. Released instances get the schema and the standard properties they have been created with
+ * restored. At most the number of instances given by system property
+ * {@code org.jomc.tools.MarshallerPool.maximumIdleSize} (defaults to {@code 8}) are kept idle per pool key for each
+ * kind. At most the number of pool keys given by system property {@code org.jomc.tools.MarshallerPool.maximumKeys}
+ * (defaults to {@code 16}) are kept, discarding the instances of the least recently used key first. This class is
+ * thread-safe.
+ * </p>
+ *
+ * @author <a href="mailto:cs@schulte.it">Christian Schulte</a>
+ * @version $JOMC$
+ * @since 2.0
+ *
+ * @see JomcTool#getMarshallerPool()
+ */
+public final class MarshallerPool
+{
+
+    /**
+     * Maximum number of idle instances per model and kind.
+     */
+    private static final int MAXIMUM_IDLE_SIZE =
+        Integer.getInteger( "org.jomc.tools.MarshallerPool.maximumIdleSize", 8 );
+
+    /**
+     * Maximum number of pool keys.
+     */
+    private static final int MAXIMUM_KEYS = Integer.getInteger( "org.jomc.tools.MarshallerPool.maximumKeys", 16 );
+
+    /**
+     * Names of the marshaller properties restored on release.
+     */
+    private static final String[] MARSHALLER_PROPERTIES =
+    {
+        Marshaller.JAXB_ENCODING, Marshaller.JAXB_FORMATTED_OUTPUT, Marshaller.JAXB_FRAGMENT,
+        Marshaller.JAXB_NO_NAMESPACE_SCHEMA_LOCATION, Marshaller.JAXB_SCHEMA_LOCATION
+    };
+
+    /**
+     * Pooled instances by pool key in access order.
+     */
+    private final Map<PoolKey, PoolEntry> entries = new LinkedHashMap<PoolKey, PoolEntry>( 16, 0.75f, true )
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( final Map.Entry<PoolKey, PoolEntry> eldest )
+        {
+            if ( this.size() > MAXIMUM_KEYS )
+            {
+                evictionCount.addAndGet( eldest.getValue().marshallers.size()
+                                             + eldest.getValue().unmarshallers.size() );
+
+                return true;
+            }
+
+            return false;
+        }
+
+    };
+
+    /**
+     * Pool keys by model context.
+     */
+    private final Map<ModelContext, ContextKeys> keys = new WeakHashMap<>();
+
+    /**
+     * The number of instances served from the pool.
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * The number of instances created.
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * The number of instances discarded.
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * The total number of nanoseconds spent creating instances.
+     */
+    private final AtomicLong totalLoadTime = new AtomicLong();
+
+    /**
+     * Creates a new {@code MarshallerPool} instance.
+     */
+    public MarshallerPool()
+    {
+        super();
+    }
+
+    /**
+     * Acquires a marshaller for a given model.
+     *
+     * @param context The model context to use for creating a marshaller not available from the pool.
+     * @param model The identifier of the model to acquire a marshaller for.
+     *
+     * @return A marshaller for {@code model} with the schema of {@code model} set.
+     *
+     * @throws NullPointerException if {@code context} or {@code model} is {@code null}.
+     * @throws ModelException if creating a marshaller fails.
+     *
+     * @see #releaseMarshaller(org.jomc.modlet.ModelContext, java.lang.String, javax.xml.bind.Marshaller)
+     */
+    public Marshaller acquireMarshaller( final ModelContext context, final String model ) throws ModelException
+    {
+        if ( context == null )
+        {
+            throw new NullPointerException( "context" );
+        }
+        if ( model == null )
+        {
+            throw new NullPointerException( "model" );
+        }
+
+        final PoolKey key = this.getKey( context, model );
+        Marshaller marshaller;
+        Schema schema;
+
+        synchronized ( this.entries )
+        {
+            final PoolEntry entry = this.getEntry( key );
+            marshaller = entry.marshallers.pollFirst();
+            schema = entry.schema;
+        }
+
+        if ( marshaller != null )
+        {
+            this.hitCount.incrementAndGet();
+        }
+        else
+        {
+            final long start = System.nanoTime();
+
+            if ( schema == null )
+            {
+                schema = this.getSchema( context, key );
+            }
+
+            marshaller = context.createMarshaller( model );
+            marshaller.setSchema( schema );
+            this.setMarshallerProperties( key, marshaller );
+            this.missCount.incrementAndGet();
+            this.totalLoadTime.addAndGet( System.nanoTime() - start );
+        }
+
+        return marshaller;
+    }
+
+    /**
+     * Releases a marshaller acquired from the pool.
+     * <p>
+     * The listener and event handler of the marshaller are reset and the schema and the standard properties the
+     * marshaller has been created with are restored before the marshaller is returned to the pool. Marshallers whose
+     * properties cannot be restored are discarded.
+     * </p>
+     *
+     * @param context The model context the marshaller got acquired with.
+     * @param model The identifier of the model the marshaller got acquired for.
+     * @param marshaller The marshaller to release.
+     *
+     * @throws NullPointerException if {@code context}, {@code model} or {@code marshaller} is {@code null}.
+     *
+     * @see #acquireMarshaller(org.jomc.modlet.ModelContext, java.lang.String)
+     */
+    public void releaseMarshaller( final ModelContext context, final String model, final Marshaller marshaller )
+    {
+        if ( context == null )
+        {
+            throw new NullPointerException( "context" );
+        }
+        if ( model == null )
+        {
+            throw new NullPointerException( "model" );
+        }
+        if ( marshaller == null )
+        {
+            throw new NullPointerException( "marshaller" );
+        }
+
+        synchronized ( this.entries )
+        {
+            final PoolKey key = this.getCachedKey( context, model );
+            final PoolEntry entry = key != null ? this.entries.get( key ) : null;
+
+            if ( entry != null && entry.marshallers.size() < MAXIMUM_IDLE_SIZE
+                     && reset( marshaller, entry.schema, entry.marshallerProperties ) )
+            {
+                entry.marshallers.addFirst( marshaller );
+                return;
+            }
+        }
+
+        this.evictionCount.incrementAndGet();
+    }
+
+    /**
+     * Acquires an unmarshaller for a given model.
+     *
+     * @param context The model context to use for creating an unmarshaller not available from the pool.
+     * @param model The identifier of the model to acquire an unmarshaller for.
+     *
+     * @return An unmarshaller for {@code model} with the schema of {@code model} set.
+     *
+     * @throws NullPointerException if {@code context} or {@code model} is {@code null}.
+     * @throws ModelException if creating an unmarshaller fails.
+     *
+     * @see #releaseUnmarshaller(org.jomc.modlet.ModelContext, java.lang.String, javax.xml.bind.Unmarshaller)
+     */
+    public Unmarshaller acquireUnmarshaller( final ModelContext context, final String model ) throws ModelException
+    {
+        if ( context == null )
+        {
+            throw new NullPointerException( "context" );
+        }
+        if ( model == null )
+        {
+            throw new NullPointerException( "model" );
+        }
+
+        final PoolKey key = this.getKey( context, model );
+        Unmarshaller unmarshaller;
+        Schema schema;
+
+        synchronized ( this.entries )
+        {
+            final PoolEntry entry = this.getEntry( key );
+            unmarshaller = entry.unmarshallers.pollFirst();
+            schema = entry.schema;
+        }
+
+        if ( unmarshaller != null )
+        {
+            this.hitCount.incrementAndGet();
+        }
+        else
+        {
+            final long start = System.nanoTime();
+
+            if ( schema == null )
+            {
+                schema = this.getSchema( context, key );
+            }
+
+            unmarshaller = context.createUnmarshaller( model );
+            unmarshaller.setSchema( schema );
+            this.missCount.incrementAndGet();
+            this.totalLoadTime.addAndGet( System.nanoTime() - start );
+        }
+
+        return unmarshaller;
+    }
+
+    /**
+     * Releases an unmarshaller acquired from the pool.
+     * <p>
+     * The listener and event handler of the unmarshaller are reset and the schema the unmarshaller has been created
+     * with is restored before the unmarshaller is returned to the pool.
+     * </p>
+     *
+     * @param context The model context the unmarshaller got acquired with.
+     * @param model The identifier of the model the unmarshaller got acquired for.
+     * @param unmarshaller The unmarshaller to release.
+     *
+     * @throws NullPointerException if {@code context}, {@code model} or {@code unmarshaller} is {@code null}.
+     *
+     * @see #acquireUnmarshaller(org.jomc.modlet.ModelContext, java.lang.String)
+     */
+    public void releaseUnmarshaller( final ModelContext context, final String model,
+                                     final Unmarshaller unmarshaller )
+    {
+        if ( context == null )
+        {
+            throw new NullPointerException( "context" );
+        }
+        if ( model == null )
+        {
+            throw new NullPointerException( "model" );
+        }
+        if ( unmarshaller == null )
+        {
+            throw new NullPointerException( "unmarshaller" );
+        }
+
+        synchronized ( this.entries )
+        {
+            final PoolKey key = this.getCachedKey( context, model );
+            final PoolEntry entry = key != null ? this.entries.get( key ) : null;
+
+            if ( entry != null && entry.unmarshallers.size() < MAXIMUM_IDLE_SIZE
+                     && reset( unmarshaller, entry.schema ) )
+            {
+                entry.unmarshallers.addFirst( unmarshaller );
+                return;
+            }
+        }
+
+        this.evictionCount.incrementAndGet();
+    }
+
+    /**
+     * Discards all idle instances of the pool.
+     * <p>
+     * Instances currently acquired are discarded when released. The statistics of the pool are not reset.
+     * </p>
+     *
+     * @see #getStatistics()
+     */
+    public void clear()
+    {
+        synchronized ( this.entries )
+        {
+            for ( final PoolEntry entry : this.entries.values() )
+            {
+                this.evictionCount.addAndGet( entry.marshallers.size() + entry.unmarshallers.size() );
+            }
+
+            this.entries.clear();
+            this.keys.clear();
+        }
+    }
+
+    /**
+     * Gets statistics of the pool.
+     * <p>
+     * The hit count is the number of instances served from the pool and the miss count is the number of instances
+     * created. The eviction count is the number of instances discarded. The size is the number of idle instances.
+     * </p>
+     *
+     * @return Statistics of the pool.
+     */
+    public CacheStatistics getStatistics()
+    {
+        int size = 0;
+
+        synchronized ( this.entries )
+        {
+            for ( final PoolEntry entry : this.entries.values() )
+            {
+                size += entry.marshallers.size() + entry.unmarshallers.size();
+            }
+        }
+
+        return new CacheStatistics( this.hitCount.get(), this.missCount.get(), this.evictionCount.get(),
+                                    this.totalLoadTime.get(), size );
+
+    }
+
+    private static boolean reset( final Marshaller marshaller, final Schema schema,
+                                  final Map<String, Object> properties )
+    {
+        if ( schema == null || properties == null )
+        {
+            return false;
+        }
+
+        try
+        {
+            marshaller.setListener( null );
+            marshaller.setEventHandler( null );
+            marshaller.setSchema( schema );
+
+            for ( final String name : MARSHALLER_PROPERTIES )
+            {
+                final Object value = properties.get( name );
+                final Object current = marshaller.getProperty( name );
+
+                if ( value != null ? !value.equals( current ) : current != null )
+                {
+                    if ( value == null )
+                    {
+                        // Standard properties cannot be unset.
+                        return false;
+                    }
+
+                    marshaller.setProperty( name, value );
+                }
+            }
+
+            return true;
+        }
+        catch ( final JAXBException e )
+        {
+            return false;
+        }
+    }
+
+    private static boolean reset( final Unmarshaller unmarshaller, final Schema schema )
+    {
+        if ( schema == null )
+        {
+            return false;
+        }
+
+        try
+        {
+            unmarshaller.setListener( null );
+            unmarshaller.setEventHandler( null );
+            unmarshaller.setSchema( schema );
+            return true;
+        }
+        catch ( final JAXBException e )
+        {
+            return false;
+        }
+    }
+
+    private void setMarshallerProperties( final PoolKey key, final Marshaller marshaller )
+    {
+        try
+        {
+            final Map<String, Object> properties = new HashMap<>( MARSHALLER_PROPERTIES.length * 2 );
+
+            for ( final String name : MARSHALLER_PROPERTIES )
+            {
+                properties.put( name, marshaller.getProperty( name ) );
+            }
+
+            synchronized ( this.entries )
+            {
+                final PoolEntry entry = this.entries.get( key );
+
+                if ( entry != null && entry.marshallerProperties == null )
+                {
+                    entry.marshallerProperties = properties;
+                }
+            }
+        }
+        catch ( final PropertyException e )
+        {
+            // Marshallers whose properties cannot be read are not pooled.
+        }
+    }
+
+    private PoolKey getKey( final ModelContext context, final String model ) throws ModelException
+    {
+        final Modlets modlets = context.getModlets();
+
+        synchronized ( this.entries )
+        {
+            final ContextKeys contextKeys = this.keys.get( context );
+
+            if ( contextKeys != null && contextKeys.modlets == modlets && contextKeys.keys.containsKey( model ) )
+            {
+                return contextKeys.keys.get( model );
+            }
+        }
+
+        final PoolKey key = newPoolKey( context, modlets, model );
+
+        synchronized ( this.entries )
+        {
+            ContextKeys contextKeys = this.keys.get( context );
+
+            if ( contextKeys == null || contextKeys.modlets != modlets )
+            {
+                contextKeys = new ContextKeys( modlets );
+                this.keys.put( context, contextKeys );
+            }
+
+            contextKeys.keys.put( model, key );
+        }
+
+        return key;
+    }
+
+    private PoolKey getCachedKey( final ModelContext context, final String model )
+    {
+        final ContextKeys contextKeys = this.keys.get( context );
+        return contextKeys != null ? contextKeys.keys.get( model ) : null;
+    }
+
+    private static PoolKey newPoolKey( final ModelContext context, final Modlets modlets, final String model )
+    {
+        final Schemas schemas = modlets != null ? modlets.getSchemas( model ) : null;
+        final StringBuilder identity = new StringBuilder( model );
+        final List<ClassLoader> classLoaders = new ArrayList<>();
+
+        if ( schemas != null )
+        {
+            for ( final org.jomc.modlet.Schema s : schemas.getSchema() )
+            {
+                identity.append( '|' ).append( s.getPublicId() ).append( ' ' ).append( s.getSystemId() ).
+                    append( ' ' ).append( s.getContextId() ).append( ' ' ).append( s.getClasspathId() );
+
+                if ( s.getContextId() != null )
+                {
+                    for ( final String packageName : s.getContextId().split( ":" ) )
+                    {
+                        classLoaders.add( getDefiningClassLoader( context.getClassLoader(), packageName ) );
+                    }
+                }
+            }
+        }
+
+        return new PoolKey( model, identity.toString(), classLoaders );
+    }
+
+    private static ClassLoader getDefiningClassLoader( final ClassLoader classLoader, final String packageName )
+    {
+        try
+        {
+            return Class.forName( packageName + ".ObjectFactory", false, classLoader ).getClassLoader();
+        }
+        catch ( final ClassNotFoundException | LinkageError e )
+        {
+            // Classes of the package are looked up by JAXB using the class loader of the model context.
+            return classLoader;
+        }
+    }
+
+    private PoolEntry getEntry( final PoolKey key )
+    {
+        for ( final Iterator<Map.Entry<PoolKey, PoolEntry>> it = this.entries.entrySet().iterator(); it.hasNext(); )
+        {
+            final Map.Entry<PoolKey, PoolEntry> e = it.next();
+
+            if ( e.getKey().isStale() )
+            {
+                this.evictionCount.addAndGet( e.getValue().marshallers.size() + e.getValue().unmarshallers.size() );
+                it.remove();
+            }
+        }
+
+        PoolEntry entry = this.entries.get( key );
+
+        if ( entry == null )
+        {
+            entry = new PoolEntry();
+            this.entries.put( key, entry );
+        }
+
+        return entry;
+    }
+
+    private Schema getSchema( final ModelContext context, final PoolKey key ) throws ModelException
+    {
+        final Schema schema = context.createSchema( key.model );
+
+        synchronized ( this.entries )
+        {
+            final PoolEntry entry = this.entries.get( key );
+
+            if ( entry != null )
+            {
+                entry.schema = schema;
+            }
+        }
+
+        return schema;
+    }
+
+    /**
+     * Identifies the instances of a model interchangeable between model contexts.
+     */
+    private static final class PoolKey
+    {
+
+        private final String model;
+
+        private final String identity;
+
+        private final List<Reference<ClassLoader>> classLoaders;
+
+        private final int hashCode;
+
+        PoolKey( final String model, final String identity, final List<ClassLoader> classLoaders )
+        {
+            super();
+            this.model = model;
+            this.identity = identity;
+            this.classLoaders = new ArrayList<>( classLoaders.size() );
+
+            int hash = identity.hashCode();
+
+            for ( final ClassLoader classLoader : classLoaders )
+            {
+                // The bootstrap class loader is never collected.
+                this.classLoaders.add( classLoader != null ? new WeakReference<>( classLoader ) : null );
+                hash = 31 * hash + System.identityHashCode( classLoader );
+            }
+
+            this.hashCode = hash;
+        }
+
+        boolean isStale()
+        {
+            for ( final Reference<ClassLoader> classLoader : this.classLoaders )
+            {
+                if ( classLoader != null && classLoader.get() == null )
+                {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals( final Object o )
+        {
+            if ( o == this )
+            {
+                return true;
+            }
+            if ( !( o instanceof PoolKey ) )
+            {
+                return false;
+            }
+
+            final PoolKey that = (PoolKey) o;
+
+            if ( this.hashCode != that.hashCode || !this.identity.equals( that.identity )
+                     || this.classLoaders.size() != that.classLoaders.size() || this.isStale() )
+            {
+                return false;
+            }
+
+            for ( int i = 0, s0 = this.classLoaders.size(); i < s0; i++ )
+            {
+                final Reference<ClassLoader> r1 = this.classLoaders.get( i );
+                final Reference<ClassLoader> r2 = that.classLoaders.get( i );
+
+                if ( ( r1 != null ? r1.get() : null ) != ( r2 != null ? r2.get() : null ) )
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+    }
+
+    /**
+     * Pool keys of a model context.
+     */
+    private static final class ContextKeys
+    {
+
+        private final Modlets modlets;
+
+        private final Map<String, PoolKey> keys = new HashMap<>();
+
+        ContextKeys( final Modlets modlets )
+        {
+            super();
+            this.modlets = modlets;
+        }
+
+    }
+
+    /**
+     * Idle instances of a pool key.
+     */
+    private static final class PoolEntry
+    {
+
+        private final Deque<Marshaller> marshallers = new ArrayDeque<>( MAXIMUM_IDLE_SIZE );
+
+        private final Deque<Unmarshaller> unmarshallers = new ArrayDeque<>( MAXIMUM_IDLE_SIZE );
+
+        private Schema schema;
+
+        private Map<String, Object> marshallerProperties;
+
+        PoolEntry()
+        {
+            super();
+        }
+
+    }
+
+}
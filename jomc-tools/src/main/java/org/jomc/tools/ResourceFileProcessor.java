@@ -31,10 +31,13 @@
 package org.jomc.tools;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.reflect.UndeclaredThrowableException;
-import java.nio.channels.FileLock;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.MessageFormat;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -418,6 +421,8 @@ public class ResourceFileProcessor extends JomcTool
                                                    final File resourcesDirectory )
         throws IOException, ModelObjectException
     {
+        this.beginRun();
+
         try
         {
             class WriteResourceBundleResourceFilesTask implements Callable<Void>
@@ -438,6 +443,8 @@ public class ResourceFileProcessor extends JomcTool
                 @Override
                 public Void call() throws IOException, ModelObjectException
                 {
+                    final long start = System.nanoTime();
+
                     if ( this.specification != null )
                     {
                         writeResourceBundleResourceFiles( this.specification, resourcesDirectory );
@@ -447,6 +454,12 @@ public class ResourceFileProcessor extends JomcTool
                         writeResourceBundleResourceFiles( this.implementation, resourcesDirectory );
                     }
 
+                    getMetrics().onFileProcessed( "writeResourceBundleResourceFiles",
+                                                  this.specification != null
+                                                      ? this.specification.getIdentifier()
+                                                      : this.implementation.getIdentifier(),
+                                                  System.nanoTime() - start );
+
                     return null;
                 }
 
@@ -585,6 +598,11 @@ public class ResourceFileProcessor extends JomcTool
                 throw new UndeclaredThrowableException( e.getCause() );
             }
         }
+        finally
+        {
+            this.endRun();
+            this.flushLog();
+        }
     }
 
     private void writeResourceBundleResourceFiles( final Map<Locale, Properties> resources,
@@ -637,12 +655,7 @@ public class ResourceFileProcessor extends JomcTool
                 this.log( Level.INFO, getMessage( "writing", file.getCanonicalPath() ), null );
             }
 
-            try ( final FileOutputStream out = new FileOutputStream( file );
-                  final FileLock fileLock = out.getChannel().lock() )
-            {
-                p.store( out, toolName + ' ' + toolVersion + " - See " + toolUrl );
-                out.getChannel().force( true );
-            }
+            this.writeProperties( p, file, toolName + ' ' + toolVersion + " - See " + toolUrl );
         }
 
         if ( defProperties == null )
@@ -666,12 +679,29 @@ public class ResourceFileProcessor extends JomcTool
                 this.log( Level.INFO, getMessage( "writing", file.getCanonicalPath() ), null );
             }
 
-            try ( final FileOutputStream out = new FileOutputStream( file );
-                  final FileLock fileLock = out.getChannel().lock() )
+            this.writeProperties( defProperties, file, toolName + ' ' + toolVersion + " - See " + toolUrl );
+        }
+    }
+
+    private void writeProperties( final Properties properties, final File file, final String comments )
+        throws IOException
+    {
+        final Path target = file.toPath();
+        final Path tmp = getTemporaryFile( target );
+
+        try
+        {
+            try ( final FileChannel channel = FileChannel.open( tmp, StandardOpenOption.WRITE ) )
             {
-                defProperties.store( out, toolName + ' ' + toolVersion + " - See " + toolUrl );
-                out.getChannel().force( true );
+                properties.store( Channels.newOutputStream( channel ), comments );
+                channel.force( true );
             }
+
+            this.replaceFile( tmp, target );
+        }
+        finally
+        {
+            Files.deleteIfExists( tmp );
         }
     }
 
@@ -30,28 +30,84 @@
  */
 package org.jomc.tools;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.Reader;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
-import java.io.Writer;
-import java.nio.channels.FileLock;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
 import org.apache.commons.lang.StringUtils;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
+import org.apache.velocity.context.Context;
 import org.apache.velocity.exception.VelocityException;
+import org.jomc.model.Dependency;
 import org.jomc.model.Implementation;
 import org.jomc.model.Implementations;
 import org.jomc.model.Instance;
 import org.jomc.model.Module;
+import org.jomc.model.Modules;
+import org.jomc.model.ObjectFactory;
 import org.jomc.model.Specification;
+import org.jomc.modlet.Model;
+import org.jomc.modlet.ModelContext;
+import org.jomc.modlet.ModelContextFactory;
+import org.jomc.modlet.ModelException;
 import org.jomc.tools.model.SourceFileType;
 import org.jomc.tools.model.SourceFilesType;
 import org.jomc.tools.model.SourceSectionType;
@@ -78,11 +134,101 @@ import org.jomc.util.TrailingWhitespaceEditor;
 public class SourceFileProcessor extends JomcTool
 {
 
+    /**
+     * Buffers used for reading and writing source files not in use by any thread.
+     * <p>
+     * Buffers are pooled instead of being bound to threads, so that executors creating a thread per task do not
+     * allocate new buffers for every task. At most twice the number of available processors buffers are kept.
+     * </p>
+     */
+    private static final BlockingQueue<SourceFileBuffers> BUFFERS =
+        new ArrayBlockingQueue<>( 2 * Runtime.getRuntime().availableProcessors() );
+
+    /**
+     * Names of velocity context entries whose values change from run to run.
+     */
+    private static final Set<String> TIME_CONTEXT_KEYS = new HashSet<>( Arrays.asList(
+        "calendar", "now", "year", "month", "day", "hour", "minute", "second", "timezone", "shortDate", "mediumDate",
+        "longDate", "isoDate", "shortTime", "mediumTime", "longTime", "isoTime", "shortDateTime", "mediumDateTime",
+        "longDateTime", "isoDateTime" ) );
+
     /**
      * The source file editor of the instance.
      */
     private SourceFileProcessor.SourceFileEditor sourceFileEditor;
 
+    /**
+     * Flag indicating the source file editor of the instance has been created by the instance and has not been handed
+     * out.
+     */
+    private volatile boolean defaultSourceFileEditor;
+
+    /**
+     * The file holding the manifest of the source files managed by the instance.
+     */
+    private volatile File sourceFilesManifest;
+
+    /**
+     * The durability of source files written by the instance.
+     */
+    private volatile Durability durability;
+
+    /**
+     * Source files written by the instance pending synchronization with the storage device.
+     */
+    private final Queue<Path> unsynchronizedSourceFiles = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Flag indicating the section cache of the instance is enabled.
+     */
+    private volatile Boolean sectionCacheEnabled;
+
+    /**
+     * The directory of the section cache of the instance.
+     */
+    private volatile File sectionCacheDirectory;
+
+    /**
+     * Rendered section templates by fingerprint.
+     */
+    private final Map<String, String> sectionCache = new ConcurrentHashMap<>( 1024 );
+
+    /**
+     * Number of section cache hits.
+     */
+    private final AtomicLong sectionCacheHits = new AtomicLong();
+
+    /**
+     * Number of section cache misses.
+     */
+    private final AtomicLong sectionCacheMisses = new AtomicLong();
+
+    /**
+     * The maximum number of days sections are kept in the section cache directory of the instance without being used.
+     */
+    private volatile Integer sectionCacheMaxAge;
+
+    /**
+     * Fingerprint of the model and settings of the last run or {@code null}.
+     */
+    private volatile String runFingerprint;
+
+    /**
+     * Fingerprints of the model objects of the model of the instance or {@code null}.
+     */
+    private volatile ModelObjectFingerprints modelObjectFingerprints;
+
+    /**
+     * Digests of templates by template.
+     */
+    private final Map<Template, String> templateDigests =
+        Collections.synchronizedMap( new WeakHashMap<Template, String>( 128 ) );
+
+    /**
+     * Class declaring implementations of the model of the instance by class name or {@code null}.
+     */
+    private volatile ImplementationIndex implementationIndex;
+
     /**
      * Creates a new {@code SourceFileProcessor} instance.
      */
@@ -103,7 +249,17 @@ public class SourceFileProcessor extends JomcTool
     public SourceFileProcessor( final SourceFileProcessor tool ) throws IOException
     {
         super( tool );
-        this.sourceFileEditor = tool.sourceFileEditor;
+
+        if ( !tool.defaultSourceFileEditor )
+        {
+            this.sourceFileEditor = tool.sourceFileEditor;
+        }
+
+        this.sourceFilesManifest = tool.sourceFilesManifest;
+        this.durability = tool.durability;
+        this.sectionCacheEnabled = tool.sectionCacheEnabled;
+        this.sectionCacheDirectory = tool.sectionCacheDirectory;
+        this.sectionCacheMaxAge = tool.sectionCacheMaxAge;
     }
 
     /**
@@ -176,25 +332,27 @@ public class SourceFileProcessor extends JomcTool
 
     /**
      * Gets the source file editor of the instance.
+     * <p>
+     * Source files are managed in parallel using the {@code ExecutorService} of the instance only as long as neither
+     * this method has been called nor an editor has been set using method {@code setSourceFileEditor}. Every task
+     * then uses its own default editor. Editors are not required to be thread-safe and may have been configured by
+     * the caller, so that source files are managed sequentially using the editor of the instance as soon as it has
+     * been handed out by this method or has been set.
+     * </p>
      *
      * @return The source file editor of the instance.
      *
      * @since 1.2
      *
      * @see #setSourceFileEditor(org.jomc.tools.SourceFileProcessor.SourceFileEditor)
+     * @see #getExecutorService()
      */
     public final SourceFileProcessor.SourceFileEditor getSourceFileEditor()
     {
-        if ( this.sourceFileEditor == null )
-        {
-            this.sourceFileEditor =
-                new SourceFileProcessor.SourceFileEditor( new TrailingWhitespaceEditor( this.getLineSeparator() ),
-                                                          this.getLineSeparator() );
-
-            this.sourceFileEditor.setExecutorService( this.getExecutorService() );
-        }
-
-        return this.sourceFileEditor;
+        final SourceFileProcessor.SourceFileEditor editor = this.getInstanceSourceFileEditor();
+        // The editor handed out may get configured in ways per task editors would not reflect.
+        this.defaultSourceFileEditor = false;
+        return editor;
     }
 
     /**
@@ -209,6 +367,237 @@ public class SourceFileProcessor extends JomcTool
     public final void setSourceFileEditor( final SourceFileProcessor.SourceFileEditor value )
     {
         this.sourceFileEditor = value;
+        this.defaultSourceFileEditor = false;
+    }
+
+    /**
+     * Gets the file holding the manifest of the source files managed by the instance.
+     * <p>
+     * The manifest is an optional file, usually located in the build output, holding a fingerprint of every managed
+     * source file keyed by the location of the file. A fingerprint is made up of a digest of the model and the
+     * settings of the instance, the templates declared for the source file and the size, time of last modification
+     * and digest of the file. Source files whose fingerprint did not change are neither read, rendered nor written.
+     * Templates included from within other templates are not part of a fingerprint.
+     * </p>
+     *
+     * @return The file holding the manifest of the source files managed by the instance or {@code null}, if no
+     * manifest is used.
+     *
+     * @since 2.0
+     *
+     * @see #setSourceFilesManifest(java.io.File)
+     */
+    public final File getSourceFilesManifest()
+    {
+        return this.sourceFilesManifest;
+    }
+
+    /**
+     * Sets the file holding the manifest of the source files managed by the instance.
+     *
+     * @param value The new file holding the manifest of the source files managed by the instance or {@code null}, to
+     * not use a manifest.
+     *
+     * @since 2.0
+     *
+     * @see #getSourceFilesManifest()
+     */
+    public final void setSourceFilesManifest( final File value )
+    {
+        this.sourceFilesManifest = value;
+    }
+
+    /**
+     * Gets the durability of source files written by the instance.
+     * <p>
+     * The default durability is controlled by system property {@code org.jomc.tools.SourceFileProcessor.durability}
+     * holding the name of the durability to use by default. If that property is not set, the {@code FILE} default is
+     * returned.
+     * </p>
+     *
+     * @return The durability of source files written by the instance.
+     *
+     * @since 2.0
+     *
+     * @see #setDurability(org.jomc.tools.Durability)
+     */
+    public final Durability getDurability()
+    {
+        if ( this.durability == null )
+        {
+            this.durability = Durability.valueOf( System.getProperty( "org.jomc.tools.SourceFileProcessor.durability",
+                                                                      Durability.FILE.name() ) );
+
+        }
+
+        return this.durability;
+    }
+
+    /**
+     * Sets the durability of source files written by the instance.
+     *
+     * @param value The new durability of source files written by the instance or {@code null}.
+     *
+     * @since 2.0
+     *
+     * @see #getDurability()
+     */
+    public final void setDurability( final Durability value )
+    {
+        this.durability = value;
+    }
+
+    /**
+     * Gets a flag indicating the section cache of the instance is enabled.
+     * <p>
+     * The section cache holds the output of head and tail templates of source sections keyed by a fingerprint of the
+     * model and the settings of the instance, the template, the edited model object and the source section. Sections
+     * whose fingerprint is found in the cache are not rendered again. Output of templates referring to the current
+     * date or time or leaving entries in the velocity context is not cached. The default value is controlled by system
+     * property {@code org.jomc.tools.SourceFileProcessor.sectionCacheEnabled}.
+     * </p>
+     *
+     * @return {@code true}, if the section cache of the instance is enabled; {@code false}, else.
+     *
+     * @since 2.0
+     *
+     * @see #setSectionCacheEnabled(java.lang.Boolean)
+     * @see #getSectionCacheDirectory()
+     */
+    public final boolean isSectionCacheEnabled()
+    {
+        if ( this.sectionCacheEnabled == null )
+        {
+            this.sectionCacheEnabled =
+                Boolean.valueOf( System.getProperty( "org.jomc.tools.SourceFileProcessor.sectionCacheEnabled" ) );
+
+        }
+
+        return this.sectionCacheEnabled;
+    }
+
+    /**
+     * Sets the flag indicating the section cache of the instance is enabled.
+     *
+     * @param value The new value of the flag or {@code null}.
+     *
+     * @since 2.0
+     *
+     * @see #isSectionCacheEnabled()
+     */
+    public final void setSectionCacheEnabled( final Boolean value )
+    {
+        this.sectionCacheEnabled = value;
+    }
+
+    /**
+     * Gets the directory used for storing the section cache of the instance.
+     *
+     * @return The directory used for storing the section cache of the instance or {@code null}, if the section cache
+     * is held in memory only.
+     *
+     * @since 2.0
+     *
+     * @see #setSectionCacheDirectory(java.io.File)
+     */
+    public final File getSectionCacheDirectory()
+    {
+        return this.sectionCacheDirectory;
+    }
+
+    /**
+     * Sets the directory used for storing the section cache of the instance.
+     *
+     * @param value The new directory used for storing the section cache of the instance or {@code null}, to hold the
+     * section cache in memory only.
+     *
+     * @since 2.0
+     *
+     * @see #getSectionCacheDirectory()
+     */
+    public final void setSectionCacheDirectory( final File value )
+    {
+        this.sectionCacheDirectory = value;
+    }
+
+    /**
+     * Gets the maximum number of days sections are kept in the section cache directory of the instance without being
+     * used.
+     * <p>
+     * Sections not used for the given number of days are removed from the section cache directory whenever source
+     * files are managed. The default value is controlled by system property
+     * {@code org.jomc.tools.SourceFileProcessor.sectionCacheMaxAge} (defaults to {@code 30}).
+     * </p>
+     *
+     * @return The maximum number of days sections are kept in the section cache directory of the instance without
+     * being used.
+     *
+     * @since 2.0
+     *
+     * @see #setSectionCacheMaxAge(java.lang.Integer)
+     * @see #getSectionCacheDirectory()
+     */
+    public final int getSectionCacheMaxAge()
+    {
+        if ( this.sectionCacheMaxAge == null )
+        {
+            this.sectionCacheMaxAge =
+                Integer.getInteger( "org.jomc.tools.SourceFileProcessor.sectionCacheMaxAge", 30 );
+
+        }
+
+        return this.sectionCacheMaxAge;
+    }
+
+    /**
+     * Sets the maximum number of days sections are kept in the section cache directory of the instance without being
+     * used.
+     *
+     * @param value The new maximum number of days sections are kept in the section cache directory of the instance
+     * without being used or {@code null}.
+     *
+     * @throws IllegalArgumentException if {@code value} is negative.
+     *
+     * @since 2.0
+     *
+     * @see #getSectionCacheMaxAge()
+     */
+    public final void setSectionCacheMaxAge( final Integer value )
+    {
+        if ( value != null && value < 0 )
+        {
+            throw new IllegalArgumentException( Integer.toString( value ) );
+        }
+
+        this.sectionCacheMaxAge = value;
+    }
+
+    /**
+     * Gets the number of sections found in the section cache of the instance.
+     *
+     * @return The number of sections found in the section cache of the instance.
+     *
+     * @since 2.0
+     *
+     * @see #isSectionCacheEnabled()
+     */
+    public final long getSectionCacheHits()
+    {
+        return this.sectionCacheHits.get();
+    }
+
+    /**
+     * Gets the number of sections not found in the section cache of the instance.
+     *
+     * @return The number of sections not found in the section cache of the instance.
+     *
+     * @since 2.0
+     *
+     * @see #isSectionCacheEnabled()
+     */
+    public final long getSectionCacheMisses()
+    {
+        return this.sectionCacheMisses.get();
     }
 
     /**
@@ -230,198 +619,1306 @@ public class SourceFileProcessor extends JomcTool
 
         if ( this.getModules() != null )
         {
+            final Map<String, ManageSourceFileTask> tasks = new LinkedHashMap<>( 512 );
+            final Map<String, Implementation> implementationsByClass = this.getImplementationsByClass();
+
             for ( int i = this.getModules().getModule().size() - 1; i >= 0; i-- )
             {
-                this.manageSourceFiles( this.getModules().getModule().get( i ), sourcesDirectory );
+                this.addManageSourceFileTasks( this.getModules().getModule().get( i ), sourcesDirectory,
+                                               implementationsByClass, tasks );
+
             }
+
+            this.manageSourceFiles( tasks );
         }
         else if ( this.isLoggable( Level.WARNING ) )
         {
-            this.log( Level.WARNING, getMessage( "modulesNotFound", this.getModel().getIdentifier() ), null );
+            this.log( Level.WARNING, getMessage( "modulesNotFound", this.getModel().getIdentifier() ), null );
+        }
+    }
+
+    /**
+     * Manages the source files of a given module of the modules of the instance.
+     *
+     * @param module The module to process.
+     * @param sourcesDirectory The directory holding the source files to manage.
+     *
+     * @throws NullPointerException if {@code module} or {@code sourcesDirectory} is {@code null}.
+     * @throws IOException if managing source files fails.
+     *
+     * @see #manageSourceFiles(org.jomc.model.Specification, java.io.File)
+     * @see #manageSourceFiles(org.jomc.model.Implementation, java.io.File)
+     */
+    public void manageSourceFiles( final Module module, final File sourcesDirectory ) throws IOException
+    {
+        if ( module == null )
+        {
+            throw new NullPointerException( "module" );
+        }
+        if ( sourcesDirectory == null )
+        {
+            throw new NullPointerException( "sourcesDirectory" );
+        }
+
+        final Map<String, ManageSourceFileTask> tasks = new LinkedHashMap<>( 512 );
+        this.addManageSourceFileTasks( module, sourcesDirectory, this.getImplementationsByClass(), tasks );
+        this.manageSourceFiles( tasks );
+    }
+
+    /**
+     * Manages the source files of a given specification of the modules of the instance.
+     *
+     * @param specification The specification to process.
+     * @param sourcesDirectory The directory holding the source files to manage.
+     *
+     * @throws NullPointerException if {@code specification} or {@code sourcesDirectory} is {@code null}.
+     * @throws IOException if managing source files fails.
+     *
+     * @see #getSourceFileEditor()
+     * @see #getSourceFilesType(org.jomc.model.Specification)
+     */
+    public void manageSourceFiles( final Specification specification, final File sourcesDirectory ) throws IOException
+    {
+        if ( specification == null )
+        {
+            throw new NullPointerException( "specification" );
+        }
+        if ( sourcesDirectory == null )
+        {
+            throw new NullPointerException( "sourcesDirectory" );
+        }
+
+        final Map<String, ManageSourceFileTask> tasks = new LinkedHashMap<>( 16 );
+        this.addManageSourceFileTasks( specification, sourcesDirectory, this.getImplementationsByClass(), tasks );
+        this.manageSourceFiles( tasks );
+    }
+
+    /**
+     * Manages the source files of a given implementation of the modules of the instance.
+     *
+     * @param implementation The implementation to process.
+     * @param sourcesDirectory The directory holding the source files to manage.
+     *
+     * @throws NullPointerException if {@code implementation} or {@code sourcesDirectory} is {@code null}.
+     * @throws IOException if managing source files fails.
+     *
+     * @see #getSourceFileEditor()
+     * @see #getSourceFilesType(org.jomc.model.Implementation)
+     */
+    public void manageSourceFiles( final Implementation implementation, final File sourcesDirectory )
+        throws IOException
+    {
+        if ( implementation == null )
+        {
+            throw new NullPointerException( "implementation" );
+        }
+        if ( sourcesDirectory == null )
+        {
+            throw new NullPointerException( "sourcesDirectory" );
+        }
+
+        final Map<String, ManageSourceFileTask> tasks = new LinkedHashMap<>( 16 );
+        this.addManageSourceFileTasks( implementation, sourcesDirectory, tasks );
+        this.manageSourceFiles( tasks );
+    }
+
+    private void addManageSourceFileTasks( final Module module, final File sourcesDirectory,
+                                           final Map<String, Implementation> implementationsByClass,
+                                           final Map<String, ManageSourceFileTask> tasks )
+    {
+        if ( this.getModules() != null && this.getModules().getModule( module.getName() ) != null )
+        {
+            if ( module.getSpecifications() != null )
+            {
+                for ( int i = 0, s0 = module.getSpecifications().getSpecification().size(); i < s0; i++ )
+                {
+                    this.addManageSourceFileTasks( module.getSpecifications().getSpecification().get( i ),
+                                                   sourcesDirectory, implementationsByClass, tasks );
+
+                }
+            }
+            if ( module.getImplementations() != null )
+            {
+                for ( int i = 0, s0 = module.getImplementations().getImplementation().size(); i < s0; i++ )
+                {
+                    this.addManageSourceFileTasks( module.getImplementations().getImplementation().get( i ),
+                                                   sourcesDirectory, tasks );
+
+                }
+            }
+        }
+        else if ( this.isLoggable( Level.WARNING ) )
+        {
+            this.log( Level.WARNING, getMessage( "moduleNotFound", module.getName() ), null );
+        }
+    }
+
+    private void addManageSourceFileTasks( final Specification specification, final File sourcesDirectory,
+                                           final Map<String, Implementation> implementationsByClass,
+                                           final Map<String, ManageSourceFileTask> tasks )
+    {
+        if ( this.getModules() != null
+                 && this.getModules().getSpecification( specification.getIdentifier() ) != null )
+        {
+            if ( specification.isClassDeclaration() )
+            {
+                final Implementation impl = implementationsByClass.get( specification.getClazz() );
+
+                if ( impl != null )
+                {
+                    this.addManageSourceFileTasks( impl, sourcesDirectory, tasks );
+                }
+                else
+                {
+                    final SourceFilesType model = this.getSourceFilesType( specification );
+
+                    if ( model != null )
+                    {
+                        for ( int i = 0, s0 = model.getSourceFile().size(); i < s0; i++ )
+                        {
+                            this.addManageSourceFileTask( new ManageSourceFileTask(
+                                specification, null, model.getSourceFile().get( i ), sourcesDirectory ), tasks );
+
+                        }
+                    }
+                }
+            }
+        }
+        else if ( this.isLoggable( Level.WARNING ) )
+        {
+            this.log( Level.WARNING, getMessage( "specificationNotFound", specification.getIdentifier() ), null );
+        }
+    }
+
+    private void addManageSourceFileTasks( final Implementation implementation, final File sourcesDirectory,
+                                           final Map<String, ManageSourceFileTask> tasks )
+    {
+        if ( this.getModules() != null
+                 && this.getModules().getImplementation( implementation.getIdentifier() ) != null )
+        {
+            if ( implementation.isClassDeclaration() )
+            {
+                final SourceFilesType model = this.getSourceFilesType( implementation );
+
+                if ( model != null )
+                {
+                    for ( int i = 0, s0 = model.getSourceFile().size(); i < s0; i++ )
+                    {
+                        this.addManageSourceFileTask( new ManageSourceFileTask(
+                            null, implementation, model.getSourceFile().get( i ), sourcesDirectory ), tasks );
+
+                    }
+                }
+            }
+        }
+        else if ( this.isLoggable( Level.WARNING ) )
+        {
+            this.log( Level.WARNING, getMessage( "implementationNotFound", implementation.getIdentifier() ), null );
+        }
+    }
+
+    private void addManageSourceFileTask( final ManageSourceFileTask task,
+                                          final Map<String, ManageSourceFileTask> tasks )
+    {
+        // Source files are keyed by location so that no two tasks edit the same file concurrently. A specification
+        // and an implementation sharing a class are managed by the task of the implementation only. Any other source
+        // file resolving to an already managed location is reported and not managed.
+        final String key = task.sourceFileType.getLocation() != null
+                               ? new File( task.sourcesDirectory, task.sourceFileType.getLocation() ).getAbsolutePath()
+                               : task.sourceFileType.getIdentifier();
+
+        final ManageSourceFileTask existing = tasks.get( key );
+
+        if ( existing == null )
+        {
+            tasks.put( key, task );
+        }
+        else if ( !( existing.getOwnerIdentifier().equals( task.getOwnerIdentifier() )
+                     && existing.sourceFileType.getIdentifier().equals( task.sourceFileType.getIdentifier() ) )
+                      && this.isLoggable( Level.WARNING ) )
+        {
+            this.log( Level.WARNING, getMessage( "sourceFileCollision", key, task.getOwnerIdentifier(),
+                                                 existing.getOwnerIdentifier() ), null );
+
+        }
+    }
+
+    private void manageSourceFiles( final Map<String, ManageSourceFileTask> tasks ) throws IOException
+    {
+        this.beginRun();
+
+        try
+        {
+            final String fingerprint = ( this.getSourceFilesManifest() != null || this.isSectionCacheEnabled() )
+                                           && !tasks.isEmpty()
+                                           ? this.getRunFingerprint()
+                                           : null;
+
+            if ( fingerprint == null || !fingerprint.equals( this.runFingerprint ) )
+            {
+                this.sectionCache.clear();
+            }
+
+            this.runFingerprint = fingerprint;
+
+            final SourceFilesManifest manifest = this.getSourceFilesManifest() != null && fingerprint != null
+                                                     ? this.readSourceFilesManifest( fingerprint )
+                                                     : null;
+
+            for ( final ManageSourceFileTask task : tasks.values() )
+            {
+                task.manifest = manifest;
+            }
+
+            if ( tasks.size() > 1 )
+            {
+                final Set<String> templateNames = new HashSet<>();
+
+                for ( final ManageSourceFileTask task : tasks.values() )
+                {
+                    if ( task.sourceFileType.getTemplate() != null )
+                    {
+                        templateNames.add( task.sourceFileType.getTemplate() );
+                    }
+
+                    addTemplateNames( task.sourceFileType.getSourceSections(), templateNames );
+                }
+
+                this.preloadTemplates( templateNames );
+            }
+
+            if ( this.getExecutorService() != null && tasks.size() > 1
+                     && ( this.sourceFileEditor == null || this.defaultSourceFileEditor ) )
+            {
+                for ( final ManageSourceFileTask task : tasks.values() )
+                {
+                    task.exclusiveEditor = true;
+                }
+
+                for ( final Future<Void> task : this.getExecutorService().invokeAll( tasks.values() ) )
+                {
+                    task.get();
+                }
+            }
+            else
+            {
+                for ( final ManageSourceFileTask task : tasks.values() )
+                {
+                    task.call();
+                }
+            }
+
+            if ( manifest != null && manifest.modified )
+            {
+                this.writeSourceFilesManifest( manifest );
+            }
+
+            this.synchronizeSourceFiles();
+
+            if ( fingerprint != null && this.isSectionCacheEnabled() )
+            {
+                this.pruneSectionCache();
+            }
+
+            if ( fingerprint != null && this.isSectionCacheEnabled() && this.isLoggable( Level.FINE ) )
+            {
+                this.log( Level.FINE, getMessage( "sectionCacheStatistics", this.getSectionCacheHits(),
+                                                  this.getSectionCacheMisses() ), null );
+
+            }
+        }
+        catch ( final CancellationException e )
+        {
+            throw new IOException( getMessage( e ), e );
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( getMessage( e ), e );
+        }
+        catch ( final ExecutionException e )
+        {
+            if ( e.getCause() instanceof IOException )
+            {
+                throw (IOException) e.getCause();
+            }
+            else if ( e.getCause() instanceof RuntimeException )
+            {
+                // The fork-join framework breaks the exception handling contract of Callable by re-throwing any
+                // exception caught using a runtime exception.
+                if ( e.getCause().getCause() instanceof IOException )
+                {
+                    throw (IOException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof RuntimeException )
+                {
+                    throw (RuntimeException) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof Error )
+                {
+                    throw (Error) e.getCause().getCause();
+                }
+                else if ( e.getCause().getCause() instanceof Exception )
+                {
+                    // Checked exception not declared to be thrown by the Callable's 'call' method.
+                    throw new UndeclaredThrowableException( e.getCause().getCause() );
+                }
+                else
+                {
+                    throw (RuntimeException) e.getCause();
+                }
+            }
+            else if ( e.getCause() instanceof Error )
+            {
+                throw (Error) e.getCause();
+            }
+            else
+            {
+                // Checked exception not declared to be thrown by the Callable's 'call' method.
+                throw new UndeclaredThrowableException( e.getCause() );
+            }
+        }
+        finally
+        {
+            this.endRun();
+            this.flushLog();
+        }
+    }
+
+    private Map<String, Implementation> getImplementationsByClass()
+    {
+        // Index of class declaring implementations by class name replacing a scan of all implementations per
+        // specification. The index is kept for the duration of a run.
+        final Model model = this.getModel();
+        final long generation = this.getModelGeneration();
+        ImplementationIndex index = this.implementationIndex;
+
+        if ( index == null || index.model != model || index.generation != generation || generation < 0L )
+        {
+            index = new ImplementationIndex( model, generation, this.getModules() );
+
+            if ( generation >= 0L )
+            {
+                this.implementationIndex = index;
+            }
+        }
+
+        return index.implementationsByClass;
+    }
+
+    private void synchronizeSourceFiles() throws IOException
+    {
+        for ( Path path = this.unsynchronizedSourceFiles.poll(); path != null;
+              path = this.unsynchronizedSourceFiles.poll() )
+        {
+            try ( final FileChannel channel = FileChannel.open( path, StandardOpenOption.WRITE ) )
+            {
+                channel.force( true );
+            }
+        }
+    }
+
+    private String getRunFingerprint()
+    {
+        // The model is covered by the fingerprints of the model objects a source file is managed for.
+        final StringBuilder fingerprint = new StringBuilder( 1024 ).append( this.getModel().getIdentifier() );
+        fingerprint.append( '|' ).append( this.getTemplateProfile() ).
+            append( '|' ).append( this.getLocale() ).
+            append( '|' ).append( this.getTemplateLocation() ).
+            append( '|' ).append( this.getInputEncoding() ).
+            append( '|' ).append( this.getOutputEncoding() ).
+            append( '|' ).append( this.getIndentation() ).
+            append( '|' ).append( this.getLineSeparator() ).
+            append( '|' ).append( new TreeMap<>( this.getTemplateParameters() ) );
+
+        return toHexString( digest( fingerprint ) );
+    }
+
+    private String getSectionCacheFingerprint( final Specification specification,
+                                               final Implementation implementation )
+        throws IOException
+    {
+        final String modelObjectFingerprint = this.getModelObjectFingerprint( specification, implementation );
+        return modelObjectFingerprint != null ? this.getRunFingerprint() + '|' + modelObjectFingerprint : null;
+    }
+
+    private String getModelObjectFingerprint( final Specification specification,
+                                              final Implementation implementation )
+        throws IOException
+    {
+        // Marshalling model objects is expensive. Digests are kept for the duration of a run.
+        final Model model = this.getModel();
+        final long generation = this.getModelGeneration();
+        ModelObjectFingerprints fingerprints = this.modelObjectFingerprints;
+
+        if ( fingerprints == null || fingerprints.model != model || fingerprints.generation != generation
+                 || generation < 0L )
+        {
+            fingerprints = new ModelObjectFingerprints( model, generation );
+
+            if ( generation >= 0L )
+            {
+                this.modelObjectFingerprints = fingerprints;
+            }
+        }
+
+        final String key = specification != null
+                               ? "specification|" + specification.getIdentifier()
+                               : "implementation|" + implementation.getIdentifier();
+
+        String digest = fingerprints.digests.get( key );
+
+        if ( digest == null )
+        {
+            digest = this.digestModelObject( fingerprints, specification, implementation );
+            fingerprints.digests.put( key, digest );
+        }
+
+        return digest.length() > 0 ? digest : null;
+    }
+
+    private String digestModelObject( final ModelObjectFingerprints fingerprints, final Specification specification,
+                                      final Implementation implementation )
+        throws IOException
+    {
+        // A source file is managed for a specification or an implementation. Besides that object, the templates
+        // read the effective specifications, dependencies, properties and messages of an implementation, the
+        // specifications of its dependencies, the implementations it inherits from and the module declaring it.
+        final Modules modules = this.getModules();
+        final ObjectFactory of = new ObjectFactory();
+        final List<JAXBElement<?>> elements = new ArrayList<>( 16 );
+        Module module = null;
+
+        if ( specification != null )
+        {
+            elements.add( of.createSpecification( specification ) );
+            module = modules != null ? modules.getModuleOfSpecification( specification.getIdentifier() ) : null;
+        }
+
+        if ( implementation != null )
+        {
+            elements.add( of.createImplementation( implementation ) );
+            module = modules != null ? modules.getModuleOfImplementation( implementation.getIdentifier() ) : null;
+
+            final Instance instance = modules != null ? modules.getInstance( implementation.getIdentifier() ) : null;
+
+            if ( instance != null )
+            {
+                if ( instance.getSpecifications() != null )
+                {
+                    elements.add( of.createSpecifications( instance.getSpecifications() ) );
+                }
+                if ( instance.getDependencies() != null )
+                {
+                    elements.add( of.createDependencies( instance.getDependencies() ) );
+
+                    for ( int i = 0, s0 = instance.getDependencies().getDependency().size(); i < s0; i++ )
+                    {
+                        final Dependency d = instance.getDependencies().getDependency().get( i );
+                        final Specification s = modules.getSpecification( d.getIdentifier() );
+
+                        if ( s != null )
+                        {
+                            elements.add( of.createSpecification( s ) );
+                        }
+                    }
+                }
+                if ( instance.getProperties() != null )
+                {
+                    elements.add( of.createProperties( instance.getProperties() ) );
+                }
+                if ( instance.getMessages() != null )
+                {
+                    elements.add( of.createMessages( instance.getMessages() ) );
+                }
+            }
+
+            final Set<String> parents = new HashSet<>();
+            final Deque<Implementation> implementations = new ArrayDeque<>();
+            implementations.push( implementation );
+
+            while ( modules != null && !implementations.isEmpty() )
+            {
+                final Implementation current = implementations.pop();
+
+                if ( current.getImplementations() != null )
+                {
+                    for ( int i = 0, s0 = current.getImplementations().getReference().size(); i < s0; i++ )
+                    {
+                        final Implementation parent = modules.getImplementation(
+                            current.getImplementations().getReference().get( i ).getIdentifier() );
+
+                        if ( parent != null && parents.add( parent.getIdentifier() ) )
+                        {
+                            elements.add( of.createImplementation( parent ) );
+                            implementations.push( parent );
+                        }
+                    }
+                }
+            }
+        }
+
+        try
+        {
+            if ( fingerprints.modelContext == null )
+            {
+                fingerprints.modelContext =
+                    ModelContextFactory.newInstance().newModelContext( this.getClass().getClassLoader() );
+
+            }
+
+            final String modelIdentifier = fingerprints.model.getIdentifier();
+            final Marshaller marshaller =
+                this.getMarshallerPool().acquireMarshaller( fingerprints.modelContext, modelIdentifier );
+
+            final MessageDigest messageDigest = newMessageDigest();
+            final OutputStream nullStream = new OutputStream()
+            {
+
+                @Override
+                public void write( final int b )
+                {
+                }
+
+                @Override
+                public void write( final byte[] b, final int off, final int len )
+                {
+                }
+
+            };
+
+            try ( final OutputStream out = new DigestOutputStream( nullStream, messageDigest ) )
+            {
+                for ( int i = 0, s0 = elements.size(); i < s0; i++ )
+                {
+                    marshaller.marshal( elements.get( i ), out );
+                }
+
+                if ( module != null )
+                {
+                    out.write( ( module.getName() + '|' + module.getVersion() ).getBytes( "UTF-8" ) );
+                }
+            }
+            finally
+            {
+                this.getMarshallerPool().releaseMarshaller( fingerprints.modelContext, modelIdentifier, marshaller );
+            }
+
+            return toHexString( messageDigest.digest() );
+        }
+        catch ( final ModelException | JAXBException e )
+        {
+            if ( this.isLoggable( Level.WARNING ) )
+            {
+                this.log( Level.WARNING, getMessage( "fingerprintUnavailable",
+                                                     specification != null
+                                                         ? specification.getIdentifier()
+                                                         : implementation.getIdentifier(),
+                                                     getMessage( e ) ), null );
+
+            }
+
+            return "";
+        }
+    }
+
+    private SourceFilesManifest readSourceFilesManifest( final String fingerprint ) throws IOException
+    {
+        final SourceFilesManifest manifest = new SourceFilesManifest( this.getSourceFilesManifest(), fingerprint );
+
+        if ( manifest.file.isFile() )
+        {
+            if ( this.isLoggable( Level.FINER ) )
+            {
+                this.log( Level.FINER, getMessage( "reading", manifest.file.getAbsolutePath() ), null );
+            }
+
+            final java.util.Properties properties = new java.util.Properties();
+
+            try ( final InputStream in = new FileInputStream( manifest.file ) )
+            {
+                properties.load( in );
+            }
+
+            for ( final String key : properties.stringPropertyNames() )
+            {
+                manifest.entries.put( key, properties.getProperty( key ) );
+            }
+        }
+
+        return manifest;
+    }
+
+    private void writeSourceFilesManifest( final SourceFilesManifest manifest ) throws IOException
+    {
+        final File parent = manifest.file.getAbsoluteFile().getParentFile();
+
+        if ( !parent.exists() && !parent.mkdirs() )
+        {
+            throw new IOException( getMessage( "failedCreatingDirectory", parent.getAbsolutePath() ) );
+        }
+
+        final java.util.Properties properties = new java.util.Properties();
+
+        for ( final Map.Entry<String, String> e : manifest.entries.entrySet() )
+        {
+            properties.setProperty( e.getKey(), e.getValue() );
+        }
+
+        final File tmpFile = File.createTempFile( manifest.file.getName(), ".tmp", parent );
+
+        try
+        {
+            try ( final OutputStream out = new FileOutputStream( tmpFile ) )
+            {
+                properties.store( out, this.getClass().getName() );
+            }
+
+            this.replaceFile( tmpFile.toPath(), manifest.file.toPath() );
+        }
+        finally
+        {
+            Files.deleteIfExists( tmpFile.toPath() );
+        }
+    }
+
+    private String getSourceFileFingerprint( final ManageSourceFileTask task ) throws IOException
+    {
+        final String modelObjectFingerprint =
+            this.getModelObjectFingerprint( task.specification, task.implementation );
+
+        if ( modelObjectFingerprint == null )
+        {
+            return null;
+        }
+
+        final StringBuilder fingerprint = new StringBuilder( 1024 ).append( task.manifest.fingerprint ).
+            append( '|' ).append( modelObjectFingerprint );
+
+        if ( task.specification != null )
+        {
+            fingerprint.append( '|' ).append( task.specification.getIdentifier() );
+        }
+        if ( task.implementation != null )
+        {
+            fingerprint.append( '|' ).append( task.implementation.getIdentifier() );
+        }
+
+        fingerprint.append( '|' ).append( task.sourceFileType.getIdentifier() );
+
+        final Set<String> templateNames = new TreeSet<>();
+
+        if ( task.sourceFileType.getTemplate() != null )
+        {
+            templateNames.add( task.sourceFileType.getTemplate() );
+        }
+
+        addTemplateNames( task.sourceFileType.getSourceSections(), templateNames );
+
+        for ( final String templateName : templateNames )
+        {
+            fingerprint.append( '|' ).append( templateName ).append( '=' ).
+                append( this.getTemplateDigest( templateName ) );
+
+        }
+
+        return toHexString( digest( fingerprint ) );
+    }
+
+    private String getSectionCacheKey( final String fingerprint, final String templateName,
+                                       final Specification specification, final Implementation implementation,
+                                       final SourceFileType sourceFileType, final SourceSectionType sourceSectionType,
+                                       final String part )
+        throws IOException
+    {
+        String key = null;
+
+        if ( fingerprint != null )
+        {
+            final StringBuilder b = new StringBuilder( 512 ).append( fingerprint ).
+                append( '|' ).append( templateName ).append( '=' ).append( this.getTemplateDigest( templateName ) ).
+                append( '|' ).append( specification != null ? specification.getIdentifier() : "" ).
+                append( '|' ).append( implementation != null ? implementation.getIdentifier() : "" ).
+                append( '|' ).append( sourceFileType.getIdentifier() ).
+                append( '|' ).append( sourceSectionType.getName() ).
+                append( '|' ).append( part );
+
+            key = toHexString( digest( b ) );
+        }
+
+        return key;
+    }
+
+    private String getCachedSection( final String key ) throws IOException
+    {
+        String content = this.sectionCache.get( key );
+
+        if ( content == null && this.getSectionCacheDirectory() != null )
+        {
+            final File file = new File( this.getSectionCacheDirectory(), key );
+
+            if ( file.isFile() )
+            {
+                content = new String( Files.readAllBytes( file.toPath() ), "UTF-8" );
+                this.sectionCache.put( key, content );
+
+                // Keeps the section from being pruned.
+                Files.setLastModifiedTime( file.toPath(), FileTime.fromMillis( System.currentTimeMillis() ) );
+            }
+        }
+
+        if ( content != null )
+        {
+            this.sectionCacheHits.incrementAndGet();
+        }
+        else
+        {
+            this.sectionCacheMisses.incrementAndGet();
+        }
+
+        return content;
+    }
+
+    private void putCachedSection( final String key, final String content ) throws IOException
+    {
+        this.sectionCache.put( key, content );
+
+        if ( this.getSectionCacheDirectory() != null )
+        {
+            final File directory = this.getSectionCacheDirectory();
+
+            if ( !directory.exists() && !directory.mkdirs() )
+            {
+                throw new IOException( getMessage( "failedCreatingDirectory", directory.getAbsolutePath() ) );
+            }
+
+            final File tmpFile = File.createTempFile( key, ".tmp", directory );
+
+            try
+            {
+                Files.write( tmpFile.toPath(), content.getBytes( "UTF-8" ) );
+
+                // Sections are keyed by a digest of everything they are rendered from. Concurrent writers of a
+                // section write the same content, so that the section is replaced without locking.
+                try
+                {
+                    Files.move( tmpFile.toPath(), new File( directory, key ).toPath(),
+                                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+
+                }
+                catch ( final AtomicMoveNotSupportedException e )
+                {
+                    Files.move( tmpFile.toPath(), new File( directory, key ).toPath(),
+                                StandardCopyOption.REPLACE_EXISTING );
+
+                }
+            }
+            finally
+            {
+                Files.deleteIfExists( tmpFile.toPath() );
+            }
+        }
+    }
+
+    private void pruneSectionCache() throws IOException
+    {
+        final File directory = this.getSectionCacheDirectory();
+
+        if ( directory != null && directory.isDirectory() )
+        {
+            final long expiry =
+                System.currentTimeMillis() - TimeUnit.DAYS.toMillis( this.getSectionCacheMaxAge() );
+
+            try ( final DirectoryStream<Path> entries = Files.newDirectoryStream( directory.toPath() ) )
+            {
+                for ( final Path entry : entries )
+                {
+                    if ( Files.isRegularFile( entry ) && Files.getLastModifiedTime( entry ).toMillis() < expiry )
+                    {
+                        Files.deleteIfExists( entry );
+                    }
+                }
+            }
+        }
+    }
+
+    private String getTemplateDigest( final String templateName ) throws IOException
+    {
+        try
+        {
+            // Templates are digested again whenever they are reloaded. The digest covers the resources parsed or
+            // included by the template.
+            final Template template = this.getVelocityTemplate( templateName );
+            String templateDigest = this.templateDigests.get( template );
+
+            if ( templateDigest == null )
+            {
+                templateDigest = digestTemplate( template );
+                final Set<String> dependencies = this.getTemplateDependencies( template );
+
+                if ( !dependencies.isEmpty() )
+                {
+                    final StringBuilder b = new StringBuilder( 512 ).append( templateDigest );
+
+                    for ( final String resourceName : dependencies )
+                    {
+                        b.append( '|' ).append( resourceName ).append( '=' ).
+                            append( this.digestTemplateResource( resourceName ) );
+
+                    }
+
+                    templateDigest = toHexString( digest( b ) );
+                }
+
+                this.templateDigests.put( template, templateDigest );
+            }
+
+            return templateDigest;
+        }
+        catch ( final VelocityException e )
+        {
+            throw new IOException( getMessage( e ), e );
+        }
+    }
+
+    private String digestTemplateResource( final String resourceName ) throws IOException
+    {
+        final URL resource = this.getTemplateResource( resourceName );
+
+        if ( resource != null )
+        {
+            try ( final InputStream in = resource.openStream() )
+            {
+                return toHexString( digest( in ) );
+            }
+            catch ( final FileNotFoundException e )
+            {
+                // Merging the template fails the same way.
+            }
+        }
+
+        return "";
+    }
+
+    private static String digestTemplate( final Template template ) throws IOException
+    {
+        final InputStream in = template.getResourceLoader() != null
+                                   ? template.getResourceLoader().getResourceStream( template.getName() )
+                                   : null;
+
+        if ( in != null )
+        {
+            try ( final InputStream stream = in )
+            {
+                return toHexString( digest( stream ) );
+            }
+        }
+
+        return template.getName() + '@' + template.getLastModified();
+    }
+
+    private static void addTemplateNames( final SourceSectionsType sourceSectionsType, final Set<String> names )
+    {
+        if ( sourceSectionsType != null )
+        {
+            for ( int i = 0, s0 = sourceSectionsType.getSourceSection().size(); i < s0; i++ )
+            {
+                final SourceSectionType sourceSectionType = sourceSectionsType.getSourceSection().get( i );
+
+                if ( sourceSectionType.getHeadTemplate() != null )
+                {
+                    names.add( sourceSectionType.getHeadTemplate() );
+                }
+                if ( sourceSectionType.getTailTemplate() != null )
+                {
+                    names.add( sourceSectionType.getTailTemplate() );
+                }
+
+                addTemplateNames( sourceSectionType.getSourceSections(), names );
+            }
+        }
+    }
+
+    private static boolean isUpToDate( final SourceFilesManifest manifest, final File file, final String fingerprint )
+        throws IOException
+    {
+        final String entry = manifest.entries.get( file.getAbsolutePath() );
+        boolean upToDate = false;
+
+        if ( entry != null && file.isFile() )
+        {
+            final String[] values = entry.split( "," );
+
+            if ( values.length == 4 && values[0].equals( fingerprint )
+                     && Long.toString( file.length() ).equals( values[1] ) )
+            {
+                if ( Long.toString( file.lastModified() ).equals( values[2] ) )
+                {
+                    upToDate = true;
+                }
+                else if ( getFileDigest( file ).equals( values[3] ) )
+                {
+                    // Touched but unchanged file.
+                    manifest.entries.put( file.getAbsolutePath(), fingerprint + ',' + values[1] + ','
+                                                                      + file.lastModified() + ',' + values[3] );
+
+                    manifest.modified = true;
+                    upToDate = true;
+                }
+            }
+        }
+
+        return upToDate;
+    }
+
+    private static void updateManifest( final SourceFilesManifest manifest, final File file, final String fingerprint )
+        throws IOException
+    {
+        if ( file.isFile() )
+        {
+            manifest.entries.put( file.getAbsolutePath(), fingerprint + ',' + file.length() + ','
+                                                              + file.lastModified() + ',' + getFileDigest( file ) );
+
+            manifest.modified = true;
+        }
+    }
+
+    private static String getFileDigest( final File file ) throws IOException
+    {
+        try ( final InputStream in = new FileInputStream( file ) )
+        {
+            return toHexString( digest( in ) );
+        }
+    }
+
+    private static byte[] digest( final CharSequence chars )
+    {
+        try
+        {
+            return newMessageDigest().digest( chars.toString().getBytes( "UTF-8" ) );
+        }
+        catch ( final UnsupportedEncodingException e )
+        {
+            throw new AssertionError( e );
+        }
+    }
+
+    private static byte[] digest( final InputStream in ) throws IOException
+    {
+        final MessageDigest messageDigest = newMessageDigest();
+        final byte[] buffer = new byte[ 8192 ];
+
+        for ( int read = in.read( buffer ); read >= 0; read = in.read( buffer ) )
+        {
+            messageDigest.update( buffer, 0, read );
+        }
+
+        return messageDigest.digest();
+    }
+
+    private static MessageDigest newMessageDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( final NoSuchAlgorithmException e )
+        {
+            throw new AssertionError( e );
+        }
+    }
+
+    private static String toHexString( final byte[] bytes )
+    {
+        final StringBuilder hex = new StringBuilder( bytes.length * 2 );
+
+        for ( final byte b : bytes )
+        {
+            hex.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+        }
+
+        return hex.toString();
+    }
+
+    private SourceFileProcessor.SourceFileEditor getInstanceSourceFileEditor()
+    {
+        if ( this.sourceFileEditor == null )
+        {
+            this.sourceFileEditor = this.newSourceFileEditor();
+            this.sourceFileEditor.setExecutorService( this.getExecutorService() );
+            this.defaultSourceFileEditor = true;
+        }
+
+        return this.sourceFileEditor;
+    }
+
+    private SourceFileProcessor.SourceFileEditor newSourceFileEditor()
+    {
+        return new SourceFileProcessor.SourceFileEditor( new TrailingWhitespaceEditor( this.getLineSeparator() ),
+                                                         this.getLineSeparator() );
+
+    }
+
+    private static String getMessage( final String key, final Object... arguments )
+    {
+        if ( key == null )
+        {
+            throw new NullPointerException( "key" );
         }
+
+        return MessageFormat.format( ResourceBundle.getBundle(
+            SourceFileProcessor.class.getName().replace( '.', '/' ) ).getString( key ), arguments );
+
+    }
+
+    private static String getMessage( final Throwable t )
+    {
+        return t != null
+                   ? t.getMessage() != null && t.getMessage().trim().length() > 0
+                         ? t.getMessage()
+                         : getMessage( t.getCause() )
+                   : null;
+
     }
 
     /**
-     * Manages the source files of a given module of the modules of the instance.
-     *
-     * @param module The module to process.
-     * @param sourcesDirectory The directory holding the source files to manage.
-     *
-     * @throws NullPointerException if {@code module} or {@code sourcesDirectory} is {@code null}.
-     * @throws IOException if managing source files fails.
+     * Task managing a single source file.
      *
-     * @see #manageSourceFiles(org.jomc.model.Specification, java.io.File)
-     * @see #manageSourceFiles(org.jomc.model.Implementation, java.io.File)
+     * @since 2.0
      */
-    public void manageSourceFiles( final Module module, final File sourcesDirectory ) throws IOException
+    private final class ManageSourceFileTask implements Callable<Void>
     {
-        if ( module == null )
+
+        final Specification specification;
+
+        final Implementation implementation;
+
+        final SourceFileType sourceFileType;
+
+        final File sourcesDirectory;
+
+        volatile boolean exclusiveEditor;
+
+        volatile SourceFilesManifest manifest;
+
+        ManageSourceFileTask( final Specification specification, final Implementation implementation,
+                              final SourceFileType sourceFileType, final File sourcesDirectory )
         {
-            throw new NullPointerException( "module" );
+            super();
+            this.specification = specification;
+            this.implementation = implementation;
+            this.sourceFileType = sourceFileType;
+            this.sourcesDirectory = sourcesDirectory;
         }
-        if ( sourcesDirectory == null )
+
+        String getOwnerIdentifier()
         {
-            throw new NullPointerException( "sourcesDirectory" );
+            return this.implementation != null
+                       ? this.implementation.getIdentifier()
+                       : this.specification.getIdentifier();
+
         }
 
-        if ( this.getModules() != null && this.getModules().getModule( module.getName() ) != null )
+        @Override
+        public Void call() throws IOException
         {
-            if ( module.getSpecifications() != null )
+            final long start = System.nanoTime();
+            final File file = this.manifest != null && this.sourceFileType.getLocation() != null
+                                  ? new File( this.sourcesDirectory, this.sourceFileType.getLocation() )
+                                  : null;
+
+            final String fingerprint = file != null ? getSourceFileFingerprint( this ) : null;
+
+            if ( fingerprint != null && isUpToDate( this.manifest, file, fingerprint ) )
             {
-                for ( int i = 0, s0 = module.getSpecifications().getSpecification().size(); i < s0; i++ )
+                if ( isLoggable( Level.FINER ) )
                 {
-                    this.manageSourceFiles( module.getSpecifications().getSpecification().get( i ), sourcesDirectory );
+                    log( Level.FINER, getMessage( "upToDate", file.getAbsolutePath() ), null );
                 }
+
+                return null;
             }
-            if ( module.getImplementations() != null )
+
+            // Editors keep the state of the file being edited in instance fields and cannot be shared among threads.
+            final SourceFileProcessor.SourceFileEditor editor =
+                this.exclusiveEditor ? newSourceFileEditor() : getInstanceSourceFileEditor();
+
+            if ( this.specification != null )
             {
-                for ( int i = 0, s0 = module.getImplementations().getImplementation().size(); i < s0; i++ )
-                {
-                    this.manageSourceFiles( module.getImplementations().getImplementation().get( i ), sourcesDirectory );
-                }
+                editor.edit( this.specification, this.sourceFileType, this.sourcesDirectory );
             }
+            if ( this.implementation != null )
+            {
+                editor.edit( this.implementation, this.sourceFileType, this.sourcesDirectory );
+            }
+            if ( fingerprint != null )
+            {
+                updateManifest( this.manifest, file, fingerprint );
+            }
+
+            getMetrics().onFileProcessed( "manageSourceFiles", this.sourceFileType.getLocation(),
+                                          System.nanoTime() - start );
+
+            return null;
         }
-        else if ( this.isLoggable( Level.WARNING ) )
-        {
-            this.log( Level.WARNING, getMessage( "moduleNotFound", module.getName() ), null );
-        }
+
     }
 
     /**
-     * Manages the source files of a given specification of the modules of the instance.
-     *
-     * @param specification The specification to process.
-     * @param sourcesDirectory The directory holding the source files to manage.
-     *
-     * @throws NullPointerException if {@code specification} or {@code sourcesDirectory} is {@code null}.
-     * @throws IOException if managing source files fails.
+     * Buffers used for reading and writing source files.
      *
-     * @see #getSourceFileEditor()
-     * @see #getSourceFilesType(org.jomc.model.Specification)
+     * @since 2.0
      */
-    public void manageSourceFiles( final Specification specification, final File sourcesDirectory ) throws IOException
+    private static final class SourceFileBuffers
     {
-        if ( specification == null )
+
+        final ByteBuffer bytes = ByteBuffer.allocateDirect( 65536 );
+
+        final CharBuffer chars = CharBuffer.allocate( 65536 );
+
+        SourceFileBuffers()
         {
-            throw new NullPointerException( "specification" );
+            super();
         }
-        if ( sourcesDirectory == null )
+
+        static SourceFileBuffers acquire()
         {
-            throw new NullPointerException( "sourcesDirectory" );
+            final SourceFileBuffers buffers = BUFFERS.poll();
+            return buffers != null ? buffers : new SourceFileBuffers();
         }
 
-        if ( this.getModules() != null
-                 && this.getModules().getSpecification( specification.getIdentifier() ) != null )
+        static void release( final SourceFileBuffers buffers )
         {
-            if ( specification.isClassDeclaration() )
-            {
-                boolean manage = true;
-                final Implementations implementations = this.getModules().getImplementations();
+            buffers.bytes.clear();
+            buffers.chars.clear();
+            BUFFERS.offer( buffers );
+        }
 
-                if ( implementations != null )
-                {
-                    for ( int i = 0, s0 = implementations.getImplementation().size(); i < s0; i++ )
-                    {
-                        final Implementation impl = implementations.getImplementation().get( i );
+    }
 
-                        if ( impl.isClassDeclaration() && specification.getClazz().equals( impl.getClazz() ) )
-                        {
-                            this.manageSourceFiles( impl, sourcesDirectory );
-                            manage = false;
-                            break;
-                        }
-                    }
-                }
+    /**
+     * Index of class declaring implementations by class name.
+     *
+     * @since 2.0
+     */
+    private static final class ImplementationIndex
+    {
+
+        final Model model;
+
+        final long generation;
+
+        final Map<String, Implementation> implementationsByClass;
+
+        ImplementationIndex( final Model model, final long generation, final Modules modules )
+        {
+            super();
+            this.model = model;
+            this.generation = generation;
+
+            // The first implementation declaring a class takes precedence.
+            final Map<String, Implementation> map = new HashMap<>( 1024 );
+            final Implementations implementations = modules != null ? modules.getImplementations() : null;
 
-                if ( manage )
+            if ( implementations != null )
+            {
+                for ( int i = 0, s0 = implementations.getImplementation().size(); i < s0; i++ )
                 {
-                    final SourceFilesType model = this.getSourceFilesType( specification );
+                    final Implementation impl = implementations.getImplementation().get( i );
 
-                    if ( model != null )
+                    if ( impl.isClassDeclaration() && impl.getClazz() != null && !map.containsKey( impl.getClazz() ) )
                     {
-                        for ( int i = 0, s0 = model.getSourceFile().size(); i < s0; i++ )
-                        {
-                            this.getSourceFileEditor().edit(
-                                specification, model.getSourceFile().get( i ), sourcesDirectory );
-
-                        }
+                        map.put( impl.getClazz(), impl );
                     }
                 }
             }
+
+            this.implementationsByClass = Collections.unmodifiableMap( map );
         }
-        else if ( this.isLoggable( Level.WARNING ) )
-        {
-            this.log( Level.WARNING, getMessage( "specificationNotFound", specification.getIdentifier() ), null );
-        }
+
     }
 
     /**
-     * Manages the source files of a given implementation of the modules of the instance.
+     * Fingerprints of the model objects of a model.
      *
-     * @param implementation The implementation to process.
-     * @param sourcesDirectory The directory holding the source files to manage.
-     *
-     * @throws NullPointerException if {@code implementation} or {@code sourcesDirectory} is {@code null}.
-     * @throws IOException if managing source files fails.
-     *
-     * @see #getSourceFileEditor()
-     * @see #getSourceFilesType(org.jomc.model.Implementation)
+     * @since 2.0
      */
-    public void manageSourceFiles( final Implementation implementation, final File sourcesDirectory )
-        throws IOException
+    private static final class ModelObjectFingerprints
     {
-        if ( implementation == null )
-        {
-            throw new NullPointerException( "implementation" );
-        }
-        if ( sourcesDirectory == null )
+
+        final Model model;
+
+        final long generation;
+
+        final Map<String, String> digests = new ConcurrentHashMap<>( 1024 );
+
+        volatile ModelContext modelContext;
+
+        ModelObjectFingerprints( final Model model, final long generation )
         {
-            throw new NullPointerException( "sourcesDirectory" );
+            super();
+            this.model = model;
+            this.generation = generation;
         }
 
-        if ( this.getModules() != null
-                 && this.getModules().getImplementation( implementation.getIdentifier() ) != null )
-        {
-            if ( implementation.isClassDeclaration() )
-            {
-                final SourceFilesType model = this.getSourceFilesType( implementation );
+    }
 
-                if ( model != null )
-                {
-                    for ( int i = 0, s0 = model.getSourceFile().size(); i < s0; i++ )
-                    {
-                        this.getSourceFileEditor().edit(
-                            implementation, model.getSourceFile().get( i ), sourcesDirectory );
+    /**
+     * Fingerprints of managed source files.
+     *
+     * @since 2.0
+     */
+    private static final class SourceFilesManifest
+    {
 
-                    }
-                }
-            }
-        }
-        else if ( this.isLoggable( Level.WARNING ) )
+        final File file;
+
+        final String fingerprint;
+
+        final Map<String, String> entries = new ConcurrentHashMap<>( 1024 );
+
+        volatile boolean modified;
+
+        SourceFilesManifest( final File file, final String fingerprint )
         {
-            this.log( Level.WARNING, getMessage( "implementationNotFound", implementation.getIdentifier() ), null );
+            super();
+            this.file = file;
+            this.fingerprint = fingerprint;
         }
+
     }
 
-    private static String getMessage( final String key, final Object... arguments )
+    /**
+     * {@code VelocityContext} used for merging section templates recording whether a template depends on the current
+     * run.
+     *
+     * @since 2.0
+     */
+    private static final class SectionContext extends VelocityContext
     {
-        if ( key == null )
+
+        private boolean timeRead;
+
+        SectionContext( final Context innerContext )
         {
-            throw new NullPointerException( "key" );
+            super( innerContext );
         }
 
-        return MessageFormat.format( ResourceBundle.getBundle(
-            SourceFileProcessor.class.getName().replace( '.', '/' ) ).getString( key ), arguments );
+        @Override
+        public Object internalGet( final String key )
+        {
+            if ( TIME_CONTEXT_KEYS.contains( key ) )
+            {
+                this.timeRead = true;
+            }
 
-    }
+            return super.internalGet( key );
+        }
 
-    private static String getMessage( final Throwable t )
-    {
-        return t != null
-                   ? t.getMessage() != null && t.getMessage().trim().length() > 0
-                         ? t.getMessage()
-                         : getMessage( t.getCause() )
-                   : null;
+        boolean isCacheable()
+        {
+            return !this.timeRead;
+        }
 
     }
 
@@ -457,6 +1954,11 @@ public class SourceFileProcessor extends JomcTool
          */
         private VelocityContext velocityContext;
 
+        /**
+         * Fingerprint of the model and settings sections are cached by or {@code null}.
+         */
+        private String sectionCacheFingerprint;
+
         /**
          * Creates a new {@code SourceFileEditor} instance.
          *
@@ -544,6 +2046,8 @@ public class SourceFileProcessor extends JomcTool
                     this.velocityContext = SourceFileProcessor.this.getVelocityContext();
                     this.velocityContext.put( "specification", specification );
                     this.velocityContext.put( "smodel", sourceFileType );
+                    this.sectionCacheFingerprint =
+                        isSectionCacheEnabled() ? getSectionCacheFingerprint( specification, null ) : null;
 
                     this.editSourceFile( sourcesDirectory );
                 }
@@ -558,6 +2062,7 @@ public class SourceFileProcessor extends JomcTool
                 this.implementation = null;
                 this.sourceFileType = null;
                 this.velocityContext = null;
+                this.sectionCacheFingerprint = null;
             }
         }
 
@@ -600,6 +2105,8 @@ public class SourceFileProcessor extends JomcTool
                     this.velocityContext = SourceFileProcessor.this.getVelocityContext();
                     this.velocityContext.put( "implementation", implementation );
                     this.velocityContext.put( "smodel", sourceFileType );
+                    this.sectionCacheFingerprint =
+                        isSectionCacheEnabled() ? getSectionCacheFingerprint( null, implementation ) : null;
 
                     this.editSourceFile( sourcesDirectory );
                 }
@@ -614,6 +2121,7 @@ public class SourceFileProcessor extends JomcTool
                 this.implementation = null;
                 this.sourceFileType = null;
                 this.velocityContext = null;
+                this.sectionCacheFingerprint = null;
             }
         }
 
@@ -680,50 +2188,83 @@ public class SourceFileProcessor extends JomcTool
 
                         }
 
+                        // Sections are merged using a context of their own, so that variables set by templates do
+                        // not leak into other sections. Variables set by the head template are visible to the tail
+                        // template, so the tail is cached by the head template as well.
+                        final boolean headMerged = sourceSectionType.getHeadTemplate() != null
+                                                       && ( !sourceSectionType.isEditable()
+                                                            || s.getHeadContent().toString().trim().length() == 0 );
+
+                        final boolean tailMerged = sourceSectionType.getTailTemplate() != null
+                                                       && ( !sourceSectionType.isEditable()
+                                                            || s.getTailContent().toString().trim().length() == 0 );
+
                         VelocityContext ctx = null;
+                        boolean headMergedIntoContext = false;
 
-                        if ( sourceSectionType.getHeadTemplate() != null
-                                 && ( !sourceSectionType.isEditable()
-                                      || s.getHeadContent().toString().trim().length() == 0 ) )
+                        if ( headMerged )
                         {
-                            final StringWriter writer = new StringWriter();
-                            final Template template = getVelocityTemplate( sourceSectionType.getHeadTemplate() );
+                            final String key = getSectionCacheKey(
+                                this.sectionCacheFingerprint, sourceSectionType.getHeadTemplate(), this.specification,
+                                this.implementation, model, sourceSectionType, "head" );
 
-                            if ( ctx == null )
+                            String content = key != null ? getCachedSection( key ) : null;
+
+                            if ( content == null )
                             {
-                                ctx = (VelocityContext) this.getVelocityContext().clone();
+                                ctx = this.newSectionContext( key != null );
+                                content = this.mergeSectionTemplate( sourceSectionType.getHeadTemplate(),
+                                                                     sourceSectionType, ctx );
+
+                                headMergedIntoContext = true;
+
+                                if ( key != null && ( (SectionContext) ctx ).isCacheable() )
+                                {
+                                    putCachedSection( key, content );
+                                }
                             }
 
-                            ctx.put( "template", template );
-                            ctx.put( "ssection", sourceSectionType );
-                            template.merge( ctx, writer );
-                            writer.close();
                             s.getHeadContent().setLength( 0 );
-                            s.getHeadContent().append( writer.toString() );
-                            ctx.remove( "template" );
-                            ctx.remove( "ssection" );
+                            s.getHeadContent().append( content );
                         }
 
-                        if ( sourceSectionType.getTailTemplate() != null
-                                 && ( !sourceSectionType.isEditable()
-                                      || s.getTailContent().toString().trim().length() == 0 ) )
+                        if ( tailMerged )
                         {
-                            final StringWriter writer = new StringWriter();
-                            final Template template = getVelocityTemplate( sourceSectionType.getTailTemplate() );
+                            final String key = getSectionCacheKey(
+                                this.sectionCacheFingerprint, sourceSectionType.getTailTemplate(), this.specification,
+                                this.implementation, model, sourceSectionType,
+                                headMerged ? "tail|" + sourceSectionType.getHeadTemplate() + '='
+                                                 + getTemplateDigest( sourceSectionType.getHeadTemplate() )
+                                           : "tail" );
+
+                            String content = key != null ? getCachedSection( key ) : null;
 
-                            if ( ctx == null )
+                            if ( content == null )
                             {
-                                ctx = (VelocityContext) this.getVelocityContext().clone();
+                                if ( ctx == null )
+                                {
+                                    ctx = this.newSectionContext( key != null );
+                                }
+
+                                if ( headMerged && !headMergedIntoContext )
+                                {
+                                    // The head has been taken from the cache. Its variables are set up again.
+                                    this.mergeSectionTemplate( sourceSectionType.getHeadTemplate(), sourceSectionType,
+                                                               ctx );
+
+                                }
+
+                                content = this.mergeSectionTemplate( sourceSectionType.getTailTemplate(),
+                                                                     sourceSectionType, ctx );
+
+                                if ( key != null && ( (SectionContext) ctx ).isCacheable() )
+                                {
+                                    putCachedSection( key, content );
+                                }
                             }
 
-                            ctx.put( "template", template );
-                            ctx.put( "ssection", sourceSectionType );
-                            template.merge( ctx, writer );
-                            writer.close();
                             s.getTailContent().setLength( 0 );
-                            s.getTailContent().append( writer.toString() );
-                            ctx.remove( "template" );
-                            ctx.remove( "ssection" );
+                            s.getTailContent().append( content );
                         }
                     }
                     else if ( isLoggable( Level.WARNING ) )
@@ -777,6 +2318,28 @@ public class SourceFileProcessor extends JomcTool
             return this.velocityContext;
         }
 
+        private VelocityContext newSectionContext( final boolean cached )
+        {
+            return cached
+                       ? new SectionContext( this.getVelocityContext() )
+                       : (VelocityContext) this.getVelocityContext().clone();
+
+        }
+
+        private String mergeSectionTemplate( final String templateName, final SourceSectionType sourceSectionType,
+                                             final VelocityContext ctx ) throws IOException
+        {
+            final StringWriter writer = new StringWriter();
+            final Template template = getVelocityTemplate( templateName );
+            ctx.put( "template", template );
+            ctx.put( "ssection", sourceSectionType );
+            mergeTemplate( templateName, template, ctx, writer );
+            writer.close();
+            ctx.remove( "template" );
+            ctx.remove( "ssection" );
+            return writer.toString();
+        }
+
         private void createSections( final SourceFileType sourceFileType, final SourceSectionsType sourceSectionsType,
                                      final Section section ) throws IOException
         {
@@ -881,7 +2444,7 @@ public class SourceFileProcessor extends JomcTool
                             final Template template = getVelocityTemplate( model.getTemplate() );
                             final VelocityContext ctx = this.getVelocityContext();
                             ctx.put( "template", template );
-                            template.merge( ctx, writer );
+                            mergeTemplate( model.getTemplate(), template, ctx, writer );
                             writer.close();
                             content = writer.toString();
                             ctx.remove( "template" );
@@ -944,22 +2507,52 @@ public class SourceFileProcessor extends JomcTool
                 throw new NullPointerException( "file" );
             }
 
+            final SourceFileBuffers buffers = SourceFileBuffers.acquire();
+            final ByteBuffer bytes = buffers.bytes;
+            final CharBuffer chars = buffers.chars;
+            final CharsetDecoder decoder = Charset.forName( getInputEncoding() ).newDecoder().
+                onMalformedInput( CodingErrorAction.REPLACE ).onUnmappableCharacter( CodingErrorAction.REPLACE );
+
             final StringBuilder appendable =
                 new StringBuilder( file.length() > 0L ? Long.valueOf( file.length() ).intValue() : 1 );
 
-            final char[] chars = new char[ 524288 ];
+            bytes.clear();
+            chars.clear();
 
-            try ( final FileInputStream in = new FileInputStream( file );
-                  final Reader reader = new InputStreamReader( in, getInputEncoding() );
-                  final FileLock fileLock = in.getChannel().lock( 0L, file.length(), true ) )
+            try ( final FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ );
+                  final Closeable fileLock = lockFile( file.toPath(), true ) )
             {
-                for ( int read = reader.read( chars ); read >= 0; read = reader.read( chars ) )
+                for ( boolean eof = false; !eof; )
+                {
+                    eof = channel.read( bytes ) < 0;
+                    bytes.flip();
+
+                    for ( CoderResult result = decoder.decode( bytes, chars, eof ); result.isOverflow();
+                          result = decoder.decode( bytes, chars, eof ) )
+                    {
+                        chars.flip();
+                        appendable.append( chars );
+                        chars.clear();
+                    }
+
+                    bytes.compact();
+                }
+
+                while ( decoder.flush( chars ).isOverflow() )
                 {
-                    appendable.append( chars, 0, read );
+                    chars.flip();
+                    appendable.append( chars );
+                    chars.clear();
                 }
 
+                chars.flip();
+                appendable.append( chars );
                 return appendable.toString();
             }
+            finally
+            {
+                SourceFileBuffers.release( buffers );
+            }
         }
 
         private void writeSourceFile( final File file, final String content ) throws IOException
@@ -973,13 +2566,64 @@ public class SourceFileProcessor extends JomcTool
                 throw new NullPointerException( "content" );
             }
 
-            try ( final FileOutputStream out = new FileOutputStream( file );
-                  final Writer writer = new OutputStreamWriter( out, getOutputEncoding() );
-                  final FileLock fileLock = out.getChannel().lock() )
+            final Path target = file.toPath();
+            final Path tmp = getTemporaryFile( target );
+
+            final SourceFileBuffers buffers = SourceFileBuffers.acquire();
+            final ByteBuffer bytes = buffers.bytes;
+            final CharBuffer chars = CharBuffer.wrap( content );
+            final CharsetEncoder encoder = Charset.forName( getOutputEncoding() ).newEncoder().
+                onMalformedInput( CodingErrorAction.REPLACE ).onUnmappableCharacter( CodingErrorAction.REPLACE );
+
+            bytes.clear();
+
+            try
+            {
+                try ( final FileChannel channel = FileChannel.open( tmp, StandardOpenOption.WRITE ) )
+                {
+                    for ( CoderResult result = encoder.encode( chars, bytes, true ); result.isOverflow();
+                          result = encoder.encode( chars, bytes, true ) )
+                    {
+                        write( channel, bytes );
+                    }
+
+                    while ( encoder.flush( bytes ).isOverflow() )
+                    {
+                        write( channel, bytes );
+                    }
+
+                    write( channel, bytes );
+
+                    if ( getDurability() == Durability.FILE )
+                    {
+                        channel.force( true );
+                    }
+                }
+
+                replaceFile( tmp, target );
+
+                if ( getDurability() == Durability.BATCH )
+                {
+                    unsynchronizedSourceFiles.add( target );
+                }
+            }
+            finally
+            {
+                SourceFileBuffers.release( buffers );
+                Files.deleteIfExists( tmp );
+            }
+        }
+
+        private void write( final FileChannel channel, final ByteBuffer bytes ) throws IOException
+        {
+            bytes.flip();
+
+            while ( bytes.hasRemaining() )
             {
-                writer.write( content );
-                out.getChannel().force( true );
+                channel.write( bytes );
             }
+
+            bytes.clear();
         }
 
     }
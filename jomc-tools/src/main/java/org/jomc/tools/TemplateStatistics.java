@@ -0,0 +1,269 @@
+/*
+ *   Copyright (C) 2005 Christian Schulte <cs@schulte.it>
+ *   All rights reserved.
+ *
+ *   Redistribution and use in source and binary forms, with or without
+ *   modification, are permitted provided that the following conditions
+ *   are met:
+ *
+ *     o Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     o Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *
+ *   THIS SOFTWARE IS PROVIDED "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ *   INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+ *   AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ *   THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *   INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *   NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *   DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *   THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *   (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *   THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *   $JOMC$
+ *
+ */
+package org.jomc.tools;
+
+import java.io.Serializable;
+
+/**
+ * Statistics of a template.
+ *
+ * @author <a href="mailto:cs@schulte.it">Christian Schulte</a>
+ * @version $JOMC$
+ * @since 2.0
+ *
+ * @see DefaultToolMetrics#getTemplateStatistics()
+ */
+public final class TemplateStatistics implements Serializable
+{
+
+    /**
+     * Serial version UID for backwards compatibility with 2.x object streams.
+     */
+    private static final long serialVersionUID = 7343310386696155255L;
+
+    /**
+     * The name of the template profile of the template.
+     */
+    private final String templateProfile;
+
+    /**
+     * The name of the template.
+     */
+    private final String templateName;
+
+    /**
+     * The number of requests of the template.
+     */
+    private final long requestCount;
+
+    /**
+     * The number of requests served from a cache.
+     */
+    private final long hitCount;
+
+    /**
+     * The number of merges of the template.
+     */
+    private final long mergeCount;
+
+    /**
+     * The total number of nanoseconds spent merging the template.
+     */
+    private final long totalMergeTime;
+
+    /**
+     * The maximum number of nanoseconds spent merging the template.
+     */
+    private final long maxMergeTime;
+
+    /**
+     * The median number of nanoseconds spent merging the template.
+     */
+    private final long medianMergeTime;
+
+    /**
+     * The 90th percentile of the number of nanoseconds spent merging the template.
+     */
+    private final long percentile90MergeTime;
+
+    /**
+     * The 99th percentile of the number of nanoseconds spent merging the template.
+     */
+    private final long percentile99MergeTime;
+
+    /**
+     * The total number of characters produced by merging the template.
+     */
+    private final long totalOutputLength;
+
+    /**
+     * Creates a new {@code TemplateStatistics} instance.
+     *
+     * @param templateProfile The name of the template profile of the template.
+     * @param templateName The name of the template.
+     * @param requestCount The number of requests of the template.
+     * @param hitCount The number of requests served from a cache.
+     * @param mergeCount The number of merges of the template.
+     * @param totalMergeTime The total number of nanoseconds spent merging the template.
+     * @param maxMergeTime The maximum number of nanoseconds spent merging the template.
+     * @param medianMergeTime The median number of nanoseconds spent merging the template.
+     * @param percentile90MergeTime The 90th percentile of the number of nanoseconds spent merging the template.
+     * @param percentile99MergeTime The 99th percentile of the number of nanoseconds spent merging the template.
+     * @param totalOutputLength The total number of characters produced by merging the template.
+     */
+    public TemplateStatistics( final String templateProfile, final String templateName, final long requestCount,
+                               final long hitCount, final long mergeCount, final long totalMergeTime,
+                               final long maxMergeTime, final long medianMergeTime,
+                               final long percentile90MergeTime, final long percentile99MergeTime,
+                               final long totalOutputLength )
+    {
+        super();
+        this.templateProfile = templateProfile;
+        this.templateName = templateName;
+        this.requestCount = requestCount;
+        this.hitCount = hitCount;
+        this.mergeCount = mergeCount;
+        this.totalMergeTime = totalMergeTime;
+        this.maxMergeTime = maxMergeTime;
+        this.medianMergeTime = medianMergeTime;
+        this.percentile90MergeTime = percentile90MergeTime;
+        this.percentile99MergeTime = percentile99MergeTime;
+        this.totalOutputLength = totalOutputLength;
+    }
+
+    /**
+     * Gets the name of the template profile of the template.
+     *
+     * @return The name of the template profile of the template.
+     */
+    public String getTemplateProfile()
+    {
+        return this.templateProfile;
+    }
+
+    /**
+     * Gets the name of the template.
+     *
+     * @return The name of the template.
+     */
+    public String getTemplateName()
+    {
+        return this.templateName;
+    }
+
+    /**
+     * Gets the number of requests of the template.
+     *
+     * @return The number of requests of the template.
+     */
+    public long getRequestCount()
+    {
+        return this.requestCount;
+    }
+
+    /**
+     * Gets the number of requests served from a cache.
+     *
+     * @return The number of requests served from a cache.
+     */
+    public long getHitCount()
+    {
+        return this.hitCount;
+    }
+
+    /**
+     * Gets the number of merges of the template.
+     *
+     * @return The number of merges of the template.
+     */
+    public long getMergeCount()
+    {
+        return this.mergeCount;
+    }
+
+    /**
+     * Gets the total number of nanoseconds spent merging the template.
+     *
+     * @return The total number of nanoseconds spent merging the template.
+     */
+    public long getTotalMergeTime()
+    {
+        return this.totalMergeTime;
+    }
+
+    /**
+     * Gets the maximum number of nanoseconds spent merging the template.
+     *
+     * @return The maximum number of nanoseconds spent merging the template.
+     */
+    public long getMaxMergeTime()
+    {
+        return this.maxMergeTime;
+    }
+
+    /**
+     * Gets the median number of nanoseconds spent merging the template.
+     *
+     * @return The median number of nanoseconds spent merging the template.
+     */
+    public long getMedianMergeTime()
+    {
+        return this.medianMergeTime;
+    }
+
+    /**
+     * Gets the 90th percentile of the number of nanoseconds spent merging the template.
+     *
+     * @return The 90th percentile of the number of nanoseconds spent merging the template.
+     */
+    public long getPercentile90MergeTime()
+    {
+        return this.percentile90MergeTime;
+    }
+
+    /**
+     * Gets the 99th percentile of the number of nanoseconds spent merging the template.
+     *
+     * @return The 99th percentile of the number of nanoseconds spent merging the template.
+     */
+    public long getPercentile99MergeTime()
+    {
+        return this.percentile99MergeTime;
+    }
+
+    /**
+     * Gets the total number of characters produced by merging the template.
+     *
+     * @return The total number of characters produced by merging the template.
+     */
+    public long getTotalOutputLength()
+    {
+        return this.totalOutputLength;
+    }
+
+    /**
+     * Creates a string representing the properties of the instance.
+     *
+     * @return A string representing the properties of the instance.
+     */
+    @Override
+    public String toString()
+    {
+        return super.toString() + "{templateProfile=" + this.templateProfile + ", templateName=" + this.templateName
+                   + ", requestCount=" + this.requestCount + ", hitCount=" + this.hitCount + ", mergeCount="
+                   + this.mergeCount + ", totalMergeTime=" + this.totalMergeTime + ", maxMergeTime="
+                   + this.maxMergeTime + ", medianMergeTime=" + this.medianMergeTime + ", percentile90MergeTime="
+                   + this.percentile90MergeTime + ", percentile99MergeTime=" + this.percentile99MergeTime
+                   + ", totalOutputLength=" + this.totalOutputLength + "}";
+
+    }
+
+}
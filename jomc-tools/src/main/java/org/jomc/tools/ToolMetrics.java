@@ -0,0 +1,95 @@
+/*
+ *   Copyright (C) 2005 Christian Schulte <cs@schulte.it>
+ *   All rights reserved.
+ *
+ *   Redistribution and use in source and binary forms, with or without
+ *   modification, are permitted provided that the following conditions
+ *   are met:
+ *
+ *     o Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     o Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in
+ *       the documentation and/or other materials provided with the
+ *       distribution.
+ *
+ *   THIS SOFTWARE IS PROVIDED "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ *   INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+ *   AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ *   THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ *   INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ *   NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ *   DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ *   THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *   (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ *   THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ *   $JOMC$
+ *
+ */
+package org.jomc.tools;
+
+/**
+ * Metrics of a tool.
+ * <p>
+ * Implementations get notified about the templates requested and merged by a tool as well as about the files
+ * processed by a tool. Any method of this class may be called concurrently by multiple threads. Implementations
+ * therefore need to be thread-safe and should not block. This class does not record anything itself.
+ * </p>
+ *
+ * @author <a href="mailto:cs@schulte.it">Christian Schulte</a>
+ * @version $JOMC$
+ * @since 2.0
+ *
+ * @see JomcTool#getMetrics()
+ * @see DefaultToolMetrics
+ */
+public abstract class ToolMetrics
+{
+
+    /**
+     * Creates a new {@code ToolMetrics} instance.
+     */
+    public ToolMetrics()
+    {
+        super();
+    }
+
+    /**
+     * Gets called whenever a template has been requested.
+     *
+     * @param templateProfile The name of the template profile of the request.
+     * @param templateName The name of the requested template.
+     * @param cached {@code true}, if the template got served from a cache; {@code false}, if the template had to be
+     * loaded.
+     */
+    public void onTemplateRequest( final String templateProfile, final String templateName, final boolean cached )
+    {
+    }
+
+    /**
+     * Gets called whenever a template has been merged.
+     *
+     * @param templateProfile The name of the template profile of the merged template.
+     * @param templateName The name of the merged template.
+     * @param time The number of nanoseconds spent merging the template.
+     * @param length The number of characters produced by merging the template.
+     */
+    public void onTemplateMerge( final String templateProfile, final String templateName, final long time,
+                                 final long length )
+    {
+    }
+
+    /**
+     * Gets called whenever a file has been processed.
+     *
+     * @param operation The name of the operation having processed the file.
+     * @param fileName The name of the processed file.
+     * @param time The number of nanoseconds spent processing the file.
+     */
+    public void onFileProcessed( final String operation, final String fileName, final long time )
+    {
+    }
+
+}
@@ -31,8 +31,10 @@
 package org.jomc.tools.test;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -40,15 +42,21 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import javax.xml.bind.JAXBElement;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamSource;
+import org.apache.bcel.classfile.Attribute;
 import org.apache.bcel.classfile.ClassParser;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.commons.io.FileUtils;
@@ -59,6 +67,7 @@ import org.jomc.model.ModelObject;
 import org.jomc.model.Module;
 import org.jomc.model.Modules;
 import org.jomc.model.Multiplicity;
+import org.jomc.model.ObjectFactory;
 import org.jomc.model.Property;
 import org.jomc.model.Specification;
 import org.jomc.model.modlet.DefaultModelProvider;
@@ -68,11 +77,19 @@ import org.jomc.modlet.ModelContext;
 import org.jomc.modlet.ModelContextFactory;
 import org.jomc.modlet.ModelException;
 import org.jomc.modlet.ModelValidationReport;
+import org.jomc.tools.CacheStatistics;
 import org.jomc.tools.ClassFileProcessor;
+import org.jomc.tools.MarshallerPool;
+import org.jomc.tools.ModelObjectEncoding;
 import org.jomc.tools.ResourceFileProcessor;
 import org.jomc.tools.SourceFileProcessor;
 import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -966,6 +983,11 @@ public class ClassFileProcessorTest extends JomcToolTest
             this.getTransformer( "illegal-specification-transformation.xsl" )
         } );
 
+        final List<Transformer> illegalChainedSpecificationTransformers = Arrays.asList( new Transformer[]
+        {
+            this.getTransformer( "illegal-specification-transformation.xsl" ), this.getTransformer( "no-op.xsl" )
+        } );
+
         final List<Transformer> illegalSpecificationsTransformers = Arrays.asList( new Transformer[]
         {
             this.getTransformer( "illegal-specifications-transformation.xsl" )
@@ -1256,6 +1278,18 @@ public class ClassFileProcessorTest extends JomcToolTest
             System.out.println( e );
         }
         try
+        {
+            this.getJomcTool().transformModelObjects( this.getModelContext(), allClasses,
+                                                      illegalChainedSpecificationTransformers );
+
+            fail( "Expected IOException not thrown." );
+        }
+        catch ( final IOException e )
+        {
+            assertNotNull( e.getMessage() );
+            System.out.println( e );
+        }
+        try
         {
             this.getJomcTool().transformModelObjects( this.getModelContext(), allClasses,
                                                       illegalSpecificationsTransformers );
@@ -1712,6 +1746,385 @@ public class ClassFileProcessorTest extends JomcToolTest
         this.getJomcTool().setModel( model );
     }
 
+    @Test
+    public final void testCommitModelObjectsPatchesClassfiles() throws Exception
+    {
+        final Implementation i =
+            this.getJomcTool().getModules().getImplementation( "org.jomc.tools.ClassFileProcessor" );
+
+        final String classLocation = "org/jomc/tools/ClassFileProcessor.class";
+        final File patchedClasses = this.getNextClassesDirectory();
+        final File parsedClasses = this.getNextClassesDirectory();
+        final JavaClass original = new ClassParser( new File( patchedClasses, classLocation ).getAbsolutePath() ).
+            parse();
+
+        // Overriding any of the public methods operating on 'JavaClass' instances disables patching.
+        final ClassFileProcessor parsingTool = new ClassFileProcessor( this.getJomcTool() )
+        {
+
+            @Override
+            public void setClassfileAttribute( final JavaClass clazz, final String attributeName, final byte[] data )
+                throws IOException
+            {
+                super.setClassfileAttribute( clazz, attributeName, data );
+            }
+
+        };
+
+        this.getJomcTool().commitModelObjects( this.getModelContext(), patchedClasses );
+        parsingTool.commitModelObjects( this.getModelContext(), parsedClasses );
+
+        final JavaClass patched = new ClassParser( new File( patchedClasses, classLocation ).getAbsolutePath() ).
+            parse();
+
+        final JavaClass parsed = new ClassParser( new File( parsedClasses, classLocation ).getAbsolutePath() ).
+            parse();
+
+        assertEquals( original.getMethods().length, patched.getMethods().length );
+        assertEquals( original.getFields().length, patched.getFields().length );
+
+        for ( int j = original.getMethods().length - 1; j >= 0; j-- )
+        {
+            assertEquals( original.getMethods()[j].toString(), patched.getMethods()[j].toString() );
+        }
+
+        for ( int j = original.getFields().length - 1; j >= 0; j-- )
+        {
+            assertEquals( original.getFields()[j].toString(), patched.getFields()[j].toString() );
+        }
+
+        assertEquals( getAttributeNames( parsed ), getAttributeNames( patched ) );
+
+        for ( final String attributeName : new String[]
+        {
+            "org.jomc.model.Dependencies", "org.jomc.model.Properties", "org.jomc.model.Messages",
+            "org.jomc.model.Specifications"
+        } )
+        {
+            assertNotNull( this.getJomcTool().getClassfileAttribute( patched, attributeName ) );
+            assertTrue( Arrays.equals( this.getJomcTool().getClassfileAttribute( parsed, attributeName ),
+                                       this.getJomcTool().getClassfileAttribute( patched, attributeName ) ) );
+
+        }
+
+        final ModelValidationReport report =
+            this.getJomcTool().validateModelObjects( i, this.getModelContext(), patchedClasses );
+
+        assertNotNull( report );
+        assertTrue( report.isModelValid() );
+
+        this.getJomcTool().transformModelObjects( this.getModelContext(), patchedClasses, Arrays.asList(
+                                                  this.getTransformer( "no-op.xsl" ) ) );
+
+        assertTrue( this.getJomcTool().validateModelObjects( i, this.getModelContext(), patchedClasses ).
+            isModelValid() );
+
+    }
+
+    @Test
+    public final void testCommitModelObjectsSkipsUnchangedClassfiles() throws Exception
+    {
+        final File classesDirectory = this.getNextClassesDirectory();
+        final File classfile = new File( classesDirectory, "org/jomc/tools/ClassFileProcessor.class" );
+        final Implementation i =
+            this.getJomcTool().getModules().getImplementation( "org.jomc.tools.ClassFileProcessor" );
+
+        this.getJomcTool().commitModelObjects( this.getModelContext(), classesDirectory );
+
+        final long lastModified = classfile.lastModified() - 60000L;
+        assertTrue( classfile.setLastModified( lastModified ) );
+
+        this.getJomcTool().commitModelObjects( this.getModelContext(), classesDirectory );
+        this.getJomcTool().commitModelObjects( i, this.getModelContext(), classesDirectory );
+        this.getJomcTool().transformModelObjects( this.getModelContext(), classesDirectory,
+                                                  Collections.<Transformer>emptyList() );
+
+        assertEquals( lastModified, classfile.lastModified() );
+
+        final ClassFileProcessor tool = new ClassFileProcessor( this.getJomcTool() );
+        tool.setModel( this.getJomcTool().getModel().clone() );
+
+        final Specification s = tool.getModules().getSpecification( "org.jomc.tools.ClassFileProcessor" );
+        s.setVersion( s.getVersion() + "-1" );
+        tool.commitModelObjects( s, this.getModelContext(), classesDirectory );
+
+        assertTrue( lastModified != classfile.lastModified() );
+    }
+
+    @Test
+    public final void testValidateModelObjectsComparesDigests() throws Exception
+    {
+        final File classesDirectory = this.getNextClassesDirectory();
+        final File classfile = new File( classesDirectory, "org/jomc/tools/ClassFileProcessor.class" );
+        final Marshaller marshaller = this.getModelContext().createMarshaller( ModelObject.MODEL_PUBLIC_ID );
+        final Unmarshaller unmarshaller = this.getModelContext().createUnmarshaller( ModelObject.MODEL_PUBLIC_ID );
+        final Specification s =
+            this.getJomcTool().getModules().getSpecification( "org.jomc.tools.ClassFileProcessor" );
+
+        this.getJomcTool().commitModelObjects( this.getModelContext(), classesDirectory );
+
+        final JavaClass javaClass = new ClassParser( classfile.getAbsolutePath() ).parse();
+        assertNotNull( this.getJomcTool().getClassfileAttribute( javaClass, Specification.class.getName() ) );
+        assertNotNull( this.getJomcTool().getClassfileAttribute(
+            javaClass, Specification.class.getName() + "#SHA-256" ) );
+
+        assertTrue( this.getJomcTool().validateModelObjects( s, unmarshaller, javaClass ).isModelValid() );
+        assertTrue( this.getJomcTool().validateModelObjects( this.getModelContext(), classesDirectory ).
+            isModelValid() );
+
+        // Committed model object replaced without updating the digest.
+        final Specification committed = s.clone();
+        committed.setMultiplicity( s.getMultiplicity() == Multiplicity.ONE ? Multiplicity.MANY : Multiplicity.ONE );
+        final byte[] bytes =
+            this.getJomcTool().encodeModelObject( marshaller, new ObjectFactory().createSpecification( committed ) );
+
+        this.getJomcTool().setClassfileAttribute( javaClass, Specification.class.getName(), bytes );
+
+        javaClass.dump( classfile );
+
+        assertFalse( this.getJomcTool().validateModelObjects( s, unmarshaller, javaClass ).isModelValid() );
+        assertFalse( this.getJomcTool().validateModelObjects( s, this.getModelContext(), classesDirectory ).
+            isModelValid() );
+
+    }
+
+    @Test
+    public final void testValidateModelObjectsReadsArchives() throws Exception
+    {
+        final File classesDirectory = this.getNextClassesDirectory();
+        final File archive = new File( this.getNextOutputDirectory(), "classes.jar" );
+        this.getJomcTool().commitModelObjects( this.getModelContext(), classesDirectory );
+        this.zipDirectory( classesDirectory, archive );
+
+        final URLClassLoader classLoader = new URLClassLoader( new URL[]
+        {
+            archive.toURI().toURL()
+        } )
+        {
+
+            @Override
+            public URL getResource( final String name )
+            {
+                final URL resource = this.findResource( name );
+                return resource != null ? resource : super.getResource( name );
+            }
+
+        };
+
+        final ModelContext context = ModelContextFactory.newInstance().newModelContext( classLoader );
+        final URL resource = context.findResource( "org/jomc/tools/ClassFileProcessor.class" );
+        assertNotNull( resource );
+        assertEquals( "jar", resource.getProtocol() );
+
+        final ModelValidationReport report = this.getJomcTool().validateModelObjects( context );
+        assertNotNull( report );
+        assertTrue( report.isModelValid() );
+
+        final ClassFileProcessor tool = new ClassFileProcessor( this.getJomcTool() );
+        tool.setModel( this.getJomcTool().getModel().clone() );
+
+        final Specification s = tool.getModules().getSpecification( "org.jomc.tools.ClassFileProcessor" );
+        s.setMultiplicity( s.getMultiplicity() == Multiplicity.ONE ? Multiplicity.MANY : Multiplicity.ONE );
+
+        assertFalse( tool.validateModelObjects( context ).isModelValid() );
+        classLoader.close();
+    }
+
+    @Test
+    public final void testCommitModelObjectsToArchive() throws Exception
+    {
+        final File archive = new File( this.getNextOutputDirectory(), "classes.jar" );
+        this.zipDirectory( this.getNextClassesDirectory(), archive );
+
+        this.getJomcTool().commitModelObjects( this.getModelContext(), archive );
+        assertTrue( this.getJomcTool().validateModelObjects( this.getModelContext(), archive ).isModelValid() );
+
+        this.getJomcTool().transformModelObjects( this.getModelContext(), archive, Arrays.asList(
+                                                  this.getTransformer( "no-op.xsl" ) ) );
+
+        assertTrue( this.getJomcTool().validateModelObjects( this.getModelContext(), archive ).isModelValid() );
+
+        final JavaClass javaClass =
+            new ClassParser( archive.getAbsolutePath(), "org/jomc/tools/ClassFileProcessor.class" ).parse();
+
+        assertNotNull( this.getJomcTool().getClassfileAttribute( javaClass, Specification.class.getName() ) );
+
+        final ClassFileProcessor tool = new ClassFileProcessor( this.getJomcTool() );
+        tool.setModel( this.getJomcTool().getModel().clone() );
+
+        final Specification s = tool.getModules().getSpecification( "org.jomc.tools.ClassFileProcessor" );
+        s.setMultiplicity( s.getMultiplicity() == Multiplicity.ONE ? Multiplicity.MANY : Multiplicity.ONE );
+
+        assertFalse( tool.validateModelObjects( s, this.getModelContext(), archive ).isModelValid() );
+    }
+
+    @Test
+    public final void testFailingCommitModelObjectsKeepsArchive() throws Exception
+    {
+        final File archive = new File( this.getNextOutputDirectory(), "classes.jar" );
+        this.zipDirectory( this.getNextClassesDirectory(), archive );
+
+        final AtomicInteger commits = new AtomicInteger();
+        final AtomicInteger failingCommit = new AtomicInteger();
+        final ClassFileProcessor tool = new ClassFileProcessor( this.getJomcTool() )
+        {
+
+            @Override
+            public void commitModelObjects( final Implementation implementation, final Marshaller marshaller,
+                                            final JavaClass javaClass ) throws IOException
+            {
+                if ( commits.incrementAndGet() == failingCommit.get() )
+                {
+                    throw new IOException( "Failing commit." );
+                }
+
+                super.commitModelObjects( implementation, marshaller, javaClass );
+            }
+
+        };
+
+        tool.commitModelObjects( this.getModelContext(), this.getNextClassesDirectory() );
+        assertTrue( commits.get() > 0 );
+
+        // Fails committing the last implementation after any other class file has been updated.
+        failingCommit.set( commits.get() );
+        commits.set( 0 );
+
+        final byte[] uncommitted = Files.readAllBytes( archive.toPath() );
+
+        try
+        {
+            tool.commitModelObjects( this.getModelContext(), archive );
+            fail( "Expected IOException not thrown." );
+        }
+        catch ( final IOException e )
+        {
+            assertNotNull( e.getMessage() );
+        }
+
+        assertTrue( Arrays.equals( uncommitted, Files.readAllBytes( archive.toPath() ) ) );
+        assertEquals( 1, archive.getParentFile().list().length );
+
+        this.getJomcTool().commitModelObjects( this.getModelContext(), archive );
+        assertFalse( Arrays.equals( uncommitted, Files.readAllBytes( archive.toPath() ) ) );
+        assertTrue( this.getJomcTool().validateModelObjects( this.getModelContext(), archive ).isModelValid() );
+        assertEquals( 1, archive.getParentFile().list().length );
+
+        // Archives not modified are not replaced.
+        final byte[] committed = Files.readAllBytes( archive.toPath() );
+        final long lastModified = archive.lastModified();
+        this.getJomcTool().commitModelObjects( this.getModelContext(), archive );
+        assertTrue( Arrays.equals( committed, Files.readAllBytes( archive.toPath() ) ) );
+        assertEquals( lastModified, archive.lastModified() );
+        assertEquals( 1, archive.getParentFile().list().length );
+    }
+
+    @Test
+    public final void testTransformModelObjectsChainsTransformers() throws Exception
+    {
+        final File classesDirectory = this.getNextClassesDirectory();
+        final File classfile = new File( classesDirectory, "org/jomc/tools/ClassFileProcessor.class" );
+        final Unmarshaller unmarshaller = this.getModelContext().createUnmarshaller( ModelObject.MODEL_PUBLIC_ID );
+        final Specification s =
+            this.getJomcTool().getModules().getSpecification( "org.jomc.tools.ClassFileProcessor" );
+
+        this.getJomcTool().commitModelObjects( this.getModelContext(), classesDirectory );
+
+        try
+        {
+            this.getJomcTool().transformModelObjects( s, this.getModelContext(), classesDirectory, Arrays.asList(
+                                                      this.getTransformer( "illegal-specification-transformation.xsl" ),
+                                                      this.getTransformer( "no-op.xsl" ) ) );
+
+            fail( "Expected IOException not thrown." );
+        }
+        catch ( final IOException e )
+        {
+            assertNotNull( e.getMessage() );
+            System.out.println( e.toString() );
+        }
+
+        this.getJomcTool().transformModelObjects( this.getModelContext(), classesDirectory, Arrays.asList(
+                                                  this.getTransformer( "no-op.xsl" ),
+                                                  this.getTransformer( "specification-scope-transformation.xsl" ),
+                                                  this.getTransformer( "no-op.xsl" ) ) );
+
+        final JavaClass javaClass = new ClassParser( classfile.getAbsolutePath() ).parse();
+        final Specification transformed = this.getJomcTool().decodeModelObject(
+            unmarshaller, this.getJomcTool().getClassfileAttribute( javaClass, Specification.class.getName() ),
+            Specification.class );
+
+        assertEquals( s.getIdentifier(), transformed.getIdentifier() );
+        assertEquals( "TEST", transformed.getScope() );
+        assertFalse( this.getJomcTool().validateModelObjects( s, unmarshaller, javaClass ).isModelValid() );
+    }
+
+    @Test
+    public final void testModelObjectEncoding() throws Exception
+    {
+        final Marshaller marshaller = this.getModelContext().createMarshaller( ModelObject.MODEL_PUBLIC_ID );
+        final Unmarshaller unmarshaller = this.getModelContext().createUnmarshaller( ModelObject.MODEL_PUBLIC_ID );
+        final Implementation i =
+            this.getJomcTool().getModules().getImplementation( "org.jomc.tools.ClassFileProcessor" );
+
+        final JAXBElement<Implementation> element = new ObjectFactory().createImplementation( i );
+        final ClassFileProcessor tool = new ClassFileProcessor( this.getJomcTool() );
+
+        tool.setModelObjectEncoding( ModelObjectEncoding.GZIP );
+        final byte[] gzip = tool.encodeModelObject( marshaller, element );
+        assertTrue( Arrays.equals( gzip, tool.encodeModelObject( marshaller, element ) ) );
+
+        tool.setModelObjectEncoding( ModelObjectEncoding.DEFLATE );
+        final byte[] deflate = tool.encodeModelObject( marshaller, element );
+        assertTrue( Arrays.equals( deflate, tool.encodeModelObject( marshaller, element ) ) );
+
+        final StringWriter expected = new StringWriter();
+        marshaller.marshal( element, expected );
+
+        final StringWriter deflated = new StringWriter();
+        marshaller.marshal( new ObjectFactory().createImplementation(
+            tool.decodeModelObject( unmarshaller, deflate, Implementation.class ) ), deflated );
+
+        assertEquals( expected.toString(), deflated.toString() );
+
+        final StringWriter gzipped = new StringWriter();
+        marshaller.marshal( new ObjectFactory().createImplementation(
+            tool.decodeModelObject( unmarshaller, gzip, Implementation.class ) ), gzipped );
+
+        assertEquals( expected.toString(), gzipped.toString() );
+        assertTrue( Arrays.equals( deflate, tool.encodeModelObject( marshaller, new ObjectFactory().
+            createImplementation( tool.decodeModelObject( unmarshaller, deflate, Implementation.class ) ) ) ) );
+
+        final byte[] unsupported = deflate.clone();
+        unsupported[4] = (byte) 0xFF;
+
+        try
+        {
+            tool.decodeModelObject( unmarshaller, unsupported, Implementation.class );
+            fail( "Expected IOException not thrown." );
+        }
+        catch ( final IOException e )
+        {
+            assertNotNull( e.getMessage() );
+            System.out.println( e.toString() );
+        }
+
+        try
+        {
+            tool.decodeModelObject( unmarshaller, Arrays.copyOf( deflate, deflate.length / 2 ),
+                                    Implementation.class );
+
+            fail( "Expected IOException not thrown." );
+        }
+        catch ( final IOException e )
+        {
+            assertNotNull( e.getMessage() );
+            System.out.println( e.toString() );
+        }
+
+        assertEquals( ModelObjectEncoding.DEFLATE, new ClassFileProcessor( tool ).getModelObjectEncoding() );
+    }
+
     @Test
     public final void testCopyConstructor() throws Exception
     {
@@ -1729,6 +2142,75 @@ public class ClassFileProcessorTest extends JomcToolTest
         new ClassFileProcessor( this.getJomcTool() );
     }
 
+    @Test
+    public final void testMarshallerPool() throws Exception
+    {
+        final File classesDirectory = this.getNextClassesDirectory();
+        final ClassFileProcessor tool = new ClassFileProcessor( this.getJomcTool() );
+        final MarshallerPool pool = new MarshallerPool();
+        tool.setMarshallerPool( pool );
+        assertTrue( new ClassFileProcessor( tool ).getMarshallerPool() == pool );
+
+        tool.commitModelObjects( this.getModelContext(), classesDirectory );
+        final CacheStatistics committed = pool.getStatistics();
+        assertTrue( committed.getMissCount() > 0L );
+        assertTrue( committed.getSize() > 0 );
+
+        tool.commitModelObjects( this.getModelContext(), classesDirectory );
+        assertTrue( tool.validateModelObjects( this.getModelContext(), classesDirectory ).isModelValid() );
+        assertTrue( pool.getStatistics().getHitCount() > committed.getHitCount() );
+
+        final Implementation i =
+            this.getJomcTool().getModules().getImplementation( "org.jomc.tools.ClassFileProcessor" );
+
+        final Marshaller fresh = this.getModelContext().createMarshaller( ModelObject.MODEL_PUBLIC_ID );
+        final StringWriter expected = new StringWriter();
+        fresh.marshal( new ObjectFactory().createImplementation( i ), expected );
+
+        final Marshaller pooled = pool.acquireMarshaller( this.getModelContext(), ModelObject.MODEL_PUBLIC_ID );
+        pooled.setProperty( Marshaller.JAXB_FORMATTED_OUTPUT,
+                            !( (Boolean) pooled.getProperty( Marshaller.JAXB_FORMATTED_OUTPUT ) ) );
+
+        pooled.setProperty( Marshaller.JAXB_ENCODING, "US-ASCII" );
+        pooled.setProperty( Marshaller.JAXB_FRAGMENT, Boolean.TRUE );
+        pooled.setListener( new Marshaller.Listener()
+        {
+        } );
+
+        pool.releaseMarshaller( this.getModelContext(), ModelObject.MODEL_PUBLIC_ID, pooled );
+
+        final Marshaller reused = pool.acquireMarshaller( this.getModelContext(), ModelObject.MODEL_PUBLIC_ID );
+        assertSame( pooled, reused );
+        assertNull( reused.getListener() );
+        assertNotNull( reused.getSchema() );
+
+        final StringWriter actual = new StringWriter();
+        reused.setSchema( null );
+        reused.marshal( new ObjectFactory().createImplementation( i ), actual );
+        assertEquals( expected.toString(), actual.toString() );
+        pool.releaseMarshaller( this.getModelContext(), ModelObject.MODEL_PUBLIC_ID, reused );
+        final Marshaller schemaBound = pool.acquireMarshaller( this.getModelContext(), ModelObject.MODEL_PUBLIC_ID );
+        assertNotNull( schemaBound.getSchema() );
+        pool.releaseMarshaller( this.getModelContext(), ModelObject.MODEL_PUBLIC_ID, schemaBound );
+
+        // Instances are shared between model contexts providing the same schemas and classes.
+        final ModelContext otherContext = this.newModelContext();
+        final Marshaller other = pool.acquireMarshaller( otherContext, ModelObject.MODEL_PUBLIC_ID );
+        assertSame( schemaBound, other );
+        pool.releaseMarshaller( otherContext, ModelObject.MODEL_PUBLIC_ID, other );
+
+        final ClassFileProcessor otherTool = new ClassFileProcessor( this.getJomcTool() );
+        otherTool.setMarshallerPool( pool );
+        final long hits = pool.getStatistics().getHitCount();
+        otherTool.commitModelObjects( otherContext, classesDirectory );
+        assertTrue( otherTool.validateModelObjects( otherContext, classesDirectory ).isModelValid() );
+        assertTrue( pool.getStatistics().getHitCount() > hits );
+
+        pool.clear();
+        assertEquals( 0, pool.getStatistics().getSize() );
+        assertTrue( pool.getStatistics().getEvictionCount() > 0L );
+    }
+
     @Test
     public final void testClassFileProcessorModelObjectsNotFound() throws Exception
     {
@@ -1801,6 +2283,18 @@ public class ClassFileProcessorTest extends JomcToolTest
         this.getJomcTool().setModel( oldModel );
     }
 
+    private static Set<String> getAttributeNames( final JavaClass clazz )
+    {
+        final Set<String> names = new HashSet<>();
+
+        for ( final Attribute attribute : clazz.getAttributes() )
+        {
+            names.add( attribute.getName() );
+        }
+
+        return names;
+    }
+
     private Transformer getTransformer( final String resource )
         throws URISyntaxException, TransformerConfigurationException
     {
@@ -1814,6 +2308,22 @@ public class ClassFileProcessorTest extends JomcToolTest
         return transformer;
     }
 
+    private void zipDirectory( final File directory, final File archive ) throws IOException
+    {
+        assertTrue( archive.getParentFile().exists() || archive.getParentFile().mkdirs() );
+
+        try ( final ZipOutputStream out = new ZipOutputStream( new FileOutputStream( archive ) ) )
+        {
+            for ( final File file : FileUtils.listFiles( directory, null, true ) )
+            {
+                out.putNextEntry( new ZipEntry( directory.toURI().relativize( file.toURI() ).getPath() ) );
+
+                Files.copy( file.toPath(), out );
+                out.closeEntry();
+            }
+        }
+    }
+
     private void unzipResource( final String resourceName, final File targetDirectory ) throws IOException
     {
         final URL resource = this.getClass().getResource( resourceName );
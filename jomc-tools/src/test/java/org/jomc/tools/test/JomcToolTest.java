@@ -35,15 +35,26 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.StringWriter;
 import java.net.URL;
+import java.text.DateFormat;
 import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
 import org.jomc.jls.JavaIdentifier;
 import org.jomc.model.Dependency;
 import org.jomc.model.Implementation;
@@ -60,14 +71,23 @@ import org.jomc.modlet.ModelContext;
 import org.jomc.modlet.ModelContextFactory;
 import org.jomc.modlet.ModelException;
 import org.jomc.modlet.ModelValidationReport;
+import org.jomc.tools.CacheStatistics;
+import org.jomc.tools.DefaultToolMetrics;
+import org.jomc.tools.FileLocking;
 import org.jomc.tools.JomcTool;
+import org.jomc.tools.LogOverflowPolicy;
+import org.jomc.tools.TemplateStatistics;
 import org.junit.After;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 /**
  * Test cases for class {@code org.jomc.tools.JomcTool}.
@@ -88,6 +108,21 @@ public class JomcToolTest
      */
     private static final String OUTPUT_DIRECTORY_PROPERTY_NAME = "jomc.test.outputDirectory";
 
+    /**
+     * Constant for the name of the system property enabling the benchmarks of the test.
+     */
+    private static final String BENCHMARK_PROPERTY_NAME = "jomc.test.benchmark";
+
+    /**
+     * Constant for the names of templates of the built-in {@code jomc-java} template profile.
+     */
+    private static final List<String> BUILT_IN_TEMPLATE_NAMES = Arrays.asList(
+        "Implementation.java.vm", "Specification.java.vm", "implementation-annotations.vm",
+        "implementation-constructors-head.vm", "implementation-constructors-tail.vm",
+        "implementation-default-constructor.vm", "implementation-dependencies.vm", "implementation-documentation.vm",
+        "implementation-license.vm", "implementation-messages.vm", "implementation-properties.vm",
+        "specification-annotations.vm", "specification-documentation.vm", "specification-license.vm" );
+
     /**
      * The {@code JomcTool} instance tests are performed with.
      */
@@ -873,6 +908,695 @@ public class JomcToolTest
         this.getJomcTool().setTemplateProfile( null );
     }
 
+    @Test
+    public final void testSharedVelocityContext() throws Exception
+    {
+        final Model m = this.getJomcTool().getModel();
+        final VelocityContext ctx1 = this.getJomcTool().getVelocityContext();
+        final VelocityContext ctx2 = this.getJomcTool().getVelocityContext();
+        assertNotNull( ctx1.get( "model" ) );
+        assertNotSame( m, ctx1.get( "model" ) );
+
+        ctx1.put( "test-overlay", "Test" );
+        assertEquals( "Test", ctx1.get( "test-overlay" ) );
+        assertNull( ctx2.get( "test-overlay" ) );
+        assertNull( this.getJomcTool().getVelocityContext().get( "test-overlay" ) );
+
+        this.getJomcTool().getTemplateParameters().put( "model", "Test" );
+        assertTrue( this.getJomcTool().getVelocityContext().get( "model" ) instanceof Model );
+        this.getJomcTool().getTemplateParameters().remove( "model" );
+
+        // Without a run in progress, modifications of the model made in place are taken into account.
+        final Module module = new Module();
+        module.setName( "testSharedVelocityContext" );
+        ModelHelper.getModules( m ).getModule().add( module );
+
+        try
+        {
+            assertNull( ( (Modules) ctx1.get( "modules" ) ).getModule( module.getName() ) );
+            assertNotNull( ( (Modules) this.getJomcTool().getVelocityContext().get( "modules" ) ).
+                getModule( module.getName() ) );
+
+        }
+        finally
+        {
+            ModelHelper.getModules( m ).getModule().remove( module );
+        }
+
+        assertNull( ( (Modules) this.getJomcTool().getVelocityContext().get( "modules" ) ).
+            getModule( module.getName() ) );
+
+        this.getJomcTool().setVelocityContextGuardEnabled( true );
+        assertTrue( this.getJomcTool().isVelocityContextGuardEnabled() );
+        assertNotNull( this.getJomcTool().getVelocityContext() );
+        this.getJomcTool().setVelocityContextGuardEnabled( null );
+
+        assertNotNull( ctx1.get( "calendar" ) );
+        assertNotSame( ctx1.get( "calendar" ), ctx2.get( "calendar" ) );
+    }
+
+    @Test
+    public final void testTemplateCache() throws Exception
+    {
+        final JomcTool tool1 = this.newJomcTool();
+        final JomcTool tool2 = this.newJomcTool();
+        tool1.setTemplateLocation( this.getNextOutputDirectory().toURI().toURL() );
+        tool2.setTemplateLocation( tool1.getTemplateLocation() );
+        tool1.setSharedBuiltInTemplatesEnabled( false );
+        tool2.setSharedBuiltInTemplatesEnabled( false );
+
+        final CacheStatistics initial = tool1.getTemplateCacheStatistics();
+        assertNotNull( initial );
+        assertEquals( 0L, initial.getHitCount() );
+        assertEquals( 0L, initial.getMissCount() );
+        assertEquals( 0, initial.getSize() );
+
+        assertSame( tool1.getVelocityTemplate( "Implementation.java.vm" ),
+                    tool2.getVelocityTemplate( "Implementation.java.vm" ) );
+
+        final CacheStatistics shared = tool2.getTemplateCacheStatistics();
+        assertTrue( shared.getHitCount() > 0L );
+        assertTrue( shared.getMissCount() > 0L );
+        assertTrue( shared.getSize() > 0 );
+        assertTrue( shared.getTotalLoadTime() > 0L );
+        assertEquals( shared.getMissCount(), tool1.getTemplateCacheStatistics().getMissCount() );
+
+        try
+        {
+            tool1.getVelocityTemplate( "DOES_NOT_EXIST" );
+            fail( "Expected 'FileNotFoundException' not thrown." );
+        }
+        catch ( final FileNotFoundException e )
+        {
+            assertNotNull( e.getMessage() );
+        }
+
+        tool2.setLocale( Locale.CHINESE );
+        assertEquals( 0L, tool2.getTemplateCacheStatistics().getMissCount() );
+        assertNotSame( tool1.getVelocityTemplate( "Implementation.java.vm" ),
+                       tool2.getVelocityTemplate( "Implementation.java.vm" ) );
+
+        tool2.setVelocityEngine( null );
+        tool2.setLocale( tool1.getLocale() );
+        tool2.setVelocityEngine( tool2.getVelocityEngine() );
+        assertEquals( 0L, tool2.getTemplateCacheStatistics().getMissCount() );
+    }
+
+    @Test
+    public final void testSharedBuiltInTemplates() throws Exception
+    {
+        final JomcTool tool1 = this.newJomcTool();
+        final JomcTool tool2 = this.newJomcTool();
+        tool1.setTemplateLocation( this.getNextOutputDirectory().toURI().toURL() );
+        tool2.setTemplateLocation( this.getNextOutputDirectory().toURI().toURL() );
+        tool2.setLocale( Locale.CHINESE );
+
+        assertTrue( tool1.isSharedBuiltInTemplatesEnabled() );
+        assertTrue( new JomcTool( tool1 ).isSharedBuiltInTemplatesEnabled() );
+
+        for ( final String templateName : BUILT_IN_TEMPLATE_NAMES )
+        {
+            assertSame( tool1.getVelocityTemplate( templateName ), tool2.getVelocityTemplate( templateName ) );
+        }
+
+        final JomcTool tool3 = this.newJomcTool();
+        tool3.setSharedBuiltInTemplatesEnabled( false );
+        assertFalse( tool3.isSharedBuiltInTemplatesEnabled() );
+        assertFalse( new JomcTool( tool3 ).isSharedBuiltInTemplatesEnabled() );
+
+        final JomcTool tool4 = this.newJomcTool();
+        tool4.setVelocityEngine( new JomcTool().getVelocityEngine() );
+
+        for ( final String templateName : BUILT_IN_TEMPLATE_NAMES )
+        {
+            assertNotSame( tool1.getVelocityTemplate( templateName ), tool3.getVelocityTemplate( templateName ) );
+            assertNotSame( tool1.getVelocityTemplate( templateName ), tool4.getVelocityTemplate( templateName ) );
+        }
+
+        tool3.setSharedBuiltInTemplatesEnabled( null );
+        assertSame( tool1.getVelocityTemplate( "Implementation.java.vm" ),
+                    tool3.getVelocityTemplate( "Implementation.java.vm" ) );
+
+        try
+        {
+            tool1.getVelocityTemplate( "DOES_NOT_EXIST" );
+            fail( "Expected 'FileNotFoundException' not thrown." );
+        }
+        catch ( final FileNotFoundException e )
+        {
+            assertNotNull( e.getMessage() );
+        }
+    }
+
+    @Test
+    public final void testSharedBuiltInTemplatesBenchmark() throws Exception
+    {
+        assumeTrue( Boolean.getBoolean( BENCHMARK_PROPERTY_NAME ) );
+
+        final long shared = this.loadBuiltInTemplates( true, 100 );
+        final long unshared = this.loadBuiltInTemplates( false, 100 );
+
+        System.out.println( this.getClass().getSimpleName() + ": 100 template cache scopes, shared built-in templates "
+                                + ( shared / 1000000L ) + "ms, per scope built-in templates "
+                                + ( unshared / 1000000L ) + "ms." );
+
+    }
+
+    private long loadBuiltInTemplates( final boolean sharedBuiltInTemplates, final int scopes ) throws Exception
+    {
+        final long start = System.nanoTime();
+
+        for ( int i = 0; i < scopes; i++ )
+        {
+            final JomcTool tool = this.newJomcTool();
+            tool.setSharedBuiltInTemplatesEnabled( sharedBuiltInTemplates );
+            tool.setLocale( new Locale( "x" + sharedBuiltInTemplates + i ) );
+
+            for ( final String templateName : BUILT_IN_TEMPLATE_NAMES )
+            {
+                assertNotNull( tool.getVelocityTemplate( templateName ) );
+            }
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    public final void testPreloadTemplates() throws Exception
+    {
+        final JomcTool tool = this.newJomcTool();
+        tool.setTemplateLocation( this.getNextOutputDirectory().toURI().toURL() );
+        tool.setExecutorService( this.getExecutorService() );
+
+        try
+        {
+            tool.preloadTemplates( null );
+            fail( "Expected 'NullPointerException' not thrown." );
+        }
+        catch ( final NullPointerException e )
+        {
+            assertNotNull( e.getMessage() );
+        }
+
+        tool.preloadTemplates( Arrays.asList( "Implementation.java.vm", "Specification.java.vm",
+                                              "implementation-dependencies.vm", "DOES_NOT_EXIST" ) );
+
+        final long misses = tool.getTemplateCacheStatistics().getMissCount();
+        assertNotNull( tool.getVelocityTemplate( "Implementation.java.vm" ) );
+        assertNotNull( tool.getVelocityTemplate( "implementation-dependencies.vm" ) );
+
+        try
+        {
+            tool.getVelocityTemplate( "DOES_NOT_EXIST" );
+            fail( "Expected 'FileNotFoundException' not thrown." );
+        }
+        catch ( final FileNotFoundException e )
+        {
+            assertNotNull( e.getMessage() );
+        }
+
+        assertEquals( misses, tool.getTemplateCacheStatistics().getMissCount() );
+    }
+
+    @Test
+    public final void testStringHelpers() throws Exception
+    {
+        final String plain = "Plain text without special characters.";
+        assertSame( plain, this.getJomcTool().getHtmlString( plain ) );
+        assertSame( plain, this.getJomcTool().getXmlString( plain ) );
+        assertSame( plain, this.getJomcTool().getJavaString( plain ) );
+        assertNull( this.getJomcTool().getHtmlString( null ) );
+        assertNull( this.getJomcTool().getXmlString( null ) );
+        assertNull( this.getJomcTool().getJavaString( null ) );
+
+        assertEquals( "&lt;a href=&quot;x&quot;&gt;&amp;&lowast;&lt;/a&gt;",
+                      this.getJomcTool().getHtmlString( "<a href=\"x\">&*</a>" ) );
+
+        assertEquals( "&lt;a&gt;&apos;&amp;&#228;", this.getJomcTool().getXmlString( "<a>'&\u00e4" ) );
+        assertEquals( "\\\"\\\\\\n\\u00E4", this.getJomcTool().getJavaString( "\"\\\n\u00e4" ) );
+
+        assertSame( this.getJomcTool().toJavaConstantName( "test name" ),
+                    this.getJomcTool().toJavaConstantName( "test name" ) );
+
+        assertSame( this.getJomcTool().toJavaMethodName( "test name" ),
+                    this.getJomcTool().toJavaMethodName( "test name" ) );
+
+        assertSame( this.getJomcTool().toJavaVariableName( "test name" ),
+                    this.getJomcTool().toJavaVariableName( "test name" ) );
+
+        assertSame( this.getJomcTool().getBooleanString( Boolean.TRUE ),
+                    this.getJomcTool().getBooleanString( Boolean.TRUE ) );
+
+        final StringBuilder all = new StringBuilder( 0x400 );
+
+        for ( char c = 0; c < 0x400; c++ )
+        {
+            all.append( c );
+        }
+
+        for ( final String str : new String[]
+        {
+            "", plain, all.toString(), "\t\"\\/'\u007f\u0080", "<a href=\"x\">&amp;*</a>", "\ud83d\ude00"
+        } )
+        {
+            assertEquals( StringEscapeUtils.escapeJava( str ), this.getJomcTool().getJavaString( str ) );
+            assertEquals( StringEscapeUtils.escapeXml( str ), this.getJomcTool().getXmlString( str ) );
+            assertEquals( str.replace( "&", "&amp;" ).replace( "<", "&lt;" ).replace( ">", "&gt;" ).
+                replace( "\"", "&quot;" ).replace( "*", "&lowast;" ), this.getJomcTool().getHtmlString( str ) );
+
+        }
+    }
+
+    @Test
+    public final void testDateFormats() throws Exception
+    {
+        final Calendar now = Calendar.getInstance();
+        final Locale locale = this.getJomcTool().getLocale();
+
+        try
+        {
+            for ( final Locale l : new Locale[]
+            {
+                Locale.ENGLISH, Locale.GERMAN, Locale.ENGLISH
+            } )
+            {
+                this.getJomcTool().setLocale( l );
+
+                for ( int i = 0; i < 2; i++ )
+                {
+                    assertEquals( DateFormat.getDateInstance( DateFormat.SHORT, l ).format( now.getTime() ),
+                                  this.getJomcTool().getShortDate( now ) );
+
+                    assertEquals( DateFormat.getTimeInstance( DateFormat.LONG, l ).format( now.getTime() ),
+                                  this.getJomcTool().getLongTime( now ) );
+
+                    assertEquals( DateFormat.getDateTimeInstance( DateFormat.MEDIUM, DateFormat.MEDIUM, l ).
+                        format( now.getTime() ), this.getJomcTool().getMediumDateTime( now ) );
+
+                    assertEquals( new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ssXXX", l ).format( now.getTime() ),
+                                  this.getJomcTool().getIsoDateTime( now ) );
+
+                }
+            }
+        }
+        finally
+        {
+            this.getJomcTool().setLocale( locale );
+        }
+    }
+
+    @Test
+    public final void testInvalidateModifiedTemplates() throws Exception
+    {
+        final File templateLocation = this.getNextOutputDirectory();
+        final File templatesDir = new File( templateLocation, "org/jomc/tools/templates/tmp" );
+        assertTrue( templatesDir.mkdirs() );
+
+        final File included = new File( templatesDir, "included.vm" );
+        FileUtils.writeStringToFile( included, "Included", "US-ASCII" );
+        FileUtils.writeStringToFile( new File( templatesDir, "test.vm" ),
+                                     "#parse( 'org/jomc/tools/templates/tmp/included.vm' )", "US-ASCII" );
+
+        FileUtils.writeStringToFile( new File( templatesDir, "other.vm" ), "Other", "US-ASCII" );
+
+        final JomcTool tool = this.newJomcTool();
+        tool.setTemplateLocation( templateLocation.toURI().toURL() );
+        tool.setTemplateProfile( "tmp" );
+        tool.setLocale( Locale.ENGLISH );
+
+        final Template other = tool.getVelocityTemplate( "other.vm" );
+        assertEquals( "Included", this.merge( tool, tool.getVelocityTemplate( "test.vm" ) ) );
+        assertEquals( 0, tool.invalidateModifiedTemplates() );
+        assertSame( other, tool.getVelocityTemplate( "other.vm" ) );
+
+        FileUtils.writeStringToFile( included, "Modified", "US-ASCII" );
+        assertTrue( included.setLastModified( included.lastModified() + 2000L ) );
+        assertEquals( 1, tool.invalidateModifiedTemplates() );
+        assertEquals( "Modified", this.merge( tool, tool.getVelocityTemplate( "test.vm" ) ) );
+        assertSame( other, tool.getVelocityTemplate( "other.vm" ) );
+
+        FileUtils.writeStringToFile( new File( templatesDir, "en/other.vm" ), "Localized", "US-ASCII" );
+        assertEquals( 1, tool.invalidateModifiedTemplates() );
+        assertEquals( "Localized", this.merge( tool, tool.getVelocityTemplate( "other.vm" ) ) );
+    }
+
+    @Test
+    public final void testSharedVelocityEngineLogging() throws Exception
+    {
+        final File templateLocation = this.getNextOutputDirectory();
+        final File templatesDir = new File( templateLocation, "org/jomc/tools/templates/tmp" );
+        assertTrue( templatesDir.mkdirs() );
+        FileUtils.writeStringToFile( new File( templatesDir, "first.vm" ), "First", "US-ASCII" );
+        FileUtils.writeStringToFile( new File( templatesDir, "second.vm" ), "Second", "US-ASCII" );
+
+        final JomcTool tool1 = this.newJomcTool();
+        final JomcTool tool2 = this.newJomcTool();
+        final List<String> messages1 = this.recordLog( tool1 );
+        final List<String> messages2 = this.recordLog( tool2 );
+
+        for ( final JomcTool tool : Arrays.asList( tool1, tool2 ) )
+        {
+            tool.setTemplateLocation( templateLocation.toURI().toURL() );
+            tool.setTemplateProfile( "tmp" );
+            tool.setLocale( Locale.ENGLISH );
+        }
+
+        assertSame( tool1.getVelocityEngine(), tool2.getVelocityEngine() );
+        assertEquals( "First", this.merge( tool1, tool1.getVelocityTemplate( "first.vm" ) ) );
+        assertEquals( "Second", this.merge( tool2, tool2.getVelocityTemplate( "second.vm" ) ) );
+
+        assertTrue( containsMessage( messages1, "ResourceManager", "first.vm" ) );
+        assertFalse( containsMessage( messages1, "", "second.vm" ) );
+        assertTrue( containsMessage( messages2, "ResourceManager", "second.vm" ) );
+        assertFalse( containsMessage( messages2, "", "first.vm" ) );
+    }
+
+    private List<String> recordLog( final JomcTool tool )
+    {
+        final List<String> messages = Collections.synchronizedList( new ArrayList<String>() );
+        tool.getListeners().clear();
+        tool.getListeners().add( new JomcTool.Listener()
+        {
+
+            @Override
+            public void onLog( final Level level, final String message, final Throwable throwable )
+            {
+                messages.add( message );
+            }
+
+        } );
+
+        tool.setLogLevel( Level.ALL );
+        tool.setAsynchronousLoggingEnabled( false );
+        return messages;
+    }
+
+    private static boolean containsMessage( final List<String> messages, final String... parts )
+    {
+        synchronized ( messages )
+        {
+            for ( final String message : messages )
+            {
+                boolean found = message != null;
+
+                for ( int i = 0; found && i < parts.length; i++ )
+                {
+                    found = message.contains( parts[i] );
+                }
+
+                if ( found )
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private String merge( final JomcTool tool, final Template template ) throws Exception
+    {
+        final StringWriter writer = new StringWriter();
+        template.merge( tool.getVelocityContext(), writer );
+        return writer.toString();
+    }
+
+    @Test
+    public final void testAsynchronousLogging() throws Exception
+    {
+        final JomcTool tool = this.newJomcTool();
+        final List<String> messages = Collections.synchronizedList( new ArrayList<String>() );
+        tool.getListeners().clear();
+        tool.getListeners().add( new JomcTool.Listener()
+        {
+
+            @Override
+            public void onLog( final Level level, final String message, final Throwable throwable )
+            {
+                messages.add( message );
+            }
+
+        } );
+
+        tool.setLogLevel( Level.ALL );
+        tool.setAsynchronousLoggingEnabled( true );
+        tool.setLogQueueCapacity( 16 );
+        assertTrue( tool.isAsynchronousLoggingEnabled() );
+        assertEquals( LogOverflowPolicy.BLOCK, tool.getLogOverflowPolicy() );
+
+        for ( int i = 0; i < 10000; i++ )
+        {
+            tool.log( Level.FINE, Integer.toString( i ), null );
+        }
+
+        tool.flushLog();
+        assertEquals( 10000, messages.size() );
+
+        for ( int i = 0; i < 10000; i++ )
+        {
+            assertEquals( Integer.toString( i ), messages.get( i ) );
+        }
+
+        messages.clear();
+        tool.getListeners().add( new JomcTool.Listener()
+        {
+
+            @Override
+            public void onLog( final Level level, final String message, final Throwable throwable )
+            {
+                try
+                {
+                    Thread.sleep( 1L );
+                }
+                catch ( final InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+        } );
+
+        tool.setLogOverflowPolicy( LogOverflowPolicy.DISCARD );
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            tool.log( Level.FINE, Integer.toString( i ), null );
+        }
+
+        tool.log( Level.SEVERE, "SEVERE", null );
+        tool.flushLog();
+
+        assertTrue( messages.size() < 1002 );
+        assertTrue( messages.contains( "SEVERE" ) );
+        assertEquals( "SEVERE", messages.get( messages.size() - 2 ) );
+
+        tool.setLogOverflowPolicy( LogOverflowPolicy.BLOCK );
+        messages.clear();
+        tool.getListeners().set( 1, new JomcTool.Listener()
+        {
+
+            @Override
+            public void onLog( final Level level, final String message, final Throwable throwable )
+            {
+                if ( "FAIL".equals( message ) )
+                {
+                    throw new IllegalStateException( message );
+                }
+            }
+
+        } );
+
+        tool.log( Level.INFO, "FAIL", null );
+        tool.log( Level.INFO, "AFTER", null );
+
+        try
+        {
+            tool.flushLog();
+            fail( "Expected IllegalStateException not thrown." );
+        }
+        catch ( final IllegalStateException e )
+        {
+            assertEquals( "FAIL", e.getMessage() );
+        }
+
+        assertEquals( Arrays.asList( "FAIL", "AFTER" ), messages );
+        tool.flushLog();
+        tool.getListeners().remove( 1 );
+
+        messages.clear();
+        tool.setAsynchronousLoggingEnabled( false );
+        tool.log( Level.INFO, "INFO", null );
+        assertEquals( Arrays.asList( "INFO" ), messages );
+    }
+
+    @Test
+    public final void testMetrics() throws Exception
+    {
+        final JomcTool tool = this.newJomcTool();
+        assertNotNull( tool.getMetrics() );
+
+        final DefaultToolMetrics metrics = new DefaultToolMetrics();
+        tool.setMetrics( metrics );
+        assertSame( metrics, tool.getMetrics() );
+        assertSame( metrics, new JomcTool( tool ).getMetrics() );
+
+        tool.getVelocityTemplate( "Implementation.java.vm" );
+        tool.getVelocityTemplate( "Implementation.java.vm" );
+
+        assertEquals( 1, metrics.getTemplateStatistics().length );
+
+        final TemplateStatistics templateStatistics = metrics.getTemplateStatistics()[0];
+        assertEquals( tool.getTemplateProfile(), templateStatistics.getTemplateProfile() );
+        assertEquals( "Implementation.java.vm", templateStatistics.getTemplateName() );
+        assertEquals( 2L, templateStatistics.getRequestCount() );
+        assertTrue( templateStatistics.getHitCount() >= 1L );
+        assertEquals( 0L, templateStatistics.getMergeCount() );
+
+        for ( int i = 1; i <= 100; i++ )
+        {
+            metrics.onTemplateMerge( "profile", "template", i, 10L );
+        }
+
+        metrics.onFileProcessed( "operation", "fast", 1L );
+        metrics.onFileProcessed( "operation", "slow", 100L );
+
+        for ( final TemplateStatistics statistics : metrics.getTemplateStatistics() )
+        {
+            if ( "template".equals( statistics.getTemplateName() ) )
+            {
+                assertEquals( 100L, statistics.getMergeCount() );
+                assertEquals( 5050L, statistics.getTotalMergeTime() );
+                assertEquals( 100L, statistics.getMaxMergeTime() );
+                assertEquals( 50L, statistics.getMedianMergeTime() );
+                assertEquals( 90L, statistics.getPercentile90MergeTime() );
+                assertEquals( 99L, statistics.getPercentile99MergeTime() );
+                assertEquals( 1000L, statistics.getTotalOutputLength() );
+            }
+        }
+
+        assertEquals( 1, metrics.getFileStatistics().length );
+        assertEquals( 2L, metrics.getFileStatistics()[0].getFileCount() );
+        assertEquals( 101L, metrics.getFileStatistics()[0].getTotalTime() );
+        assertEquals( "slow", metrics.getFileStatistics()[0].getSlowestFileName() );
+
+        metrics.reset();
+        assertEquals( 0, metrics.getTemplateStatistics().length );
+        assertEquals( 0, metrics.getFileStatistics().length );
+    }
+
+    @Test
+    public final void testConcurrencyLimit() throws Exception
+    {
+        final JomcTool tool = this.newJomcTool();
+        assertEquals( 0, tool.getConcurrencyLimit() );
+
+        try
+        {
+            tool.setConcurrencyLimit( -1 );
+            fail( "Expected IllegalArgumentException not thrown." );
+        }
+        catch ( final IllegalArgumentException e )
+        {
+            assertIllegalArgumentException( e );
+        }
+
+        tool.setConcurrencyLimit( 1 );
+        assertEquals( 1, tool.getConcurrencyLimit() );
+        assertEquals( 1, new JomcTool( tool ).getConcurrencyLimit() );
+        assertNotNull( tool.getVelocityTemplate( "Implementation.java.vm" ) );
+
+        tool.setConcurrencyLimit( null );
+        assertEquals( 0, tool.getConcurrencyLimit() );
+    }
+
+    @Test
+    public final void testVirtualThreadsConcurrencyLimit() throws Exception
+    {
+        final int processors = Runtime.getRuntime().availableProcessors();
+
+        assertNull( JomcTool.getVirtualThreadsConcurrencyLimit( null ) );
+        assertNull( JomcTool.getVirtualThreadsConcurrencyLimit( "2" ) );
+        assertNull( JomcTool.getVirtualThreadsConcurrencyLimit( "1.0C" ) );
+        assertNull( JomcTool.getVirtualThreadsConcurrencyLimit( "virtualfoo" ) );
+        assertEquals( Integer.valueOf( processors ), JomcTool.getVirtualThreadsConcurrencyLimit( "virtual" ) );
+        assertEquals( Integer.valueOf( processors ), JomcTool.getVirtualThreadsConcurrencyLimit( "VIRTUAL" ) );
+        assertEquals( Integer.valueOf( 2 ), JomcTool.getVirtualThreadsConcurrencyLimit( "virtual:2" ) );
+        assertEquals( Integer.valueOf( 2 * processors ), JomcTool.getVirtualThreadsConcurrencyLimit( "virtual:2c" ) );
+        assertEquals( Integer.valueOf( 1 ), JomcTool.getVirtualThreadsConcurrencyLimit( "virtual:0" ) );
+
+        for ( final String formula : new String[]
+        {
+            "virtual:", "virtual:c", "virtual:foo", "virtual:-1"
+        } )
+        {
+            try
+            {
+                JomcTool.getVirtualThreadsConcurrencyLimit( formula );
+                fail( "Expected IllegalArgumentException not thrown for '" + formula + "'." );
+            }
+            catch ( final IllegalArgumentException e )
+            {
+                assertIllegalArgumentException( e );
+            }
+        }
+
+        assertEquals( 2, JomcTool.getThreadCount( "2" ) );
+        assertEquals( processors, JomcTool.getThreadCount( "1.0C" ) );
+
+        for ( final String formula : new String[]
+        {
+            "", "c", "foo", "virtual", "-2"
+        } )
+        {
+            try
+            {
+                JomcTool.getThreadCount( formula );
+                fail( "Expected IllegalArgumentException not thrown for '" + formula + "'." );
+            }
+            catch ( final IllegalArgumentException e )
+            {
+                assertIllegalArgumentException( e );
+            }
+        }
+
+        final ExecutorService executorService = JomcTool.newVirtualThreadPerTaskExecutor( "jomc-tools-test-" );
+
+        if ( executorService != null )
+        {
+            try
+            {
+                assertEquals( Boolean.TRUE, executorService.submit( new Callable<Boolean>()
+                {
+
+                    @Override
+                    public Boolean call() throws Exception
+                    {
+                        return Thread.currentThread().getName().startsWith( "jomc-tools-test-" );
+                    }
+
+                } ).get() );
+            }
+            finally
+            {
+                executorService.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public final void testFileLocking() throws Exception
+    {
+        final JomcTool tool = this.newJomcTool();
+        assertEquals( FileLocking.OPERATING_SYSTEM, tool.getFileLocking() );
+
+        tool.setFileLocking( FileLocking.STRIPED );
+        assertEquals( FileLocking.STRIPED, tool.getFileLocking() );
+        assertEquals( FileLocking.STRIPED, new JomcTool( tool ).getFileLocking() );
+
+        tool.setFileLocking( null );
+        assertEquals( FileLocking.OPERATING_SYSTEM, tool.getFileLocking() );
+    }
+
     @Test
     public final void testDefaultTemplateEncoding() throws Exception
     {
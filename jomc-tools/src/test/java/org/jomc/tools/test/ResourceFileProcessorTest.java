@@ -32,12 +32,26 @@ package org.jomc.tools.test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import org.jomc.model.Implementation;
 import org.jomc.model.Module;
 import org.jomc.model.Specification;
 import org.jomc.modlet.Model;
+import org.jomc.tools.FileLocking;
 import org.jomc.tools.ResourceFileProcessor;
 import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -268,6 +282,85 @@ public class ResourceFileProcessorTest extends JomcToolTest
 
     }
 
+    @Test
+    public final void testWriteResourceBundleResourceFilesFileLocking() throws Exception
+    {
+        try
+        {
+            for ( final FileLocking fileLocking : FileLocking.values() )
+            {
+                final File resourcesDirectory = this.getNextOutputDirectory();
+                assertTrue( resourcesDirectory.mkdirs() );
+
+                this.getJomcTool().setFileLocking( fileLocking );
+                assertEquals( fileLocking, this.getJomcTool().getFileLocking() );
+                this.getJomcTool().writeResourceBundleResourceFiles( resourcesDirectory );
+                this.getJomcTool().writeResourceBundleResourceFiles( resourcesDirectory );
+                assertNoTemporaryFiles( resourcesDirectory );
+            }
+        }
+        finally
+        {
+            this.getJomcTool().setFileLocking( null );
+        }
+    }
+
+    @Test
+    public final void testWriteResourceBundleResourceFilesReplacesLinkTargets() throws Exception
+    {
+        final File resourcesDirectory = this.getNextOutputDirectory();
+        assertTrue( resourcesDirectory.mkdirs() );
+        this.getJomcTool().writeResourceBundleResourceFiles( resourcesDirectory );
+
+        if ( Files.getFileAttributeView( resourcesDirectory.toPath(), PosixFileAttributeView.class ) == null )
+        {
+            return;
+        }
+
+        // New files get the permissions of the umask.
+        final Path defaultFile = Files.createFile( this.getNextOutputDirectory().toPath() );
+        final Set<PosixFilePermission> defaultPermissions = Files.getPosixFilePermissions( defaultFile );
+        Files.delete( defaultFile );
+
+        final Path targets = resourcesDirectory.toPath();
+        final Path links = this.getNextOutputDirectory().toPath();
+        final Set<PosixFilePermission> permissions = PosixFilePermissions.fromString( "rw-r-----" );
+        final List<Path> files = new ArrayList<>();
+
+        Files.walkFileTree( targets, new SimpleFileVisitor<Path>()
+        {
+
+            @Override
+            public FileVisitResult visitFile( final Path file, final BasicFileAttributes attributes )
+                throws IOException
+            {
+                assertFalse( file.getFileName().toString().endsWith( ".lock" ) );
+                assertFalse( file.getFileName().toString().endsWith( ".tmp" ) );
+                assertEquals( defaultPermissions, Files.getPosixFilePermissions( file ) );
+
+                final Path link = links.resolve( targets.relativize( file ) );
+                Files.createDirectories( link.getParent() );
+                Files.createSymbolicLink( link, file );
+                Files.setPosixFilePermissions( file, permissions );
+                files.add( file );
+                return FileVisitResult.CONTINUE;
+            }
+
+        } );
+
+        assertFalse( files.isEmpty() );
+        this.getJomcTool().writeResourceBundleResourceFiles( links.toFile() );
+
+        for ( final Path file : files )
+        {
+            assertTrue( Files.isSymbolicLink( links.resolve( targets.relativize( file ) ) ) );
+            assertEquals( permissions, Files.getPosixFilePermissions( file ) );
+        }
+
+        assertNoTemporaryFiles( resourcesDirectory );
+        assertNoTemporaryFiles( links.toFile() );
+    }
+
     @Test
     public final void testCopyConstructor() throws Exception
     {
@@ -312,4 +405,19 @@ public class ResourceFileProcessorTest extends JomcToolTest
         this.getJomcTool().setModel( oldModel );
     }
 
+    private static void assertNoTemporaryFiles( final File directory )
+    {
+        for ( final File file : directory.listFiles() )
+        {
+            if ( file.isDirectory() )
+            {
+                assertNoTemporaryFiles( file );
+            }
+            else
+            {
+                assertFalse( file.getAbsolutePath(), file.getName().endsWith( ".tmp" ) );
+            }
+        }
+    }
+
 }
@@ -32,6 +32,7 @@ package org.jomc.tools.test;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
@@ -40,18 +41,31 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.List;
 import org.jomc.model.Implementation;
+import org.jomc.model.Implementations;
+import org.jomc.model.ModelObject;
 import org.jomc.model.Module;
+import org.jomc.model.Modules;
 import org.jomc.model.Specification;
+import org.jomc.model.Specifications;
+import org.jomc.model.modlet.ModelHelper;
 import org.jomc.modlet.Model;
+import org.jomc.tools.Durability;
 import org.jomc.tools.SourceFileProcessor;
+import org.jomc.tools.model.SourceFileType;
+import org.jomc.tools.model.SourceSectionType;
+import org.jomc.tools.model.SourceSectionsType;
+import org.jomc.tools.modlet.ToolsModelProvider;
 import org.jomc.util.SectionEditor;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 /**
  * Test cases for class {@code org.jomc.tools.SourceFileProcessor}.
@@ -68,6 +82,11 @@ public class SourceFileProcessorTest extends JomcToolTest
     private static final String ABSOLUTE_RESOURCE_NAME_PREFIX =
         "/" + SourceFileProcessorTest.class.getPackage().getName().replace( '.', '/' ) + "/";
 
+    /**
+     * Constant for the name of the system property enabling the benchmarks of the test.
+     */
+    private static final String BENCHMARK_PROPERTY_NAME = "jomc.test.benchmark";
+
     /**
      * Creates a new {@code SourceFileProcessorTest} instance.
      */
@@ -584,6 +603,16 @@ public class SourceFileProcessorTest extends JomcToolTest
         assertNotNull( this.getJomcTool().getSourceFileEditor() );
         this.getJomcTool().setSourceFileEditor( null );
         assertNotNull( this.getJomcTool().getSourceFileEditor() );
+
+        this.getJomcTool().setSourceFileEditor( null );
+        final SourceFileProcessor tool = new SourceFileProcessor( this.getJomcTool() );
+        tool.setExecutorService( null );
+        tool.manageSourceFiles( this.getNextOutputDirectory() );
+
+        // The default editor used by the instance is not shared with copies until it has been handed out.
+        final SourceFileProcessor copy = new SourceFileProcessor( tool );
+        assertNotSame( tool.getSourceFileEditor(), copy.getSourceFileEditor() );
+        assertSame( tool.getSourceFileEditor(), new SourceFileProcessor( tool ).getSourceFileEditor() );
     }
 
     @Test
@@ -630,6 +659,453 @@ public class SourceFileProcessorTest extends JomcToolTest
         this.getJomcTool().setModel( oldModel );
     }
 
+    @Test
+    public final void testDurability() throws Exception
+    {
+        this.getJomcTool().setInputEncoding( this.getResourceEncoding() );
+        this.getJomcTool().setOutputEncoding( this.getResourceEncoding() );
+
+        this.getJomcTool().setDurability( null );
+        assertEquals( Durability.FILE, this.getJomcTool().getDurability() );
+
+        try
+        {
+            for ( final Durability durability : Durability.values() )
+            {
+                final File sourcesDirectory = this.getNextOutputDirectory();
+                final File implementationSourceFile = new File( sourcesDirectory, "Implementation.java" );
+                assertTrue( sourcesDirectory.mkdirs() );
+
+                this.getJomcTool().setDurability( durability );
+                this.getJomcTool().manageSourceFiles( sourcesDirectory );
+                assertTrue( implementationSourceFile.isFile() );
+
+                final String content = this.toString( implementationSourceFile );
+                this.getJomcTool().manageSourceFiles( sourcesDirectory );
+                assertEquals( content, this.toString( implementationSourceFile ) );
+
+                for ( final String name : sourcesDirectory.list() )
+                {
+                    assertFalse( name.endsWith( ".tmp" ) );
+                }
+            }
+        }
+        finally
+        {
+            this.getJomcTool().setDurability( null );
+        }
+    }
+
+    @Test
+    public final void testSectionCache() throws Exception
+    {
+        this.getJomcTool().setInputEncoding( this.getResourceEncoding() );
+        this.getJomcTool().setOutputEncoding( this.getResourceEncoding() );
+
+        final File cacheDirectory = this.getNextOutputDirectory();
+        final File sourcesDirectory = this.getNextOutputDirectory();
+        final File cachedSourcesDirectory = this.getNextOutputDirectory();
+        assertTrue( sourcesDirectory.mkdirs() );
+        assertTrue( cachedSourcesDirectory.mkdirs() );
+
+        try
+        {
+            this.getJomcTool().setSectionCacheEnabled( true );
+            this.getJomcTool().setSectionCacheDirectory( cacheDirectory );
+            assertTrue( this.getJomcTool().isSectionCacheEnabled() );
+            assertEquals( cacheDirectory, this.getJomcTool().getSectionCacheDirectory() );
+
+            this.getJomcTool().manageSourceFiles( sourcesDirectory );
+            final long hits = this.getJomcTool().getSectionCacheHits();
+            assertTrue( this.getJomcTool().getSectionCacheMisses() > 0L );
+
+            this.getJomcTool().manageSourceFiles( cachedSourcesDirectory );
+            assertTrue( this.getJomcTool().getSectionCacheHits() > hits );
+            assertEquals( this.toString( new File( sourcesDirectory, "Implementation.java" ) ),
+                          this.toString( new File( cachedSourcesDirectory, "Implementation.java" ) ) );
+
+            // Editing directly after changing settings must not use sections of the previous run.
+            final Implementation implementation = this.getJomcTool().getModules().getImplementation( "Implementation" );
+            final SourceFileType sourceFileType =
+                this.getJomcTool().getSourceFilesType( implementation ).getSourceFile().get( 0 );
+
+            final File editedDirectory = this.getNextOutputDirectory();
+            final File uncachedDirectory = this.getNextOutputDirectory();
+            assertTrue( editedDirectory.mkdirs() );
+            assertTrue( uncachedDirectory.mkdirs() );
+
+            this.getJomcTool().setIndentation( "\t" );
+            this.getJomcTool().getSourceFileEditor().edit( implementation, sourceFileType, editedDirectory );
+
+            this.getJomcTool().setSectionCacheEnabled( false );
+            final long disabledHits = this.getJomcTool().getSectionCacheHits();
+            final long disabledMisses = this.getJomcTool().getSectionCacheMisses();
+            this.getJomcTool().getSourceFileEditor().edit( implementation, sourceFileType, uncachedDirectory );
+            assertEquals( disabledHits, this.getJomcTool().getSectionCacheHits() );
+            assertEquals( disabledMisses, this.getJomcTool().getSectionCacheMisses() );
+            assertEquals( this.toString( new File( uncachedDirectory, sourceFileType.getLocation() ) ),
+                          this.toString( new File( editedDirectory, sourceFileType.getLocation() ) ) );
+
+            // Sections not used for longer than the maximum age are pruned.
+            this.getJomcTool().setSectionCacheEnabled( true );
+            this.getJomcTool().setSectionCacheMaxAge( 1 );
+            assertEquals( 1, this.getJomcTool().getSectionCacheMaxAge() );
+
+            final File expired = new File( cacheDirectory, "expired" );
+            Files.write( expired.toPath(), new byte[ 0 ] );
+            assertTrue( expired.setLastModified( System.currentTimeMillis() - 2L * 24L * 60L * 60L * 1000L ) );
+
+            this.getJomcTool().manageSourceFiles( cachedSourcesDirectory );
+            assertFalse( expired.exists() );
+            assertTrue( cacheDirectory.list().length > 0 );
+        }
+        finally
+        {
+            this.getJomcTool().setSectionCacheEnabled( null );
+            this.getJomcTool().setSectionCacheDirectory( null );
+            this.getJomcTool().setSectionCacheMaxAge( null );
+            this.getJomcTool().setIndentation( null );
+        }
+    }
+
+    @Test
+    public final void testSectionCacheTemplateVariablesAndDependencies() throws Exception
+    {
+        final File templateLocation = this.getNextOutputDirectory();
+        final File templatesDir = new File( templateLocation, "org/jomc/tools/templates/tmp" );
+        assertTrue( templatesDir.mkdirs() );
+
+        final File included = new File( templatesDir, "included.vm" );
+        Files.write( new File( templatesDir, "file.vm" ).toPath(),
+                     "// SECTION-START[Test]\n// SECTION-END\n".getBytes( "US-ASCII" ) );
+
+        Files.write( new File( templatesDir, "head.vm" ).toPath(),
+                     "#set( $greeting = 'Hello' )#parse( 'org/jomc/tools/templates/tmp/included.vm' )\n".
+                         getBytes( "US-ASCII" ) );
+
+        Files.write( new File( templatesDir, "tail.vm" ).toPath(), "Tail ${greeting}\n".getBytes( "US-ASCII" ) );
+        Files.write( included.toPath(), "Head ${greeting}".getBytes( "US-ASCII" ) );
+
+        final SourceSectionType sourceSectionType = new SourceSectionType();
+        sourceSectionType.setName( "Test" );
+        sourceSectionType.setHeadTemplate( "head.vm" );
+        sourceSectionType.setTailTemplate( "tail.vm" );
+
+        final SourceFileType sourceFileType = new SourceFileType();
+        sourceFileType.setIdentifier( "Test" );
+        sourceFileType.setLocation( "Test.java" );
+        sourceFileType.setTemplate( "file.vm" );
+        sourceFileType.setSourceSections( new SourceSectionsType() );
+        sourceFileType.getSourceSections().getSourceSection().add( sourceSectionType );
+
+        final Implementation implementation = this.getJomcTool().getModules().getImplementation( "Implementation" );
+        final File[] directories =
+        {
+            this.getNextOutputDirectory(), this.getNextOutputDirectory(), this.getNextOutputDirectory()
+        };
+
+        for ( final File directory : directories )
+        {
+            assertTrue( directory.mkdirs() );
+        }
+
+        try
+        {
+            this.getJomcTool().setTemplateLocation( templateLocation.toURI().toURL() );
+            this.getJomcTool().setTemplateProfile( "tmp" );
+            this.getJomcTool().setSectionCacheEnabled( true );
+
+            // Variables set by a template do not keep sections from being cached.
+            this.getJomcTool().getSourceFileEditor().edit( implementation, sourceFileType, directories[0] );
+            final long hits = this.getJomcTool().getSectionCacheHits();
+            final String content = this.toString( new File( directories[0], "Test.java" ) );
+            assertTrue( content.contains( "Head Hello" ) );
+            assertTrue( content.contains( "Tail Hello" ) );
+
+            this.getJomcTool().getSourceFileEditor().edit( implementation, sourceFileType, directories[1] );
+            assertEquals( hits + 2L, this.getJomcTool().getSectionCacheHits() );
+            assertEquals( content, this.toString( new File( directories[1], "Test.java" ) ) );
+
+            // Modifying a parsed template invalidates the sections of the parsing template.
+            Files.write( included.toPath(), "Modified ${greeting}".getBytes( "US-ASCII" ) );
+            assertTrue( included.setLastModified( included.lastModified() + 2000L ) );
+            assertTrue( this.getJomcTool().invalidateModifiedTemplates() > 0 );
+
+            this.getJomcTool().getSourceFileEditor().edit( implementation, sourceFileType, directories[2] );
+            assertTrue( this.toString( new File( directories[2], "Test.java" ) ).contains( "Modified Hello" ) );
+        }
+        finally
+        {
+            this.getJomcTool().setTemplateLocation( null );
+            this.getJomcTool().setTemplateProfile( null );
+            this.getJomcTool().setSectionCacheEnabled( null );
+        }
+    }
+
+    @Test
+    public final void testSourceFilesManifest() throws Exception
+    {
+        this.getJomcTool().setInputEncoding( this.getResourceEncoding() );
+        this.getJomcTool().setOutputEncoding( this.getResourceEncoding() );
+
+        final File sourcesDirectory = this.getNextOutputDirectory();
+        final File implementationSourceFile = new File( sourcesDirectory, "Implementation.java" );
+        final File manifest = new File( this.getNextOutputDirectory(), "jomc-sources.properties" );
+        assertTrue( sourcesDirectory.mkdirs() );
+
+        try
+        {
+            this.getJomcTool().setSourceFilesManifest( manifest );
+            assertEquals( manifest, this.getJomcTool().getSourceFilesManifest() );
+
+            this.getJomcTool().manageSourceFiles( sourcesDirectory );
+            assertTrue( manifest.isFile() );
+            assertTrue( implementationSourceFile.isFile() );
+
+            final long implementationSourceFileLastModified = implementationSourceFile.lastModified();
+            this.getJomcTool().manageSourceFiles( sourcesDirectory );
+            assertEquals( implementationSourceFileLastModified, implementationSourceFile.lastModified() );
+
+            assertTrue( implementationSourceFile.delete() );
+            this.getJomcTool().manageSourceFiles( sourcesDirectory );
+            assertTrue( implementationSourceFile.isFile() );
+
+            // Modifying model objects a source file is not managed for keeps the file up to date.
+            final String fingerprint = getManifestFingerprint( manifest, implementationSourceFile );
+            assertNotNull( fingerprint );
+
+            final Module module = new Module();
+            module.setName( "testSourceFilesManifest" );
+            this.getJomcTool().getModules().getModule().add( module );
+
+            try
+            {
+                this.getJomcTool().manageSourceFiles( sourcesDirectory );
+                assertEquals( fingerprint, getManifestFingerprint( manifest, implementationSourceFile ) );
+            }
+            finally
+            {
+                this.getJomcTool().getModules().getModule().remove( module );
+            }
+
+            // Modifying the model object a source file is managed for does not.
+            final Implementation implementation = this.getJomcTool().getModules().getImplementation( "Implementation" );
+            final String version = implementation.getVersion();
+            implementation.setVersion( "testSourceFilesManifest" );
+
+            try
+            {
+                this.getJomcTool().manageSourceFiles( sourcesDirectory );
+                assertFalse( fingerprint.equals( getManifestFingerprint( manifest, implementationSourceFile ) ) );
+            }
+            finally
+            {
+                implementation.setVersion( version );
+            }
+        }
+        finally
+        {
+            this.getJomcTool().setSourceFilesManifest( null );
+        }
+    }
+
+    private static String getManifestFingerprint( final File manifest, final File file ) throws IOException
+    {
+        final java.util.Properties properties = new java.util.Properties();
+
+        try ( final InputStream in = new FileInputStream( manifest ) )
+        {
+            properties.load( in );
+        }
+
+        final String entry = properties.getProperty( file.getAbsolutePath() );
+        return entry != null ? entry.substring( 0, entry.indexOf( ',' ) ) : null;
+    }
+
+    @Test
+    public final void testManageSourceFilesImplementationIndex() throws Exception
+    {
+        final Model oldModel = this.getJomcTool().getModel();
+
+        try
+        {
+            final Model model = new ToolsModelProvider().findModel( this.getModelContext(), newLargeModel( 30 ) );
+            assertNotNull( model );
+            this.getJomcTool().setModel( model );
+            this.assertManageSourceFilesLinearLookup();
+
+            // Implementations found first by the index are removed in place. Runs do not share an index.
+            final Module module = ModelHelper.getModules( model ).getModule( "LargeModel" );
+
+            for ( int i = module.getImplementations().getImplementation().size() - 1; i >= 0; i-- )
+            {
+                if ( module.getImplementations().getImplementation().get( i ).getIdentifier().
+                    startsWith( "org.jomc.tools.test.LargeModel.Implementation" ) )
+                {
+                    module.getImplementations().getImplementation().remove( i );
+                }
+            }
+
+            this.assertManageSourceFilesLinearLookup();
+        }
+        finally
+        {
+            this.getJomcTool().setModel( oldModel );
+        }
+    }
+
+    @Test
+    public final void testManageSourceFilesImplementationIndexBenchmark() throws Exception
+    {
+        // Compares the indexed lookup to the linear lookup it replaces on a model of 10000 types. The model carries
+        // no source files, so that only looking up the implementations of the specifications is measured.
+        assumeTrue( Boolean.getBoolean( BENCHMARK_PROPERTY_NAME ) );
+
+        final Model oldModel = this.getJomcTool().getModel();
+
+        try
+        {
+            this.getJomcTool().setModel( newLargeModel( 10000 ) );
+
+            final Modules modules = this.getJomcTool().getModules();
+            final File sourcesDirectory = this.getNextOutputDirectory();
+
+            long start = System.nanoTime();
+
+            for ( final Specification specification : modules.getSpecifications().getSpecification() )
+            {
+                this.getJomcTool().manageSourceFiles( specification, sourcesDirectory );
+            }
+
+            final long indexed = System.nanoTime() - start;
+            start = System.nanoTime();
+
+            for ( final Specification specification : modules.getSpecifications().getSpecification() )
+            {
+                Implementation implementation = null;
+
+                for ( final Implementation i : modules.getImplementations().getImplementation() )
+                {
+                    if ( i.isClassDeclaration() && specification.getClazz().equals( i.getClazz() ) )
+                    {
+                        implementation = i;
+                        break;
+                    }
+                }
+
+                if ( implementation != null )
+                {
+                    this.getJomcTool().manageSourceFiles( implementation, sourcesDirectory );
+                }
+                else
+                {
+                    this.getJomcTool().manageSourceFiles( specification, sourcesDirectory );
+                }
+            }
+
+            final long linear = System.nanoTime() - start;
+
+            System.out.println( this.getClass().getSimpleName() + ": 10000 types, indexed lookup "
+                                    + ( indexed / 1000000L ) + "ms, linear lookup " + ( linear / 1000000L ) + "ms." );
+
+        }
+        finally
+        {
+            this.getJomcTool().setModel( oldModel );
+        }
+    }
+
+    private void assertManageSourceFilesLinearLookup() throws IOException
+    {
+        final Modules modules = this.getJomcTool().getModules();
+        final File expectedDirectory = this.getNextOutputDirectory();
+        final File actualDirectory = this.getNextOutputDirectory();
+
+        for ( final Specification specification : modules.getSpecifications().getSpecification() )
+        {
+            Implementation implementation = null;
+
+            for ( final Implementation i : modules.getImplementations().getImplementation() )
+            {
+                if ( i.isClassDeclaration() && specification.getClazz().equals( i.getClazz() ) )
+                {
+                    implementation = i;
+                    break;
+                }
+            }
+
+            if ( implementation != null )
+            {
+                this.getJomcTool().manageSourceFiles( implementation, expectedDirectory );
+            }
+            else
+            {
+                this.getJomcTool().manageSourceFiles( specification, expectedDirectory );
+            }
+
+            this.getJomcTool().manageSourceFiles( specification, actualDirectory );
+        }
+
+        assertFalse( modules.getSpecifications().getSpecification().isEmpty() );
+
+        for ( final Specification specification : modules.getSpecifications().getSpecification() )
+        {
+            final String path = specification.getClazz().replace( '.', File.separatorChar ) + ".java";
+            final File expected = new File( expectedDirectory, path );
+            assertTrue( expected.getAbsolutePath(), expected.isFile() );
+            assertEquals( path, this.toString( expected ), this.toString( new File( actualDirectory, path ) ) );
+        }
+    }
+
+    private static Model newLargeModel( final int size )
+    {
+        final Module module = new Module();
+        module.setName( "LargeModel" );
+        module.setSpecifications( new Specifications() );
+        module.setImplementations( new Implementations() );
+
+        for ( int i = 0; i < size; i++ )
+        {
+            final Specification s = new Specification();
+            s.setIdentifier( "org.jomc.tools.test.LargeModel.Specification" + i );
+            s.setClassDeclaration( true );
+            s.setClazz( "org.jomc.tools.test.LargeModel.Type" + i );
+            module.getSpecifications().getSpecification().add( s );
+
+            // Every second specification is implemented by two implementations declaring the same class.
+            if ( i % 2 == 0 )
+            {
+                for ( final String name : new String[]
+                {
+                    "Implementation", "AlternativeImplementation"
+                } )
+                {
+                    final Implementation impl = new Implementation();
+                    impl.setIdentifier( "org.jomc.tools.test.LargeModel." + name + i );
+                    impl.setClassDeclaration( true );
+                    impl.setClazz( "org.jomc.tools.test.LargeModel.Type" + i );
+                    module.getImplementations().getImplementation().add( impl );
+                }
+            }
+            else if ( i % 3 == 0 )
+            {
+                final Implementation impl = new Implementation();
+                impl.setIdentifier( "org.jomc.tools.test.LargeModel.Implementation" + i );
+                impl.setClassDeclaration( true );
+                impl.setClazz( "org.jomc.tools.test.LargeModel.Type" + i );
+                module.getImplementations().getImplementation().add( impl );
+            }
+        }
+
+        final Modules modules = new Modules();
+        modules.getModule().add( module );
+
+        final Model model = new Model();
+        model.setIdentifier( ModelObject.MODEL_PUBLIC_ID );
+        ModelHelper.setModules( model, modules );
+        return model;
+    }
+
     private void copyResource( final String resourceName, final File file ) throws IOException
     {
         assertTrue( resourceName.startsWith( "/" ) );